@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2010-2016, 2026 ForgeRock AS.
  */
 package org.forgerock.opendj.reactive;
 
@@ -533,8 +533,16 @@ public final class LDAPClientConnection2 extends ClientConnection implements TLS
      *            The search result entry to be sent to the client
      */
     @Override
-    public void sendSearchEntry(final SearchOperation searchOperation, final SearchResultEntry searchEntry) {
-        getAttachedEmitter(searchOperation).onNext(toResponse(searchEntry));
+    public void sendSearchEntry(final SearchOperation searchOperation, final SearchResultEntry searchEntry)
+            throws DirectoryException {
+        final FlowableEmitter<Response> out = getAttachedEmitter(searchOperation);
+        if (out.isCancelled()) {
+            // The client stopped consuming the results (e.g. a blocked write timed out):
+            // stop the search rather than reading the remaining entries from the backend.
+            throw new DirectoryException(ResultCode.CANCELLED,
+                    ERR_IO_ERROR_ON_CLIENT_CONNECTION.get(getClientHostPort()));
+        }
+        out.onNext(toResponse(searchEntry));
     }
 
     private FlowableEmitter<Response> getAttachedEmitter(final Operation operation) {
@@ -1799,11 +1807,16 @@ public final class LDAPClientConnection2 extends ClientConnection implements TLS
 
         @Override
         public void onNext(final Response response) {
+            if (done || cancelled) {
+                // Nobody will ever consume this response: do not block the producer.
+                return;
+            }
             try {
                 if (queue.offer(response, writeTimeoutMillis, TimeUnit.MILLISECONDS)) {
                     drain();
                 } else {
-                    // If we've gotten here, then the write timed out.
+                    // If we've gotten here, then the write timed out: stop the producer and report the error.
+                    subscription.cancel();
                     onError(new ClosedChannelException().fillInStackTrace());
                     return;
                 }
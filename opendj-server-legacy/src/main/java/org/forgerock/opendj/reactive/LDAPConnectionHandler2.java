@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.forgerock.opendj.reactive;
 
@@ -44,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -669,6 +670,9 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
                     }
                 }, Options.defaultOptions()
                           .set(LDAPListener.CONNECT_MAX_BACKLOG, backlog)
+                          .set(LDAPListener.SO_REUSE_ADDRESS, allowReuseAddress)
+                          .set(LDAPListener.SO_KEEPALIVE, currentConfig.isUseTCPKeepAlive())
+                          .set(LDAPListener.TCP_NO_DELAY, currentConfig.isUseTCPNoDelay())
                           .set(LDAPListener.REQUEST_MAX_SIZE_IN_BYTES, (int) currentConfig.getMaxRequestSize()));
         logger.info(NOTE_CONNHANDLER_STARTED_LISTENING, handlerName);
     }
@@ -933,6 +937,11 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
                     trustMgrDN == null ? null : serverContext.getTrustManagerProvider(trustMgrDN).getTrustManagers();
             SSLContext sslContext = SSLContext.getInstance(SSL_CONTEXT_INSTANCE_NAME);
             sslContext.init(keyManagers, trustManagers, null);
+
+            // Let clients resume sessions rather than performing a full handshake on reconnection.
+            final SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+            sessionContext.setSessionCacheSize(config.getSSLSessionCacheSize());
+            sessionContext.setSessionTimeout((int) Math.min(config.getSSLSessionTimeout(), Integer.MAX_VALUE));
             return sslContext;
         } catch (Exception e) {
             logger.traceException(e);
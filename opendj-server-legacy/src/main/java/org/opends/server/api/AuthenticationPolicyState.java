@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2011-2016 ForgeRock AS.
+ * Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
@@ -19,6 +19,11 @@ import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.config.ConfigConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.AttributeDescription;
@@ -27,6 +32,7 @@ import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.GeneralizedTime;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
@@ -40,6 +46,41 @@ public abstract class AuthenticationPolicyState
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Maximum number of decoded generalized time values kept in {@link #DECODED_TIMES}. */
+  @VisibleForTesting
+  static final int MAX_DECODED_TIMES = 16384;
+
+  /** Number of decoded generalized time values evicted at once when {@link #DECODED_TIMES} is full. */
+  private static final int EVICTED_DECODED_TIMES = MAX_DECODED_TIMES / 8;
+
+  /** A decoded generalized time value. */
+  private static final class DecodedTime
+  {
+    private final long timeInMillis;
+    /** Whether the value was used since the eviction last looked at it. */
+    private volatile boolean referenced;
+
+    private DecodedTime(long timeInMillis)
+    {
+      this.timeInMillis = timeInMillis;
+    }
+  }
+
+  /**
+   * The generalized time values already decoded, with their time in
+   * milliseconds. The state attributes of an account keep the same values
+   * from one bind to the next, so there is no need to decode them each time.
+   * <p>
+   * Reading a value takes no lock. Once full, the values not used since the
+   * previous eviction are forgotten, in the manner of a clock: the values of
+   * the accounts binding often stay cached.
+   */
+  private static final Map<ByteString, DecodedTime> DECODED_TIMES = new ConcurrentHashMap<>();
+  /** Whether a thread is evicting values from {@link #DECODED_TIMES}. */
+  private static final AtomicBoolean EVICTING = new AtomicBoolean();
+  /** The position of the eviction in {@link #DECODED_TIMES}, guarded by {@link #EVICTING}. */
+  private static Iterator<DecodedTime> evictionHand = DECODED_TIMES.values().iterator();
+
 
 
   /**
@@ -151,6 +192,100 @@ public abstract class AuthenticationPolicyState
 
 
 
+  /**
+   * A utility method which may be used by implementations in order to decode
+   * a generalized time value. The decoded values are cached, so that the state
+   * attributes of an account are decoded once rather than on each bind.
+   *
+   * @param value
+   *          The generalized time value.
+   * @return The time in milliseconds of the provided value.
+   * @throws IllegalArgumentException
+   *           If the value is not a valid generalized time.
+   */
+  protected static long decodeGeneralizedTime(final ByteString value)
+  {
+    DecodedTime decodedTime = DECODED_TIMES.get(value);
+    if (decodedTime != null)
+    {
+      if (!decodedTime.referenced)
+      {
+        decodedTime.referenced = true;
+      }
+      return decodedTime.timeInMillis;
+    }
+
+    decodedTime = new DecodedTime(GeneralizedTime.valueOf(value.toString()).getTimeInMillis());
+    if (DECODED_TIMES.size() >= MAX_DECODED_TIMES)
+    {
+      evictDecodedTimes();
+    }
+    // Copy the value so that the cache does not retain the buffer of the entry
+    DECODED_TIMES.put(ByteString.wrap(value.toByteArray()), decodedTime);
+    return decodedTime.timeInMillis;
+  }
+
+
+
+  /**
+   * Forgets some of the decoded values not used since the previous eviction.
+   * Only one thread evicts at a time, the other ones do not wait for it.
+   */
+  private static void evictDecodedTimes()
+  {
+    if (!EVICTING.compareAndSet(false, true))
+    {
+      return;
+    }
+    try
+    {
+      int evicted = 0;
+      // visit each value at most twice: once to clear its reference, once to evict it
+      for (int visited = 0; evicted < EVICTED_DECODED_TIMES && visited < 2 * MAX_DECODED_TIMES; visited++)
+      {
+        if (!evictionHand.hasNext())
+        {
+          evictionHand = DECODED_TIMES.values().iterator();
+          if (!evictionHand.hasNext())
+          {
+            return;
+          }
+        }
+        final DecodedTime decodedTime = evictionHand.next();
+        if (decodedTime.referenced)
+        {
+          decodedTime.referenced = false;
+        }
+        else
+        {
+          evictionHand.remove();
+          evicted++;
+        }
+      }
+    }
+    finally
+    {
+      EVICTING.set(false);
+    }
+  }
+
+
+
+  /**
+   * Indicates whether the provided generalized time value is cached.
+   *
+   * @param value
+   *          The generalized time value.
+   * @return {@code true} if the value is cached.
+   */
+  @VisibleForTesting
+  static boolean isDecodedTimeCached(final ByteString value)
+  {
+    return DECODED_TIMES.containsKey(value);
+  }
+
+
+
   /**
    * A utility method which may be used by implementations in order to obtain
    * the value of the specified attribute from the provided entry as a time in
@@ -181,7 +316,7 @@ public abstract class AuthenticationPolicyState
       final ByteString v = a.iterator().next();
       try
       {
-        timeValue = GeneralizedTime.valueOf(v.toString()).getTimeInMillis();
+        timeValue = decodeGeneralizedTime(v);
       }
       catch (final Exception e)
       {
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
@@ -22,8 +22,10 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -54,6 +56,7 @@ import org.opends.server.types.Privilege;
 import org.opends.server.types.SearchResultEntry;
 import org.opends.server.types.SearchResultReference;
 import org.opends.server.util.TimeThread;
+import org.opends.server.util.TokenBucket;
 
 import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.config.ConfigConstants.*;
@@ -117,6 +120,33 @@ public abstract class ClientConnection
   private final long connectTime;
   /** The idle time limit for this client connection. */
   private long idleTimeLimit;
+  /**
+   * The token bucket limiting the rate of operations of the authorized
+   * user, shared with the user's other connections, or {@code null} if the
+   * rate is not limited.
+   */
+  private volatile SharedRateLimiter operationRateLimiter;
+
+  /**
+   * The token buckets limiting the rate of operations of each authorized
+   * user, shared by all the connections of the user.
+   */
+  private static final Map<DN, SharedRateLimiter> SHARED_OPERATION_RATE_LIMITERS = new HashMap<>();
+
+  /** A token bucket shared by the connections authorized as the same user. */
+  private static final class SharedRateLimiter
+  {
+    private final DN authorizationDN;
+    private final TokenBucket bucket;
+    /** The number of connections using this bucket, guarded by the map of shared buckets. */
+    private int connections;
+
+    private SharedRateLimiter(DN authorizationDN, TokenBucket bucket)
+    {
+      this.authorizationDN = authorizationDN;
+      this.bucket = bucket;
+    }
+  }
 
   /**
    * The opaque information used for storing intermediate state information
@@ -124,6 +154,12 @@ public abstract class ClientConnection
    */
   private Object saslAuthState;
 
+  /**
+   * The opaque information that the access control handler may cache about
+   * this client connection, discarded when the client authenticates again.
+   */
+  private volatile Object accessControlCache;
+
   /** A string representation of the time that this client connection was established. */
   private final String connectTimeString;
 
@@ -172,6 +208,7 @@ public abstract class ClientConnection
     }
 
     finalized = true;
+    releaseOperationRateLimiter();
 
     // Deregister with the set of authenticated users.
     Entry authNEntry = authenticationInfo.getAuthenticationEntry();
@@ -769,6 +806,9 @@ public abstract class ClientConnection
                                          authenticationInfo)
   {
     AuthenticatedUsers authenticatedUsers = DirectoryServer.getAuthenticatedUsers();
+    // The rate limit is specific to the previously authenticated user.
+    releaseOperationRateLimiter();
+    accessControlCache = null;
     if (this.authenticationInfo != null)
     {
       Entry authNEntry = this.authenticationInfo.getAuthenticationEntry();
@@ -1155,6 +1195,35 @@ public abstract class ClientConnection
   }
 
 
+
+  /**
+   * Retrieves an opaque set of information that the access control
+   * handler may cache about this client connection.
+   *
+   * @return  The information cached by the access control handler,
+   *          or {@code null} if there is none.
+   */
+  public final Object getAccessControlCache()
+  {
+    return accessControlCache;
+  }
+
+
+
+  /**
+   * Specifies an opaque set of information that the access control
+   * handler may cache about this client connection. It is discarded
+   * when the authentication information of this connection changes.
+   *
+   * @param  accessControlCache  The information cached by the access
+   *                             control handler.
+   */
+  public final void setAccessControlCache(Object accessControlCache)
+  {
+    this.accessControlCache = accessControlCache;
+  }
+
+
   /**
    * Return the lowest level channel associated with a connection.
    * This is normally the channel associated with the socket
@@ -1276,6 +1345,104 @@ public abstract class ClientConnection
 
 
 
+  /**
+   * Retrieves the maximum number of operations per second that the
+   * authenticated user is allowed to perform.
+   *
+   * @return  The maximum number of operations per second that the
+   *          authenticated user is allowed to perform, or 0 if the
+   *          rate is not limited.
+   */
+  public final int getOperationRateLimit()
+  {
+    SharedRateLimiter limiter = operationRateLimiter;
+    return limiter != null ? (int) limiter.bucket.getRatePerSecond() : 0;
+  }
+
+
+
+  /**
+   * Specifies the maximum number of operations per second that the
+   * authorized user is allowed to perform. The limit is shared by
+   * all the connections authorized as the same user with the same
+   * limit, so it must be set after the authentication information.
+   *
+   * @param  operationRateLimit  The maximum number of operations per
+   *                             second, or 0 if the rate should not
+   *                             be limited.
+   */
+  public void setOperationRateLimit(int operationRateLimit)
+  {
+    releaseOperationRateLimiter();
+    DN authzDN = authenticationInfo.getAuthorizationDN();
+    if (operationRateLimit > 0 && authzDN != null)
+    {
+      operationRateLimiter = acquireOperationRateLimiter(authzDN, operationRateLimit);
+    }
+  }
+
+
+
+  /**
+   * Returns the bucket shared by the connections authorized as the provided
+   * user with the provided limit, replacing the bucket of the user if its
+   * limit has changed.
+   */
+  private static SharedRateLimiter acquireOperationRateLimiter(DN authzDN, int operationRateLimit)
+  {
+    synchronized (SHARED_OPERATION_RATE_LIMITERS)
+    {
+      SharedRateLimiter limiter = SHARED_OPERATION_RATE_LIMITERS.get(authzDN);
+      if (limiter == null || limiter.bucket.getRatePerSecond() != operationRateLimit)
+      {
+        limiter = new SharedRateLimiter(authzDN, new TokenBucket(operationRateLimit));
+        SHARED_OPERATION_RATE_LIMITERS.put(authzDN, limiter);
+      }
+      limiter.connections++;
+      return limiter;
+    }
+  }
+
+
+
+  /** Stops limiting the rate of operations of this connection. */
+  private void releaseOperationRateLimiter()
+  {
+    SharedRateLimiter limiter = operationRateLimiter;
+    if (limiter == null)
+    {
+      return;
+    }
+    operationRateLimiter = null;
+    synchronized (SHARED_OPERATION_RATE_LIMITERS)
+    {
+      // A replaced bucket is no longer in the map
+      if (--limiter.connections == 0
+          && SHARED_OPERATION_RATE_LIMITERS.get(limiter.authorizationDN) == limiter)
+      {
+        SHARED_OPERATION_RATE_LIMITERS.remove(limiter.authorizationDN);
+      }
+    }
+  }
+
+
+
+  /**
+   * Consumes one operation from the rate allowed to the authenticated
+   * user.
+   *
+   * @return  {@code true} if the authenticated user has exceeded its
+   *          operation rate limit and the operation should be
+   *          rejected, or {@code false} otherwise.
+   */
+  public final boolean isOperationRateLimitExceeded()
+  {
+    SharedRateLimiter limiter = operationRateLimiter;
+    return limiter != null && !limiter.bucket.tryConsume(1);
+  }
+
+
+
   /**
    * Retrieves the time limit that will be enforced for searches
    * performed using this client connection.
@@ -12,18 +12,25 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
 
 import org.forgerock.opendj.ldap.DN;
 
@@ -62,11 +69,16 @@ import org.forgerock.opendj.ldap.DN;
  * operation scope. Standard Map API methods can only work with the objects
  * previously stored in this map explicitly.
  * <p>
- * Note that this Map implementation is not synchronized.
+ * This Map implementation is thread safe. Reads, including subtree retrievals, do not
+ * take any lock: they may run concurrently with updates and never fail because of them,
+ * but they only reflect the updates completed when they reach the modified nodes. Updates
+ * are serialized on this Map. Callers needing several updates to appear at once to the
+ * readers must replace the value of a single key rather than removing then adding it.
  *
  * @param <T>
  *          arbitrary object type.
  */
+@ThreadSafe
 public final class DITCacheMap<T> extends AbstractMap<DN,T>
 {
   /**
@@ -77,30 +89,70 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
   private static final class Node<T>
   {
     /** Node DN. */
-    DN dn;
+    private final DN dn;
+    /** Parent, or {@code null} for the root DN. */
+    private final Node<T> parent;
     /** Storage object or null if this node exist only to support the DIT like structuring. */
-    T element;
-    /** Parent. */
-    Node<T> parent;
-    /** First child. */
-    Node<T> child;
-    /** Next sibling. */
-    Node<T> next;
-    /** Previous sibling. */
-    Node<T> previous;
+    private volatile T element;
+    /** Children, created with the first child. */
+    private volatile Set<Node<T>> children;
+
+    private Node(DN dn, Node<T> parent)
+    {
+      this.dn = dn;
+      this.parent = parent;
+    }
+
+    private void addChild(Node<T> child)
+    {
+      if (children == null)
+      {
+        children = Collections.newSetFromMap(new ConcurrentHashMap<Node<T>, Boolean>());
+      }
+      children.add(child);
+    }
+
+    private void removeChild(Node<T> child)
+    {
+      final Set<Node<T>> nodes = children;
+      if (nodes != null)
+      {
+        nodes.remove(child);
+      }
+    }
+
+    private boolean hasChildren()
+    {
+      final Set<Node<T>> nodes = children;
+      return nodes != null && !nodes.isEmpty();
+    }
+
+    private void pushChildren(Deque<Node<T>> stack)
+    {
+      final Set<Node<T>> nodes = children;
+      if (nodes != null)
+      {
+        for (Node<T> child : nodes)
+        {
+          stack.push(child);
+        }
+      }
+    }
 
     @Override
     public String toString()
     {
-      return element != null ? "node(" + element + ")" : "glue";
+      final T value = element;
+      return value != null ? "node(" + value + ")" : "glue";
     }
   }
 
   /** Map size reflecting only nodes containing non empty elements. */
-  private int size;
+  @GuardedBy("this")
+  private volatile int size;
 
   /** Backing Map implementation. */
-  private final Map<DN,Node<T>> ditCacheMap = new HashMap<>();
+  private final ConcurrentMap<DN, Node<T>> ditCacheMap = new ConcurrentHashMap<>();
 
   /** Default constructor. */
   public DITCacheMap()
@@ -130,7 +182,8 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
   {
     for (Node<T> node : ditCacheMap.values())
     {
-      if (node.element != null && node.element.equals(value))
+      final T element = node.element;
+      if (element != null && element.equals(value))
       {
         return true;
       }
@@ -141,7 +194,7 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
   @Override
   public T get(Object key)
   {
-    Node<T> node = ditCacheMap.get(key);
+    Node<T> node = key != null ? ditCacheMap.get(key) : null;
     return node != null ? node.element : null;
   }
 
@@ -156,76 +209,45 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
   }
 
   @Override
-  public T put(DN key, T value)
+  public synchronized T put(DN key, T value)
   {
-    final Node<T> existingNode = ditCacheMap.get(key);
-    if (existingNode != null)
+    final Node<T> node = getOrCreateNode(key);
+    final T returnValue = node.element;
+    node.element = value;
+    if (returnValue == null && value != null)
     {
-      final T returnValue = existingNode.element;
-      existingNode.element = value;
-      return returnValue;
+      size++;
     }
-
-    Node<T> node = new Node<>();
-    node.dn = key;
-    node.element = value;
-    node.parent = null;
-    node.child = null;
-    node.next = null;
-    node.previous = null;
-
-    ditCacheMap.put(key, node);
-    size++;
-
-    // Update parent hierarchy.
-    for (DN parentDN = key.parent();
-         parentDN != null;
-         parentDN = parentDN.parent())
+    else if (returnValue != null && value == null)
     {
-      final Node<T> parentNode = ditCacheMap.get(parentDN);
+      size--;
+    }
+    return returnValue;
+  }
 
-      if (parentNode == null)
+  /** Returns the node of the provided DN, adding it and any missing glue nodes above it. */
+  @GuardedBy("this")
+  private Node<T> getOrCreateNode(DN dn)
+  {
+    Node<T> node = ditCacheMap.get(dn);
+    if (node == null)
+    {
+      final DN parentDN = dn.parent();
+      final Node<T> parentNode = parentDN != null ? getOrCreateNode(parentDN) : null;
+      node = new Node<>(dn, parentNode);
+      if (parentNode != null)
       {
-        // Add glue node.
-        final Node<T> newParentNode = new Node<>();
-        newParentNode.dn = parentDN;
-        newParentNode.element = null;
-        newParentNode.parent = null;
-        newParentNode.child = node;
-        newParentNode.next = null;
-        newParentNode.previous = null;
-        ditCacheMap.put(parentDN, newParentNode);
-        node.parent = newParentNode;
-        node = newParentNode;
-      }
-      else
-      {
-        if (parentNode.child != null)
-        {
-          Node<T> lastNode = parentNode.child;
-          while (lastNode.next != null)
-          {
-            lastNode = lastNode.next;
-          }
-          node.previous = lastNode;
-          lastNode.next = node;
-        }
-        else
-        {
-          parentNode.child = node;
-        }
-        node.parent = parentNode;
-        break;
+        parentNode.addChild(node);
       }
+      ditCacheMap.put(dn, node);
     }
-    return null;
+    return node;
   }
 
   @Override
-  public T remove(Object key)
+  public synchronized T remove(Object key)
   {
-    final DN dn = (DN) key;
-    final Node<T> node = ditCacheMap.get(dn);
+    final Node<T> node = key != null ? ditCacheMap.get(key) : null;
     if (node == null)
     {
       return null;
@@ -240,77 +262,25 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
     // Remove element from DIT.
     size--;
     node.element = null;
-
-    if (node.child == null)
-    {
-      // This node is now glue, so remove it completely and fix up
-      // any other nodes which reference it.
-      ditCacheMap.remove(dn);
-      fixNodeReferences(node);
-    }
-
+    removeGlue(node);
     return returnValue;
   }
 
   /**
-   * Remove references to a node after it has been removed.
-   * @param node The node which has just been removed.
+   * Removes the provided node if it is now glue without children, then its parent
+   * nodes which are in the same situation.
    */
-  private void fixNodeReferences(Node<T> node)
+  @GuardedBy("this")
+  private void removeGlue(Node<T> node)
   {
-    while (true)
+    while (node != null && node.element == null && !node.hasChildren())
     {
-      // Fix siblings.
-      final Node<T> nextNode = node.next;
-      final Node<T> previousNode = node.previous;
-
-      if (nextNode != null)
-      {
-        nextNode.previous = previousNode;
-      }
-
-      if (previousNode != null)
-      {
-        previousNode.next = nextNode;
-      }
-
-      // Fix parent, if it exists.
-      final Node<T> parentNode = node.parent;
-      if (parentNode == null)
-      {
-        // Reached the top of the DIT, so no parents to fix.
-        break;
-      }
-
-      if (parentNode.child != node)
-      {
-        // The parent references another sibling and does not need fixing.
-        break;
-      }
-
-      if (nextNode != null)
-      {
-        // Update child pointer and return.
-        parentNode.child = nextNode;
-        break;
-      }
-
-      if (parentNode.element != null)
+      ditCacheMap.remove(node.dn);
+      if (node.parent != null)
       {
-        // Parent node is still needed as it contains data.
-        break;
+        node.parent.removeChild(node);
       }
-
-      // The parent node is glue so remove it.
-      ditCacheMap.remove(parentNode.dn);
-
-      // Smash pointers.
-      node.parent = null;
-      node.previous = null;
-      node.next = null;
-
-      // Continue up tree.
-      node = parentNode;
+      node = node.parent;
     }
   }
 
@@ -331,63 +301,45 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
    *               to subtree DN or <code>null</code>.
    * @return <code>true</code> on success or <code>false</code> otherwise.
    */
-  public boolean removeSubtree(DN key, Collection<? super T> values)
+  public synchronized boolean removeSubtree(DN key, Collection<? super T> values)
   {
-    final Node<T> node = ditCacheMap.remove(key);
-    if (node != null)
+    final Node<T> node = ditCacheMap.get(key);
+    if (node == null)
     {
-      // Fix up sibling and parent references.
-      fixNodeReferences(node);
-
-      // Collect all elements and update the size.
-      adjustSizeAndCollectElements(node, values);
-      return true;
+      return false;
     }
-    return false;
-  }
 
-  /**
-   * Iterate through detached subtree counting and collecting any elements.
-   *
-   * @param node
-   *          The node to be collected.
-   * @param values
-   *          Collection in which to put elements.
-   */
-  private void adjustSizeAndCollectElements(final Node<T> node,
-      Collection<? super T> values)
-  {
-    if (node.element != null)
+    // Detach the subtree, then remove the parent nodes left as glue.
+    if (node.parent != null)
     {
-      if (values != null)
-      {
-        values.add(node.element);
-      }
-      node.element = null;
-      size--;
+      node.parent.removeChild(node);
+      removeGlue(node.parent);
     }
 
-    // Repeat for each child.
-    Node<T> child = node.child;
-    while (child != null)
+    // Collect all elements and update the size.
+    final Deque<Node<T>> toRemove = new ArrayDeque<>();
+    toRemove.push(node);
+    while (!toRemove.isEmpty())
     {
-      final Node<T> next = child.next;
-      adjustSizeAndCollectElements(child, values);
-      child = next;
+      final Node<T> removed = toRemove.pop();
+      removed.pushChildren(toRemove);
+      ditCacheMap.remove(removed.dn);
+      final T element = removed.element;
+      if (element != null)
+      {
+        if (values != null)
+        {
+          values.add(element);
+        }
+        removed.element = null;
+        size--;
+      }
     }
-
-    // Smash pointers.
-    node.parent = null;
-    node.child = null;
-    node.previous = null;
-    node.next = null;
-
-    // Remove node from map.
-    ditCacheMap.remove(node.dn);
+    return true;
   }
 
   @Override
-  public void putAll(Map<? extends DN, ? extends T> m)
+  public synchronized void putAll(Map<? extends DN, ? extends T> m)
   {
     for (Entry<? extends DN, ? extends T> entry : m.entrySet())
     {
@@ -396,7 +348,7 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
   }
 
   @Override
-  public void clear()
+  public synchronized void clear()
   {
     ditCacheMap.clear();
     size = 0;
@@ -414,102 +366,46 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
     /** Iterator class implementation for the DITCacheEntrySet. */
     private class EntryIterator implements Iterator<Entry<DN, T>>
     {
-      private Iterator<Entry<DN, Node<T>>> ditCacheMapIterator;
-      private Entry<DN, Node<T>> currentEntry;
-      private Entry<DN, Node<T>> nextEntry;
-      private boolean hasNext;
-
-      /** Default constructor. */
-      public EntryIterator()
-      {
-        ditCacheMapIterator = ditCacheMap.entrySet().iterator();
-        currentEntry = null;
-        nextEntry = null;
-        hasNext = false;
-      }
+      private final Iterator<Node<T>> nodeIterator = ditCacheMap.values().iterator();
+      private DITCacheMapEntry currentEntry;
+      private DITCacheMapEntry nextEntry;
 
       @Override
       public boolean hasNext()
       {
-        if (hasNext)
+        while (nextEntry == null && nodeIterator.hasNext())
         {
-          return true;
-        }
-        while (ditCacheMapIterator.hasNext())
-        {
-          Entry<DN, Node<T>> entry = ditCacheMapIterator.next();
-          Node<T> node = entry.getValue();
-          if (node != null && node.element != null)
+          final Node<T> node = nodeIterator.next();
+          final T element = node.element;
+          if (element != null)
           {
-            nextEntry = entry;
-            hasNext = true;
-            return true;
+            nextEntry = new DITCacheMapEntry(node.dn, element);
           }
         }
-        nextEntry = null;
-        return false;
+        return nextEntry != null;
       }
 
       @Override
       public Entry<DN, T> next()
       {
-        if (nextEntry != null)
+        if (!hasNext())
         {
-          Node<T> node = nextEntry.getValue();
-          currentEntry = nextEntry;
-          nextEntry = null;
-          hasNext = false;
-          return new DITCacheMapEntry(node.dn, node.element);
+          throw new NoSuchElementException();
         }
-        while (ditCacheMapIterator.hasNext())
-        {
-          Entry<DN, Node<T>> entry = ditCacheMapIterator.next();
-          Node<T> node = entry.getValue();
-          if (node != null && node.element != null)
-          {
-            currentEntry = entry;
-            hasNext = false;
-            return new DITCacheMapEntry(node.dn, node.element);
-          }
-        }
-        throw new NoSuchElementException();
+        currentEntry = nextEntry;
+        nextEntry = null;
+        return currentEntry;
       }
 
       @Override
       public void remove()
       {
-        if (currentEntry != null)
+        if (currentEntry == null)
         {
-          Entry<DN, Node<T>> oldIteratorEntry = null;
-          if (hasNext())
-          {
-            oldIteratorEntry = nextEntry;
-          }
-          if (DITCacheMap.this.remove(currentEntry.getKey()) != null)
-          {
-            ditCacheMapIterator = ditCacheMap.entrySet().iterator();
-            currentEntry = null;
-            nextEntry = null;
-            hasNext = false;
-            while (hasNext())
-            {
-              Entry<DN, T> newIteratorEntry = next();
-              if (oldIteratorEntry != null
-                  && oldIteratorEntry.getKey().equals(newIteratorEntry.getKey())
-                  && oldIteratorEntry.getValue().element.equals(newIteratorEntry.getValue()))
-              {
-                nextEntry = currentEntry;
-                hasNext = true;
-                return;
-              }
-            }
-            currentEntry = null;
-            nextEntry = null;
-            hasNext = false;
-            return;
-          }
+          throw new IllegalStateException();
         }
-        throw new IllegalStateException();
+        DITCacheMap.this.remove(currentEntry.getKey());
+        currentEntry = null;
       }
     }
 
@@ -559,9 +455,8 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
     @Override
     public T setValue(T value)
     {
-      Node<T> node = ditCacheMap.get(key);
       T oldValue = this.value;
-      node.element = value;
+      put(key, value);
       this.value = value;
       return oldValue;
     }
@@ -583,107 +478,68 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
       this.key = key;
     }
 
-    /** Iterator class implementation for SubtreeSet. */
+    /** Iterator class implementation for SubtreeSet, walking the subtree depth first. */
     private class SubtreeSetIterator implements Iterator<T>
     {
-      /** Iterator key. */
-      private DN key;
-
-      /** Iterator root node. */
-      private Node<T> rootNode;
+      /** The nodes left to visit. */
+      private final Deque<Node<T>> toVisit = new ArrayDeque<>();
 
-      /** Iterator current node. */
-      private Node<T> node;
+      /**
+       * The node of the next element to return, or {@code null} if there are no more elements. Its
+       * element is read again before being returned, so that the elements removed in the meantime
+       * are skipped.
+       */
+      private Node<T> nextNode;
 
       /** Default constructor. */
       public SubtreeSetIterator()
       {
-        this.key = DITSubtreeSet.this.key;
-        rootNode = ditCacheMap.get(this.key);
-        node = rootNode;
+        final Node<T> rootNode = ditCacheMap.get(key);
+        if (rootNode != null)
+        {
+          toVisit.push(rootNode);
+        }
+        advance();
       }
 
-      /**
-       * Keyed constructor.
-       * @param key to cue this
-       *        iterator from.
-       */
-      public SubtreeSetIterator(DN key)
+      private void advance()
       {
-        this.key = key;
-        rootNode = ditCacheMap.get(this.key);
-        node = rootNode;
+        nextNode = null;
+        while (nextNode == null && !toVisit.isEmpty())
+        {
+          final Node<T> node = toVisit.pop();
+          node.pushChildren(toVisit);
+          if (node.element != null)
+          {
+            nextNode = node;
+          }
+        }
       }
 
       @Override
       public boolean hasNext()
       {
-        if (rootNode != null)
+        while (nextNode != null && nextNode.element == null)
         {
-          if (node == rootNode && rootNode.element != null)
-          {
-            return true;
-          }
-          while (node != null)
-          {
-            if (node.element != null)
-            {
-              return true;
-            }
-            if (node.child != null)
-            {
-              node = node.child;
-            }
-            else
-            {
-              while (node.next == null && node.parent != rootNode)
-              {
-                node = node.parent;
-              }
-              node = node.next;
-            }
-          }
+          advance();
         }
-        return false;
+        return nextNode != null;
       }
 
       @Override
       public T next()
       {
         T element = null;
-
-        if (rootNode != null)
+        while (element == null)
         {
-          if (node == rootNode)
-          {
-            node = rootNode.child;
-            if (rootNode.element != null)
-            {
-              return rootNode.element;
-            }
-          }
-          while (node != null)
+          if (nextNode == null)
           {
-            element = node.element;
-            if (node.child != null)
-            {
-              node = node.child;
-            }
-            else
-            {
-              while (node.next == null && node.parent != rootNode)
-              {
-                node = node.parent;
-              }
-              node = node.next;
-            }
-            if (element != null)
-            {
-              return element;
-            }
+            throw new NoSuchElementException();
           }
+          element = nextNode.element;
+          advance();
         }
-        throw new NoSuchElementException();
+        return element;
       }
 
       @Override
@@ -702,7 +558,7 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
     @Override
     public boolean isEmpty()
     {
-      return !new SubtreeSetIterator(this.key).hasNext();
+      return !iterator().hasNext();
     }
 
     @Override
@@ -710,7 +566,7 @@ public final class DITCacheMap<T> extends AbstractMap<DN,T>
     {
       int size = 0;
 
-      Iterator<T> iterator = new SubtreeSetIterator(this.key);
+      Iterator<T> iterator = iterator();
       while (iterator.hasNext())
       {
         iterator.next();
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
@@ -24,11 +24,13 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.opends.server.core.ServerContext;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
+import org.opends.server.types.LDAPURL;
 import org.opends.server.types.MemberList;
 import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
@@ -415,6 +417,38 @@ public abstract class Group<T extends GroupImplementationCfg>
    */
   public abstract boolean mayAlterMemberList();
 
+  /**
+   * Retrieves the attribute type used to list the members of this
+   * group in its entry, if this group lists its members in its entry.
+   * The group manager then keeps track of the members of this group
+   * as its entry is modified, rather than checking the membership of
+   * each entry to this group.
+   *
+   * @return  The attribute type used to list the members of this
+   *          group in its entry, or {@code null} if the members of
+   *          this group are not listed in its entry.
+   */
+  public AttributeType getMemberAttributeType()
+  {
+    return null;
+  }
+
+  /**
+   * Retrieves the LDAP URLs defining the members of this group, if
+   * the members of this group are the entries matching LDAP URLs.
+   * The group manager then matches each entry against the URLs of all
+   * such groups at once, rather than checking the membership of the
+   * entry to each group in turn.
+   *
+   * @return  The LDAP URLs defining the members of this group, which
+   *          must not be altered by the caller, or {@code null} if the
+   *          members of this group are not defined by LDAP URLs.
+   */
+  public Set<LDAPURL> getMemberURLs()
+  {
+    return null;
+  }
+
   /**
    * Attempt to make multiple changes to the group's member list.
    *
@@ -12,12 +12,13 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -52,6 +53,22 @@ public abstract class VirtualAttributeProvider
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The information the values of a virtual attribute may be generated from. */
+  public enum Dependency
+  {
+    /**
+     * The name and the real attributes of the entry, which do not change
+     * once the entry has been read from its backend.
+     */
+    ENTRY,
+    /** The subordinate entries of the entry. */
+    SUBORDINATES,
+    /** The subentries applying to the entry. */
+    SUBENTRIES,
+    /** The groups and their members. */
+    GROUPS
+  }
+
   /**
    * Initializes this virtual attribute based on the information in
    * the provided configuration entry.
@@ -143,6 +160,28 @@ public abstract class VirtualAttributeProvider
 
 
 
+  /**
+   * Retrieves the information the values generated by this virtual
+   * attribute provider depend on. When the provider declares its
+   * dependencies, the values generated for an entry are kept with the
+   * entry, and generated again only when one of the dependencies has
+   * changed.
+   * <p>
+   * This default implementation returns {@code null}: the values are
+   * generated each time they are accessed. It should be overridden by
+   * the virtual attribute providers whose values only depend on the
+   * information described by {@link Dependency}.
+   *
+   * @return  The dependencies of the generated values, or {@code null}
+   *          if the generated values must not be kept with the entry.
+   */
+  public Set<Dependency> getDependencies()
+  {
+    return null;
+  }
+
+
+
   /**
    * Indicates whether this virtual attribute provider will generate
    * at least one value for the provided entry.
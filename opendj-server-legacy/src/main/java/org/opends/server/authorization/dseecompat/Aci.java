@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2010-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -289,6 +289,20 @@ public class Aci implements Comparable<Aci>
         return dn;
     }
 
+    /**
+     * Indicates whether this ACI grants or denies the same rights on all the
+     * children of an entry, whatever their content: its targets match all of
+     * them the same way and its bind rules do not depend on the resource
+     * entry.
+     *
+     * @param parentDN The DN of the parent entry of the children.
+     * @return True if this ACI evaluates the same way for all the children.
+     */
+    boolean isUniformForChildrenOf(DN parentDN) {
+        return (targets == null || targets.isUniformForChildrenOf(parentDN))
+            && !body.dependsOnResourceEntry();
+    }
+
     /**
      * Test if the given ACI is applicable using the target match information
      * provided. The ACI target can have seven keywords at this time:
@@ -341,18 +355,50 @@ public class Aci implements Comparable<Aci>
          return AciTargets.isTargetApplicable(aci, matchCtx) &&
                 AciTargets.isTargetControlApplicable(aci, matchCtx);
       } else {
-        //If an ACI has extOp or targetControl targets skip it because the
-        //matchCtx right does not contain either ACI_EXT_OP or ACI_CONTROL at
-        //this point.
-        return hasNoExtOpOrTargetControl(aci.getTargets())
-            && haveSimilarRights(aci, matchCtx)
-            && AciTargets.isTargetApplicable(aci, matchCtx)
-            && AciTargets.isTargetFilterApplicable(aci, matchCtx)
-            && AciTargets.isTargAttrFiltersApplicable(aci, matchCtx)
-            && AciTargets.isTargetAttrApplicable(aci, matchCtx);
+        return isApplicableToEntry(aci, matchCtx)
+            && isApplicableToAttribute(aci, matchCtx);
       }
     }
 
+    /**
+     * Check if the rights and the targets of an ACI which only depend on the
+     * resource entry (target, targetscope and targetfilter) match a target
+     * match context. This is the first half of {@link #isApplicable} when
+     * neither a control nor an extended operation is being evaluated: its
+     * result does not depend on the attribute currently being evaluated, so
+     * it can be computed once per resource entry and rights.
+     *
+     * @param aci The ACI to test.
+     * @param matchCtx The target matching context containing all the info
+     * needed to match ACI targets.
+     * @return  True if the ACI rights and entry based targets match.
+     */
+    static boolean isApplicableToEntry(Aci aci, AciTargetMatchContext matchCtx) {
+      //If an ACI has extOp or targetControl targets skip it because the
+      //matchCtx right does not contain either ACI_EXT_OP or ACI_CONTROL at
+      //this point.
+      return hasNoExtOpOrTargetControl(aci.getTargets())
+          && haveSimilarRights(aci, matchCtx)
+          && AciTargets.isTargetApplicable(aci, matchCtx)
+          && AciTargets.isTargetFilterApplicable(aci, matchCtx);
+    }
+
+    /**
+     * Check if the targets of an ACI which depend on the attribute currently
+     * being evaluated (targattrfilters and targetattr) match a target match
+     * context. This is the second half of {@link #isApplicable} when neither a
+     * control nor an extended operation is being evaluated.
+     *
+     * @param aci The ACI to test, already known to be applicable to the entry.
+     * @param matchCtx The target matching context containing all the info
+     * needed to match ACI targets.
+     * @return  True if the ACI attribute based targets match.
+     */
+    static boolean isApplicableToAttribute(Aci aci, AciTargetMatchContext matchCtx) {
+      return AciTargets.isTargAttrFiltersApplicable(aci, matchCtx)
+          && AciTargets.isTargetAttrApplicable(aci, matchCtx);
+    }
+
     private static boolean hasNoExtOpOrTargetControl(AciTargets aciTargets)
     {
       return aciTargets.getExtOp() == null
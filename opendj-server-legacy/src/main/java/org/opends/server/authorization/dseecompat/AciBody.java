@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -209,6 +209,22 @@ public class AciBody {
         return false;
     }
 
+    /**
+     * Indicates whether the outcome of a bind rule of this body depends on
+     * the resource entry being accessed.
+     *
+     * @return True if a bind rule of a permission bind rule pair depends on
+     * the resource entry.
+     */
+    boolean dependsOnResourceEntry() {
+        for(PermBindRulePair p : getPermBindRulePairs()) {
+            if(p.getBindRule().dependsOnResourceEntry()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Retrieve the permission-bind rule pairs of this ACI body.
      *
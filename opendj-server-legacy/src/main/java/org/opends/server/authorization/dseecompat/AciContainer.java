@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -25,6 +25,7 @@ import java.security.cert.Certificate;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
@@ -34,6 +35,7 @@ import org.opends.server.api.ClientConnection;
 import org.opends.server.api.Group;
 import org.opends.server.controls.GetEffectiveRightsRequestControl;
 import org.opends.server.core.AddOperation;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
@@ -165,6 +167,22 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
   /** AuthenticationInfo class to use. */
   private final AuthenticationInfo authInfo;
 
+  /**
+   * The candidate ACIs of the resource entry, gathered once for all the
+   * access checks made on the resource entry.
+   */
+  private List<Aci> candidateAcis;
+
+  /**
+   * The candidate ACIs whose rights and entry based targets match the resource
+   * entry, keyed by the rights they were matched for. Only the attribute based
+   * targets remain to be matched for each attribute of the resource entry.
+   */
+  private final Map<Integer, List<Aci>> entryApplicableAcis = new HashMap<>();
+
+  /** The cache of the bind rule outcomes of the client connection, if it can be used. */
+  private AciDecisionCache decisionCache;
+
   /**
      * This constructor is used by all currently supported LDAP operations
      * except the generic access control check that can be used by
@@ -649,6 +667,22 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
 
     @Override
     public boolean isMemberOf(Group<?> group) {
+        // Only the memberships of static groups are cached: the group manager
+        // does not track the changes that affect the other groups.
+        if (decisionCache == null
+            || !group.mayAlterMemberList() || !group.getNestedGroupDNs().isEmpty()) {
+          return isMemberOf0(group);
+        }
+        final DN clientDN = getClientDN();
+        Boolean isMember = decisionCache.isMember(clientDN, group.getGroupDN());
+        if (isMember == null) {
+          isMember = isMemberOf0(group);
+          decisionCache.putMember(clientDN, group.getGroupDN(), isMember);
+        }
+        return isMember;
+    }
+
+    private boolean isMemberOf0(Group<?> group) {
         try {
             if(useAuthzid) {
                 return group.isMember(this.authzid);
@@ -796,6 +830,71 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
       return clientConnection.getSSF();
   }
 
+  @Override
+  public AciDecisionCache getDecisionCache() {
+    return decisionCache;
+  }
+
+  /**
+   * Makes the bind rules evaluated with this container use the cache of the
+   * client connection, unless this container evaluates access with another
+   * authentication than the one of the client connection.
+   *
+   * @param aciListGeneration The current generation of the ACIs.
+   */
+  void useDecisionCache(long aciListGeneration) {
+    if (decisionCache == null) {
+      final AciDecisionCache cache = AciDecisionCache.getInstance(
+          clientConnection, aciListGeneration, DirectoryServer.getGroupManager());
+      if (cache.isFor(authInfo)) {
+        decisionCache = cache;
+      }
+    }
+  }
+
+  /**
+   * Returns the candidate ACIs of the resource entry, if they have already
+   * been gathered.
+   *
+   * @return The candidate ACIs of the resource entry, or {@code null} if they
+   *         have not been gathered yet.
+   */
+  List<Aci> getCandidateAcis() {
+    return candidateAcis;
+  }
+
+  /**
+   * Sets the candidate ACIs of the resource entry.
+   *
+   * @param candidateAcis The candidate ACIs of the resource entry.
+   */
+  void setCandidateAcis(List<Aci> candidateAcis) {
+    this.candidateAcis = candidateAcis;
+  }
+
+  /**
+   * Returns the candidate ACIs whose rights and entry based targets match the
+   * resource entry for the provided rights, if they have already been matched.
+   *
+   * @param rights The rights the ACIs were matched for.
+   * @return The ACIs matching the resource entry, or {@code null} if they have
+   *         not been matched for these rights yet.
+   */
+  List<Aci> getEntryApplicableAcis(int rights) {
+    return entryApplicableAcis.get(rights);
+  }
+
+  /**
+   * Sets the candidate ACIs whose rights and entry based targets match the
+   * resource entry for the provided rights.
+   *
+   * @param rights The rights the ACIs were matched for.
+   * @param acis The ACIs matching the resource entry.
+   */
+  void setEntryApplicableAcis(int rights, List<Aci> acis) {
+    entryApplicableAcis.put(rights, acis);
+  }
+
   @Override
   public String toString()
   {
@@ -0,0 +1,197 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.ClientConnection;
+import org.opends.server.core.GroupManager;
+import org.opends.server.types.AuthenticationInfo;
+
+/**
+ * Caches the outcomes of the bind rules which only depend on the client of a connection
+ * (userdn, ip, dns and authmethod) and the memberships of the client to static groups
+ * (groupdn and userattr), so that they are not evaluated again for each entry and each
+ * attribute being access checked.
+ * <p>
+ * One cache is kept per client connection. The outcomes are kept per authorization DN, because
+ * the proxied authorization and the geteffectiverights controls change the identity evaluated by
+ * the bind rules. A cache is only valid for the authentication of the connection, the ACIs and the
+ * groups it was created for: it is replaced as soon as one of them changes.
+ */
+@ThreadSafe
+public final class AciDecisionCache
+{
+  /** Maximum number of identities whose outcomes are cached on a connection. */
+  private static final int MAX_IDENTITIES = 16;
+
+  private final AuthenticationInfo authInfo;
+  private final long aciListGeneration;
+  private final long groupRefreshToken;
+  private final long groupMembershipToken;
+
+  /** The outcomes of the bind rules, per authorization DN. */
+  private final ConcurrentMap<DN, ConcurrentMap<KeywordBindRule, EnumEvalResult>> bindRuleOutcomes =
+      new ConcurrentHashMap<>();
+  /** The group memberships, per authorization DN. */
+  private final ConcurrentMap<DN, ConcurrentMap<DN, Boolean>> memberships = new ConcurrentHashMap<>();
+
+  private AciDecisionCache(AuthenticationInfo authInfo, long aciListGeneration, GroupManager groupManager)
+  {
+    this.authInfo = authInfo;
+    this.aciListGeneration = aciListGeneration;
+    this.groupRefreshToken = groupManager.refreshToken();
+    this.groupMembershipToken = groupManager.membershipToken();
+  }
+
+  /**
+   * Returns the cache of the provided client connection, creating a new one if the connection
+   * has none, or if the cache it has is no longer valid.
+   *
+   * @param clientConnection
+   *          The client connection
+   * @param aciListGeneration
+   *          The current generation of the ACI list
+   * @param groupManager
+   *          The group manager
+   * @return the valid cache of the client connection
+   */
+  static AciDecisionCache getInstance(ClientConnection clientConnection, long aciListGeneration,
+      GroupManager groupManager)
+  {
+    final AuthenticationInfo authInfo = clientConnection.getAuthenticationInfo();
+    final Object cache = clientConnection.getAccessControlCache();
+    if (cache instanceof AciDecisionCache
+        && ((AciDecisionCache) cache).isValid(authInfo, aciListGeneration, groupManager))
+    {
+      return (AciDecisionCache) cache;
+    }
+    final AciDecisionCache newCache = new AciDecisionCache(authInfo, aciListGeneration, groupManager);
+    clientConnection.setAccessControlCache(newCache);
+    return newCache;
+  }
+
+  private boolean isValid(AuthenticationInfo authInfo, long aciListGeneration, GroupManager groupManager)
+  {
+    return this.authInfo == authInfo
+        && this.aciListGeneration == aciListGeneration
+        && !groupManager.hasInstancesChanged(groupRefreshToken)
+        && groupMembershipToken == groupManager.membershipToken();
+  }
+
+  /**
+   * Indicates whether this cache can be used for evaluating access with the provided authentication.
+   *
+   * @param authInfo
+   *          The authentication used for evaluating access
+   * @return {@code true} if this cache was created for the provided authentication
+   */
+  boolean isFor(AuthenticationInfo authInfo)
+  {
+    return this.authInfo == authInfo;
+  }
+
+  /**
+   * Returns the cached outcome of a bind rule.
+   *
+   * @param clientDN
+   *          The authorization DN the bind rule is evaluated for
+   * @param rule
+   *          The bind rule
+   * @return the outcome of the bind rule, or {@code null} if it is not cached
+   */
+  EnumEvalResult getOutcome(DN clientDN, KeywordBindRule rule)
+  {
+    final ConcurrentMap<KeywordBindRule, EnumEvalResult> outcomes = bindRuleOutcomes.get(clientDN);
+    return outcomes != null ? outcomes.get(rule) : null;
+  }
+
+  /**
+   * Caches the outcome of a bind rule.
+   *
+   * @param clientDN
+   *          The authorization DN the bind rule was evaluated for
+   * @param rule
+   *          The bind rule
+   * @param outcome
+   *          The outcome of the bind rule
+   */
+  void putOutcome(DN clientDN, KeywordBindRule rule, EnumEvalResult outcome)
+  {
+    getOrCreate(bindRuleOutcomes, clientDN).put(rule, outcome);
+  }
+
+  /**
+   * Returns the cached membership of an authorization DN to a group.
+   *
+   * @param clientDN
+   *          The authorization DN
+   * @param groupDN
+   *          The DN of the group
+   * @return whether the authorization DN is a member of the group, or {@code null} if it is not cached
+   */
+  Boolean isMember(DN clientDN, DN groupDN)
+  {
+    final ConcurrentMap<DN, Boolean> groups = memberships.get(clientDN);
+    return groups != null ? groups.get(groupDN) : null;
+  }
+
+  /**
+   * Caches the membership of an authorization DN to a group.
+   *
+   * @param clientDN
+   *          The authorization DN
+   * @param groupDN
+   *          The DN of the group
+   * @param isMember
+   *          Whether the authorization DN is a member of the group
+   */
+  void putMember(DN clientDN, DN groupDN, boolean isMember)
+  {
+    getOrCreate(memberships, clientDN).put(groupDN, isMember);
+  }
+
+  private static <K, V> ConcurrentMap<K, V> getOrCreate(ConcurrentMap<DN, ConcurrentMap<K, V>> map, DN clientDN)
+  {
+    ConcurrentMap<K, V> values = map.get(clientDN);
+    if (values == null)
+    {
+      if (map.size() >= MAX_IDENTITIES)
+      {
+        // too many proxied identities, start again rather than growing without bounds
+        map.clear();
+      }
+      values = new ConcurrentHashMap<>();
+      final ConcurrentMap<K, V> existing = map.putIfAbsent(clientDN, values);
+      if (existing != null)
+      {
+        values = existing;
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(identities=" + bindRuleOutcomes.keySet()
+        + ", aciListGeneration=" + aciListGeneration + ")";
+  }
+}
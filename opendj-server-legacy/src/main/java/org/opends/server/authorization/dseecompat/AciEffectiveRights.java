@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -197,11 +197,13 @@ public class AciEffectiveRights {
    * @param e The entry to add the rights attributes to.
    * @param skipCheck  True if ACI evaluation was skipped because bypass-acl
    *                   privilege was found.
+   * @param rightsCache  The cache of the rights computed during the search
+   *                     operation.
    */
   public static void addRightsToEntry(AciHandler handler,
       Set<String> searchAttributes,
       AciLDAPOperationContainer container, final Entry e,
-      boolean skipCheck)
+      boolean skipCheck, EffectiveRightsCache rightsCache)
   {
     Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
     if (aclRights == null)
@@ -267,17 +269,22 @@ public class AciEffectiveRights {
     container.setGetEffectiveRightsEval();
     container.useAuthzid(true);
 
+    // The aclRights values do not depend on the name of the entry, unlike the
+    // aclRightsInfo values: reuse the ones computed for similar entries.
+    EffectiveRightsCache cache =
+        hasAttrMask(attrMask, ACL_RIGHTS_INFO) ? null : rightsCache;
+
     // If no attributes were requested return only entryLevel rights, else
     // return attributeLevel rights and entryLevel rights. Always try and
     // return the specific attribute rights if they exist.
     if (!nonRightsAttrs.isEmpty())
     {
       addAttributeLevelRights(container, handler, attrMask, e, nonRightsAttrs,
-          skipCheck, false);
+          skipCheck, false, cache);
     }
     addAttributeLevelRights(container, handler, attrMask, e, container
-        .getSpecificAttributes(), skipCheck, true);
-    addEntryLevelRights(container, handler, attrMask, e, skipCheck);
+        .getSpecificAttributes(), skipCheck, true, cache);
+    addEntryLevelRights(container, handler, attrMask, e, skipCheck, cache);
   }
 
   /**
@@ -312,71 +319,37 @@ public class AciEffectiveRights {
    * @param specificAttr
    *          True if this evaluation is result of specific attributes sent in
    *          the request.
+   * @param cache
+   *          The cache of the rights computed during the operation, or
+   *          {@code null} if the rights must not be cached.
    */
   private static void addAttributeLevelRights(
       AciLDAPOperationContainer container, AciHandler handler, int mask,
       final Entry retEntry, List<AttributeType> attrList,
-      boolean skipCheck, boolean specificAttr)
+      boolean skipCheck, boolean specificAttr, EffectiveRightsCache cache)
   {
     if (attrList == null)
     {
       return;
     }
 
+    final Entry e = container.getResourceEntry();
     for(AttributeType a : attrList) {
-      StringBuilder evalInfo=new StringBuilder();
-      container.setCurrentAttributeType(a);
-      container.setCurrentAttributeValue(null);
-      //Perform search check and append results.
-      container.setRights(ACI_SEARCH | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck, "search"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "search");
-      evalInfo.append(',');
-      //Perform read check and append results.
-      container.setRights(ACI_READ | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck, "read"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "read");
-      evalInfo.append(',');
-      //Perform compare and append results.
-      container.setRights(ACI_COMPARE | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck, "compare"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "compare");
-      evalInfo.append(',');
-      //Write right is more complicated. Create a dummy value and set that as
-      //the attribute's value. Call the special writeRightsString method, rather
-      //than rightsString.
-      ByteString val= ByteString.valueOfUtf8("dum###Val");
-      container.setCurrentAttributeValue(val);
-      evalInfo.append(attributeLevelWriteRights(container, handler, skipCheck));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "write");
-      evalInfo.append(',');
-      //Perform both selfwrite_add and selfwrite_delete and append results.
-      ByteString val1 = ByteString.valueOfUtf8(container.getClientDN().toString());
-      if(!specificAttr)
+      String rights = cache != null ? cache.getAttributeRights(e, a, specificAttr) : null;
+      if (rights == null)
       {
-        container.setCurrentAttributeType(dnAttributeType);
+        rights = attributeLevelRights(container, handler, mask, retEntry, a,
+            skipCheck, specificAttr);
+        if (cache != null)
+        {
+          cache.putAttributeRights(e, a, specificAttr, rights);
+        }
       }
-      container.setCurrentAttributeValue(val1);
-      container.setRights(ACI_WRITE_ADD | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck,
-                      "selfwrite_add"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "selfwrite_add");
-      evalInfo.append(',');
-      container.setRights(ACI_WRITE_DELETE | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck,
-                       "selfwrite_delete"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "selfwrite_delete");
-      evalInfo.append(',');
-      container.setCurrentAttributeType(a);
-      container.setCurrentAttributeValue(null);
-                container.setRights(ACI_PROXY | ACI_SKIP_PROXY_CHECK);
-      evalInfo.append(rightsString(container, handler, skipCheck, "proxy"));
-      addAttrLevelRightsInfo(container, mask, a, retEntry, "proxy");
       //It is possible that only the aclRightsInfo attribute type was requested.
       // Only add the aclRights information if the aclRights attribute type was seen.
       if(hasAttrMask(mask, ACL_RIGHTS))  {
         String typeStr = aclRightsAttributeLevelStr + ";" + a.getNameOrOID();
-        Attribute attr = Attributes.create(typeStr, evalInfo.toString());
+        Attribute attr = Attributes.create(typeStr, rights);
         //It is possible that the user might have specified the same attributes
         //in both the search and the specific attribute part of the control.
         //Only try to add the attribute type if it already hasn't been added.
@@ -390,6 +363,84 @@ public class AciEffectiveRights {
     container.setCurrentAttributeType(null);
   }
 
+  /**
+   * Perform the attributeLevel rights evaluation of an attribute type.
+   *
+   * @param container
+   *          The LDAP operation container to use in the evaluations.
+   * @param handler
+   *          The Aci Handler to use in the access evaluations.
+   * @param mask
+   *          Mask specifying what rights attribute processing to perform
+   *          (aclRights or aclRightsInfo or both).
+   * @param retEntry
+   *          The entry to return.
+   * @param a
+   *          The attribute type to evaluate.
+   * @param skipCheck
+   *          True if ACI evaluation was skipped because bypass-acl privilege
+   *          was found.
+   * @param specificAttr
+   *          True if this evaluation is result of specific attributes sent in
+   *          the request.
+   * @return A string representing the aclRights of the attribute type.
+   */
+  private static String attributeLevelRights(
+      AciLDAPOperationContainer container, AciHandler handler, int mask,
+      final Entry retEntry, AttributeType a,
+      boolean skipCheck, boolean specificAttr)
+  {
+    StringBuilder evalInfo=new StringBuilder();
+    container.setCurrentAttributeType(a);
+    container.setCurrentAttributeValue(null);
+    //Perform search check and append results.
+    container.setRights(ACI_SEARCH | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck, "search"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "search");
+    evalInfo.append(',');
+    //Perform read check and append results.
+    container.setRights(ACI_READ | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck, "read"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "read");
+    evalInfo.append(',');
+    //Perform compare and append results.
+    container.setRights(ACI_COMPARE | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck, "compare"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "compare");
+    evalInfo.append(',');
+    //Write right is more complicated. Create a dummy value and set that as
+    //the attribute's value. Call the special writeRightsString method, rather
+    //than rightsString.
+    ByteString val= ByteString.valueOfUtf8("dum###Val");
+    container.setCurrentAttributeValue(val);
+    evalInfo.append(attributeLevelWriteRights(container, handler, skipCheck));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "write");
+    evalInfo.append(',');
+    //Perform both selfwrite_add and selfwrite_delete and append results.
+    ByteString val1 = ByteString.valueOfUtf8(container.getClientDN().toString());
+    if(!specificAttr)
+    {
+      container.setCurrentAttributeType(dnAttributeType);
+    }
+    container.setCurrentAttributeValue(val1);
+    container.setRights(ACI_WRITE_ADD | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck,
+                    "selfwrite_add"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "selfwrite_add");
+    evalInfo.append(',');
+    container.setRights(ACI_WRITE_DELETE | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck,
+                     "selfwrite_delete"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "selfwrite_delete");
+    evalInfo.append(',');
+    container.setCurrentAttributeType(a);
+    container.setCurrentAttributeValue(null);
+    container.setRights(ACI_PROXY | ACI_SKIP_PROXY_CHECK);
+    evalInfo.append(rightsString(container, handler, skipCheck, "proxy"));
+    addAttrLevelRightsInfo(container, mask, a, retEntry, "proxy");
+    return evalInfo.toString();
+  }
+
   /**
    * Perform the attributeLevel write rights evaluation. The issue here is that
    * an ACI could contain a targattrfilters keyword that matches the attribute
@@ -472,8 +523,48 @@ public class AciEffectiveRights {
    * @param skipCheck
    *          True if ACI evaluation was skipped because bypass-acl privilege
    *          was found.
+   * @param cache
+   *          The cache of the rights computed during the operation, or
+   *          {@code null} if the rights must not be cached.
    */
   private static void addEntryLevelRights(AciLDAPOperationContainer container,
+      AciHandler handler, int mask, final Entry retEntry,
+      boolean skipCheck, EffectiveRightsCache cache)
+  {
+    final Entry e = container.getResourceEntry();
+    String rights = cache != null ? cache.getEntryRights(e) : null;
+    if (rights == null)
+    {
+      rights = entryLevelRights(container, handler, mask, retEntry, skipCheck);
+      if (cache != null)
+      {
+        cache.putEntryRights(e, rights);
+      }
+    }
+    if(hasAttrMask(mask, ACL_RIGHTS)) {
+      Attribute attr = Attributes.create(aclRightsEntryLevelStr, rights);
+      retEntry.addAttribute(attr,null);
+    }
+  }
+
+  /**
+   * Perform the entryLevel rights evaluation.
+   *
+   * @param container
+   *          The LDAP operation container to use in the evaluations.
+   * @param handler
+   *          The Aci Handler to use in the access evaluations.
+   * @param mask
+   *          Mask specifying what rights attribute processing to perform
+   *          (aclRights or aclRightsInfo or both).
+   * @param retEntry
+   *          The entry to return.
+   * @param skipCheck
+   *          True if ACI evaluation was skipped because bypass-acl privilege
+   *          was found.
+   * @return A string representing the entry level aclRights.
+   */
+  private static String entryLevelRights(AciLDAPOperationContainer container,
       AciHandler handler, int mask, final Entry retEntry,
       boolean skipCheck)
   {
@@ -506,10 +597,7 @@ public class AciEffectiveRights {
     container.setRights(ACI_PROXY| ACI_SKIP_PROXY_CHECK);
     evalInfo.append(rightsString(container, handler, skipCheck, "proxy"));
     addEntryLevelRightsInfo(container, mask, retEntry, "proxy");
-    if(hasAttrMask(mask, ACL_RIGHTS)) {
-      Attribute attr = Attributes.create(aclRightsEntryLevelStr, evalInfo.toString());
-      retEntry.addAttribute(attr,null);
-    }
+    return evalInfo.toString();
   }
 
   /**
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -296,4 +296,14 @@ public interface AciEvalContext
      * @return The current SSF of the connection.
      */
     int getCurrentSSF();
+
+    /**
+     * Return the cache of the outcomes of the bind rules which only depend on
+     * the client, shared by all the evaluations made for the same client
+     * connection.
+     *
+     * @return The cache of the bind rule outcomes, or {@code null} if the
+     *         outcomes must not be cached for this evaluation.
+     */
+    AciDecisionCache getDecisionCache();
 }
@@ -12,11 +12,12 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  * Portions Copyright 2013 Manuel Gaupp
  */
 package org.opends.server.authorization.dseecompat;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.SortedSet;
@@ -176,7 +177,8 @@ public final class AciHandler extends
     {
       AciEffectiveRights.addRightsToEntry(this,
           ((SearchOperation) operation).getAttributes(), container,
-          filteredEntry, skipCheck);
+          filteredEntry, skipCheck,
+          EffectiveRightsCache.getInstance(operation, aciList));
     }
   }
 
@@ -512,8 +514,14 @@ public final class AciHandler extends
       }
     }
 
-    // First get all allowed candidate ACIs.
-    List<Aci> candidates = aciList.getCandidateAcis(dn);
+    // First get all allowed candidate ACIs, once for all the attributes of the entry.
+    List<Aci> candidates = container.getCandidateAcis();
+    if (candidates == null)
+    {
+      candidates = aciList.getCandidateAcis(dn);
+      container.setCandidateAcis(candidates);
+    }
+    container.useDecisionCache(aciList.getGeneration());
     /*
      * Create an applicable list of ACIs by target matching each
      * candidate ACI against the container's target match view.
@@ -863,6 +871,11 @@ public final class AciHandler extends
   /**
    * Creates the allow and deny ACI lists based on the provided target
    * match context. These lists are stored in the evaluation context.
+   * <p>
+   * Unless a control or an extended operation is being evaluated, the
+   * candidates whose rights and entry based targets match the resource entry
+   * are only computed once per rights, then only the attribute based targets
+   * are matched for each attribute of the resource entry.
    *
    * @param candidates
    *          List of all possible ACI candidates.
@@ -870,13 +883,19 @@ public final class AciHandler extends
    *          Target matching context to use for testing each ACI.
    */
   private void createApplicableList(List<Aci> candidates,
-      AciTargetMatchContext targetMatchCtx)
+      AciContainer targetMatchCtx)
   {
+    final boolean matchPerEntry =
+        !targetMatchCtx.hasRights(ACI_EXT_OP) && !targetMatchCtx.hasRights(ACI_CONTROL);
+    final List<Aci> acis =
+        matchPerEntry ? getEntryApplicableAcis(candidates, targetMatchCtx) : candidates;
     List<Aci> denys = new LinkedList<>();
     List<Aci> allows = new LinkedList<>();
-    for (Aci aci : candidates)
+    for (Aci aci : acis)
     {
-      if (Aci.isApplicable(aci, targetMatchCtx))
+      if (matchPerEntry
+          ? Aci.isApplicableToAttribute(aci, targetMatchCtx)
+          : Aci.isApplicable(aci, targetMatchCtx))
       {
         if (aci.hasAccessType(EnumAccessType.DENY))
         {
@@ -896,6 +915,36 @@ public final class AciHandler extends
     targetMatchCtx.setDenyList(denys);
   }
 
+  /**
+   * Returns the candidate ACIs whose rights and entry based targets match the
+   * resource entry of the container, for the current rights of the container.
+   *
+   * @param candidates
+   *          List of all possible ACI candidates.
+   * @param container
+   *          The container holding the resource entry.
+   * @return The candidate ACIs applicable to the resource entry.
+   */
+  private List<Aci> getEntryApplicableAcis(List<Aci> candidates,
+      AciContainer container)
+  {
+    final int rights = container.getRights();
+    List<Aci> acis = container.getEntryApplicableAcis(rights);
+    if (acis == null)
+    {
+      acis = new ArrayList<>();
+      for (Aci aci : candidates)
+      {
+        if (Aci.isApplicableToEntry(aci, container))
+        {
+          acis.add(aci);
+        }
+      }
+      container.setEntryApplicableAcis(rights, acis);
+    }
+    return acis;
+  }
+
   /**
    * Gathers all of the attribute types in an entry along with the
    * "objectclass" attribute type in a List. The "objectclass" attribute
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -26,7 +26,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -48,15 +49,21 @@ public class AciList {
 
   /**
    * A map containing all the ACIs.
-   * We use the copy-on-write technique to avoid locking when reading.
+   * We use the copy-on-write technique to avoid locking when reading:
+   * the lists of ACIs stored in the map are never modified, they are replaced.
    */
-  private volatile DITCacheMap<List<Aci>> aciList = new DITCacheMap<>();
+  private final DITCacheMap<List<Aci>> aciList = new DITCacheMap<>();
 
   /**
-   * Lock to protect internal data structures.
+   * Lock serializing the updates of the ACIs.
    */
-  private final ReentrantReadWriteLock lock =
-          new ReentrantReadWriteLock();
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * Incremented each time the ACIs change, so that the information cached
+   * about the ACIs can be discarded.
+   */
+  private volatile long generation;
 
   /** The configuration DN used to compare against the global ACI entry DN. */
   private final DN configDN;
@@ -69,6 +76,15 @@ public class AciList {
      this.configDN=configDN;
   }
 
+  /**
+   * Returns the current generation of the ACIs. It changes each time the ACIs change.
+   *
+   * @return The current generation of the ACIs.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
   /**
    * Using the base DN, return a list of ACIs that are candidates for
    * evaluation by walking up from the base DN towards the root of the
@@ -87,46 +103,78 @@ public class AciList {
       return candidates;
     }
 
-    lock.readLock().lock();
-    try
-    {
-      //Save the baseDN in case we need to evaluate a global ACI.
-      DN entryDN=baseDN;
-      while (baseDN != null) {
-        List<Aci> acis = aciList.get(baseDN);
-        if (acis != null) {
-          //Check if there are global ACIs. Global ACI has a NULL DN.
-          if (baseDN.isRootDN()) {
-            for (Aci aci : acis) {
-              AciTargets targets = aci.getTargets();
-              //If there is a target, evaluate it to see if this ACI should
-              //be included in the candidate set.
-              if (targets != null
-                  && AciTargets.isTargetApplicable(aci, targets, entryDN))
-              {
-                  candidates.add(aci);  //Add this ACI to the candidates.
-              }
+    //Save the baseDN in case we need to evaluate a global ACI.
+    DN entryDN=baseDN;
+    while (baseDN != null) {
+      List<Aci> acis = aciList.get(baseDN);
+      if (acis != null) {
+        //Check if there are global ACIs. Global ACI has a NULL DN.
+        if (baseDN.isRootDN()) {
+          for (Aci aci : acis) {
+            AciTargets targets = aci.getTargets();
+            //If there is a target, evaluate it to see if this ACI should
+            //be included in the candidate set.
+            if (targets != null
+                && AciTargets.isTargetApplicable(aci, targets, entryDN))
+            {
+                candidates.add(aci);  //Add this ACI to the candidates.
             }
-          } else {
-            candidates.addAll(acis);
           }
-        }
-        if(baseDN.isRootDN()) {
-          break;
-        }
-        DN parentDN=baseDN.parent();
-        if(parentDN == null) {
-          baseDN=DN.rootDN();
         } else {
-          baseDN=parentDN;
+          candidates.addAll(acis);
         }
       }
-      return candidates;
+      if(baseDN.isRootDN()) {
+        break;
+      }
+      DN parentDN=baseDN.parent();
+      if(parentDN == null) {
+        baseDN=DN.rootDN();
+      } else {
+        baseDN=parentDN;
+      }
     }
-    finally
-    {
-      lock.readLock().unlock();
+    return candidates;
+  }
+
+  /**
+   * Indicates whether there are ACIs in the provided entry.
+   *
+   * @param dn  The DN of the entry.
+   * @return {@code true} if the entry holds ACIs.
+   */
+  boolean hasAcis(DN dn) {
+    return aciList.get(dn) != null;
+  }
+
+  /**
+   * Indicates whether the ACIs of the provided entry, of its ancestors and
+   * the global ACIs grant or deny the same rights on all the children of
+   * the entry holding no ACIs of their own, whatever the content of these
+   * children.
+   *
+   * @param parentDN  The DN of the parent entry of the children.
+   * @return {@code true} if all the ACIs evaluate the same way for all the
+   *         children.
+   */
+  boolean isUniformForChildrenOf(DN parentDN) {
+    DN dn = parentDN;
+    while (dn != null) {
+      List<Aci> acis = aciList.get(dn);
+      if (acis != null) {
+        for (Aci aci : acis) {
+          if (!aci.isUniformForChildrenOf(parentDN)) {
+            return false;
+          }
+        }
+      }
+      if (dn.isRootDN()) {
+        break;
+      }
+      DN ancestorDN = dn.parent();
+      dn = ancestorDN != null ? ancestorDN : DN.rootDN();
     }
+    return true;
   }
 
   /**
@@ -141,7 +189,7 @@ public class AciList {
   public int addAci(List<? extends Entry> entries,
                                  LinkedList<LocalizableMessage> failedACIMsgs)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       int validAcis = 0;
@@ -156,7 +204,8 @@ public class AciList {
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 
@@ -170,14 +219,15 @@ public class AciList {
    *
    */
   public void addAci(DN dn, SortedSet<Aci> acis) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       aciList.put(dn, new LinkedList<>(acis));
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 
@@ -195,7 +245,7 @@ public class AciList {
   public int addAci(Entry entry, boolean hasAci,
                                  boolean hasGlobalAci,
                                  List<LocalizableMessage> failedACIMsgs) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       int validAcis = 0;
@@ -217,7 +267,8 @@ public class AciList {
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 
@@ -244,8 +295,31 @@ public class AciList {
       return 0;
     }
 
-    int validAcis=0;
     List<Aci> acis = new ArrayList<>();
+    int validAcis = decodeAciAttributeList(dn, configDN, attributeList, acis,
+                                           failedACIMsgs);
+    addAci(aciList, dn, acis);
+    return validAcis;
+  }
+
+  /**
+   * Decode an ACI's attribute type values. If an ACI has an invalid syntax, a
+   * message is added to the failed messages and the ACI is skipped.
+   * @param dn The DN of the entry holding the ACIs.
+   * @param configDN The DN of the configuration entry used to configure the
+   *                 ACI handler. Used if a global ACI has an decode exception.
+   * @param attributeList List of attributes containing the ACI attribute
+   * values.
+   * @param acis The list to which the decoded ACIs are added.
+   * @param failedACIMsgs List that will hold error messages from ACI decode
+   *                      exceptions.
+   * @return The number of valid attribute values added to the list of ACIs.
+   */
+  private static int decodeAciAttributeList(DN dn, DN configDN,
+                                            List<Attribute> attributeList,
+                                            List<Aci> acis,
+                                            List<LocalizableMessage> failedACIMsgs) {
+    int validAcis=0;
     for (Attribute attribute : attributeList) {
       for (ByteString value : attribute) {
         try {
@@ -260,7 +334,6 @@ public class AciList {
         }
       }
     }
-    addAci(aciList, dn, acis);
     return validAcis;
   }
 
@@ -282,38 +355,62 @@ public class AciList {
                                              boolean hasAci,
                                              boolean hasGlobalAci) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       List<LocalizableMessage> failedACIMsgs=new LinkedList<>();
       //Process "aci" attribute types.
+      //The ACIs of the entry are replaced at once, so that readers never
+      //see the entry without its ACIs.
       if(hasAci) {
-          aciList.remove(oldEntry.getName());
           List<Attribute> attributeList =
                   newEntry.getOperationalAttribute(aciType);
-          addAciAttributeList(aciList,newEntry.getName(), configDN,
-                              attributeList, failedACIMsgs);
+          replaceAciAttributeList(oldEntry.getName(), newEntry.getName(),
+                                  attributeList, failedACIMsgs);
       }
       //Process global "ds-cfg-global-aci" attribute type. The oldentry
       //DN is checked to verify it is equal to the config DN. If not those
       //attributes are skipped.
       if(hasGlobalAci && oldEntry.getName().equals(configDN)) {
-          aciList.remove(DN.rootDN());
           List<Attribute> attributeList = newEntry.getAllAttributes(globalAciType);
-          addAciAttributeList(aciList, DN.rootDN(), configDN,
-                              attributeList, failedACIMsgs);
+          replaceAciAttributeList(DN.rootDN(), DN.rootDN(),
+                                  attributeList, failedACIMsgs);
       }
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Replace the ACIs stored under the old DN with the ACIs decoded from an
+   * ACI attribute type values, stored under the new DN.
+   * @param oldDN The DN the ACIs to replace are stored under.
+   * @param newDN The DN to store the new ACIs under.
+   * @param attributeList List of attributes containing the ACI attribute
+   * values.
+   * @param failedACIMsgs List that will hold error messages from ACI decode
+   *                      exceptions.
+   */
+  private void replaceAciAttributeList(DN oldDN, DN newDN,
+                                       List<Attribute> attributeList,
+                                       List<LocalizableMessage> failedACIMsgs) {
+    if (!oldDN.equals(newDN) || attributeList.isEmpty()) {
+      aciList.remove(oldDN);
+    }
+    if (!attributeList.isEmpty()) {
+      List<Aci> acis = new ArrayList<>();
+      decodeAciAttributeList(newDN, configDN, attributeList, acis, failedACIMsgs);
+      aciList.put(newDN, acis);
     }
   }
 
   /**
    * Add ACI using the DN as a key. If the DN already
    * has ACI(s) on the list, then the new ACI is added to the
-   * end of the array.
+   * end of a copy of the array, which replaces the array.
    * @param aciList The set of ACIs to which ACI is to be added.
    * @param dn The DN to use as the key.
    * @param acis The ACI to be added.
@@ -322,8 +419,9 @@ public class AciList {
                              List<Aci> acis)
   {
     if(aciList.containsKey(dn)) {
-      List<Aci> tmpAci = aciList.get(dn);
+      List<Aci> tmpAci = new ArrayList<>(aciList.get(dn));
       tmpAci.addAll(acis);
+      aciList.put(dn, tmpAci);
     } else {
       aciList.put(dn, acis);
     }
@@ -343,7 +441,7 @@ public class AciList {
    */
   public boolean removeAci(Entry entry,  boolean hasAci,
                                                       boolean hasGlobalAci) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       DN entryDN = entry.getName();
@@ -360,7 +458,8 @@ public class AciList {
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 
@@ -371,7 +470,7 @@ public class AciList {
    */
   public void removeAci(LocalBackend<?> backend) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       Iterator<Map.Entry<DN,List<Aci>>> iterator =
@@ -387,7 +486,8 @@ public class AciList {
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 
@@ -399,7 +499,7 @@ public class AciList {
    */
   public void renameAci(DN oldDN, DN newDN ) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       Map<DN,List<Aci>> tempAciList = new HashMap<>();
@@ -431,7 +531,8 @@ public class AciList {
     }
     finally
     {
-      lock.writeLock().unlock();
+      generation++;
+      lock.unlock();
     }
   }
 }
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -584,6 +584,23 @@ public class AciTargets {
         return true;
     }
 
+    /**
+     * Indicates whether these targets match all the children of an entry the
+     * same way, whatever their content. This is not the case when there is a
+     * targetfilter or a targattrfilters keyword, a target pattern, or a
+     * target DN naming one of the children.
+     *
+     * @param parentDN The DN of the parent entry of the children.
+     * @return True if these targets match all the children the same way.
+     */
+    boolean isUniformForChildrenOf(DN parentDN) {
+        if (targetFilter != null || targAttrFilters != null) {
+            return false;
+        }
+        return target == null
+            || (!target.isPattern() && !parentDN.equals(target.getDN().parent()));
+    }
+
     private static boolean isInScopeOf(DN entryDN, DN targetDN, SearchScope scope) {
       switch(scope.asEnum()) {
       case BASE_OBJECT:
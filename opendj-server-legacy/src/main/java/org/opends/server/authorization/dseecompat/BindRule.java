@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -25,6 +25,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.ldap.DN;
 
 /** This class represents a single bind rule of an ACI permission-bind rule pair. */
 public class BindRule {
@@ -42,6 +43,13 @@ public class BindRule {
     private final EnumBooleanTypes booleanType;
     /** The keyword of a simple bind rule. */
     private final EnumBindRuleKeyword keyword;
+    /** The keyword rule of a simple bind rule. */
+    private final KeywordBindRule rule;
+    /**
+     * True if the outcome of the keyword rule of a simple bind rule only
+     * depends on the client, so that it can be cached for the client.
+     */
+    private final boolean clientOnly;
 
     /** Regular expression group position of a bind rule keyword. */
     private static final int keywordPos = 1;
@@ -87,6 +95,8 @@ public class BindRule {
     private BindRule(EnumBindRuleKeyword keyword, KeywordBindRule rule) {
         this.keyword=keyword;
         this.keywordRuleMap.put(keyword.toString(), rule);
+        this.rule = rule;
+        this.clientOnly = dependsOnClientOnly(keyword, rule);
         this.booleanType = null;
         this.left = null;
         this.right = null;
@@ -127,11 +137,39 @@ public class BindRule {
      */
     private BindRule(BindRule left, BindRule right, EnumBooleanTypes booleanType) {
         this.keyword = null;
+        this.rule = null;
+        this.clientOnly = false;
         this.booleanType = booleanType;
         this.left = left;
         this.right = right;
     }
 
+    /**
+     * Indicates whether the outcome of a keyword rule only depends on the
+     * authorization identity and the connection of the client. The
+     * dayofweek and timeofday rules depend on the time, the userattr rule
+     * and some userdn rules depend on the resource entry, and the ssf rule
+     * changes when the connection is secured. The groupdn rule depends on
+     * the content of dynamic groups: only the memberships of static groups
+     * are cached, see {@link AciContainer#isMemberOf}.
+     *
+     * @param keyword The keyword of the rule.
+     * @param rule The keyword rule.
+     * @return True if the outcome of the rule only depends on the client.
+     */
+    private static boolean dependsOnClientOnly(EnumBindRuleKeyword keyword, KeywordBindRule rule) {
+        switch (keyword) {
+        case USERDN:
+            return ((UserDN) rule).dependsOnClientOnly();
+        case IP:
+        case DNS:
+        case AUTHMETHOD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /*
      * TODO Verify this method handles escaped parentheses by writing
      * a unit test.
@@ -463,14 +501,60 @@ public class BindRule {
         EnumEvalResult ret;
         //Simple bind rules have a null booleanType enumeration.
         if(this.booleanType == null) {
-            KeywordBindRule rule=keywordRuleMap.get(keyword.toString());
-            ret = rule.evaluate(evalCtx);
+            ret = evaluateKeywordRule(evalCtx);
         } else {
             ret = evalComplex(left.evaluate(evalCtx),right.evaluate(evalCtx));
         }
         return EnumEvalResult.negateIfNeeded(ret, negate);
     }
 
+    /**
+     * Evaluate the keyword rule of a simple bind rule, reusing its outcome if
+     * it only depends on the client and has already been evaluated for the
+     * same client.
+     * @param evalCtx The evaluation context to pass to the keyword
+     * evaluation function.
+     * @return An result enumeration containing the result of the evaluation.
+     */
+    private EnumEvalResult evaluateKeywordRule(AciEvalContext evalCtx) {
+        final AciDecisionCache cache = clientOnly ? evalCtx.getDecisionCache() : null;
+        if (cache == null) {
+            return rule.evaluate(evalCtx);
+        }
+        final DN clientDN = evalCtx.getClientDN();
+        EnumEvalResult ret = cache.getOutcome(clientDN, rule);
+        if (ret == null) {
+            ret = rule.evaluate(evalCtx);
+            if (ret == EnumEvalResult.TRUE || ret == EnumEvalResult.FALSE) {
+                cache.putOutcome(clientDN, rule, ret);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Indicates whether the outcome of this bind rule depends on the resource
+     * entry being accessed. The userattr rule and the userdn rules which do
+     * not only depend on the client (self, parent and LDAP URLs) do.
+     *
+     * @return True if the outcome of this bind rule depends on the resource
+     * entry.
+     */
+    boolean dependsOnResourceEntry() {
+        //Simple bind rules have a null booleanType enumeration.
+        if (this.booleanType != null) {
+            return left.dependsOnResourceEntry() || right.dependsOnResourceEntry();
+        }
+        switch (keyword) {
+        case USERATTR:
+            return true;
+        case USERDN:
+            return !clientOnly;
+        default:
+            return false;
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder();
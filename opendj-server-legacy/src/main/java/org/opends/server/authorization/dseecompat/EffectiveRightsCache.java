@@ -0,0 +1,238 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Operation;
+
+/**
+ * Caches the aclRights values computed for the geteffectiverights control
+ * during a search operation, so that they are computed once per region of the
+ * DIT instead of once per returned entry.
+ * <p>
+ * A region is made of the children of an entry. The rights on the children
+ * holding no ACIs of their own are the same when all the ACIs applying to the
+ * region evaluate the same way whatever the content of the children, see
+ * {@link AciList#isUniformForChildrenOf(DN)}. The rights of the entries in other
+ * regions are always computed.
+ * <p>
+ * The entry level read right depends on the attributes held by the entry: it is
+ * cached per set of attribute types. The aclRightsInfo values name the entry
+ * and are never cached.
+ * <p>
+ * One cache is kept per search operation, whose authorization identity and
+ * geteffectiverights control do not change. Its content is discarded as soon
+ * as the ACIs or the groups change.
+ */
+final class EffectiveRightsCache
+{
+  /** The name of the operation attachment holding the cache. */
+  private static final String EFFECTIVE_RIGHTS_CACHE = "effectiveRightsCache";
+
+  /** Maximum number of regions whose rights are cached for an operation. */
+  private static final int MAX_REGIONS = 1024;
+
+  /** The rights cached for a region of the DIT. */
+  private static final class Region
+  {
+    /** The attribute level rights of the attributes requested in the search. */
+    private final Map<AttributeType, String> attributeRights = new HashMap<>();
+    /** The attribute level rights of the specific attributes of the control. */
+    private final Map<AttributeType, String> specificAttributeRights = new HashMap<>();
+    /** The entry level rights, per set of attribute types held by the entries. */
+    private final Map<Set<AttributeType>, String> entryRights = new HashMap<>();
+  }
+
+  /** Marks the regions whose rights cannot be cached. */
+  private static final Region NOT_CACHEABLE = new Region();
+
+  private final AciList aciList;
+  private final GroupManager groupManager;
+  private long aciListGeneration;
+  private long groupRefreshToken;
+  private long groupMembershipToken;
+
+  /** The cached rights, per DN of the parent entry of the regions. */
+  private final Map<DN, Region> regions = new HashMap<>();
+
+  private EffectiveRightsCache(AciList aciList, GroupManager groupManager)
+  {
+    this.aciList = aciList;
+    this.groupManager = groupManager;
+    reset();
+  }
+
+  /**
+   * Returns the cache of the provided operation, creating a new one if the
+   * operation has none or if its cache was built from another list of ACIs
+   * (the access control handler was replaced during the operation).
+   *
+   * @param operation
+   *          The search operation
+   * @param aciList
+   *          The list of ACIs
+   * @return the cache of the operation
+   */
+  static EffectiveRightsCache getInstance(Operation operation, AciList aciList)
+  {
+    EffectiveRightsCache cache = operation.getAttachment(EFFECTIVE_RIGHTS_CACHE);
+    if (cache == null || cache.aciList != aciList)
+    {
+      cache = new EffectiveRightsCache(aciList, DirectoryServer.getGroupManager());
+      operation.setAttachment(EFFECTIVE_RIGHTS_CACHE, cache);
+    }
+    return cache;
+  }
+
+  private void reset()
+  {
+    regions.clear();
+    aciListGeneration = aciList.getGeneration();
+    groupRefreshToken = groupManager.refreshToken();
+    groupMembershipToken = groupManager.membershipToken();
+  }
+
+  /**
+   * Returns the cached attribute level rights of an entry.
+   *
+   * @param entry
+   *          The entry
+   * @param attributeType
+   *          The attribute type the rights are evaluated for
+   * @param specificAttr
+   *          Whether the attribute type is a specific attribute of the control
+   * @return the rights, or {@code null} if they are not cached
+   */
+  String getAttributeRights(Entry entry, AttributeType attributeType, boolean specificAttr)
+  {
+    final Region region = getRegion(entry);
+    return region != null ? getAttributeRights(region, specificAttr).get(attributeType) : null;
+  }
+
+  /**
+   * Caches the attribute level rights of an entry.
+   *
+   * @param entry
+   *          The entry
+   * @param attributeType
+   *          The attribute type the rights were evaluated for
+   * @param specificAttr
+   *          Whether the attribute type is a specific attribute of the control
+   * @param rights
+   *          The rights
+   */
+  void putAttributeRights(Entry entry, AttributeType attributeType, boolean specificAttr, String rights)
+  {
+    final Region region = getRegion(entry);
+    if (region != null)
+    {
+      getAttributeRights(region, specificAttr).put(attributeType, rights);
+    }
+  }
+
+  private static Map<AttributeType, String> getAttributeRights(Region region, boolean specificAttr)
+  {
+    return specificAttr ? region.specificAttributeRights : region.attributeRights;
+  }
+
+  /**
+   * Returns the cached entry level rights of an entry.
+   *
+   * @param entry
+   *          The entry
+   * @return the rights, or {@code null} if they are not cached
+   */
+  String getEntryRights(Entry entry)
+  {
+    final Region region = getRegion(entry);
+    return region != null ? region.entryRights.get(getAttributeTypes(entry)) : null;
+  }
+
+  /**
+   * Caches the entry level rights of an entry.
+   *
+   * @param entry
+   *          The entry
+   * @param rights
+   *          The rights
+   */
+  void putEntryRights(Entry entry, String rights)
+  {
+    final Region region = getRegion(entry);
+    if (region != null)
+    {
+      region.entryRights.put(getAttributeTypes(entry), rights);
+    }
+  }
+
+  private static Set<AttributeType> getAttributeTypes(Entry entry)
+  {
+    final Set<AttributeType> attributeTypes = new HashSet<>(entry.getUserAttributes().keySet());
+    attributeTypes.addAll(entry.getOperationalAttributes().keySet());
+    final Attribute objectClasses = entry.getObjectClassAttribute();
+    if (objectClasses != null)
+    {
+      attributeTypes.add(objectClasses.getAttributeDescription().getAttributeType());
+    }
+    return attributeTypes;
+  }
+
+  /** Returns the region of the entry, or {@code null} if the rights of the entry cannot be cached. */
+  private Region getRegion(Entry entry)
+  {
+    if (aciListGeneration != aciList.getGeneration()
+        || groupManager.hasInstancesChanged(groupRefreshToken)
+        || groupMembershipToken != groupManager.membershipToken())
+    {
+      reset();
+    }
+
+    final DN entryDN = entry.getName();
+    final DN parentDN = entryDN.parent();
+    if (parentDN == null || aciList.hasAcis(entryDN))
+    {
+      return null;
+    }
+    Region region = regions.get(parentDN);
+    if (region == null)
+    {
+      if (regions.size() >= MAX_REGIONS)
+      {
+        regions.clear();
+      }
+      region = aciList.isUniformForChildrenOf(parentDN) ? new Region() : NOT_CACHEABLE;
+      regions.put(parentDN, region);
+    }
+    return region != NOT_CACHEABLE ? region : null;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(regions=" + regions.size()
+        + ", aciListGeneration=" + aciListGeneration + ")";
+  }
+}
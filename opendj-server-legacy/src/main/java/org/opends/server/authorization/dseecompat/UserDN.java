@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -149,6 +149,28 @@ public class UserDN implements KeywordBindRule {
         }
     }
 
+    /**
+     * Indicates whether the outcome of this userdn bind rule only depends on
+     * the client: this is not the case if one of its URLs is relative to the
+     * resource entry (self and parent), or has a filter matched against the
+     * client entry, which can be modified.
+     * @return True if the outcome of this rule only depends on the client DN.
+     */
+    boolean dependsOnClientOnly() {
+        for (UserDNTypeURL dnTypeURL : urlList) {
+            switch (dnTypeURL.getUserDNType()) {
+            case DN:
+            case DNPATTERN:
+            case ALL:
+            case ANYONE:
+                break;
+            default:
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Performs the evaluation of a userdn bind rule based on the
      * evaluation context passed to it. The evaluation stops when there
@@ -215,7 +237,7 @@ public class UserDN implements KeywordBindRule {
                 DN parentDN = resDN.parent();
                 return parentDN != null && parentDN.equals(clientDN);
             case DNPATTERN:
-                return evalDNPattern(evalCtx, url);
+                return evalDNPattern(evalCtx, dnTypeURL);
             case DN:
                 return evalDN(clientDN, url);
             default:
@@ -256,18 +278,12 @@ public class UserDN implements KeywordBindRule {
     /**
      * This method evaluates a DN pattern userdn expression.
      * @param evalCtx  The evaluation context to use.
-     * @param url The LDAP URL containing the pattern.
+     * @param dnTypeURL The URL dn type mapping containing the pattern.
      * @return An enumeration evaluation result.
      */
-    private boolean evalDNPattern(AciEvalContext evalCtx, LDAPURL url) {
-        PatternDN pattern;
-        try {
-          pattern = PatternDN.decode(url.getRawBaseDN());
-        } catch (DirectoryException ex) {
-          return false;
-        }
-
-        return pattern.matchesDN(evalCtx.getClientDN());
+    private boolean evalDNPattern(AciEvalContext evalCtx, UserDNTypeURL dnTypeURL) {
+        PatternDN pattern = dnTypeURL.getPattern();
+        return pattern != null && pattern.matchesDN(evalCtx.getClientDN());
     }
 
 
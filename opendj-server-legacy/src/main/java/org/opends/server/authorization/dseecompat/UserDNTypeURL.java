@@ -12,10 +12,11 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008 Sun Microsystems, Inc.
- * Portions Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2015-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.authorization.dseecompat;
 
+import org.opends.server.types.DirectoryException;
 import org.opends.server.types.LDAPURL;
 
 /**
@@ -28,6 +29,11 @@ public class UserDNTypeURL {
     private final EnumUserDNType dnType;
     /** The URL value. Maybe a dummy value for types such as ANYONE or SELF. */
     private final LDAPURL url;
+    /**
+     * The DN pattern of the URL, decoded once for all evaluations, or null if
+     * the type is not DNPATTERN or the pattern is not valid.
+     */
+    private final PatternDN pattern;
 
     /**
      * Create a class representing the "userdn" URL decoded by the
@@ -39,6 +45,15 @@ public class UserDNTypeURL {
     UserDNTypeURL(EnumUserDNType dnType, LDAPURL url) {
         this.url=url;
         this.dnType=dnType;
+        this.pattern = dnType == EnumUserDNType.DNPATTERN ? decodePattern(url) : null;
+    }
+
+    private static PatternDN decodePattern(LDAPURL url) {
+        try {
+            return PatternDN.decode(url.getRawBaseDN());
+        } catch (DirectoryException ex) {
+            return null;
+        }
     }
 
     /**
@@ -55,4 +70,13 @@ public class UserDNTypeURL {
     public LDAPURL getURL() {
         return this.url;
     }
+
+    /**
+     * Returns the DN pattern of the URL.
+     * @return The DN pattern of the URL, or null if the type is not
+     * DNPATTERN or the pattern is not valid.
+     */
+    PatternDN getPattern() {
+        return this.pattern;
+    }
 }
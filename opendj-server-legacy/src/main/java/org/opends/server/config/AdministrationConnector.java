@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.config;
 
@@ -85,6 +85,7 @@ public final class AdministrationConnector implements
 
   private static final SortedSet<AddressMask> ADMIN_ALLOWED_CLIENT = new TreeSet<>();
   private static final SortedSet<AddressMask> ADMIN_DENIED_CLIENT = new TreeSet<>();
+  private static final SortedSet<AddressMask> ADMIN_RATE_LIMITED_CLIENT = new TreeSet<>();
 
   private static final boolean ADMIN_ENABLED = true;
   private static final boolean ADMIN_KEEP_STATS = true;
@@ -104,6 +105,12 @@ public final class AdministrationConnector implements
   private static final boolean ADMIN_USE_TCP_NO_DELAY = true;
   private static final SSLClientAuthPolicy ADMIN_SSL_CLIENT_AUTH_POLICY =
     SSLClientAuthPolicy.DISABLED;
+  /** Administration requests are never rate limited. */
+  private static final int ADMIN_MAX_OPERATION_RATE = 0;
+  private static final long ADMIN_MAX_REQUEST_BANDWIDTH = 0;
+  private static final int ADMIN_SSL_SESSION_CACHE_SIZE = 20480;
+  /** 24 hours. */
+  private static final long ADMIN_SSL_SESSION_TIMEOUT = 86400;
 
   private final ServerContext serverContext;
 
@@ -293,6 +300,18 @@ public final class AdministrationConnector implements
       return ADMIN_WRITE_BUFFER_SIZE;
     }
 
+    @Override
+    public int getMaxOperationRate()
+    {
+      return ADMIN_MAX_OPERATION_RATE;
+    }
+
+    @Override
+    public long getMaxRequestBandwidth()
+    {
+      return ADMIN_MAX_REQUEST_BANDWIDTH;
+    }
+
     @Override
     public Integer getNumRequestHandlers()
     {
@@ -329,6 +348,18 @@ public final class AdministrationConnector implements
       return config.getSSLProtocol();
     }
 
+    @Override
+    public int getSSLSessionCacheSize()
+    {
+      return ADMIN_SSL_SESSION_CACHE_SIZE;
+    }
+
+    @Override
+    public long getSSLSessionTimeout()
+    {
+      return ADMIN_SSL_SESSION_TIMEOUT;
+    }
+
     @Override
     public String getTrustManagerProvider()
     {
@@ -385,6 +416,12 @@ public final class AdministrationConnector implements
       return ADMIN_DENIED_CLIENT;
     }
 
+    @Override
+    public SortedSet<AddressMask> getRateLimitedClient()
+    {
+      return ADMIN_RATE_LIMITED_CLIENT;
+    }
+
     @Override
     public boolean isEnabled()
     {
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.config;
 
@@ -3675,6 +3675,16 @@ public final class ConfigConstants
 
 
 
+  /**
+   * The name of the operational attribute that may be included in user
+   * entries to specify the maximum number of operations per second that
+   * user may perform.
+   */
+  public static final String OP_ATTR_USER_OPERATION_RATE_LIMIT =
+      NAME_PREFIX_RLIM + "operation-rate-limit";
+
+
+
   /**
    * The name of the operational attribute which will be put in user's entry in
    * order to cache a copy of their password for pass through authentication.
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -20,7 +20,8 @@ import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -59,8 +60,8 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   private final DITCacheMap<CopyOnWriteArraySet<ClientConnection>> userMap;
 
-  /** Lock to protect internal data structures. */
-  private final ReentrantReadWriteLock lock;
+  /** Lock serializing the updates of internal data structures, which are read without locking. */
+  private final Lock lock;
 
   /** Dummy configuration DN. */
   private static final String CONFIG_DN = "cn=Authenticated Users,cn=config";
@@ -76,7 +77,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
         POST_RESPONSE_MODIFY, POST_RESPONSE_MODIFY_DN, POST_RESPONSE_DELETE),
         true);
     userMap = new DITCacheMap<>();
-    lock = new ReentrantReadWriteLock();
+    lock = new ReentrantLock();
 
     DirectoryServer.registerInternalPlugin(this);
   }
@@ -91,7 +92,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public void put(DN userDN, ClientConnection clientConnection)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(userDN);
@@ -108,7 +109,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -124,7 +125,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public void remove(DN userDN, ClientConnection clientConnection)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(userDN);
@@ -139,7 +140,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -158,15 +159,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
    */
   public CopyOnWriteArraySet<ClientConnection> get(DN userDN)
   {
-    lock.readLock().lock();
-    try
-    {
-      return userMap.get(userDN);
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return userMap.get(userDN);
   }
 
   @Override
@@ -181,14 +174,14 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     // Identify any client connections that may be authenticated
     // or authorized as the user whose entry has been deleted and terminate them
     Set<CopyOnWriteArraySet<ClientConnection>> arraySet = new HashSet<>();
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       userMap.removeSubtree(entryDN, arraySet);
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
 
     for (CopyOnWriteArraySet<ClientConnection> connectionSet : arraySet)
@@ -204,15 +197,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
 
   private boolean operationDoesNotTargetAuthenticatedUser(final DN entryDN)
   {
-    lock.readLock().lock();
-    try
-    {
-      return !userMap.containsSubtree(entryDN);
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return !userMap.containsSubtree(entryDN);
   }
 
   @Override
@@ -229,7 +214,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     // or authorized as the user whose entry has been modified
     // and update them with the latest version of the entry
     // including any virtual attributes.
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       CopyOnWriteArraySet<ClientConnection> connectionSet = userMap.get(oldEntry.getName());
@@ -248,7 +233,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
     return PostResponse.continueOperationProcessing();
   }
@@ -270,7 +255,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     // Identify any client connections that may be authenticated
     // or authorized as the user whose entry has been modified
     // and update them with the latest version of the entry.
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       final Set<CopyOnWriteArraySet<ClientConnection>> arraySet = new HashSet<>();
@@ -342,7 +327,7 @@ public class AuthenticatedUsers extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
     return PostResponse.continueOperationProcessing();
   }
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -138,6 +138,10 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     private int maxPSearches;
     /** The maximum size that internal buffers will be allowed to grow to until they are trimmed. */
     private int maxInternalBufferSize = DEFAULT_MAX_INTERNAL_BUFFER_SIZE;
+    /** How long in milliseconds a verified password is remembered, or 0 if it is not. */
+    private long verifiedCredentialCacheTTL;
+    /** The maximum number of users whose verified password is remembered. */
+    private int verifiedCredentialCacheMaxEntries = 1;
   }
 
   /**
@@ -219,6 +223,8 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     core.maxAllowedConnections = (maxAllowedConnections > 0) ? maxAllowedConnections : -1;
     core.maxPSearches = globalConfig.getMaxPsearches();
     core.maxInternalBufferSize = (int) globalConfig.getMaxInternalBufferSize();
+    core.verifiedCredentialCacheTTL = globalConfig.getVerifiedCredentialCacheTTL();
+    core.verifiedCredentialCacheMaxEntries = globalConfig.getVerifiedCredentialCacheMaxEntries();
 
     // For tools, common audit may not be available
     CommonAudit commonAudit = serverContext.getCommonAudit();
@@ -707,6 +713,28 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     return coreAttributes.timeLimit;
   }
 
+  /**
+   * Retrieves how long a password verified against the stored password of a
+   * user is remembered.
+   *
+   * @return  How long in milliseconds a verified password is remembered, or 0
+   *          if verified passwords are not remembered.
+   */
+  public long getVerifiedCredentialCacheTTL()
+  {
+    return coreAttributes.verifiedCredentialCacheTTL;
+  }
+
+  /**
+   * Retrieves the maximum number of users whose verified password is remembered.
+   *
+   * @return  The maximum number of users whose verified password is remembered.
+   */
+  public int getVerifiedCredentialCacheMaxEntries()
+  {
+    return coreAttributes.verifiedCredentialCacheMaxEntries;
+  }
+
   /**
    * Retrieves the writability mode for the Directory Server.  This will only
    * be applicable for user suffixes.
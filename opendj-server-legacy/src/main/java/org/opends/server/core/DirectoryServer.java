@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2010-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -105,6 +105,7 @@ import org.opends.server.api.SASLMechanismHandler;
 import org.opends.server.api.ServerShutdownListener;
 import org.opends.server.api.SynchronizationProvider;
 import org.opends.server.api.TrustManagerProvider;
+import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.api.WorkQueue;
 import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult;
@@ -221,6 +222,8 @@ public final class DirectoryServer
 
   /** The authenticated users manager for the server. */
   private AuthenticatedUsers authenticatedUsers;
+  /** The cache of the passwords recently verified by the server. */
+  private VerifiedCredentialCache verifiedCredentialCache;
   /** The configuration manager that will handle the server backends. */
   private BackendConfigManager backendConfigManager;
 
@@ -1574,6 +1577,8 @@ public final class DirectoryServer
   private void initializeAuthenticatedUsers()
   {
     directoryServer.authenticatedUsers = new AuthenticatedUsers();
+    directoryServer.verifiedCredentialCache = new VerifiedCredentialCache();
+    registerMonitorProvider(directoryServer.verifiedCredentialCache);
   }
 
   /**
@@ -1586,6 +1591,16 @@ public final class DirectoryServer
     return directoryServer.authenticatedUsers;
   }
 
+  /**
+   * Retrieves the cache of the passwords recently verified by the Directory Server.
+   *
+   * @return  The cache of the passwords recently verified by the Directory Server.
+   */
+  static VerifiedCredentialCache getVerifiedCredentialCache()
+  {
+    return directoryServer.verifiedCredentialCache;
+  }
+
   private void initializeCryptoManager()
          throws ConfigException, InitializationException
   {
@@ -2001,6 +2016,32 @@ public final class DirectoryServer
     getInstance().virtualAttributeConfigManager.deregister(rule);
   }
 
+  /**
+   * Indicates that entries have been added, deleted or renamed, so that the
+   * virtual attribute values depending on the subordinate entries are
+   * generated again.
+   */
+  public static void virtualAttributeSubordinatesChanged()
+  {
+    directoryServer.virtualAttributeConfigManager.subordinatesChanged();
+  }
+
+  /**
+   * Returns the current version of the provided dependencies of virtual
+   * attribute values.
+   *
+   * @param  dependencies  The dependencies of virtual attribute values.
+   *
+   * @return  The current version of the dependencies, which changes each
+   *          time one of the dependencies changes.
+   */
+  public static long getVirtualAttributeDependenciesVersion(
+      Set<VirtualAttributeProvider.Dependency> dependencies)
+  {
+    return directoryServer.virtualAttributeConfigManager
+        .getDependenciesVersion(dependencies);
+  }
+
   /**
    * Retrieves a reference to the JMX MBean server that is associated with the
    * Directory Server.
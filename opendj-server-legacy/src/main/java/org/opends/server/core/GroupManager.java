@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -24,21 +24,25 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -102,14 +106,23 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** Used by group instances to determine if new groups have been registered or groups deleted. */
   private volatile long refreshToken;
 
+  /** Incremented each time the member list of a registered group instance is updated. */
+  private final AtomicLong membershipToken = new AtomicLong();
+
   /** A mapping between the DNs of the config entries and the associated group implementations. */
   private ConcurrentMap<DN, Group<?>> groupImplementations;
 
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
-  /** Lock to protect internal data structures. */
-  private final ReadWriteLock lock;
+  /** The reverse index of the memberships to the group instances. */
+  private final GroupMembershipIndex membershipIndex = new GroupMembershipIndex(this);
+
+  /**
+   * Lock serializing the updates of internal data structures. The group instances are read
+   * without locking.
+   */
+  private final Lock lock;
 
   /** Dummy configuration DN for Group Manager. */
   private static final String CONFIG_DN = "cn=Group Manager,cn=config";
@@ -139,7 +152,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     groupImplementations = new ConcurrentHashMap<>();
     groupInstances = new DITCacheMap<>();
 
-    lock = new ReentrantReadWriteLock();
+    lock = new ReentrantLock();
 
     DirectoryServer.registerInternalPlugin(this);
     serverContext.getBackendConfigManager().registerLocalBackendInitializationListener(this);
@@ -260,7 +273,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     Group<?> group = groupImplementations.remove(configuration.dn());
     if (group != null)
     {
-      lock.writeLock().lock();
+      lock.lock();
       try
       {
         Iterator<Group<?>> iterator = groupInstances.values().iterator();
@@ -275,8 +288,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
       }
       finally
       {
-        lock.writeLock().unlock();
+        lock.unlock();
       }
+      membershipIndex.invalidate();
 
       group.finalizeGroupImplementation();
     }
@@ -321,7 +335,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         Group<?> group = groupImplementations.remove(configuration.dn());
         if (group != null)
         {
-          lock.writeLock().lock();
+          lock.lock();
           try
           {
             Iterator<Group<?>> iterator = groupInstances.values().iterator();
@@ -336,8 +350,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
           }
           finally
           {
-            lock.writeLock().unlock();
+            lock.unlock();
           }
+          membershipIndex.invalidate();
 
           group.finalizeGroupImplementation();
         }
@@ -476,16 +491,8 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   public Iterable<Group<?>> getGroupInstances()
   {
-    lock.readLock().lock();
-    try
-    {
-      // Return a copy to protect from structural changes.
-      return new ArrayList<>(groupInstances.values());
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    // Return a copy to protect from structural changes.
+    return new ArrayList<>(groupInstances.values());
   }
 
   /**
@@ -499,15 +506,42 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   public Group<?> getGroupInstance(DN entryDN)
   {
-    lock.readLock().lock();
-    try
+    return groupInstances.get(entryDN);
+  }
+
+  /**
+   * Retrieves the group instances the provided entry is a member of,
+   * either directly or through nested groups.
+   *
+   * @param  entry  The entry for which to retrieve the group memberships.
+   *
+   * @return  The group instances the provided entry is a member of.
+   */
+  public Set<Group<?>> getGroupMemberships(Entry entry)
+  {
+    Set<Group<?>> groups = membershipIndex.getGroups(entry);
+    if (groups != null)
     {
-      return groupInstances.get(entryDN);
+      return groups;
     }
-    finally
+
+    // The index is not available, check the membership to each group
+    groups = new LinkedHashSet<>();
+    for (Group<?> group : getGroupInstances())
     {
-      lock.readLock().unlock();
+      try
+      {
+        if (group.isMember(entry))
+        {
+          groups.add(group);
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
     }
+    return groups;
   }
 
   /**
@@ -572,7 +606,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           continue;
         }
 
-        lock.writeLock().lock();
+        lock.lock();
         try
         {
           for (SearchResultEntry entry : internalSearch.getSearchEntries())
@@ -592,10 +626,11 @@ public class GroupManager extends InternalDirectoryServerPlugin
         }
         finally
         {
-          lock.writeLock().unlock();
+          lock.unlock();
         }
       }
     }
+    membershipIndex.invalidate();
   }
 
   /**
@@ -605,7 +640,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
   @Override
   public void performBackendPostFinalizationProcessing(LocalBackend<?> backend)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       Iterator<Map.Entry<DN, Group<?>>> iterator = groupInstances.entrySet().iterator();
@@ -621,8 +656,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
+    membershipIndex.invalidate();
   }
 
   @Override
@@ -677,17 +713,26 @@ public class GroupManager extends InternalDirectoryServerPlugin
       return;
     }
 
-    lock.writeLock().lock();
+    // The members must be read while the group is still registered
+    Group<?> group = getGroupInstance(entry.getName());
+    Collection<ByteString> members = group != null ? membershipIndex.getMembers(group) : null;
+
+    Set<Group<?>> removedGroups = new HashSet<>();
+    lock.lock();
     try
     {
-      if (groupInstances.removeSubtree(entry.getName(), null))
+      if (groupInstances.removeSubtree(entry.getName(), removedGroups))
       {
         refreshToken++;
       }
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
+    }
+    for (Group<?> removedGroup : removedGroups)
+    {
+      membershipIndex.groupRemoved(removedGroup, removedGroup == group ? members : null);
     }
   }
 
@@ -723,25 +768,24 @@ public class GroupManager extends InternalDirectoryServerPlugin
   {
     if (hasGroupMembershipUpdateControl(modifyOperation))
     {
-      return;
-    }
-
-    lock.readLock().lock();
-    try
-    {
-      if (!groupInstances.containsKey(oldEntry.getName()))
+      // the group instance has updated its member list itself
+      membershipToken.incrementAndGet();
+      Group<?> group = getGroupInstance(oldEntry.getName());
+      if (group != null)
       {
-        // If the modified entry is not in any group instance, it's probably
-        // not a group, exit fast
-        return;
+        membershipIndex.membersUpdated(group, oldEntry, modifications);
       }
+      return;
     }
-    finally
+
+    if (!groupInstances.containsKey(oldEntry.getName()))
     {
-      lock.readLock().unlock();
+      // If the modified entry is not in any group instance, it's probably
+      // not a group, exit fast
+      return;
     }
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       Group<?> group = groupInstances.get(oldEntry.getName());
@@ -752,12 +796,15 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || updatesObjectClass(modifications))
         {
           groupInstances.remove(oldEntry.getName());
+          membershipIndex.groupRemoved(group, null);
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
         }
         else
         {
           group.updateMembers(modifications);
+          membershipToken.incrementAndGet();
+          membershipIndex.membersUpdated(group, oldEntry, modifications);
         }
       }
     }
@@ -767,7 +814,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -786,7 +833,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
       return;
     }
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       Set<Group<?>> groupSet = new HashSet<>();
@@ -807,7 +854,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -939,7 +986,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         {
           Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
 
-          lock.writeLock().lock();
+          lock.lock();
           try
           {
             groupInstances.put(entry.getName(), groupInstance);
@@ -947,8 +994,9 @@ public class GroupManager extends InternalDirectoryServerPlugin
           }
           finally
           {
-            lock.writeLock().unlock();
+            lock.unlock();
           }
+          membershipIndex.groupAdded(groupInstance);
         }
       }
       catch (DirectoryException e)
@@ -965,15 +1013,16 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   void deregisterAllGroups()
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       groupInstances.clear();
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
+    membershipIndex.invalidate();
   }
 
   /**
@@ -999,4 +1048,15 @@ public class GroupManager extends InternalDirectoryServerPlugin
   public long refreshToken() {
     return this.refreshToken;
   }
+
+  /**
+   * Return the current membership token value. It changes each time the member
+   * list of a registered group instance is updated, and can be used to discard
+   * cached group memberships.
+   *
+   * @return The current membership token value.
+   */
+  public long membershipToken() {
+    return membershipToken.get();
+  }
 }
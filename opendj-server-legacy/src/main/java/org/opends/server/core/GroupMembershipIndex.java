@@ -0,0 +1,587 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.api.Group;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
+import org.opends.server.types.Modification;
+
+/**
+ * A reverse index of the group memberships, giving the groups an entry is a member of without
+ * checking the membership of the entry to each group known to the group manager.
+ * <p>
+ * The index maps the normalized DN of each member listed in the entry of a group (see
+ * {@link Group#getMemberAttributeType()}) to the groups listing it. The groups listing a group
+ * are looked up in the same way, so the nested memberships are found by walking up the index.
+ * The entries are matched against the member URLs of all the groups defining their members by
+ * LDAP URLs (see {@link Group#getMemberURLs()}) at once, by a {@link MemberURLMatcher} rebuilt
+ * whenever such a group is registered or deregistered. The membership to the other groups still has
+ * to be checked for each entry.
+ * <p>
+ * The index is built the first time it is needed, then maintained incrementally as the members
+ * of the groups are updated. The index is discarded, and built again when next needed, when many
+ * groups are registered or deregistered at once, or when the members of a deregistered group could
+ * not be read.
+ */
+@ThreadSafe
+final class GroupMembershipIndex
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The contents of a built index. */
+  private static final class Index
+  {
+    /** The groups listing their members in their entry, keyed by the normalized DN of their members. */
+    private final ConcurrentMap<ByteString, Group<?>[]> listingGroups;
+    /** The groups defining their members by LDAP URLs. */
+    private final Set<Group<?>> urlGroups;
+    /** The matcher of the member URLs of {@link #urlGroups}. */
+    private volatile MemberURLMatcher matcher;
+    /** The groups whose membership must be checked for each entry. */
+    private final Set<Group<?>> otherGroups;
+
+    private Index(ConcurrentMap<ByteString, Group<?>[]> listingGroups, Set<Group<?>> urlGroups,
+        Set<Group<?>> otherGroups)
+    {
+      this.listingGroups = listingGroups;
+      this.urlGroups = urlGroups;
+      this.matcher = new MemberURLMatcher(urlGroups);
+      this.otherGroups = otherGroups;
+    }
+
+    /** Adds a group whose member list is not in the entry of the group. */
+    private void addUnlistedGroup(Group<?> group)
+    {
+      if (group.getMemberURLs() != null)
+      {
+        urlGroups.add(group);
+        matcher = new MemberURLMatcher(urlGroups);
+      }
+      else
+      {
+        otherGroups.add(group);
+      }
+    }
+
+    /** Removes a group whose member list is not in the entry of the group. */
+    private void removeUnlistedGroup(Group<?> group)
+    {
+      if (urlGroups.remove(group))
+      {
+        matcher = new MemberURLMatcher(urlGroups);
+      }
+      else
+      {
+        otherGroups.remove(group);
+      }
+    }
+  }
+
+  private final GroupManager groupManager;
+
+  /** Whether a thread is building the index. */
+  private final AtomicBoolean building = new AtomicBoolean();
+
+  /** The number of changes made to the groups, used to detect the changes made while building the index. */
+  @GuardedBy("this")
+  private long changes;
+
+  /** The index, or {@code null} if it has not been built. */
+  private volatile Index index;
+
+  /**
+   * Creates a new index of the memberships to the groups registered with the provided group manager.
+   *
+   * @param groupManager
+   *          The group manager
+   */
+  GroupMembershipIndex(GroupManager groupManager)
+  {
+    this.groupManager = groupManager;
+  }
+
+  /**
+   * Retrieves the groups the provided entry is a member of, directly or through nested groups.
+   *
+   * @param entry
+   *          The entry
+   * @return the groups the entry is a member of, or {@code null} if the index is not available
+   */
+  Set<Group<?>> getGroups(Entry entry)
+  {
+    final Index current = getIndex();
+    if (current == null)
+    {
+      return null;
+    }
+
+    final Set<Group<?>> groups = new LinkedHashSet<>();
+    current.matcher.addMatchingGroups(entry, groups);
+    for (Group<?> group : current.otherGroups)
+    {
+      try
+      {
+        if (group.isMember(entry))
+        {
+          groups.add(group);
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    final List<Group<?>> toExamine = new ArrayList<>(groups);
+    addListingGroups(current, entry.getName(), groups, toExamine);
+    for (int i = 0; i < toExamine.size(); i++)
+    {
+      addListingGroups(current, toExamine.get(i).getGroupDN(), groups, toExamine);
+    }
+    return groups;
+  }
+
+  private void addListingGroups(Index current, DN memberDN, Set<Group<?>> groups, List<Group<?>> toExamine)
+  {
+    final Group<?>[] listingGroups = current.listingGroups.get(memberDN.toNormalizedByteString());
+    if (listingGroups == null)
+    {
+      return;
+    }
+    for (Group<?> group : listingGroups)
+    {
+      // skip the groups deregistered after their members were read
+      if (groupManager.getGroupInstance(group.getGroupDN()) == group && groups.add(group))
+      {
+        toExamine.add(group);
+      }
+    }
+  }
+
+  private Index getIndex()
+  {
+    final Index current = index;
+    return current != null ? current : build();
+  }
+
+  private Index build()
+  {
+    if (!building.compareAndSet(false, true))
+    {
+      // another thread is building the index
+      return null;
+    }
+    try
+    {
+      final long start;
+      synchronized (this)
+      {
+        if (index != null)
+        {
+          return index;
+        }
+        start = changes;
+      }
+
+      final ConcurrentMap<ByteString, Group<?>[]> listingGroups = new ConcurrentHashMap<>();
+      final Set<Group<?>> urlGroups = newGroupSet();
+      final Set<Group<?>> otherGroups = newGroupSet();
+      for (Group<?> group : groupManager.getGroupInstances())
+      {
+        if (group.getMemberAttributeType() == null)
+        {
+          (group.getMemberURLs() != null ? urlGroups : otherGroups).add(group);
+          continue;
+        }
+        final Collection<ByteString> members = readMembers(group);
+        if (members == null)
+        {
+          return null;
+        }
+        for (ByteString member : members)
+        {
+          add(listingGroups, member, group);
+        }
+      }
+
+      synchronized (this)
+      {
+        if (changes != start)
+        {
+          // the groups have changed while they were read, the index may miss these changes
+          return null;
+        }
+        index = new Index(listingGroups, urlGroups, otherGroups);
+        return index;
+      }
+    }
+    finally
+    {
+      building.set(false);
+    }
+  }
+
+  private static Set<Group<?>> newGroupSet()
+  {
+    return Collections.newSetFromMap(new ConcurrentHashMap<Group<?>, Boolean>());
+  }
+
+  /**
+   * Returns the normalized DNs of the members listed by a group, if the index needs them.
+   * <p>
+   * The members must be read before the group is deregistered, so that they can be passed to
+   * {@link #groupRemoved(Group, Collection)}.
+   *
+   * @param group
+   *          The group
+   * @return the normalized DNs of the members listed by the group, or {@code null} if the index
+   *         has not been built or the members could not be read
+   */
+  Collection<ByteString> getMembers(Group<?> group)
+  {
+    return index != null ? readMembers(group) : null;
+  }
+
+  private static Collection<ByteString> readMembers(Group<?> group)
+  {
+    if (group.getMemberAttributeType() == null)
+    {
+      return Collections.emptyList();
+    }
+    final List<ByteString> members = new ArrayList<>();
+    try
+    {
+      final MemberList memberList = group.getMembers();
+      try
+      {
+        while (memberList.hasMoreMembers())
+        {
+          try
+          {
+            final DN memberDN = memberList.nextMemberDN();
+            if (memberDN != null)
+            {
+              members.add(memberDN.toNormalizedByteString());
+            }
+          }
+          catch (MembershipException e)
+          {
+            logger.traceException(e);
+            if (!e.continueIterating())
+            {
+              return null;
+            }
+          }
+        }
+      }
+      finally
+      {
+        memberList.close();
+      }
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+    return members;
+  }
+
+  /**
+   * Accounts for a group registered with the group manager.
+   *
+   * @param group
+   *          The registered group
+   */
+  void groupAdded(Group<?> group)
+  {
+    final Index current;
+    final long start;
+    synchronized (this)
+    {
+      changes++;
+      current = index;
+      if (current == null)
+      {
+        return;
+      }
+      if (group.getMemberAttributeType() == null)
+      {
+        current.addUnlistedGroup(group);
+        return;
+      }
+      start = changes;
+    }
+
+    // read the members without holding the lock, the group may be updating its members
+    final Collection<ByteString> members = readMembers(group);
+    synchronized (this)
+    {
+      if (index != current)
+      {
+        // the index has been discarded, or built again after the group was registered
+        return;
+      }
+      if (members == null || changes != start)
+      {
+        // the groups have changed while the members were read, the index may miss these changes
+        invalidate();
+        return;
+      }
+      for (ByteString member : members)
+      {
+        add(current.listingGroups, member, group);
+      }
+    }
+  }
+
+  /**
+   * Accounts for a group deregistered from the group manager.
+   *
+   * @param group
+   *          The deregistered group
+   * @param members
+   *          The members of the group, as returned by {@link #getMembers(Group)} before the
+   *          group was deregistered, or {@code null} if they are not known
+   */
+  synchronized void groupRemoved(Group<?> group, Collection<ByteString> members)
+  {
+    changes++;
+    final Index current = index;
+    if (current == null)
+    {
+      return;
+    }
+    if (group.getMemberAttributeType() == null)
+    {
+      current.removeUnlistedGroup(group);
+    }
+    else if (members == null)
+    {
+      invalidate();
+    }
+    else
+    {
+      for (ByteString member : members)
+      {
+        remove(current.listingGroups, member, group);
+      }
+    }
+  }
+
+  /**
+   * Accounts for the modifications made to the entry of a registered group.
+   *
+   * @param group
+   *          The group
+   * @param oldEntry
+   *          The entry of the group before the modifications
+   * @param modifications
+   *          The modifications made to the entry of the group
+   */
+  synchronized void membersUpdated(Group<?> group, Entry oldEntry, List<Modification> modifications)
+  {
+    changes++;
+    final Index current = index;
+    final AttributeType memberAttributeType = group.getMemberAttributeType();
+    if (current == null || memberAttributeType == null)
+    {
+      return;
+    }
+
+    // the members added by the previous modifications, removed again if all the members are removed
+    final Set<ByteString> added = new HashSet<>();
+    for (Modification mod : modifications)
+    {
+      final Attribute attribute = mod.getAttribute();
+      if (!attribute.getAttributeDescription().getAttributeType().equals(memberAttributeType))
+      {
+        continue;
+      }
+      switch (mod.getModificationType().asEnum())
+      {
+      case ADD:
+        for (ByteString value : attribute)
+        {
+          final ByteString member = normalize(value);
+          if (member != null)
+          {
+            add(current.listingGroups, member, group);
+            added.add(member);
+          }
+        }
+        break;
+      case DELETE:
+        if (attribute.isEmpty())
+        {
+          removeAll(current, group, oldEntry, memberAttributeType, added);
+        }
+        else
+        {
+          for (ByteString value : attribute)
+          {
+            final ByteString member = normalize(value);
+            if (member != null)
+            {
+              remove(current.listingGroups, member, group);
+              added.remove(member);
+            }
+          }
+        }
+        break;
+      case REPLACE:
+        removeAll(current, group, oldEntry, memberAttributeType, added);
+        for (ByteString value : attribute)
+        {
+          final ByteString member = normalize(value);
+          if (member != null)
+          {
+            add(current.listingGroups, member, group);
+            added.add(member);
+          }
+        }
+        break;
+      default:
+        // DNs cannot be incremented
+        break;
+      }
+    }
+  }
+
+  private void removeAll(Index current, Group<?> group, Entry oldEntry, AttributeType memberAttributeType,
+      Set<ByteString> added)
+  {
+    for (Attribute attribute : oldEntry.getAllAttributes(memberAttributeType))
+    {
+      for (ByteString value : attribute)
+      {
+        final ByteString member = normalize(value);
+        if (member != null)
+        {
+          remove(current.listingGroups, member, group);
+        }
+      }
+    }
+    for (ByteString member : added)
+    {
+      remove(current.listingGroups, member, group);
+    }
+    added.clear();
+  }
+
+  private static ByteString normalize(ByteString value)
+  {
+    try
+    {
+      return DN.valueOf(value).toNormalizedByteString();
+    }
+    catch (LocalizedIllegalArgumentException e)
+    {
+      // the groups ignore the values which are not DNs
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /** Discards the index, which will be built again when next needed. */
+  synchronized void invalidate()
+  {
+    changes++;
+    index = null;
+  }
+
+  private static void add(ConcurrentMap<ByteString, Group<?>[]> listingGroups, ByteString member, Group<?> group)
+  {
+    final Group<?>[] groups = listingGroups.get(member);
+    if (groups == null)
+    {
+      listingGroups.put(member, new Group<?>[] { group });
+    }
+    else if (!contains(groups, group))
+    {
+      final Group<?>[] newGroups = Arrays.copyOf(groups, groups.length + 1);
+      newGroups[groups.length] = group;
+      listingGroups.put(member, newGroups);
+    }
+  }
+
+  private static void remove(ConcurrentMap<ByteString, Group<?>[]> listingGroups, ByteString member, Group<?> group)
+  {
+    final Group<?>[] groups = listingGroups.get(member);
+    if (groups == null || !contains(groups, group))
+    {
+      return;
+    }
+    if (groups.length == 1)
+    {
+      listingGroups.remove(member);
+      return;
+    }
+    final Group<?>[] newGroups = new Group<?>[groups.length - 1];
+    int i = 0;
+    for (Group<?> g : groups)
+    {
+      if (g != group)
+      {
+        newGroups[i++] = g;
+      }
+    }
+    listingGroups.put(member, newGroups);
+  }
+
+  private static boolean contains(Group<?>[] groups, Group<?> group)
+  {
+    for (Group<?> g : groups)
+    {
+      if (g == group)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String toString()
+  {
+    final Index current = index;
+    return getClass().getSimpleName() + "(built=" + (current != null)
+        + (current != null ? ", members=" + current.listingGroups.size() : "") + ")";
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.jcip.annotations.Immutable;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
+import org.opends.server.api.Group;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LDAPURL;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Matches an entry against the member URLs of many groups at once (see {@link Group#getMemberURLs()}).
+ * <p>
+ * Most member URL filters require the entry to have a given attribute value, for example
+ * {@code (&(objectClass=person)(departmentNumber=42))}. Such member URLs are indexed by this
+ * attribute value, so only the member URLs whose required value is in the entry are evaluated
+ * against the entry, instead of all of them. The member URLs whose filter requires no specific value
+ * are evaluated against each entry.
+ * <p>
+ * When the entry holds virtual values or values of subtypes for an indexed attribute, these values
+ * are not compared by normalized value: all the member URLs indexed by this attribute are then
+ * evaluated against the entry.
+ */
+@Immutable
+final class MemberURLMatcher
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** A member URL of a group. */
+  private static final class MemberURL
+  {
+    private final Group<?> group;
+    private final LDAPURL url;
+
+    private MemberURL(Group<?> group, LDAPURL url)
+    {
+      this.group = group;
+      this.url = url;
+    }
+  }
+
+  /** The member URLs requiring an attribute value, by attribute type, then by normalized value. */
+  private final Map<AttributeType, Map<ByteString, List<MemberURL>>> indexedURLs = new HashMap<>();
+  /** The member URLs to evaluate against each entry. */
+  private final List<MemberURL> otherURLs = new ArrayList<>();
+
+  /**
+   * Creates a matcher for the member URLs of the provided groups.
+   *
+   * @param groups
+   *          The groups whose members are defined by LDAP URLs
+   */
+  MemberURLMatcher(Collection<Group<?>> groups)
+  {
+    for (Group<?> group : groups)
+    {
+      for (LDAPURL url : group.getMemberURLs())
+      {
+        add(new MemberURL(group, url));
+      }
+    }
+  }
+
+  private void add(MemberURL memberURL)
+  {
+    final SearchFilter filter = getRequiredValue(getFilter(memberURL.url));
+    final ByteString normalizedValue = filter != null ? normalize(filter) : null;
+    if (normalizedValue == null)
+    {
+      otherURLs.add(memberURL);
+      return;
+    }
+
+    Map<ByteString, List<MemberURL>> urlsByValue = indexedURLs.get(filter.getAttributeType());
+    if (urlsByValue == null)
+    {
+      urlsByValue = new HashMap<>();
+      indexedURLs.put(filter.getAttributeType(), urlsByValue);
+    }
+    List<MemberURL> urls = urlsByValue.get(normalizedValue);
+    if (urls == null)
+    {
+      urls = new ArrayList<>(1);
+      urlsByValue.put(normalizedValue, urls);
+    }
+    urls.add(memberURL);
+  }
+
+  private static SearchFilter getFilter(LDAPURL url)
+  {
+    try
+    {
+      return url.getFilter();
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns an equality component the entries must match to match the provided filter,
+   * preferably not on the object class, which is shared by many entries.
+   */
+  private static SearchFilter getRequiredValue(SearchFilter filter)
+  {
+    if (filter == null)
+    {
+      return null;
+    }
+    switch (filter.getFilterType())
+    {
+    case EQUALITY:
+      return filter;
+    case AND:
+      SearchFilter result = null;
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        final SearchFilter required = getRequiredValue(component);
+        if (required != null && (result == null || result.getAttributeType().isObjectClass()))
+        {
+          result = required;
+        }
+      }
+      return result;
+    default:
+      return null;
+    }
+  }
+
+  /** Returns the normalized assertion value of an equality filter, or {@code null} if it cannot be indexed. */
+  private static ByteString normalize(SearchFilter equalityFilter)
+  {
+    final MatchingRule rule = equalityFilter.getAttributeType().getEqualityMatchingRule();
+    if (rule == null)
+    {
+      return null;
+    }
+    try
+    {
+      final ByteString normalizedValue = rule.normalizeAttributeValue(equalityFilter.getAssertionValue());
+      // only index the matching rules comparing the normalized values
+      return rule.getAssertion(equalityFilter.getAssertionValue()).matches(normalizedValue) == ConditionResult.TRUE
+          ? normalizedValue : null;
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Adds the groups whose member URLs match the provided entry.
+   *
+   * @param entry
+   *          The entry
+   * @param groups
+   *          The set where to add the groups whose member URLs match the entry
+   */
+  void addMatchingGroups(Entry entry, Set<Group<?>> groups)
+  {
+    for (MemberURL memberURL : otherURLs)
+    {
+      addIfMatches(memberURL, entry, groups);
+    }
+    for (Map.Entry<AttributeType, Map<ByteString, List<MemberURL>>> mapEntry : indexedURLs.entrySet())
+    {
+      final AttributeType attributeType = mapEntry.getKey();
+      final Map<ByteString, List<MemberURL>> urlsByValue = mapEntry.getValue();
+      final List<Attribute> attributes = entry.getAllAttributes(attributeType);
+      if (attributes.isEmpty())
+      {
+        continue;
+      }
+      if (!hasOnlyRealValuesOf(attributes, attributeType))
+      {
+        for (List<MemberURL> urls : urlsByValue.values())
+        {
+          addMatching(urls, entry, groups);
+        }
+        continue;
+      }
+
+      final MatchingRule rule = attributeType.getEqualityMatchingRule();
+      for (Attribute attribute : attributes)
+      {
+        for (ByteString value : attribute)
+        {
+          try
+          {
+            addMatching(urlsByValue.get(rule.normalizeAttributeValue(value)), entry, groups);
+          }
+          catch (DecodeException e)
+          {
+            // the value cannot match an equality filter
+            logger.traceException(e);
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean hasOnlyRealValuesOf(List<Attribute> attributes, AttributeType attributeType)
+  {
+    for (Attribute attribute : attributes)
+    {
+      if (attribute.isVirtual() || !attribute.getAttributeDescription().getAttributeType().equals(attributeType))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void addMatching(List<MemberURL> memberURLs, Entry entry, Set<Group<?>> groups)
+  {
+    if (memberURLs != null)
+    {
+      for (MemberURL memberURL : memberURLs)
+      {
+        addIfMatches(memberURL, entry, groups);
+      }
+    }
+  }
+
+  private static void addIfMatches(MemberURL memberURL, Entry entry, Set<Group<?>> groups)
+  {
+    if (groups.contains(memberURL.group))
+    {
+      return;
+    }
+    try
+    {
+      if (memberURL.url.matchesEntry(entry))
+      {
+        groups.add(memberURL.group);
+      }
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(indexedAttributes=" + indexedURLs.keySet().size()
+        + ", otherURLs=" + otherURLs.size() + ")";
+  }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -43,7 +43,6 @@ import org.forgerock.i18n.LocalizableMessageBuilder;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
-import org.forgerock.opendj.ldap.GeneralizedTime;
 import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.schema.AttributeType;
@@ -212,7 +211,7 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       {
         try
         {
-          timeValues.add(GeneralizedTime.valueOf(v.toString()).getTimeInMillis());
+          timeValues.add(decodeGeneralizedTime(v));
         }
         catch (Exception e)
         {
@@ -1963,6 +1962,7 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return false;
     }
 
+    VerifiedCredentialCache verifiedCredentials = DirectoryServer.getVerifiedCredentialCache();
     for (Attribute a : attrList)
     {
       for (ByteString v : a)
@@ -1983,8 +1983,23 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
             continue;
           }
 
+          if (verifiedCredentials != null && verifiedCredentials.isVerified(userEntry.getName(), v, password))
+          {
+            if (logger.isTraceEnabled())
+            {
+              logger.trace("Returning true for user %s because the provided password was recently verified " +
+                      "against a value encoded with scheme %s", userDNString, schemeName);
+            }
+
+            return true;
+          }
+
           if (passwordMatches(password, pwComponents, scheme))
           {
+            if (verifiedCredentials != null)
+            {
+              verifiedCredentials.verified(userEntry.getName(), v, password);
+            }
             if (logger.isTraceEnabled())
             {
               logger.trace("Returning true for user %s because the provided password matches a value " +
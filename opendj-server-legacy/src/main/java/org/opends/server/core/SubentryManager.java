@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -25,7 +25,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -92,6 +95,28 @@ public class SubentryManager extends InternalDirectoryServerPlugin
 
   /** Dummy configuration DN for Subentry Manager. */
   private static final String CONFIG_DN = "cn=Subentry Manager,cn=config";
+  /** Maximum number of DIT regions whose candidate subentries are cached. */
+  private static final int MAX_REGIONS = 4096;
+
+  /**
+   * A subentry which may apply to the entries of a DIT region, along with the checks its
+   * subtree specification still requires for each entry of the region.
+   */
+  private static final class RegionSubEntry
+  {
+    private final SubEntry subEntry;
+    /** Whether the subtree specification excludes some DNs of the region. */
+    private final boolean checkDN;
+    /** Whether the subtree specification has refinements, evaluated against each entry. */
+    private final boolean checkEntry;
+
+    private RegionSubEntry(SubEntry subEntry, boolean checkDN)
+    {
+      this.subEntry = subEntry;
+      this.checkDN = checkDN;
+      this.checkEntry = checkDN || subEntry.getSubTreeSpecification().getRefinements() != null;
+    }
+  }
 
   /** A mapping between the DNs and applicable subentries. */
   private final Map<DN, List<SubEntry>> dn2SubEntry = new HashMap<>();
@@ -99,6 +124,18 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   private final Map<DN, List<SubEntry>> dn2CollectiveSubEntry = new HashMap<>();
   /** A mapping between subentry DNs and subentry objects. */
   private final DITCacheMap<SubEntry> dit2SubEntry = new DITCacheMap<>();
+  /**
+   * A mapping between DNs and the regular subentries which may apply to their children, populated
+   * as entries are read, and cleared whenever subentries change.
+   */
+  private final ConcurrentMap<DN, List<RegionSubEntry>> dn2RegionSubEntries = new ConcurrentHashMap<>();
+  /** A mapping between DNs and the collective subentries which may apply to their children. */
+  private final ConcurrentMap<DN, List<RegionSubEntry>> dn2RegionCollectiveSubEntries = new ConcurrentHashMap<>();
+  /**
+   * Incremented each time the subentries change, so that the information computed from them
+   * can be discarded.
+   */
+  private final AtomicLong changeToken = new AtomicLong();
   /** Internal search all operational attributes. */
   private final Set<String> requestAttrs = newLinkedHashSet("*", "+");
   /** Lock to protect internal data structures. */
@@ -195,6 +232,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
       }
       dit2SubEntry.put(entry.getName(), subEntry);
       subList.add(subEntry);
+      clearRegions();
     }
     finally
     {
@@ -207,6 +245,30 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     return (subEntry.isCollective() || subEntry.isInheritedCollective()) ? dn2CollectiveSubEntry : dn2SubEntry;
   }
 
+  private ConcurrentMap<DN, List<RegionSubEntry>> getRegionMap(Map<DN, List<SubEntry>> subEntryMap)
+  {
+    return subEntryMap == dn2CollectiveSubEntry ? dn2RegionCollectiveSubEntries : dn2RegionSubEntries;
+  }
+
+  /** Must be called with the write lock held, after any change to the subentries. */
+  private void clearRegions()
+  {
+    dn2RegionSubEntries.clear();
+    dn2RegionCollectiveSubEntries.clear();
+    changeToken.incrementAndGet();
+  }
+
+  /**
+   * Returns the current change token value. It changes each time the subentries change,
+   * and can be used to discard the information computed from the subentries.
+   *
+   * @return The current change token value.
+   */
+  public long changeToken()
+  {
+    return changeToken.get();
+  }
+
   /**
    * Remove a given entry from this subentry manager.
    *
@@ -247,6 +309,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
           {
             subEntryListsIt.remove();
           }
+          clearRegions();
           return true;
         }
       }
@@ -434,21 +497,30 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     try
     {
       List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = dn; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+      if (dn.isRootDN())
+      {
+        return subentries;
+      }
+      // The subentries of the entry itself, then those applying to the region of the entry
+      List<SubEntry> subList = subEntryMap.get(dn);
+      if (subList != null)
       {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
+        for (SubEntry subEntry : subList)
         {
-          for (SubEntry subEntry : subList)
+          if (subEntry.getSubTreeSpecification().isDNWithinScope(dn))
           {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isDNWithinScope(dn))
-            {
-              subentries.add(subEntry);
-            }
+            subentries.add(subEntry);
           }
         }
       }
+      for (RegionSubEntry regionSubEntry : getRegionSubEntries(subEntryMap, dn.parent()))
+      {
+        SubEntry subEntry = regionSubEntry.subEntry;
+        if (!regionSubEntry.checkDN || subEntry.getSubTreeSpecification().isDNWithinScope(dn))
+        {
+          subentries.add(subEntry);
+        }
+      }
       return subentries;
     }
     finally
@@ -481,21 +553,31 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     try
     {
       List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = entry.getName(); subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+      DN dn = entry.getName();
+      if (dn.isRootDN())
       {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
+        return subentries;
+      }
+      // The subentries of the entry itself, then those applying to the region of the entry
+      List<SubEntry> subList = subEntryMap.get(dn);
+      if (subList != null)
+      {
+        for (SubEntry subEntry : subList)
         {
-          for (SubEntry subEntry : subList)
+          if (subEntry.getSubTreeSpecification().isWithinScope(entry))
           {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isWithinScope(entry))
-            {
-              subentries.add(subEntry);
-            }
+            subentries.add(subEntry);
           }
         }
       }
+      for (RegionSubEntry regionSubEntry : getRegionSubEntries(subEntryMap, dn.parent()))
+      {
+        SubEntry subEntry = regionSubEntry.subEntry;
+        if (!regionSubEntry.checkEntry || subEntry.getSubTreeSpecification().isWithinScope(entry))
+        {
+          subentries.add(subEntry);
+        }
+      }
       return subentries;
     }
     finally
@@ -504,6 +586,94 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Returns the subentries which may apply to the children of the provided DN, in the order they
+   * are found walking up the DIT from this DN. Must be called with the read lock held, so that the
+   * subentries cannot change while the region is computed.
+   */
+  private List<RegionSubEntry> getRegionSubEntries(Map<DN, List<SubEntry>> subEntryMap, DN parentDN)
+  {
+    ConcurrentMap<DN, List<RegionSubEntry>> regionMap = getRegionMap(subEntryMap);
+    List<RegionSubEntry> region = regionMap.get(parentDN);
+    if (region == null)
+    {
+      region = computeRegionSubEntries(subEntryMap, parentDN);
+      if (regionMap.size() >= MAX_REGIONS)
+      {
+        // too many regions, start again rather than growing without bounds
+        regionMap.clear();
+      }
+      regionMap.put(parentDN, region);
+    }
+    return region;
+  }
+
+  /**
+   * Evaluates the parts of the subtree specifications which are the same for all the children of
+   * the provided DN: their depth, and the exclusions of their ancestors.
+   */
+  private List<RegionSubEntry> computeRegionSubEntries(Map<DN, List<SubEntry>> subEntryMap, DN parentDN)
+  {
+    List<RegionSubEntry> region = new ArrayList<>();
+    final int childRDNCount = parentDN.size() + 1;
+    for (DN subDN = parentDN; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+    {
+      List<SubEntry> subList = subEntryMap.get(subDN);
+      if (subList == null)
+      {
+        continue;
+      }
+      for (SubEntry subEntry : subList)
+      {
+        SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
+        DN baseDN = subSpec.getBaseDN();
+        boolean checkDN = false;
+        if (!parentDN.isSubordinateOrEqualTo(baseDN))
+        {
+          if (!parentDN.equals(baseDN.parent()))
+          {
+            continue;
+          }
+          // only the base entry is in scope, not its siblings
+          checkDN = true;
+        }
+        int depth = childRDNCount - baseDN.size();
+        if ((subSpec.getMinimumDepth() > 0 && depth < subSpec.getMinimumDepth())
+            || (subSpec.getMaximumDepth() >= 0 && depth > subSpec.getMaximumDepth()))
+        {
+          continue;
+        }
+
+        boolean excluded = false;
+        for (DN chopBefore : subSpec.getChopBefore())
+        {
+          DN chopBeforeDN = baseDN.child(chopBefore);
+          if (parentDN.isSubordinateOrEqualTo(chopBeforeDN))
+          {
+            excluded = true;
+          }
+          else if (parentDN.equals(chopBeforeDN.parent()))
+          {
+            // only excludes one of the children
+            checkDN = true;
+          }
+        }
+        for (DN chopAfter : subSpec.getChopAfter())
+        {
+          if (parentDN.isSubordinateOrEqualTo(baseDN.child(chopAfter)))
+          {
+            excluded = true;
+          }
+        }
+        if (!excluded)
+        {
+          region.add(new RegionSubEntry(subEntry, checkDN));
+        }
+      }
+    }
+    return region;
+  }
+
   /**
    * Return collective subentries applicable to specific DN.
    * Note that this getter will skip any regular subentries,
@@ -542,6 +712,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     {
       performBackendPostFinalizationProcessing(dn2SubEntry, backend);
       performBackendPostFinalizationProcessing(dn2CollectiveSubEntry, backend);
+      clearRegions();
     }
     finally
     {
@@ -610,18 +781,10 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   private void doPostDelete(Entry entry)
   {
     // Fast-path for deleted entries which do not have subordinate sub-entries.
-    lock.readLock().lock();
-    try
-    {
-      final Collection<SubEntry> subtree = dit2SubEntry.getSubtree(entry.getName());
-      if (subtree.isEmpty())
-      {
-        return;
-      }
-    }
-    finally
+    // The DIT map does not need the lock for reading.
+    if (!dit2SubEntry.containsSubtree(entry.getName()))
     {
-      lock.readLock().unlock();
+      return;
     }
 
     // Slow-path.
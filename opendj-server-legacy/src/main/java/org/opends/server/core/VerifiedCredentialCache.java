@@ -0,0 +1,238 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.core;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.util.TimeThread;
+
+/**
+ * Remembers the passwords recently verified against the stored password
+ * values of the users, so that the users binding again and again do not pay
+ * for the password storage scheme each time.
+ * <p>
+ * The cache never holds the passwords: it holds a keyed hash of each verified
+ * password together with the stored password value it was verified against.
+ * The key is generated randomly when the server starts and is never written
+ * anywhere. Changing the password of a user changes its stored values, so the
+ * previous verifications no longer match. Verifications are forgotten once
+ * the time to live configured in the global configuration has elapsed, and
+ * the cache is disabled when this time to live is zero. Only successful
+ * verifications are cached: failed binds always go through the storage
+ * scheme, and the account state (lockout, expiration, ...) is still checked
+ * on each bind by the password policy. When the cache holds the maximum
+ * number of entries configured, the least recently used one is forgotten.
+ */
+final class VerifiedCredentialCache extends MonitorProvider<MonitorProviderCfg>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The algorithm of the keyed hash of the verified passwords. */
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+
+  /** A password verified against a stored password value. */
+  private static final class Credential
+  {
+    /** The keyed hash of the stored password value and of the verified password. */
+    private final byte[] digest;
+    /** The time when the password was verified. */
+    private final long verificationTime;
+
+    private Credential(byte[] digest, long verificationTime)
+    {
+      this.digest = digest;
+      this.verificationTime = verificationTime;
+    }
+  }
+
+  private final SecretKeySpec key;
+  /** Each thread initializes its own MAC once, as a MAC cannot be shared. */
+  private final ThreadLocal<Mac> macs = new ThreadLocal<>();
+  /**
+   * The last password verified for each user, in access order so that the
+   * least recently used user comes first. Guarded by itself.
+   */
+  private final Map<DN, Credential> credentials = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+
+  /** Creates a new verified credential cache, with a new random key. */
+  VerifiedCredentialCache()
+  {
+    final byte[] keyBytes = new byte[32];
+    new SecureRandom().nextBytes(keyBytes);
+    key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+  }
+
+  /**
+   * Indicates whether the provided password was recently verified against the
+   * provided stored password value of a user.
+   *
+   * @param userDN
+   *          The DN of the user
+   * @param storedPassword
+   *          The stored password value
+   * @param password
+   *          The password provided by the user
+   * @return {@code true} if the password was verified within the configured
+   *         time to live, {@code false} otherwise
+   */
+  boolean isVerified(DN userDN, ByteString storedPassword, ByteString password)
+  {
+    final long timeToLive = DirectoryServer.getCoreConfigManager().getVerifiedCredentialCacheTTL();
+    final Credential credential;
+    synchronized (credentials)
+    {
+      if (timeToLive <= 0)
+      {
+        credentials.clear();
+        return false;
+      }
+      credential = credentials.get(userDN);
+    }
+
+    if (credential != null
+        && TimeThread.getTime() - credential.verificationTime < timeToLive)
+    {
+      final byte[] digest = digest(storedPassword, password);
+      if (digest != null && MessageDigest.isEqual(digest, credential.digest))
+      {
+        cacheHits.incrementAndGet();
+        return true;
+      }
+    }
+    cacheMisses.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Records that the provided password was verified against the provided
+   * stored password value of a user.
+   *
+   * @param userDN
+   *          The DN of the user
+   * @param storedPassword
+   *          The stored password value
+   * @param password
+   *          The password provided by the user
+   */
+  void verified(DN userDN, ByteString storedPassword, ByteString password)
+  {
+    final CoreConfigManager coreConfig = DirectoryServer.getCoreConfigManager();
+    if (coreConfig.getVerifiedCredentialCacheTTL() <= 0)
+    {
+      return;
+    }
+
+    final byte[] digest = digest(storedPassword, password);
+    if (digest != null)
+    {
+      synchronized (credentials)
+      {
+        credentials.put(userDN, new Credential(digest, TimeThread.getTime()));
+        // the maximum can be lowered at any time: evict as many entries as needed
+        final int maxEntries = coreConfig.getVerifiedCredentialCacheMaxEntries();
+        for (Iterator<DN> it = credentials.keySet().iterator(); credentials.size() > maxEntries && it.hasNext();)
+        {
+          it.next();
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /** Returns the keyed hash of a stored password value and of a password, or {@code null} if it cannot be computed. */
+  private byte[] digest(ByteString storedPassword, ByteString password)
+  {
+    try
+    {
+      Mac mac = macs.get();
+      if (mac == null)
+      {
+        mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(key);
+        macs.set(mac);
+      }
+      // The length prefix tells where the stored value stops and the password starts
+      final int length = storedPassword.length();
+      mac.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+      mac.update(storedPassword.toByteArray());
+      return mac.doFinal(password.toByteArray());
+    }
+    catch (GeneralSecurityException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the number of passwords found in the cache.
+   *
+   * @return the number of passwords found in the cache
+   */
+  long getCacheHits()
+  {
+    return cacheHits.get();
+  }
+
+  /**
+   * Returns the number of passwords not found in the cache while it was enabled.
+   *
+   * @return the number of passwords not found in the cache while it was enabled
+   */
+  long getCacheMisses()
+  {
+    return cacheMisses.get();
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Verified Credential Cache";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final long hits = getCacheHits();
+    final long tries = hits + getCacheMisses();
+    final MonitorData monitorAttrs = new MonitorData(4);
+    monitorAttrs.add("verifiedCredentialCacheHits", hits);
+    monitorAttrs.add("verifiedCredentialCacheTries", tries);
+    monitorAttrs.add("verifiedCredentialCacheHitRatio", tries > 0 ? hits * 100D / tries : 0D);
+    synchronized (credentials)
+    {
+      monitorAttrs.add("currentVerifiedCredentialCacheCount", credentials.size());
+    }
+    return monitorAttrs;
+  }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -46,6 +47,7 @@ import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn;
 import org.forgerock.opendj.server.config.server.RootCfg;
 import org.forgerock.opendj.server.config.server.VirtualAttributeCfg;
 import org.opends.server.api.VirtualAttributeProvider;
+import org.opends.server.api.VirtualAttributeProvider.Dependency;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.SearchFilter;
@@ -70,6 +72,13 @@ public class VirtualAttributeConfigManager
 
   private final ServerContext serverContext;
 
+  /**
+   * Incremented each time entries are added, deleted or renamed, so that the
+   * virtual attribute values depending on the subordinate entries can be
+   * generated again.
+   */
+  private final AtomicLong subordinatesToken = new AtomicLong();
+
   /**
    * Creates a new instance of this virtual attribute config manager.
    *
@@ -481,6 +490,57 @@ public class VirtualAttributeConfigManager
     rules.remove(getDummyDN(rule));
   }
 
+  /**
+   * Indicates that entries have been added, deleted or renamed, which
+   * changes the subordinate entries of their parents.
+   */
+  public void subordinatesChanged()
+  {
+    subordinatesToken.incrementAndGet();
+  }
+
+  /**
+   * Returns the current version of the provided dependencies of virtual
+   * attribute values. It changes each time one of the dependencies changes,
+   * so that the values depending on it can be generated again.
+   *
+   * @param dependencies
+   *          The dependencies of virtual attribute values.
+   * @return The current version of the dependencies.
+   */
+  public long getDependenciesVersion(Set<Dependency> dependencies)
+  {
+    // all the tokens only increase, so their sum changes when any of them changes
+    long version = 0;
+    for (Dependency dependency : dependencies)
+    {
+      switch (dependency)
+      {
+      case SUBORDINATES:
+        version += subordinatesToken.get();
+        break;
+      case SUBENTRIES:
+        final SubentryManager subentryManager = DirectoryServer.getSubentryManager();
+        if (subentryManager != null)
+        {
+          version += subentryManager.changeToken();
+        }
+        break;
+      case GROUPS:
+        final GroupManager groupManager = DirectoryServer.getGroupManager();
+        if (groupManager != null)
+        {
+          version += groupManager.refreshToken() + groupManager.membershipToken();
+        }
+        break;
+      default:
+        // the entry does not change once read
+        break;
+      }
+    }
+    return version;
+  }
+
   private DN getDummyDN(VirtualAttributeRule rule)
   {
     String name = rule.getAttributeType().getNameOrOID();
@@ -12,11 +12,14 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.ResultCode;
@@ -38,6 +41,10 @@ public class CollectiveAttributeSubentriesVirtualAttributeProvider
         extends VirtualAttributeProvider<
         CollectiveAttributeSubentriesVirtualAttributeCfg>
 {
+  /** The generated values only depend on the entry and the subentries. */
+  private static final Set<Dependency> DEPENDENCIES =
+      Collections.unmodifiableSet(EnumSet.of(Dependency.ENTRY, Dependency.SUBENTRIES));
+
   /** Creates a new instance of this collectiveAttributeSubentries virtual attribute provider. */
   public CollectiveAttributeSubentriesVirtualAttributeProvider()
   {
@@ -53,6 +60,12 @@ public class CollectiveAttributeSubentriesVirtualAttributeProvider
     return true;
   }
 
+  @Override
+  public Set<Dependency> getDependencies()
+  {
+    return DEPENDENCIES;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
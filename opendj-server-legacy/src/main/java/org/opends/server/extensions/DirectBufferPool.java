@@ -0,0 +1,120 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of direct byte buffers.
+ * <p>
+ * Direct buffers are expensive to allocate and are only reclaimed by the garbage collector, which makes them
+ * unsuitable for per-operation allocation. The buffers are pooled per size class: each class holds the buffers
+ * whose capacity is a given power of two, so that buffers of different sizes are acquired and released
+ * alternately without being discarded. Buffers acquired from this pool should be released as soon as they no
+ * longer hold data.
+ */
+final class DirectBufferPool
+{
+  /** The number of size classes, one per power of two up to 2^30. */
+  private static final int SIZE_CLASSES = 31;
+
+  private final Queue<ByteBuffer>[] buffers;
+  private final AtomicInteger[] pooledBuffers;
+  private final int maxPooledBuffersPerClass;
+
+  /**
+   * Creates a new pool of direct buffers.
+   *
+   * @param maxPooledBuffersPerClass
+   *          The maximum number of idle buffers kept by this pool for each size class.
+   */
+  @SuppressWarnings("unchecked")
+  DirectBufferPool(int maxPooledBuffersPerClass)
+  {
+    this.maxPooledBuffersPerClass = maxPooledBuffersPerClass;
+    this.buffers = new Queue[SIZE_CLASSES];
+    this.pooledBuffers = new AtomicInteger[SIZE_CLASSES];
+    for (int i = 0; i < SIZE_CLASSES; i++)
+    {
+      buffers[i] = new ConcurrentLinkedQueue<>();
+      pooledBuffers[i] = new AtomicInteger();
+    }
+  }
+
+  /**
+   * Returns a cleared direct buffer having at least the provided capacity.
+   *
+   * @param minCapacity
+   *          The minimum capacity of the returned buffer.
+   * @return A cleared direct buffer.
+   */
+  ByteBuffer acquire(int minCapacity)
+  {
+    // Smallest class whose buffers are all large enough
+    final int sizeClass = minCapacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(minCapacity - 1);
+    final ByteBuffer buffer = buffers[sizeClass].poll();
+    if (buffer != null)
+    {
+      pooledBuffers[sizeClass].decrementAndGet();
+      buffer.clear();
+      return buffer;
+    }
+    return ByteBuffer.allocateDirect(1 << sizeClass);
+  }
+
+  /**
+   * Returns the provided buffer to this pool. The caller must not use the buffer after it has been released.
+   *
+   * @param buffer
+   *          The buffer to release, ignored if it is not a direct buffer.
+   */
+  void release(ByteBuffer buffer)
+  {
+    if (!buffer.isDirect() || buffer.capacity() == 0)
+    {
+      return;
+    }
+    // Largest class whose size the buffer can hold
+    final int sizeClass = 31 - Integer.numberOfLeadingZeros(buffer.capacity());
+    if (pooledBuffers[sizeClass].incrementAndGet() <= maxPooledBuffersPerClass)
+    {
+      buffer.clear();
+      buffers[sizeClass].offer(buffer);
+    }
+    else
+    {
+      pooledBuffers[sizeClass].decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the number of idle buffers currently held by this pool.
+   *
+   * @return The number of idle buffers currently held by this pool.
+   */
+  int size()
+  {
+    int size = 0;
+    for (AtomicInteger count : pooledBuffers)
+    {
+      size += count.get();
+    }
+    return size;
+  }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
@@ -170,6 +170,7 @@ public class DynamicGroup
    *
    * @return  The set of member URLs for this dynamic group.
    */
+  @Override
   public Set<LDAPURL> getMemberURLs()
   {
     return memberURLs;
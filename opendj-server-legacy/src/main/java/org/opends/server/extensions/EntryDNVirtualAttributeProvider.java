@@ -12,10 +12,12 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -50,6 +52,10 @@ public class EntryDNVirtualAttributeProvider
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The generated values only depend on the entry. */
+  private static final Set<Dependency> DEPENDENCIES =
+      Collections.unmodifiableSet(EnumSet.of(Dependency.ENTRY));
+
   /** Creates a new instance of this entryDN virtual attribute provider. */
   public EntryDNVirtualAttributeProvider()
   {
@@ -65,6 +71,12 @@ public class EntryDNVirtualAttributeProvider
     return false;
   }
 
+  @Override
+  public Set<Dependency> getDependencies()
+  {
+    return DEPENDENCIES;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
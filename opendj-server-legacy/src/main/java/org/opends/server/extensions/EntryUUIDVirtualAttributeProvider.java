@@ -12,13 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
 import static org.opends.messages.ExtensionMessages.*;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.ByteString;
@@ -43,6 +46,10 @@ import org.opends.server.types.VirtualAttributeRule;
 public class EntryUUIDVirtualAttributeProvider
        extends VirtualAttributeProvider<EntryUUIDVirtualAttributeCfg>
 {
+  /** The generated values only depend on the entry. */
+  private static final Set<Dependency> DEPENDENCIES =
+      Collections.unmodifiableSet(EnumSet.of(Dependency.ENTRY));
+
   /** Creates a new instance of this entryUUID virtual attribute provider. */
   public EntryUUIDVirtualAttributeProvider()
   {
@@ -58,6 +65,12 @@ public class EntryUUIDVirtualAttributeProvider
     return false;
   }
 
+  @Override
+  public Set<Dependency> getDependencies()
+  {
+    return DEPENDENCIES;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
@@ -12,11 +12,14 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -42,6 +45,10 @@ public class HasSubordinatesVirtualAttributeProvider
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The generated values only depend on the entry and its subordinate entries. */
+  private static final Set<Dependency> DEPENDENCIES =
+      Collections.unmodifiableSet(EnumSet.of(Dependency.ENTRY, Dependency.SUBORDINATES));
+
   /** Creates a new instance of this HasSubordinates virtual attribute provider. */
   public HasSubordinatesVirtualAttributeProvider()
   {
@@ -57,6 +64,12 @@ public class HasSubordinatesVirtualAttributeProvider
     return false;
   }
 
+  @Override
+  public Set<Dependency> getDependencies()
+  {
+    return DEPENDENCIES;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
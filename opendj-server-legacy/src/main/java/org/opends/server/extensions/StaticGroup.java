@@ -12,20 +12,21 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -40,6 +41,7 @@ import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.forgerock.opendj.server.config.server.StaticGroupImplementationCfg;
@@ -83,6 +85,9 @@ import static org.opends.server.util.ServerConstants.*;
  *   <li>one based on the {@code groupOfUniqueNames} object class, which stores
  * the member list in the {@code uniqueMember} attribute.</li>
  * </ul>
+ * The members are kept in a concurrent set, so that adding or removing a member does not copy
+ * the whole set, and the member lists can iterate over the set while it is being updated. The
+ * member values of a group are only decoded the first time its members are needed.
  */
 public class StaticGroup extends Group<StaticGroupImplementationCfg>
 {
@@ -95,10 +100,16 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   private DN groupEntryDN;
 
   /** The set of the DNs of the members for this group. */
-  private HashSet<CompactDn> memberDNs;
+  private Set<CompactDn> memberDNs = newMemberSet();
+
+  /**
+   * The member attributes of the group entry, whose values have not been added to
+   * {@link #memberDNs} yet, or {@code null} once they have been.
+   */
+  private volatile List<Attribute> pendingMemberAttributes;
 
   /** The list of nested group DNs for this group. */
-  private LinkedList<DN> nestedGroups = new LinkedList<>();
+  private List<DN> nestedGroups = new CopyOnWriteArrayList<>();
 
   /** Passed to the group manager to see if the nested group list needs to be refreshed. */
   private long nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
@@ -124,19 +135,24 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    *                              for this group.
    * @param  memberAttributeType  The attribute type used to hold the membership
    *                              list for this group.
-   * @param  memberDNs            The set of the DNs of the members for this
-   *                              group.
+   * @param  memberAttributes     The member attributes of the group entry,
+   *                              decoded the first time the members are needed.
    */
   private StaticGroup(ServerContext serverContext, DN groupEntryDN, AttributeType memberAttributeType,
-      LinkedHashSet<CompactDn> memberDNs)
+      List<Attribute> memberAttributes)
   {
     super();
-    Reject.ifNull(groupEntryDN, memberAttributeType, memberDNs);
+    Reject.ifNull(groupEntryDN, memberAttributeType, memberAttributes);
 
-    this.serverContext       = serverContext;
-    this.groupEntryDN        = groupEntryDN;
-    this.memberAttributeType = memberAttributeType;
-    this.memberDNs           = memberDNs;
+    this.serverContext           = serverContext;
+    this.groupEntryDN            = groupEntryDN;
+    this.memberAttributeType     = memberAttributeType;
+    this.pendingMemberAttributes = memberAttributes;
+  }
+
+  private static Set<CompactDn> newMemberSet()
+  {
+    return Collections.newSetFromMap(new ConcurrentHashMap<CompactDn, Boolean>());
   }
 
   @Override
@@ -172,7 +188,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(ResultCode.OBJECTCLASS_VIOLATION, message);
       }
 
-      someMemberAttributeType = getMemberAttributeType();
+      someMemberAttributeType = CoreSchema.getMemberAttributeType();
     }
     else if (hasGroupOfNamesClass)
     {
@@ -183,7 +199,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(ResultCode.OBJECTCLASS_VIOLATION, message);
       }
 
-      someMemberAttributeType = getMemberAttributeType();
+      someMemberAttributeType = CoreSchema.getMemberAttributeType();
     }
     else if (hasGroupOfUniqueNamesClass)
     {
@@ -196,34 +212,52 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       throw new DirectoryException(ResultCode.OBJECTCLASS_VIOLATION, message);
     }
 
-    List<Attribute> memberAttrList = groupEntry.getAllAttributes(someMemberAttributeType);
-    int membersCount = 0;
-    for (Attribute a : memberAttrList)
+    // Attributes are immutable: the member values are decoded when the members are first needed
+    List<Attribute> memberAttrList = new ArrayList<>(groupEntry.getAllAttributes(someMemberAttributeType));
+    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, memberAttrList);
+  }
+
+  /** Decodes the member values of the group entry, if they have not been decoded yet. */
+  private void loadMembersIfNeeded()
+  {
+    if (pendingMemberAttributes == null)
     {
-      membersCount += a.size();
+      return;
     }
-    LinkedHashSet<CompactDn> someMemberDNs = new LinkedHashSet<>(membersCount);
-    for (Attribute a : memberAttrList)
+    lock.writeLock().lock();
+    try
     {
-      for (ByteString v : a)
+      final List<Attribute> memberAttrList = pendingMemberAttributes;
+      if (memberAttrList == null)
       {
-        try
-        {
-          someMemberDNs.add(new CompactDn(DN.valueOf(v.toString())));
-        }
-        catch (LocalizedIllegalArgumentException e)
+        return;
+      }
+      for (Attribute a : memberAttrList)
+      {
+        for (ByteString v : a)
         {
-          logger.traceException(e);
-          if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.REJECT)
+          try
           {
-            logger.error(ERR_STATICGROUP_CANNOT_DECODE_MEMBER_VALUE_AS_DN,
-              v, someMemberAttributeType.getNameOrOID(), groupEntry.getName(), e.getMessageObject());
+            memberDNs.add(new CompactDn(DN.valueOf(v.toString())));
+          }
+          catch (LocalizedIllegalArgumentException e)
+          {
+            logger.traceException(e);
+            if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.REJECT)
+            {
+              logger.error(ERR_STATICGROUP_CANNOT_DECODE_MEMBER_VALUE_AS_DN,
+                v, memberAttributeType.getNameOrOID(), groupEntryDN, e.getMessageObject());
+            }
+            // else just ignore this value (issue OPENDJ-2833)
           }
-          // else just ignore this value (issue OPENDJ-2833)
         }
       }
+      pendingMemberAttributes = null;
+    }
+    finally
+    {
+      lock.writeLock().unlock();
     }
-    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, someMemberDNs);
   }
 
   @Override
@@ -319,6 +353,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     Reject.ifNull(nestedGroupDN);
 
+    loadMembersIfNeeded();
     lock.writeLock().lock();
     try
     {
@@ -337,13 +372,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(modifyOperation.getResultCode(), msg);
       }
 
-      LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-      newNestedGroups.add(nestedGroupDN);
-      nestedGroups = newNestedGroups;
+      nestedGroups.add(nestedGroupDN);
       //Add it to the member DN list.
-      HashSet<CompactDn> newMemberDNs = new HashSet<>(memberDNs);
-      newMemberDNs.add(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      memberDNs.add(new CompactDn(nestedGroupDN));
     }
     finally
     {
@@ -357,6 +388,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     Reject.ifNull(nestedGroupDN);
 
+    loadMembersIfNeeded();
     lock.writeLock().lock();
     try
     {
@@ -375,13 +407,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         throw new DirectoryException(modifyOperation.getResultCode(), message);
       }
 
-      LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-      newNestedGroups.remove(nestedGroupDN);
-      nestedGroups = newNestedGroups;
+      nestedGroups.remove(nestedGroupDN);
       //Remove it from the member DN list.
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      memberDNs.remove(new CompactDn(nestedGroupDN));
     }
     finally
     {
@@ -451,6 +479,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    */
   private void reloadIfNeeded() throws DirectoryException
   {
+    loadMembersIfNeeded();
     //Check if group instances have changed by passing the group manager
     //the current token.
     if (DirectoryServer.getGroupManager().hasInstancesChanged(nestedGroupRefreshToken))
@@ -467,7 +496,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         }
         else if (thisGroup != this)
         {
-          LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>();
+          Set<CompactDn> newMemberDNs = newMemberSet();
           MemberList memberList = thisGroup.getMembers();
           while (memberList.hasMoreMembers())
           {
@@ -482,16 +511,17 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
           }
           memberDNs = newMemberDNs;
         }
-        nestedGroups.clear();
+        List<DN> newNestedGroups = new ArrayList<>();
         for (CompactDn compactDn : memberDNs)
         {
           DN dn = compactDn.toDn(serverContext);
           Group<?> group = DirectoryServer.getGroupManager().getGroupInstance(dn);
           if (group != null)
           {
-            nestedGroups.add(group.getGroupDN());
+            newNestedGroups.add(group.getGroupDN());
           }
         }
+        nestedGroups = new CopyOnWriteArrayList<>(newNestedGroups);
         nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
       }
       finally
@@ -541,6 +571,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     return true;
   }
 
+  @Override
+  public AttributeType getMemberAttributeType()
+  {
+    return memberAttributeType;
+  }
+
   @Override
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
@@ -613,6 +649,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     Reject.ifNull(userEntry);
 
+    loadMembersIfNeeded();
     lock.writeLock().lock();
     try
     {
@@ -633,9 +670,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_ADD_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<CompactDn>(memberDNs);
-      newMemberDNs.add(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.add(compactUserDN);
     }
     finally
     {
@@ -649,6 +684,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     Reject.ifNull(userDN);
 
     CompactDn compactUserDN = new CompactDn(userDN);
+    loadMembersIfNeeded();
     lock.writeLock().lock();
     try
     {
@@ -666,16 +702,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_REMOVE_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.remove(compactUserDN);
       //If it is in the nested group list remove it.
-      if (nestedGroups.contains(userDN))
-      {
-        LinkedList<DN> newNestedGroups = new LinkedList<>(nestedGroups);
-        newNestedGroups.remove(userDN);
-        nestedGroups = newNestedGroups;
-      }
+      nestedGroups.remove(userDN);
     }
     finally
     {
@@ -705,38 +734,44 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    * A compact representation of a DN, suitable for equality and comparisons, and providing a natural hierarchical
    * ordering.
    * <p>
-   * The memory consumption compared to a regular DN object is minimal.
+   * The memory consumption compared to a regular DN object is minimal: the normalized and the original
+   * representations of the DN are kept in a single byte array.
    */
   static final class CompactDn implements Comparable<CompactDn>
   {
-    /** Original string corresponding to the DN. */
-    private final byte[] originalValue;
-
     /**
      * Normalized byte string, suitable for equality and comparisons, and providing a natural
-     * hierarchical ordering, but not usable as a valid DN.
+     * hierarchical ordering, but not usable as a valid DN, followed by the original string
+     * corresponding to the DN.
      */
-    private final byte[] normalizedValue;
+    private final byte[] value;
+
+    /** Length of the normalized byte string at the start of the value. */
+    private final int normalizedLength;
 
     @VisibleForTesting
     CompactDn(DN dn)
     {
-      this.originalValue = getBytes(dn.toString());
-      this.normalizedValue = dn.toNormalizedByteString().toByteArray();
+      final ByteString normalizedValue = dn.toNormalizedByteString();
+      final byte[] originalValue = getBytes(dn.toString());
+      this.normalizedLength = normalizedValue.length();
+      this.value = new byte[normalizedLength + originalValue.length];
+      normalizedValue.copyTo(value);
+      System.arraycopy(originalValue, 0, value, normalizedLength, originalValue.length);
     }
 
     @Override
     public int compareTo(final CompactDn other)
     {
-      final int length1 = normalizedValue.length;
-      final int length2 = other.normalizedValue.length;
+      final int length1 = normalizedLength;
+      final int length2 = other.normalizedLength;
       int count = Math.min(length1, length2);
       int i = 0;
       int j = 0;
       while (count-- != 0)
       {
-        final int firstByte = 0xFF & normalizedValue[i++];
-        final int secondByte = 0xFF & other.normalizedValue[j++];
+        final int firstByte = 0xFF & value[i++];
+        final int secondByte = 0xFF & other.value[j++];
         if (firstByte != secondByte)
         {
           return firstByte - secondByte;
@@ -761,7 +796,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     @Override
     public int hashCode()
     {
-      return Arrays.hashCode(normalizedValue);
+      int result = 1;
+      for (int i = 0; i < normalizedLength; i++)
+      {
+        result = 31 * result + value[i];
+      }
+      return result;
     }
 
     @Override
@@ -774,7 +814,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       else if (obj instanceof CompactDn)
       {
         final CompactDn other = (CompactDn) obj;
-        return Arrays.equals(normalizedValue, other.normalizedValue);
+        return normalizedLength == other.normalizedLength && compareTo(other) == 0;
       }
       else
       {
@@ -785,16 +825,16 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     @Override
     public String toString()
     {
-      final int length = originalValue.length;
+      final int length = value.length - normalizedLength;
       if (length == 0) {
           return "";
       }
       try {
-          return new String(originalValue, 0, length, "UTF-8");
+          return new String(value, normalizedLength, length, "UTF-8");
       } catch (final UnsupportedEncodingException e) {
           // TODO: I18N
           throw new RuntimeException("Unable to decode bytes as UTF-8 string", e);
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -12,11 +12,14 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.ByteString;
@@ -39,6 +42,10 @@ import static org.opends.messages.ExtensionMessages.*;
 public class StructuralObjectClassVirtualAttributeProvider
      extends VirtualAttributeProvider<StructuralObjectClassVirtualAttributeCfg>
 {
+  /** The generated values only depend on the entry. */
+  private static final Set<Dependency> DEPENDENCIES =
+      Collections.unmodifiableSet(EnumSet.of(Dependency.ENTRY));
+
   /** Creates a new instance of this structuralObjectClass virtual attribute provider. */
   public StructuralObjectClassVirtualAttributeProvider()
   {
@@ -54,6 +61,12 @@ public class StructuralObjectClassVirtualAttributeProvider
     return false;
   }
 
+  @Override
+  public Set<Dependency> getDependencies()
+  {
+    return DEPENDENCIES;
+  }
+
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
@@ -81,7 +81,14 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
             }
             finally
             {
-              channel.close();
+              try
+              {
+                channel.close();
+              }
+              finally
+              {
+                releaseBuffers();
+              }
             }
           }
         }
@@ -99,6 +106,8 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
     {
       synchronized (readLock)
       {
+        abortIfClosed();
+
         // Only read and unwrap new data if needed.
         if (!recvUnwrappedBuffer.hasRemaining())
         {
@@ -114,13 +123,12 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
         final int startPos = unwrappedData.position();
         if (recvUnwrappedBuffer.remaining() > unwrappedData.remaining())
         {
-          // Unwrapped data does not fit in client buffer so copy one byte at a
-          // time: it's annoying that there is no easy way to do this with
-          // ByteBuffers.
-          while (unwrappedData.hasRemaining())
-          {
-            unwrappedData.put(recvUnwrappedBuffer.get());
-          }
+          // Unwrapped data does not fit in client buffer so block copy as much
+          // as it can hold.
+          final int limit = recvUnwrappedBuffer.limit();
+          recvUnwrappedBuffer.limit(recvUnwrappedBuffer.position() + unwrappedData.remaining());
+          unwrappedData.put(recvUnwrappedBuffer);
+          recvUnwrappedBuffer.limit(limit);
         }
         else
         {
@@ -140,6 +148,8 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
       // Synchronized in order to prevent interleaving and reordering.
       synchronized (writeLock)
       {
+        abortIfClosed();
+
         // Repeat until the entire input data is written.
         while (unwrappedData.hasRemaining())
         {
@@ -169,6 +179,15 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
       }
     }
 
+    /** The pooled buffers are released on close, so they must not be acquired again afterwards. */
+    private void abortIfClosed() throws ClosedChannelException
+    {
+      if (buffersReleased)
+      {
+        throw new ClosedChannelException();
+      }
+    }
+
     private void doHandshake(final boolean isReading) throws IOException
     {
       // This lock is probably unnecessary since tasks can be run in parallel,
@@ -217,140 +236,194 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
       // Synchronize SSL unwrap with channel reads.
       synchronized (unwrapLock)
       {
-        // Read SSL packets until some unwrapped data is produced or no more
-        // data is available on the underlying channel.
-        while (true)
+        if (recvWrappedBuffer == null)
         {
-          // Unwrap any remaining data in the buffer.
-          abortOnSSLException();
-          recvUnwrappedBuffer.compact(); // Prepare for append.
-          final SSLEngineResult result;
-          try
+          recvWrappedBuffer = BUFFER_POOL.acquire(sslEngine.getSession().getPacketBufferSize());
+          recvWrappedBuffer.flip(); // Nothing received yet.
+        }
+        try
+        {
+          return recvAndUnwrap();
+        }
+        finally
+        {
+          if (!recvWrappedBuffer.hasRemaining())
           {
-            result = sslEngine.unwrap(recvWrappedBuffer, recvUnwrappedBuffer);
+            // No partial SSL packet is pending: do not hold the buffer while the connection is idle.
+            BUFFER_POOL.release(recvWrappedBuffer);
+            recvWrappedBuffer = null;
           }
-          catch (final SSLException e)
+        }
+      }
+    }
+
+    private int recvAndUnwrap() throws IOException
+    {
+      // Read SSL packets until some unwrapped data is produced or no more
+      // data is available on the underlying channel.
+      while (true)
+      {
+        // Unwrap any remaining data in the buffer.
+        abortOnSSLException();
+        recvUnwrappedBuffer.compact(); // Prepare for append.
+        final SSLEngineResult result;
+        try
+        {
+          result = sslEngine.unwrap(recvWrappedBuffer, recvUnwrappedBuffer);
+        }
+        catch (final SSLException e)
+        {
+          // Save the error - see abortOnSSLException().
+          sslException = e;
+          throw e;
+        }
+        finally
+        {
+          recvUnwrappedBuffer.flip(); // Restore for read.
+        }
+
+        switch (result.getStatus())
+        {
+        case BUFFER_OVERFLOW:
+          // The unwrapped buffer is not big enough: resize and repeat.
+          final int newAppSize = sslEngine.getSession()
+              .getApplicationBufferSize();
+          final ByteBuffer newRecvUnwrappedBuffer = ByteBuffer
+              .allocate(recvUnwrappedBuffer.limit() + newAppSize);
+          newRecvUnwrappedBuffer.put(recvUnwrappedBuffer);
+          newRecvUnwrappedBuffer.flip();
+          recvUnwrappedBuffer = newRecvUnwrappedBuffer;
+          break; // Retry unwrap.
+        case BUFFER_UNDERFLOW:
+          // Not enough data was read. This either means that the inbound
+          // buffer was too small, or not enough data was read.
+          final int newPktSize = sslEngine.getSession().getPacketBufferSize();
+          if (newPktSize > recvWrappedBuffer.capacity())
           {
-            // Save the error - see abortOnSSLException().
-            sslException = e;
-            throw e;
+            // Increase the buffer size.
+            final ByteBuffer newRecvWrappedBuffer = BUFFER_POOL.acquire(newPktSize);
+            newRecvWrappedBuffer.put(recvWrappedBuffer);
+            newRecvWrappedBuffer.flip();
+            BUFFER_POOL.release(recvWrappedBuffer);
+            recvWrappedBuffer = newRecvWrappedBuffer;
           }
-          finally
+          // Read wrapped data from underlying channel.
+          recvWrappedBuffer.compact(); // Prepare for append.
+          final int read = channel.read(recvWrappedBuffer);
+          recvWrappedBuffer.flip(); // Restore for read.
+          if (read <= 0)
           {
-            recvUnwrappedBuffer.flip(); // Restore for read.
+            // Not enough data is available to read a complete SSL packet, or
+            // channel closed.
+            return read;
           }
-
-          switch (result.getStatus())
+          // Loop and unwrap.
+          break;
+        case CLOSED:
+          // Peer sent SSL close notification.
+          return -1;
+        default: // OK
+          if (recvUnwrappedBuffer.hasRemaining())
           {
-          case BUFFER_OVERFLOW:
-            // The unwrapped buffer is not big enough: resize and repeat.
-            final int newAppSize = sslEngine.getSession()
-                .getApplicationBufferSize();
-            final ByteBuffer newRecvUnwrappedBuffer = ByteBuffer
-                .allocate(recvUnwrappedBuffer.limit() + newAppSize);
-            newRecvUnwrappedBuffer.put(recvUnwrappedBuffer);
-            newRecvUnwrappedBuffer.flip();
-            recvUnwrappedBuffer = newRecvUnwrappedBuffer;
-            break; // Retry unwrap.
-          case BUFFER_UNDERFLOW:
-            // Not enough data was read. This either means that the inbound
-            // buffer was too small, or not enough data was read.
-            final int newPktSize = sslEngine.getSession().getPacketBufferSize();
-            if (newPktSize > recvWrappedBuffer.capacity())
-            {
-              // Increase the buffer size.
-              final ByteBuffer newRecvWrappedBuffer = ByteBuffer
-                  .allocate(newPktSize);
-              newRecvWrappedBuffer.put(recvWrappedBuffer);
-              newRecvWrappedBuffer.flip();
-              recvWrappedBuffer = newRecvWrappedBuffer;
-            }
-            // Read wrapped data from underlying channel.
-            recvWrappedBuffer.compact(); // Prepare for append.
-            final int read = channel.read(recvWrappedBuffer);
-            recvWrappedBuffer.flip(); // Restore for read.
-            if (read <= 0)
-            {
-              // Not enough data is available to read a complete SSL packet, or
-              // channel closed.
-              return read;
-            }
-            // Loop and unwrap.
-            break;
-          case CLOSED:
-            // Peer sent SSL close notification.
-            return -1;
-          default: // OK
-            if (recvUnwrappedBuffer.hasRemaining())
-            {
-              // Some application data was read so return it.
-              return recvUnwrappedBuffer.remaining();
-            }
-            else if (isHandshaking(result.getHandshakeStatus()))
-            {
-              // No application data was read, but if we are handshaking then
-              // try to continue.
-              doHandshake(true /* isReading */);
-            }
-            break;
+            // Some application data was read so return it.
+            return recvUnwrappedBuffer.remaining();
+          }
+          else if (isHandshaking(result.getHandshakeStatus()))
+          {
+            // No application data was read, but if we are handshaking then
+            // try to continue.
+            doHandshake(true /* isReading */);
           }
+          break;
         }
       }
     }
 
-    /** Attempt to wrap and send the next SSL packet. */
+    /**
+     * Attempt to wrap and send the next SSL packets. Once the handshake is
+     * complete, as many SSL packets as fit in the send buffer are wrapped
+     * before the buffer is written to the underlying channel, so that large
+     * messages are sent with a few large writes rather than one write per
+     * SSL packet.
+     */
     private int doWrapAndSend(final ByteBuffer unwrappedData)
         throws IOException
     {
       // Synchronize SSL wrap with channel writes.
       synchronized (wrapLock)
       {
-        // Repeat while there is overflow.
-        while (true)
+        if (sendWrappedBuffer == null)
         {
-          abortOnSSLException();
-          final SSLEngineResult result;
-          try
-          {
-            result = sslEngine.wrap(unwrappedData, sendWrappedBuffer);
-          }
-          catch (SSLException e)
+          sendWrappedBuffer = BUFFER_POOL.acquire(PACKETS_PER_WRITE * sslEngine.getSession().getPacketBufferSize());
+        }
+        try
+        {
+          return wrapAndSend(unwrappedData);
+        }
+        finally
+        {
+          // The buffer is empty once written: do not hold it while the connection is idle.
+          BUFFER_POOL.release(sendWrappedBuffer);
+          sendWrappedBuffer = null;
+        }
+      }
+    }
+
+    private int wrapAndSend(final ByteBuffer unwrappedData) throws IOException
+    {
+      // Repeat while there is overflow or room for more packets.
+      while (true)
+      {
+        abortOnSSLException();
+        final SSLEngineResult result;
+        try
+        {
+          result = sslEngine.wrap(unwrappedData, sendWrappedBuffer);
+        }
+        catch (SSLException e)
+        {
+          // Save the error - see abortOnSSLException().
+          sslException = e;
+          throw e;
+        }
+
+        switch (result.getStatus())
+        {
+        case BUFFER_OVERFLOW:
+          // The wrapped buffer is not big enough: resize and repeat.
+          final int newSize = sslEngine.getSession().getPacketBufferSize();
+          final ByteBuffer newSendWrappedBuffer = BUFFER_POOL.acquire(sendWrappedBuffer.position() + newSize);
+          sendWrappedBuffer.flip();
+          newSendWrappedBuffer.put(sendWrappedBuffer);
+          BUFFER_POOL.release(sendWrappedBuffer);
+          sendWrappedBuffer = newSendWrappedBuffer;
+          break; // Retry.
+        case BUFFER_UNDERFLOW:
+          // This should not happen for sends.
+          sslException =
+            new SSLException("Got unexpected underflow while wrapping");
+          throw sslException;
+        case CLOSED:
+          throw new ClosedChannelException();
+        default: // OK
+          if (unwrappedData.hasRemaining()
+              && !isHandshaking(result.getHandshakeStatus())
+              && sendWrappedBuffer.remaining() >= sslEngine.getSession().getPacketBufferSize())
           {
-            // Save the error - see abortOnSSLException().
-            sslException = e;
-            throw e;
+            // Wrap the next packet before writing.
+            break;
           }
 
-          switch (result.getStatus())
+          // Write the SSL packets: our IO stack will block until all the
+          // data is written.
+          sendWrappedBuffer.flip();
+          while (sendWrappedBuffer.hasRemaining())
           {
-          case BUFFER_OVERFLOW:
-            // The wrapped buffer is not big enough: resize and repeat.
-            final int newSize = sslEngine.getSession().getPacketBufferSize();
-            final ByteBuffer newSendWrappedBuffer = ByteBuffer
-                .allocate(sendWrappedBuffer.position() + newSize);
-            sendWrappedBuffer.flip();
-            newSendWrappedBuffer.put(sendWrappedBuffer);
-            sendWrappedBuffer = newSendWrappedBuffer;
-            break; // Retry.
-          case BUFFER_UNDERFLOW:
-            // This should not happen for sends.
-            sslException =
-              new SSLException("Got unexpected underflow while wrapping");
-            throw sslException;
-          case CLOSED:
-            throw new ClosedChannelException();
-          default: // OK
-            // Write the SSL packet: our IO stack will block until all the
-            // data is written.
-            sendWrappedBuffer.flip();
-            while (sendWrappedBuffer.hasRemaining())
-            {
-              channel.write(sendWrappedBuffer);
-            }
-            final int written = sendWrappedBuffer.position();
-            sendWrappedBuffer.clear();
-            return written;
+            channel.write(sendWrappedBuffer);
           }
+          final int written = sendWrappedBuffer.position();
+          sendWrappedBuffer.clear();
+          return written;
         }
       }
     }
@@ -396,6 +469,15 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
   }
 
   private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+  /** The number of SSL packets which can be wrapped before being written to the underlying channel. */
+  private static final int PACKETS_PER_WRITE = 4;
+
+  /**
+   * Pool of the direct buffers holding wrapped data, shared by all TLS connections. The buffers are only held
+   * while data is being sent or received, so a few idle buffers per size are enough.
+   */
+  private static final DirectBufferPool BUFFER_POOL = new DirectBufferPool(64);
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
   private final ByteChannelImpl pimpl = new ByteChannelImpl();
@@ -403,9 +485,12 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
   private final SSLEngine sslEngine;
 
   private volatile SSLException sslException;
+  /** Holds received wrapped data, or {@code null} when there is none. Guarded by unwrapLock. */
   private ByteBuffer recvWrappedBuffer;
   private ByteBuffer recvUnwrappedBuffer;
+  /** Holds wrapped data being sent, or {@code null} when there is none. Guarded by wrapLock. */
   private ByteBuffer sendWrappedBuffer;
+  private boolean buffersReleased;
 
   private final Object handshakeLock = new Object();
   private final Object unwrapLock = new Object();
@@ -428,20 +513,37 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
     this.channel = channel;
     this.sslEngine = sslEngine;
 
-    // Allocate read/write buffers.
+    // Allocate the read buffer. Wrapped data is read from and written to the
+    // socket through direct buffers taken from the pool only when needed.
     final SSLSession session = sslEngine.getSession();
-    final int wrappedBufferSize = session.getPacketBufferSize();
-    final int unwrappedBufferSize = session.getApplicationBufferSize();
-
-    sendWrappedBuffer = ByteBuffer.allocate(wrappedBufferSize);
-    recvWrappedBuffer = ByteBuffer.allocate(wrappedBufferSize);
-    recvUnwrappedBuffer = ByteBuffer.allocate(unwrappedBufferSize);
+    recvUnwrappedBuffer = ByteBuffer.allocate(session.getApplicationBufferSize());
 
     // Initially nothing has been received.
-    recvWrappedBuffer.flip();
     recvUnwrappedBuffer.flip();
   }
 
+  /** Returns the wrapped data buffers to the pool. Must be invoked with both the read and write locks held. */
+  private void releaseBuffers()
+  {
+    buffersReleased = true;
+    synchronized (unwrapLock)
+    {
+      if (recvWrappedBuffer != null)
+      {
+        BUFFER_POOL.release(recvWrappedBuffer);
+        recvWrappedBuffer = null;
+      }
+    }
+    synchronized (wrapLock)
+    {
+      if (sendWrappedBuffer != null)
+      {
+        BUFFER_POOL.release(sendWrappedBuffer);
+        sendWrappedBuffer = null;
+      }
+    }
+  }
+
   @Override
   public ByteChannel getChannel()
   {
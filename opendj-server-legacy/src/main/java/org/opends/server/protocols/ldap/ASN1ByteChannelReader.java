@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
@@ -56,6 +56,13 @@ import org.forgerock.opendj.ldap.DecodeException;
  * available, the client should call {@link #processChannelData()}
  * again to read more data (if available).
  * <p>
+ * Whenever {@link #elementAvailable()} detects a complete top-level
+ * element, the bytes of this element are copied once into a dedicated
+ * array and the element is decoded from it in place: octet strings read
+ * from the element (attribute values, DNs, filter assertion values...)
+ * are {@link ByteString} views over this array rather than individual
+ * copies.
+ * <p>
  * <b>NOTE:</b> Since this reader is non blocking, reading ASN.1
  * elements before making sure they are ready could result in
  * {@link IllegalBlockingModeException}s being thrown while reading
@@ -67,9 +74,27 @@ final class ASN1ByteChannelReader implements ASN1Reader
   /** The byte channel to read from. */
   private final ReadableByteChannel byteChannel;
 
-  /** The wrapped ASN.1 reader. */
+  /** The wrapped ASN.1 reader, used when elements are read before being checked for availability. */
   private final ASN1Reader reader;
 
+  /** The max ASN.1 element size this reader will read. */
+  private final int maxElementSize;
+
+  /** The reader over the bytes of the top-level element currently being decoded in place, if any. */
+  private ByteSequenceReader elementBytesReader;
+
+  /** The ASN.1 reader decoding the top-level element currently being decoded in place, if any. */
+  private ASN1Reader elementReader;
+
+  /** The number of sequences, sets and explicit tags currently opened in the element being decoded in place. */
+  private int elementDepth;
+
+  /**
+   * Whether the wrapped stream reader has been used. The stream reader keeps its own decoding state, so once it has
+   * been used, elements can no longer be framed directly from the buffers.
+   */
+  private boolean streamReaderUsed;
+
   /** The NIO ByteStringBuilder that stores any immediate data read off the channel. */
   private final ByteBuffer byteBuffer;
 
@@ -274,6 +299,7 @@ final class ASN1ByteChannelReader implements ASN1Reader
       int maxElementSize)
   {
     this.byteChannel = channel;
+    this.maxElementSize = maxElementSize;
     this.byteBuffer = ByteBuffer.allocate(bufferSize);
     this.byteBuffer.flip();
     this.saveBuffer = new ByteStringBuilder();
@@ -343,7 +369,117 @@ final class ASN1ByteChannelReader implements ASN1Reader
   @Override
   public boolean elementAvailable() throws IOException
   {
-    return reader.elementAvailable();
+    if (isDecodingElementInPlace())
+    {
+      return elementReader.elementAvailable();
+    }
+    else if (streamReaderUsed)
+    {
+      return reader.elementAvailable();
+    }
+
+    final int available = saveBufferReader.remaining() + byteBuffer.remaining();
+    if (available < 2)
+    {
+      return false;
+    }
+
+    // Decode the element header without consuming it.
+    final int firstLengthByte = peekByte(1);
+    int length = firstLengthByte & 0x7F;
+    int headerLength = 2;
+    if (firstLengthByte != length)
+    {
+      final int lengthBytes = length;
+      if (lengthBytes == 0 || lengthBytes > 4)
+      {
+        // Let the stream reader report the invalid length.
+        return streamReader().elementAvailable();
+      }
+      if (available < headerLength + lengthBytes)
+      {
+        return false;
+      }
+      length = 0;
+      for (int i = 0; i < lengthBytes; i++)
+      {
+        length = (length << 8) | peekByte(headerLength + i);
+      }
+      headerLength += lengthBytes;
+    }
+
+    if (length < 0 || (maxElementSize > 0 && length > maxElementSize))
+    {
+      // Let the stream reader report the size limit violation.
+      return streamReader().elementAvailable();
+    }
+    if (available - headerLength < length)
+    {
+      return false;
+    }
+
+    // A complete element is available: copy it once so that it can be decoded in place.
+    final byte[] elementBytes = new byte[headerLength + length];
+    final int fromSaveBuffer = Math.min(saveBufferReader.remaining(), elementBytes.length);
+    saveBufferReader.readBytes(elementBytes, 0, fromSaveBuffer);
+    byteBuffer.get(elementBytes, fromSaveBuffer, elementBytes.length - fromSaveBuffer);
+
+    elementBytesReader = ByteString.wrap(elementBytes).asReader();
+    elementReader = ASN1.getReader(elementBytesReader, maxElementSize);
+    elementDepth = 0;
+    return true;
+  }
+
+  /**
+   * Returns the byte at the provided index from the unread data, without consuming it.
+   *
+   * @param index
+   *          The index of the byte, relative to the first unread byte.
+   * @return The unsigned value of the byte.
+   */
+  private int peekByte(int index)
+  {
+    final int savedBytes = saveBufferReader.remaining();
+    if (index < savedBytes)
+    {
+      return 0xFF & saveBuffer.byteAt(saveBufferReader.position() + index);
+    }
+    return 0xFF & byteBuffer.get(byteBuffer.position() + index - savedBytes);
+  }
+
+  /**
+   * Returns whether a top-level element is being decoded in place and still has content to read.
+   *
+   * @return {@code true} if a top-level element is being decoded in place
+   */
+  private boolean isDecodingElementInPlace()
+  {
+    if (elementReader != null)
+    {
+      if (elementDepth > 0 || elementBytesReader.remaining() > 0)
+      {
+        return true;
+      }
+      elementReader = null;
+      elementBytesReader = null;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the ASN.1 reader to delegate to.
+   *
+   * @return the reader decoding the current element in place, or the stream reader
+   */
+  private ASN1Reader delegate()
+  {
+    return isDecodingElementInPlace() ? elementReader : streamReader();
+  }
+
+  private ASN1Reader streamReader()
+  {
+    streamReaderUsed = true;
+    return reader;
   }
 
   /**
@@ -356,7 +492,7 @@ final class ASN1ByteChannelReader implements ASN1Reader
    */
   @Override
   public boolean hasNextElement() throws IOException {
-    return reader.hasNextElement();
+    return delegate().hasNextElement();
   }
 
   /**
@@ -366,132 +502,166 @@ final class ASN1ByteChannelReader implements ASN1Reader
    */
   public boolean hasRemainingData()
   {
-    return saveBufferReader.remaining() != 0 || byteBuffer.remaining() != 0;
+    return isDecodingElementInPlace() || saveBufferReader.remaining() != 0 || byteBuffer.remaining() != 0;
   }
 
   @Override
   public int peekLength() throws IOException {
-    return reader.peekLength();
+    return delegate().peekLength();
   }
 
   @Override
   public byte peekType() throws IOException {
-    return reader.peekType();
+    return delegate().peekType();
   }
 
   @Override
   public boolean readBoolean() throws IOException {
-    return reader.readBoolean();
+    return delegate().readBoolean();
   }
 
   @Override
   public boolean readBoolean(byte type) throws IOException {
-    return reader.readBoolean(type);
+    return delegate().readBoolean(type);
   }
 
   @Override
   public void readEndExplicitTag() throws IOException {
-    reader.readEndExplicitTag();
+    final ASN1Reader r = delegate();
+    r.readEndExplicitTag();
+    endConstructedElement(r);
   }
 
   @Override
   public void readEndSequence() throws IOException {
-    reader.readEndSequence();
+    final ASN1Reader r = delegate();
+    r.readEndSequence();
+    endConstructedElement(r);
   }
 
   @Override
   public void readEndSet() throws IOException {
-    reader.readEndSet();
+    final ASN1Reader r = delegate();
+    r.readEndSet();
+    endConstructedElement(r);
   }
 
   @Override
   public int readEnumerated() throws IOException {
-    return reader.readEnumerated();
+    return delegate().readEnumerated();
   }
 
   @Override
   public int readEnumerated(byte type) throws IOException {
-    return reader.readEnumerated(type);
+    return delegate().readEnumerated(type);
   }
 
   @Override
   public long readInteger() throws IOException {
-    return reader.readInteger();
+    return delegate().readInteger();
   }
 
   @Override
   public long readInteger(byte type) throws IOException {
-    return reader.readInteger(type);
+    return delegate().readInteger(type);
   }
 
   @Override
   public void readNull() throws IOException {
-    reader.readNull();
+    delegate().readNull();
   }
 
   @Override
   public void readNull(byte type) throws IOException {
-    reader.readNull(type);
+    delegate().readNull(type);
   }
 
   @Override
   public ByteString readOctetString() throws IOException {
-    return reader.readOctetString();
+    return delegate().readOctetString();
   }
 
   @Override
   public ByteString readOctetString(byte type) throws IOException {
-    return readOctetString(type);
+    return delegate().readOctetString(type);
   }
 
   @Override
   public ByteStringBuilder readOctetString(ByteStringBuilder buffer) throws IOException {
-    return reader.readOctetString(buffer);
+    return delegate().readOctetString(buffer);
   }
 
   @Override
   public ByteStringBuilder readOctetString(byte type, ByteStringBuilder builder) throws IOException {
-    return readOctetString(type, builder);
+    return delegate().readOctetString(type, builder);
   }
 
   @Override
   public String readOctetStringAsString() throws IOException {
-    return reader.readOctetStringAsString();
+    return delegate().readOctetStringAsString();
   }
 
   @Override
   public String readOctetStringAsString(byte type) throws IOException {
-    return readOctetStringAsString(type);
+    return delegate().readOctetStringAsString(type);
   }
 
   @Override
   public void readStartExplicitTag() throws IOException {
-    reader.readStartExplicitTag();
+    final ASN1Reader r = delegate();
+    r.readStartExplicitTag();
+    startConstructedElement(r);
   }
 
   @Override
   public void readStartExplicitTag(byte type) throws IOException {
-    reader.readStartExplicitTag(type);
+    final ASN1Reader r = delegate();
+    r.readStartExplicitTag(type);
+    startConstructedElement(r);
   }
 
   @Override
   public void readStartSequence() throws IOException {
-    reader.readStartSequence();
+    final ASN1Reader r = delegate();
+    r.readStartSequence();
+    startConstructedElement(r);
   }
 
   @Override
   public void readStartSequence(byte type) throws IOException {
-    reader.readStartSequence(type);
+    final ASN1Reader r = delegate();
+    r.readStartSequence(type);
+    startConstructedElement(r);
   }
 
   @Override
   public void readStartSet() throws IOException {
-    reader.readStartSet();
+    final ASN1Reader r = delegate();
+    r.readStartSet();
+    startConstructedElement(r);
   }
 
   @Override
   public void readStartSet(byte type) throws IOException {
-    reader.readStartSet(type);
+    final ASN1Reader r = delegate();
+    r.readStartSet(type);
+    startConstructedElement(r);
+  }
+
+  private void startConstructedElement(ASN1Reader r)
+  {
+    if (r == elementReader)
+    {
+      elementDepth++;
+    }
+  }
+
+  private void endConstructedElement(ASN1Reader r)
+  {
+    if (r == elementReader)
+    {
+      elementDepth--;
+    }
   }
 
   @Override
@@ -502,14 +672,14 @@ final class ASN1ByteChannelReader implements ASN1Reader
 
   @Override
   public ASN1Reader skipElement() throws IOException {
-    reader.skipElement();
+    delegate().skipElement();
     return this;
   }
 
   @Override
   public ASN1Reader skipElement(byte type) throws DecodeException, IOException
   {
-    reader.skipElement(type);
+    delegate().skipElement(type);
     return this;
   }
 }
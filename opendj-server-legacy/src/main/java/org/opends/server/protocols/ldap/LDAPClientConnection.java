@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2010-2016 ForgeRock AS.
+ * Portions Copyright 2010-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
@@ -89,6 +89,7 @@ import org.opends.server.types.SearchResultEntry;
 import org.opends.server.types.SearchResultReference;
 import org.opends.server.util.StaticUtils;
 import org.opends.server.util.TimeThread;
+import org.opends.server.util.TokenBucket;
 
 /**
  * This class defines an LDAP client connection, which is a type of
@@ -172,6 +173,10 @@ public final class LDAPClientConnection extends ClientConnection implements
       {
         statTracker.updateBytesRead(bytesRead);
       }
+      if (bytesRead > 0 && requestBandwidthLimiter != null)
+      {
+        requestBandwidthLimiter.consume(bytesRead);
+      }
       return bytesRead;
     }
 
@@ -427,6 +432,10 @@ public final class LDAPClientConnection extends ClientConnection implements
   private volatile ConnectionSecurityProvider tlsActiveProvider;
   private volatile ConnectionSecurityProvider saslPendingProvider;
   private volatile ConnectionSecurityProvider tlsPendingProvider;
+  /** Limits the rate of operations of this connection, {@code null} if not limited. */
+  private final TokenBucket operationRateLimiter;
+  /** Limits the number of bytes per second read from this connection, {@code null} if not limited. */
+  private final TokenBucket requestBandwidthLimiter;
 
   /**
    * Creates a new LDAP client connection with the provided information.
@@ -462,6 +471,8 @@ public final class LDAPClientConnection extends ClientConnection implements
     clientPort = socket.getPort();
     serverAddress = socket.getLocalAddress().getHostAddress();
     serverPort = socket.getLocalPort();
+    operationRateLimiter = connectionHandler.newOperationRateLimiter(socket.getInetAddress());
+    requestBandwidthLimiter = connectionHandler.newRequestBandwidthLimiter(socket.getInetAddress());
 
     statTracker = this.connectionHandler.getStatTracker();
     if (keepStats)
@@ -1153,6 +1164,10 @@ public final class LDAPClientConnection extends ClientConnection implements
               message);
         }
 
+        // Reject the operation before it enters the work queue if this
+        // connection or the authenticated user exceeds its rate limits.
+        checkRateLimits(operation);
+
         // Add the operation to the list of operations in progress for
         // this connection.
         Operation op = operationsInProgress.putIfAbsent(messageID, operation);
@@ -1648,6 +1663,33 @@ public final class LDAPClientConnection extends ClientConnection implements
     return connectionValid;
   }
 
+  private void checkRateLimits(Operation operation) throws DirectoryException
+  {
+    // Abandon and unbind requests only release resources.
+    final OperationType operationType = operation.getOperationType();
+    if (operationType == OperationType.ABANDON || operationType == OperationType.UNBIND)
+    {
+      return;
+    }
+    // A bind must be able to replace the identity of an over the limit connection.
+    if (requestBandwidthLimiter != null && operationType != OperationType.BIND
+        && !requestBandwidthLimiter.hasTokens())
+    {
+      throw new DirectoryException(ResultCode.BUSY,
+          WARN_LDAP_CLIENT_REQUEST_BANDWIDTH_EXCEEDED.get(getClientHostPort()));
+    }
+    if (operationRateLimiter != null && !operationRateLimiter.tryConsume(1))
+    {
+      throw new DirectoryException(ResultCode.BUSY,
+          WARN_LDAP_CLIENT_OPERATION_RATE_EXCEEDED.get(getClientHostPort()));
+    }
+    if (isOperationRateLimitExceeded())
+    {
+      throw new DirectoryException(ResultCode.BUSY,
+          WARN_LDAP_CLIENT_USER_OPERATION_RATE_EXCEEDED.get(getAuthenticationInfo().getAuthorizationDN()));
+    }
+  }
+
   /**
    * Processes the provided LDAP message as an add request.
    *
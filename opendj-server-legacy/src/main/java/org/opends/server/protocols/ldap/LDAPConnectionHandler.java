@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
@@ -33,6 +33,7 @@ import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -45,6 +46,7 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.server.config.server.ConnectionHandlerCfg;
 import org.forgerock.opendj.server.config.server.LDAPConnectionHandlerCfg;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.api.*;
 import org.opends.server.api.plugin.PluginResult;
 import org.opends.server.core.DirectoryServer;
@@ -58,6 +60,7 @@ import org.opends.server.monitors.ClientConnectionMonitorProvider;
 import org.opends.server.types.*;
 import org.opends.server.util.SelectableCertificateKeyManager;
 import org.opends.server.util.StaticUtils;
+import org.opends.server.util.TokenBucket;
 
 /**
  * This class defines a connection handler that will be used for communicating
@@ -106,6 +109,12 @@ public final class LDAPConnectionHandler extends
   /** SSL instance name used in context creation. */
   private static final String SSL_CONTEXT_INSTANCE_NAME = "TLS";
 
+  /**
+   * The maximum number of connections accepted from a listen socket before
+   * checking the other listen sockets.
+   */
+  private static final int MAX_ACCEPTS_PER_SELECT = 1000;
+
   /** The current configuration state. */
   private LDAPConnectionHandlerCfg currentConfig;
 
@@ -149,6 +158,12 @@ public final class LDAPConnectionHandler extends
    */
   private int requestHandlerIndex;
 
+  /**
+   * The maximum number of connections accepted from a listen socket before
+   * checking the other listen sockets.
+   */
+  private int maxAcceptsPerSelect = MAX_ACCEPTS_PER_SELECT;
+
   /** The set of listeners for this connection handler. */
   private List<HostPort> listeners;
 
@@ -432,6 +447,30 @@ public final class LDAPConnectionHandler extends
     return connectionList;
   }
 
+  /**
+   * Retrieves the request handlers associated with this connection handler.
+   *
+   * @return The request handlers associated with this connection handler.
+   */
+  @VisibleForTesting
+  LDAPRequestHandler[] getRequestHandlers()
+  {
+    return requestHandlers;
+  }
+
+  /**
+   * Sets the maximum number of connections accepted from a listen socket
+   * before checking the other listen sockets.
+   *
+   * @param maxAcceptsPerSelect
+   *          The maximum number of connections accepted per select.
+   */
+  @VisibleForTesting
+  void setMaxAcceptsPerSelect(int maxAcceptsPerSelect)
+  {
+    this.maxAcceptsPerSelect = maxAcceptsPerSelect;
+  }
+
   /**
    * Retrieves the DN of the configuration entry with which this alert generator
    * is associated.
@@ -527,6 +566,52 @@ public final class LDAPConnectionHandler extends
     return (int) currentConfig.getBufferSize();
   }
 
+  /**
+   * Returns a new token bucket limiting the rate of operations of a client
+   * connection, if the client is subject to the rate limits of this connection
+   * handler.
+   *
+   * @param clientAddr
+   *          The address of the client.
+   * @return A new token bucket, or {@code null} if the rate of operations of
+   *         the client is not limited.
+   */
+  TokenBucket newOperationRateLimiter(InetAddress clientAddr)
+  {
+    final LDAPConnectionHandlerCfg config = currentConfig;
+    return newRateLimiter(config, config.getMaxOperationRate(), clientAddr);
+  }
+
+  /**
+   * Returns a new token bucket limiting the number of bytes per second sent by
+   * a client connection, if the client is subject to the rate limits of this
+   * connection handler.
+   *
+   * @param clientAddr
+   *          The address of the client.
+   * @return A new token bucket, or {@code null} if the request bandwidth of
+   *         the client is not limited.
+   */
+  TokenBucket newRequestBandwidthLimiter(InetAddress clientAddr)
+  {
+    final LDAPConnectionHandlerCfg config = currentConfig;
+    return newRateLimiter(config, config.getMaxRequestBandwidth(), clientAddr);
+  }
+
+  private TokenBucket newRateLimiter(LDAPConnectionHandlerCfg config, long ratePerSecond, InetAddress clientAddr)
+  {
+    if (ratePerSecond <= 0)
+    {
+      return null;
+    }
+    final Set<AddressMask> rateLimitedClients = config.getRateLimitedClient();
+    if (!rateLimitedClients.isEmpty() && !AddressMask.matchesAny(rateLimitedClients, clientAddr))
+    {
+      return null;
+    }
+    return new TokenBucket(ratePerSecond);
+  }
+
   @Override
   public String getProtocol()
   {
@@ -992,8 +1077,11 @@ public final class LDAPConnectionHandler extends
         // Accept the new client connection.
         ServerSocketChannel serverChannel = (ServerSocketChannel) key
             .channel();
-        SocketChannel clientChannel = serverChannel.accept();
-        if (clientChannel != null)
+        // Drain the accept backlog so that bursts of connections (e.g. after
+        // a load balancer fail-over) do not wait for one select per connection.
+        SocketChannel clientChannel;
+        for (int i = 0; i < maxAcceptsPerSelect
+            && (clientChannel = serverChannel.accept()) != null; i++)
         {
           acceptConnection(clientChannel);
         }
@@ -1117,13 +1205,7 @@ public final class LDAPConnectionHandler extends
         return;
       }
 
-      LDAPRequestHandler requestHandler =
-          requestHandlers[requestHandlerIndex++];
-      if (requestHandlerIndex >= numRequestHandlers)
-      {
-        requestHandlerIndex = 0;
-      }
-      requestHandler.registerClient(clientConnection);
+      selectRequestHandler().registerClient(clientConnection);
     }
     catch (Exception e)
     {
@@ -1140,6 +1222,30 @@ public final class LDAPConnectionHandler extends
     }
   }
 
+  /**
+   * Returns the request handler which currently handles the fewest client
+   * connections. Ties are broken in a round robin fashion.
+   *
+   * @return the request handler to register a new client connection with
+   */
+  private LDAPRequestHandler selectRequestHandler()
+  {
+    int selected = requestHandlerIndex;
+    int minLoad = Integer.MAX_VALUE;
+    for (int i = 0; i < numRequestHandlers; i++)
+    {
+      final int index = (requestHandlerIndex + i) % numRequestHandlers;
+      final int load = requestHandlers[index].getLoad();
+      if (load < minLoad)
+      {
+        minLoad = load;
+        selected = index;
+      }
+    }
+    requestHandlerIndex = (selected + 1) % numRequestHandlers;
+    return requestHandlers[selected];
+  }
+
   /**
    * Appends a string representation of this connection handler to the provided
    * buffer.
@@ -1336,6 +1442,11 @@ public final class LDAPConnectionHandler extends
               trustMgrDN == null ? null : serverContext.getTrustManagerProvider(trustMgrDN).getTrustManagers();
       final SSLContext sslContext = SSLContext.getInstance(SSL_CONTEXT_INSTANCE_NAME);
       sslContext.init(keyManagers, trustManagers, null);
+
+      // Let clients resume sessions rather than performing a full handshake on reconnection.
+      final SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+      sessionContext.setSessionCacheSize(config.getSSLSessionCacheSize());
+      sessionContext.setSessionTimeout((int) Math.min(config.getSSLSessionTimeout(), Integer.MAX_VALUE));
       return sslContext;
     }
     catch (Exception e)
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
@@ -29,7 +29,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -61,13 +63,13 @@ public class LDAPRequestHandler
 
   /**
    * The queue that will be used to hold the set of pending connections that
-   * need to be registered with the selector.
-   * TODO: revisit, see Issue 4202.
+   * need to be registered with the selector. It is non blocking so that the
+   * connection handler never waits for this request handler.
    */
-  private List<LDAPClientConnection> pendingConnections = new LinkedList<>();
+  private final Queue<LDAPClientConnection> pendingConnections = new ConcurrentLinkedQueue<>();
 
-  /** Lock object for synchronizing access to the pending connections queue. */
-  private final Object pendingConnectionsLock = new Object();
+  /** The number of connections in the pending connections queue. */
+  private final AtomicInteger numPendingConnections = new AtomicInteger();
   /** The list of connections ready for request processing. */
   private final LinkedList<LDAPClientConnection> readyConnections = new LinkedList<>();
   /** The selector that will be used to monitor the client connections. */
@@ -202,34 +204,23 @@ public class LDAPRequestHandler
 
       // Check to see if we have any pending connections that need to be
       // registered with the selector.
-      List<LDAPClientConnection> tmp = null;
-      synchronized (pendingConnectionsLock)
+      LDAPClientConnection c;
+      while ((c = pendingConnections.poll()) != null)
       {
-        if (!pendingConnections.isEmpty())
+        numPendingConnections.decrementAndGet();
+        try
         {
-          tmp = pendingConnections;
-          pendingConnections = new LinkedList<>();
+          SocketChannel socketChannel = c.getSocketChannel();
+          socketChannel.configureBlocking(false);
+          socketChannel.register(selector, SelectionKey.OP_READ, c);
+          logConnect(c);
         }
-      }
-
-      if (tmp != null)
-      {
-        for (LDAPClientConnection c : tmp)
+        catch (Exception e)
         {
-          try
-          {
-            SocketChannel socketChannel = c.getSocketChannel();
-            socketChannel.configureBlocking(false);
-            socketChannel.register(selector, SelectionKey.OP_READ, c);
-            logConnect(c);
-          }
-          catch (Exception e)
-          {
-            logger.traceException(e);
+          logger.traceException(e);
 
-            c.disconnect(DisconnectReason.SERVER_ERROR, true,
-                ERR_LDAP_REQHANDLER_CANNOT_REGISTER.get(handlerName, e));
-          }
+          c.disconnect(DisconnectReason.SERVER_ERROR, true,
+              ERR_LDAP_REQHANDLER_CANNOT_REGISTER.get(handlerName, e));
         }
       }
 
@@ -371,19 +362,18 @@ public class LDAPRequestHandler
     }
 
     // Disconnect all pending connections.
-    synchronized (pendingConnectionsLock)
+    LDAPClientConnection c;
+    while ((c = pendingConnections.poll()) != null)
     {
-      for (LDAPClientConnection c : pendingConnections)
+      numPendingConnections.decrementAndGet();
+      try
       {
-        try
-        {
-          c.disconnect(DisconnectReason.SERVER_SHUTDOWN, true,
-              ERR_LDAP_REQHANDLER_DEREGISTER_DUE_TO_SHUTDOWN.get());
-        }
-        catch (Exception e)
-        {
-          logger.traceException(e);
-        }
+        c.disconnect(DisconnectReason.SERVER_SHUTDOWN, true,
+            ERR_LDAP_REQHANDLER_DEREGISTER_DUE_TO_SHUTDOWN.get());
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
       }
     }
   }
@@ -416,13 +406,10 @@ public class LDAPRequestHandler
       return false;
     }
 
-    // Try to add the new connection to the queue.  If it succeeds, then wake
-    // up the selector so it will be picked up right away.  Otherwise,
-    // disconnect the client.
-    synchronized (pendingConnectionsLock)
-    {
-      pendingConnections.add(clientConnection);
-    }
+    // Add the new connection to the queue and wake up the selector so it will
+    // be picked up right away.
+    pendingConnections.add(clientConnection);
+    numPendingConnections.incrementAndGet();
 
     selector.wakeup();
     return true;
@@ -430,6 +417,22 @@ public class LDAPRequestHandler
 
 
 
+  /**
+   * Retrieves the approximate number of client connections handled by this
+   * request handler, including the connections which are not registered with
+   * its selector yet. It is used for balancing new connections across the
+   * request handlers of a connection handler.
+   *
+   * @return  The approximate number of client connections handled by this
+   *          request handler.
+   */
+  int getLoad()
+  {
+    return keys.length + numPendingConnections.get();
+  }
+
+
+
   /**
    * Retrieves the set of all client connections that are currently registered
    * with this request handler.
@@ -0,0 +1,290 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.common;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.util.Reject;
+import org.forgerock.util.annotations.VisibleForTesting;
+
+/**
+ * The window controlling the flow of updates sent to a remote server.
+ * <p>
+ * The remote server grants credits to the sender, initially the size of its receive window, then
+ * one credit for each update it has processed, by sending WindowMsg. Sending an update consumes
+ * one credit.
+ * <p>
+ * On top of these credits, this window limits the number of updates sent and not yet acknowledged
+ * (in flight) to an effective window which adapts to the measured round trip time of the updates,
+ * in the way of TCP Vegas: while the round trip time stays close to the smallest one observed, the
+ * effective window grows, and when the round trip time increases because the updates queue up on
+ * the remote server, the effective window shrinks. The delivery rate of the updates is also
+ * measured, and the effective window never shrinks below the estimated bandwidth-delay product.
+ * <p>
+ * The remote server only acknowledges updates once half of its receive window has been processed,
+ * so the effective window never goes below half the initial credits plus one. It never goes above
+ * the initial credits either.
+ */
+@ThreadSafe
+public final class AdaptiveSendWindow
+{
+  /** Below this ratio of queuing delay over round trip time, the effective window grows. */
+  private static final double GROW_THRESHOLD = 0.1;
+  /** Above this ratio of queuing delay over round trip time, the effective window shrinks. */
+  private static final double SHRINK_THRESHOLD = 0.3;
+  /** How long a minimum round trip time sample remains valid. */
+  private static final long MIN_RTT_VALIDITY_NANOS = TimeUnit.SECONDS.toNanos(10);
+  /** Number of delivery rate samples kept to estimate the bandwidth. */
+  private static final int BANDWIDTH_SAMPLES = 10;
+
+  private final int maxWindow;
+  private final int minWindow;
+
+  /** Credits granted by the remote server and not yet consumed. Guarded by this. */
+  private int credits;
+  /** Current effective window. Guarded by this. */
+  private int window;
+
+  /** Send times of the updates in flight, oldest first. Guarded by this. */
+  private long[] sendTimes = new long[16];
+  private int firstSendTime;
+  private int inFlight;
+
+  /** Smallest round trip time observed recently, or -1 if unknown. Guarded by this. */
+  private long minRttNanos = -1;
+  private long minRttTimestamp;
+  /** Smoothed round trip time, or -1 if unknown. Guarded by this. */
+  private long smoothedRttNanos = -1;
+
+  /** Last delivery rate samples, in updates per second. Guarded by this. */
+  private final double[] deliveryRates = new double[BANDWIDTH_SAMPLES];
+  private int nextDeliveryRate;
+  private long lastAckTimestamp = -1;
+
+  /**
+   * Creates a new window.
+   *
+   * @param initialCredits
+   *          The number of credits initially granted by the remote server,
+   *          which is the size of its receive window.
+   */
+  public AdaptiveSendWindow(int initialCredits)
+  {
+    Reject.ifFalse(initialCredits >= 0, "The initial credits must be positive");
+    this.maxWindow = initialCredits;
+    this.minWindow = Math.min(initialCredits, initialCredits / 2 + 1);
+    this.credits = initialCredits;
+    this.window = initialCredits;
+  }
+
+  /**
+   * Waits until an update can be sent and consumes one credit for it.
+   * <p>
+   * If the effective window is the only reason for waiting and the timeout expires, the remote
+   * server may not be acknowledging updates as expected: the effective window is then fully
+   * opened, so that only the credits limit the sender.
+   *
+   * @param timeout
+   *          The maximum time to wait
+   * @param unit
+   *          The unit of the timeout
+   * @return {@code true} if an update can be sent, {@code false} if the timeout expired
+   * @throws InterruptedException
+   *           If the current thread is interrupted while waiting
+   */
+  public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (this)
+    {
+      while (credits <= 0 || inFlight >= window)
+      {
+        final long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0)
+        {
+          if (credits > 0)
+          {
+            window = maxWindow;
+            break;
+          }
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+      }
+      acquire(System.nanoTime());
+      return true;
+    }
+  }
+
+  @VisibleForTesting
+  synchronized boolean tryAcquire(long nowNanos)
+  {
+    if (credits <= 0 || inFlight >= window)
+    {
+      return false;
+    }
+    acquire(nowNanos);
+    return true;
+  }
+
+  private void acquire(long nowNanos)
+  {
+    credits--;
+    if (inFlight == sendTimes.length)
+    {
+      final long[] newSendTimes = new long[sendTimes.length * 2];
+      for (int i = 0; i < inFlight; i++)
+      {
+        newSendTimes[i] = sendTimes[(firstSendTime + i) % sendTimes.length];
+      }
+      sendTimes = newSendTimes;
+      firstSendTime = 0;
+    }
+    sendTimes[(firstSendTime + inFlight) % sendTimes.length] = nowNanos;
+    inFlight++;
+  }
+
+  /**
+   * Adds the credits granted by the remote server, acknowledging the oldest updates in flight,
+   * then adapts the effective window to the measured round trip time and delivery rate.
+   *
+   * @param numAck
+   *          The number of credits granted by the remote server
+   */
+  public void release(int numAck)
+  {
+    release(numAck, System.nanoTime());
+  }
+
+  @VisibleForTesting
+  synchronized void release(int numAck, long nowNanos)
+  {
+    credits += numAck;
+    final int acked = Math.min(numAck, inFlight);
+    if (acked > 0)
+    {
+      final long lastSendTime = sendTimes[(firstSendTime + acked - 1) % sendTimes.length];
+      firstSendTime = (firstSendTime + acked) % sendTimes.length;
+      inFlight -= acked;
+      updateEstimates(acked, nowNanos - lastSendTime, nowNanos);
+      adaptWindow(acked);
+    }
+    notifyAll();
+  }
+
+  private void updateEstimates(int acked, long rttNanos, long nowNanos)
+  {
+    if (minRttNanos < 0 || rttNanos <= minRttNanos || nowNanos - minRttTimestamp > MIN_RTT_VALIDITY_NANOS)
+    {
+      minRttNanos = rttNanos;
+      minRttTimestamp = nowNanos;
+    }
+    smoothedRttNanos = smoothedRttNanos < 0 ? rttNanos : (7 * smoothedRttNanos + rttNanos) / 8;
+
+    if (lastAckTimestamp >= 0 && nowNanos > lastAckTimestamp)
+    {
+      deliveryRates[nextDeliveryRate] = acked * (double) TimeUnit.SECONDS.toNanos(1) / (nowNanos - lastAckTimestamp);
+      nextDeliveryRate = (nextDeliveryRate + 1) % deliveryRates.length;
+    }
+    lastAckTimestamp = nowNanos;
+  }
+
+  private void adaptWindow(int acked)
+  {
+    if (smoothedRttNanos <= 0)
+    {
+      return;
+    }
+    final double queuingRatio = (double) (smoothedRttNanos - minRttNanos) / smoothedRttNanos;
+    final int step = Math.max(1, Math.min(acked, window / 8));
+    if (queuingRatio < GROW_THRESHOLD)
+    {
+      window += step;
+    }
+    else if (queuingRatio > SHRINK_THRESHOLD)
+    {
+      window = Math.max(window - step, getBandwidthDelayProduct());
+    }
+    window = Math.max(minWindow, Math.min(window, maxWindow));
+  }
+
+  private int getBandwidthDelayProduct()
+  {
+    final double bdp = getEstimatedBandwidth0() * minRttNanos / TimeUnit.SECONDS.toNanos(1);
+    return (int) Math.min(Integer.MAX_VALUE, Math.ceil(bdp));
+  }
+
+  private double getEstimatedBandwidth0()
+  {
+    double max = 0;
+    for (double rate : deliveryRates)
+    {
+      max = Math.max(max, rate);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the number of credits granted by the remote server and not yet consumed.
+   *
+   * @return the number of available credits
+   */
+  public synchronized int availablePermits()
+  {
+    return credits;
+  }
+
+  /**
+   * Returns the current effective window.
+   *
+   * @return the maximum number of updates in flight currently allowed
+   */
+  public synchronized int getEffectiveWindow()
+  {
+    return window;
+  }
+
+  /**
+   * Returns the estimated bandwidth to the remote server, which is the highest recent rate
+   * at which the updates have been acknowledged.
+   *
+   * @return the estimated bandwidth in updates per second
+   */
+  public synchronized long getEstimatedBandwidth()
+  {
+    return Math.round(getEstimatedBandwidth0());
+  }
+
+  /**
+   * Returns the smoothed round trip time of the updates, from their sending
+   * to their acknowledgement by the remote server.
+   *
+   * @return the round trip time in milliseconds, or -1 if unknown
+   */
+  public synchronized long getRoundTripTime()
+  {
+    return smoothedRttNanos >= 0 ? TimeUnit.NANOSECONDS.toMillis(smoothedRttNanos) : -1;
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(credits=" + credits + ", inFlight=" + inFlight + ", window=" + window
+        + ", rttMs=" + getRoundTripTime() + ", bandwidth=" + getEstimatedBandwidth() + ")";
+  }
+}
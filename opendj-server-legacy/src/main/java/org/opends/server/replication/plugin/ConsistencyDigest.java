@@ -0,0 +1,543 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.opends.server.util.StaticUtils.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+
+/**
+ * An incrementally maintained digest of the entries of a replication domain.
+ * <p>
+ * The digest of the domain is the sum of the digests of its entries, so it does not depend on the
+ * order in which the entries are read and can be maintained on each write by subtracting the digest
+ * of the entry before the write and adding the digest of the entry after the write. The digest of
+ * an entry covers its DN, its object classes, its user attributes and its entryUUID, so two replicas
+ * holding the same data have the same digest.
+ * <p>
+ * The digest of the subtree of each child of the base entry is also maintained. Comparing these
+ * digests between two replicas tells which top-level subtrees diverge, without comparing all their
+ * entries.
+ * <p>
+ * The digest must first be built by reading all the entries of the domain, see {@link #startBuilding()}.
+ * Writes go on while the digest is being built: each write is registered with
+ * {@link #writeStarting(Map)} before it is committed, while it holds the locks on its entries. The
+ * entries are read in DN order, so the digest knows which entries have already been read. If the
+ * entries of a write have already been read, the write is applied to the digest being built.
+ * Otherwise, the digest of the entries before the write is accounted for immediately and the later
+ * reads of these entries are ignored. Renaming an entry having descendants changes the DN of all its descendants:
+ * the digest is then outdated and must be built again. Writes made with the replication repair
+ * control are not accounted for.
+ */
+@ThreadSafe
+final class ConsistencyDigest
+{
+  /** The status of a digest. */
+  enum Status
+  {
+    /** The digest must be built before it can be used. */
+    OUTDATED,
+    /** The digest is being built. */
+    BUILDING,
+    /** The digest is up to date. */
+    READY
+  }
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final byte DN_TAG = 0;
+  private static final byte OBJECT_CLASS_TAG = 1;
+  private static final byte ATTRIBUTE_TAG = 2;
+  private static final byte ENTRY_UUID_TAG = 3;
+
+  /** The ticket of a write which was not registered with {@link #writeStarting(Map)}. */
+  static final int UNREGISTERED_WRITE = -1;
+
+  private final DN baseDN;
+
+  @GuardedBy("this")
+  private Status status = Status.OUTDATED;
+  /** Incremented each time a build starts, the tickets of the writes are the build at their start. */
+  @GuardedBy("this")
+  private int build;
+  /** The number of registered writes which have not ended yet. */
+  @GuardedBy("this")
+  private int writesInProgress;
+  /** The number of writes started before the current build which have not ended yet. */
+  @GuardedBy("this")
+  private int writesBeforeBuild;
+  /** The last entry read while building the digest, or {@code null} if none has been read yet. */
+  @GuardedBy("this")
+  private DN lastScannedDN;
+  /** Whether the entries have been read in DN order while building the digest. */
+  @GuardedBy("this")
+  private boolean scannedInOrder;
+  /** Whether the domain has been written since the first entry was read. */
+  @GuardedBy("this")
+  private boolean writtenWhileScanning;
+  /**
+   * The DNs written while building the digest which had not been read yet. Their digest before the
+   * write has been accounted for, so their reads are ignored.
+   */
+  @GuardedBy("this")
+  private final Set<DN> writtenBeforeScan = new HashSet<>();
+  /** Whether a write made while building the digest could not be accounted for. */
+  @GuardedBy("this")
+  private boolean buildFailed;
+  /** Sum of the digests of all the entries of the domain. */
+  @GuardedBy("this")
+  private long digest;
+  /** Sum of the digests of the entries of the subtree of each child of the base entry. */
+  @GuardedBy("this")
+  private final Map<DN, Long> subtreeDigests = new HashMap<>();
+
+  /**
+   * Creates an outdated digest for the provided domain.
+   *
+   * @param baseDN
+   *          The base DN of the replication domain
+   */
+  ConsistencyDigest(DN baseDN)
+  {
+    this.baseDN = baseDN;
+  }
+
+  /**
+   * Computes the digest of an entry.
+   *
+   * @param entry
+   *          The entry
+   * @return the digest of the entry
+   */
+  static long digest(Entry entry)
+  {
+    long result = mix(hash(hash(FNV_OFFSET_BASIS, DN_TAG), entry.getName().toNormalizedByteString()));
+    for (ObjectClass objectClass : entry.getObjectClasses().keySet())
+    {
+      result += mix(hash(hash(FNV_OFFSET_BASIS, OBJECT_CLASS_TAG), objectClass.getOID()));
+    }
+    for (List<Attribute> attributes : entry.getUserAttributes().values())
+    {
+      for (Attribute attribute : attributes)
+      {
+        long attributeHash = hash(hash(FNV_OFFSET_BASIS, ATTRIBUTE_TAG),
+            attribute.getAttributeDescription().getAttributeType().getOID());
+        long optionsHash = 0;
+        for (String option : attribute.getAttributeDescription().getOptions())
+        {
+          // options are not ordered
+          optionsHash += mix(hash(FNV_OFFSET_BASIS, toLowerCase(option)));
+        }
+        attributeHash = hash(attributeHash, optionsHash);
+        for (ByteString value : attribute)
+        {
+          result += mix(hash(attributeHash, value));
+        }
+      }
+    }
+    final String entryUUID = EntryHistorical.getEntryUUID(entry);
+    if (entryUUID != null)
+    {
+      result += mix(hash(hash(FNV_OFFSET_BASIS, ENTRY_UUID_TAG), entryUUID));
+    }
+    return result;
+  }
+
+  private static long hash(long hash, byte b)
+  {
+    return (hash ^ (b & 0xff)) * FNV_PRIME;
+  }
+
+  private static long hash(long hash, long l)
+  {
+    long result = hash;
+    for (int i = 0; i < 8; i++)
+    {
+      result = hash(result, (byte) (l >>> (8 * i)));
+    }
+    return result;
+  }
+
+  private static long hash(long hash, String s)
+  {
+    return hash(hash, ByteString.wrap(s.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static long hash(long hash, ByteString bytes)
+  {
+    long result = hash;
+    for (int i = 0; i < bytes.length(); i++)
+    {
+      result = hash(result, bytes.byteAt(i));
+    }
+    // separate consecutive values
+    return hash(result, (long) bytes.length());
+  }
+
+  /** Spreads the bits of a hash, so that sums of hashes do not cancel out easily. */
+  private static long mix(long hash)
+  {
+    long h = hash;
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+
+  /**
+   * Starts building the digest: the current digest is discarded. The builder must then wait for the
+   * writes in progress with {@link #awaitWritesBeforeBuild(long)}, and provide the entries read from
+   * the domain in DN order with {@link #entryScanned(Entry)}.
+   */
+  synchronized void startBuilding()
+  {
+    status = Status.BUILDING;
+    build++;
+    writesBeforeBuild = writesInProgress;
+    lastScannedDN = null;
+    scannedInOrder = true;
+    writtenWhileScanning = false;
+    writtenBeforeScan.clear();
+    buildFailed = false;
+    digest = 0;
+    subtreeDigests.clear();
+  }
+
+  /**
+   * Waits for the end of the writes started before the digest started being built, which cannot be
+   * accounted for.
+   *
+   * @param timeoutMillis
+   *          The maximum time to wait
+   * @return {@code true} if the entries can now be read, {@code false} if writes started before the
+   *         build are still in progress or if the digest is no longer being built
+   * @throws InterruptedException
+   *           If the current thread is interrupted while waiting
+   */
+  synchronized boolean awaitWritesBeforeBuild(long timeoutMillis) throws InterruptedException
+  {
+    if (status == Status.BUILDING && writesBeforeBuild > 0)
+    {
+      wait(timeoutMillis);
+    }
+    return status == Status.BUILDING && writesBeforeBuild == 0;
+  }
+
+  /**
+   * Adds an entry read while building the digest.
+   *
+   * @param entry
+   *          The entry read from the domain
+   */
+  synchronized void entryScanned(Entry entry)
+  {
+    if (status != Status.BUILDING)
+    {
+      return;
+    }
+    final DN dn = entry.getName();
+    if (lastScannedDN != null && dn.compareTo(lastScannedDN) <= 0)
+    {
+      // the writes can no longer tell whether their entries have been read
+      scannedInOrder = false;
+      buildFailed |= writtenWhileScanning;
+    }
+    lastScannedDN = dn;
+    if (!writtenBeforeScan.contains(dn))
+    {
+      add(dn, digest(entry));
+    }
+  }
+
+  /**
+   * Ends building the digest.
+   *
+   * @param success
+   *          Whether all the entries of the domain have been read
+   * @return {@code true} if the digest is now up to date, {@code false} if it must be built again
+   */
+  synchronized boolean finishBuilding(boolean success)
+  {
+    if (status != Status.BUILDING)
+    {
+      return false;
+    }
+    status = success && !buildFailed ? Status.READY : Status.OUTDATED;
+    lastScannedDN = null;
+    writtenBeforeScan.clear();
+    if (status == Status.OUTDATED)
+    {
+      digest = 0;
+      subtreeDigests.clear();
+    }
+    notifyAll();
+    return status == Status.READY;
+  }
+
+  /** Marks the digest as outdated, for example because the domain has been imported. */
+  synchronized void outdate()
+  {
+    status = Status.OUTDATED;
+    lastScannedDN = null;
+    writtenBeforeScan.clear();
+    digest = 0;
+    subtreeDigests.clear();
+    notifyAll();
+  }
+
+  /**
+   * Registers a write about to be committed. It must be called while the write holds the locks on
+   * the entries it writes, and {@link #writeEnded(int)} must be called once the write has ended.
+   *
+   * @param entriesBefore
+   *          The entries which may be written, by DN, {@code null} for the entries which do not exist yet
+   * @return the ticket of the write
+   */
+  synchronized int writeStarting(Map<DN, Entry> entriesBefore)
+  {
+    writesInProgress++;
+    if (status == Status.BUILDING)
+    {
+      if (lastScannedDN != null)
+      {
+        writtenWhileScanning = true;
+        buildFailed |= !scannedInOrder;
+      }
+      for (Map.Entry<DN, Entry> entryBefore : entriesBefore.entrySet())
+      {
+        final DN dn = entryBefore.getKey();
+        if (!isScanned(dn) && writtenBeforeScan.add(dn))
+        {
+          // the entry will not change until the write is committed
+          final Entry entry = entryBefore.getValue();
+          if (entry != null)
+          {
+            add(dn, digest(entry));
+          }
+        }
+      }
+    }
+    return build;
+  }
+
+  private boolean isScanned(DN dn)
+  {
+    return lastScannedDN != null && dn.compareTo(lastScannedDN) <= 0;
+  }
+
+  /**
+   * Unregisters a write which has ended, whether it succeeded or not.
+   *
+   * @param write
+   *          The ticket of the write
+   */
+  synchronized void writeEnded(int write)
+  {
+    if (write == UNREGISTERED_WRITE)
+    {
+      return;
+    }
+    writesInProgress--;
+    if (status == Status.BUILDING && write != build && writesBeforeBuild > 0)
+    {
+      writesBeforeBuild--;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Accounts for an entry added to the domain.
+   *
+   * @param write
+   *          The ticket of the write
+   * @param entry
+   *          The added entry
+   */
+  synchronized void entryAdded(int write, Entry entry)
+  {
+    if (isWriteAccounted(write))
+    {
+      add(entry.getName(), digest(entry));
+    }
+  }
+
+  /**
+   * Accounts for an entry deleted from the domain.
+   *
+   * @param write
+   *          The ticket of the write
+   * @param entry
+   *          The deleted entry
+   */
+  synchronized void entryDeleted(int write, Entry entry)
+  {
+    if (isWriteAccounted(write))
+    {
+      add(entry.getName(), -digest(entry));
+    }
+  }
+
+  /**
+   * Accounts for an entry modified in the domain.
+   *
+   * @param write
+   *          The ticket of the write
+   * @param before
+   *          The entry before the write
+   * @param after
+   *          The entry after the write
+   */
+  synchronized void entryModified(int write, Entry before, Entry after)
+  {
+    if (isWriteAccounted(write))
+    {
+      add(before.getName(), -digest(before));
+      add(after.getName(), digest(after));
+    }
+  }
+
+  /**
+   * Accounts for an entry renamed in the domain.
+   *
+   * @param write
+   *          The ticket of the write
+   * @param before
+   *          The entry before the write
+   * @param after
+   *          The entry after the write
+   * @param hasDescendants
+   *          Whether the renamed entry has descendants
+   */
+  synchronized void entryRenamed(int write, Entry before, Entry after, boolean hasDescendants)
+  {
+    if (!isWriteAccounted(write))
+    {
+      return;
+    }
+    if (hasDescendants)
+    {
+      // the DNs of all the descendants have changed
+      writeNotAccounted();
+      return;
+    }
+    add(before.getName(), -digest(before));
+    add(after.getName(), digest(after));
+  }
+
+  /**
+   * Returns whether a successful write must be applied to the digest. The writes started before the
+   * current build are not: the build has waited for them before reading the entries, so it reads
+   * their result.
+   */
+  private boolean isWriteAccounted(int write)
+  {
+    if (write == UNREGISTERED_WRITE)
+    {
+      // for example, a write started before the digest was enabled
+      writeNotAccounted();
+      return false;
+    }
+    return status == Status.READY || (status == Status.BUILDING && write == build);
+  }
+
+  private void writeNotAccounted()
+  {
+    if (status == Status.BUILDING)
+    {
+      buildFailed = true;
+    }
+    else if (status == Status.READY)
+    {
+      outdate();
+    }
+  }
+
+  private void add(DN dn, long entryDigest)
+  {
+    digest += entryDigest;
+    if (dn.size() <= baseDN.size())
+    {
+      return;
+    }
+    DN subtreeDN = dn;
+    while (subtreeDN.size() > baseDN.size() + 1)
+    {
+      subtreeDN = subtreeDN.parent();
+    }
+    final Long previous = subtreeDigests.get(subtreeDN);
+    final long sum = (previous != null ? previous : 0L) + entryDigest;
+    if (sum != 0)
+    {
+      subtreeDigests.put(subtreeDN, sum);
+    }
+    else
+    {
+      subtreeDigests.remove(subtreeDN);
+    }
+  }
+
+  /**
+   * Returns the status of this digest.
+   *
+   * @return the status of this digest
+   */
+  synchronized Status getStatus()
+  {
+    return status;
+  }
+
+  /**
+   * Returns the digest of all the entries of the domain.
+   *
+   * @return the digest, or {@code null} if it is not up to date
+   */
+  synchronized Long getDigest()
+  {
+    return status == Status.READY ? digest : null;
+  }
+
+  /**
+   * Returns the digest of the subtree of each child of the base entry.
+   *
+   * @return the digests of the subtrees of the children of the base entry, sorted by DN, empty if the
+   *         digest is not up to date
+   */
+  synchronized Map<DN, Long> getSubtreeDigests()
+  {
+    return status == Status.READY ? new TreeMap<>(subtreeDigests) : new TreeMap<DN, Long>();
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(baseDN=" + baseDN + ", status=" + status
+        + ", digest=" + Long.toHexString(digest) + ")";
+  }
+}
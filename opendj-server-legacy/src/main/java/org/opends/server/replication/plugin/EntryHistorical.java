@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -21,6 +21,7 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.CollectionUtils.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -62,6 +63,11 @@ import org.opends.server.util.TimeThread;
  * </ol>
  * One Historical object is created for each entry in the entry cache each Historical Object
  * contains a list of attribute historical information
+ * <p>
+ * The historical information of an attribute is only decoded when an operation modifies this
+ * attribute: the values of the historical attribute for the other attributes are kept as read
+ * from the entry and encoded back as is, unless they must be purged. Only the CSN of these
+ * values is decoded to purge them.
  */
 public class EntryHistorical
 {
@@ -111,6 +117,13 @@ public class EntryHistorical
 
   /** Contains Historical information for each attribute description. */
   private final Map<AttributeDescription, AttrHistorical> attributesHistorical = new HashMap<>();
+  /**
+   * Contains the values of the historical attribute read from the entry and not decoded yet,
+   * for each attribute description.
+   */
+  private final Map<AttributeDescription, List<ByteString>> undecodedHistorical = new HashMap<>();
+  /** The DN of the entry this historical information was read from, {@code null} if none. */
+  private DN entryDN;
 
   @Override
   public String toString()
@@ -311,6 +324,10 @@ public class EntryHistorical
     AttributeDescription attrDesc = modAttr.getAttributeDescription();
     AttrHistorical attrHist = attributesHistorical.get(attrDesc);
     if (attrHist == null)
+    {
+      attrHist = decodeAttrHistorical(attrDesc);
+    }
+    if (attrHist == null)
     {
       attrHist = AttrHistorical.createAttributeHistorical(modAttr.getAttributeDescription().getAttributeType());
       attributesHistorical.put(attrDesc, attrHist);
@@ -318,6 +335,62 @@ public class EntryHistorical
     return attrHist;
   }
 
+  /**
+   * Decodes the historical information read from the entry for the provided attribute description.
+   *
+   * @param attrDesc
+   *          the attribute description whose historical information must be decoded
+   * @return the decoded attribute historical, or {@code null} if the entry had no historical
+   *         information for this attribute description
+   */
+  private AttrHistorical decodeAttrHistorical(AttributeDescription attrDesc)
+  {
+    final List<ByteString> histValues = undecodedHistorical.remove(attrDesc);
+    if (histValues == null)
+    {
+      return null;
+    }
+
+    AttrHistorical attrHist = null;
+    try
+    {
+      AttributeDescription histAttrDesc = null;
+      for (ByteString histValue : histValues)
+      {
+        final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histValue.toString(), histAttrDesc);
+        histAttrDesc = histVal.getAttributeDescription();
+        if (histAttrDesc == null)
+        {
+          /*
+           * This attribute is unknown from the schema
+           * Just skip it, the modification will be processed but no
+           * historical information is going to be kept.
+           * Log information for the repair tool.
+           */
+          logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entryDN, histVal.getAttrString());
+          return null;
+        }
+
+        updateOldestCSN(histVal.getCSN());
+        if (attrHist == null)
+        {
+          // keep the attribute description as stored in the entry
+          attrHist = AttrHistorical.createAttributeHistorical(histAttrDesc.getAttributeType());
+          attributesHistorical.put(histAttrDesc, attrHist);
+        }
+        attrHist.assign(histVal);
+      }
+    }
+    catch (Exception e)
+    {
+      // Any exception happening here means that the coding of the historical
+      // information was wrong.
+      // Log an error and continue with the values decoded so far.
+      logger.error(ERR_BAD_HISTORICAL, entryDN);
+    }
+    return attrHist;
+  }
+
   /**
    * For stats/monitoring purpose, returns the number of historical values
    * purged the last time a purge has been applied on this entry historical.
@@ -419,6 +492,23 @@ public class EntryHistorical
       }
     }
 
+    for (List<ByteString> histValues : undecodedHistorical.values())
+    {
+      for (ByteString histValue : histValues)
+      {
+        if (purgeDelayInMillisec > 0)
+        {
+          final CSN csn = decodeCSN(histValue);
+          if (csn != null && needsPurge(csn, purgeDate))
+          {
+            // this hist must be purged now, so skip it
+            continue;
+          }
+        }
+        builder.add(histValue);
+      }
+    }
+
     if (entryADDDate != null && !needsPurge(entryADDDate, purgeDate))
     {
       // Encode the historical information for the ADD Operation.
@@ -447,6 +537,30 @@ public class EntryHistorical
     return needsPurge;
   }
 
+  /**
+   * Decodes the CSN of a value of the historical attribute without decoding the whole value.
+   *
+   * @param histValue
+   *          the value of the historical attribute
+   * @return the CSN of the value, or {@code null} if it cannot be decoded
+   * @see HistoricalAttributeValue#HistoricalAttributeValue(String) the decode operation in HistoricalAttributeValue
+   */
+  private static CSN decodeCSN(ByteString histValue)
+  {
+    final String strValue = histValue.toString();
+    final int csnStart = strValue.indexOf(':') + 1;
+    final int csnEnd = strValue.indexOf(':', csnStart);
+    try
+    {
+      return new CSN(csnEnd >= 0 ? strValue.substring(csnStart, csnEnd) : strValue.substring(csnStart));
+    }
+    catch (RuntimeException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
   private String encode(HistAttrModificationKey modKey, String options, CSN changeTime)
   {
     return options + ":" + changeTime + ":" + modKey;
@@ -528,10 +642,13 @@ public class EntryHistorical
       return newHistorical;
     }
 
+    newHistorical.entryDN = entry.getName();
     try
     {
-      // For each value of the historical attr read (mod. on a user attribute)
-      //   build an AttrInfo sub-object
+      // For each value of the historical attr read (mod. on a user attribute),
+      //   only decode its attribute description: the rest of the value is only decoded
+      //   when an operation modifies this attribute, see getOrCreateAttrHistorical()
+      final Map<String, AttributeDescription> attrDescs = new HashMap<>();
 
       // Traverse the Attributes (when several options for the hist attr)
       // of the historical attribute read from the entry
@@ -540,50 +657,41 @@ public class EntryHistorical
         // For each Attribute (option), traverse the values
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
-          // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
-          final CSN csn = histVal.getCSN();
-
-          // update the oldest CSN stored in the new entry historical
-          newHistorical.updateOldestCSN(csn);
-
-          if (histVal.isADDOperation())
+          final String histValue = histAttrValueFromEntry.toString();
+          final String attrString = histValue.substring(0, histValue.indexOf(':'));
+          AttributeDescription attrDesc = attrDescs.get(attrString);
+          if (attrDesc == null)
           {
-            newHistorical.entryADDDate = csn;
+            attrDesc = AttributeDescription.valueOf(attrString);
+            attrDescs.put(attrString, attrDesc);
           }
-          else if (histVal.isMODDNOperation())
+
+          if ("dn".equalsIgnoreCase(attrDesc.getNameOrOID()))
           {
-            newHistorical.entryMODDNDate = csn;
+            final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histValue, attrDesc);
+            final CSN csn = histVal.getCSN();
+
+            // update the oldest CSN stored in the new entry historical
+            newHistorical.updateOldestCSN(csn);
+
+            if (histVal.isADDOperation())
+            {
+              newHistorical.entryADDDate = csn;
+            }
+            else if (histVal.isMODDNOperation())
+            {
+              newHistorical.entryMODDNDate = csn;
+            }
           }
           else
           {
-            final AttributeDescription attrDesc = histVal.getAttributeDescription();
-            if (attrDesc == null)
-            {
-              /*
-               * This attribute is unknown from the schema
-               * Just skip it, the modification will be processed but no
-               * historical information is going to be kept.
-               * Log information for the repair tool.
-               */
-              logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), histVal.getAttrString());
-              continue;
-            }
-
-            /* if attribute type does not match we create new
-             *   AttrInfoWithOptions and AttrInfo
-             *   we also add old AttrInfoWithOptions into histObj.attributesInfo
-             * if attribute type match but options does not match we create new
-             *   AttrInfo that we add to AttrInfoWithOptions
-             * if both match we keep everything
-             */
-            AttrHistorical attrInfo = newHistorical.attributesHistorical.get(attrDesc);
-            if (attrInfo == null)
+            List<ByteString> histValues = newHistorical.undecodedHistorical.get(attrDesc);
+            if (histValues == null)
             {
-              attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
-              newHistorical.attributesHistorical.put(attrDesc, attrInfo);
+              histValues = new ArrayList<>();
+              newHistorical.undecodedHistorical.put(attrDesc, histValues);
             }
-            attrInfo.assign(histVal);
+            histValues.add(histAttrValueFromEntry);
           }
         }
       }
@@ -734,6 +842,13 @@ public class EntryHistorical
    */
   public CSN getOldestCSN()
   {
+    for (List<ByteString> histValues : undecodedHistorical.values())
+    {
+      for (ByteString histValue : histValues)
+      {
+        updateOldestCSN(decodeCSN(histValue));
+      }
+    }
     return this.oldestCSN;
   }
 
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -82,11 +82,24 @@ class HistoricalAttributeValue
    * @see EntryHistorical#encodeAndPurge() encoding in EntryHistorical
    */
   HistoricalAttributeValue(String strVal)
+  {
+    this(strVal, null);
+  }
+
+  /**
+   * Create a new object from the String encoded form, whose attribute description
+   * has already been decoded.
+   *
+   * @param strVal The String encoded form of historical attribute value.
+   * @param attrDesc The attribute description of the historical attribute value,
+   *                 or {@code null} to decode it from the String encoded form.
+   */
+  HistoricalAttributeValue(String strVal, AttributeDescription attrDesc)
   {
     String[] token = strVal.split(":", 4);
 
-    attrDesc = AttributeDescription.valueOf(token[0]);
-    attrString = toLowerCase(attrDesc.getNameOrOID());
+    this.attrDesc = attrDesc != null ? attrDesc : AttributeDescription.valueOf(token[0]);
+    attrString = toLowerCase(this.attrDesc.getNameOrOID());
     // This HistVal was used to store the date when some
     // modifications were done to the entries.
     attrTypeIsNull = attrString.equalsIgnoreCase("dn");
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -66,6 +66,7 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.AVA;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.ModificationType;
@@ -158,6 +159,7 @@ import org.opends.server.types.operation.PreOperationAddOperation;
 import org.opends.server.types.operation.PreOperationDeleteOperation;
 import org.opends.server.types.operation.PreOperationModifyDNOperation;
 import org.opends.server.types.operation.PreOperationModifyOperation;
+import org.opends.server.types.operation.PreOperationOperation;
 import org.opends.server.util.LDIFReader;
 import org.opends.server.util.TimeThread;
 import org.opends.server.workflowelement.localbackend.LocalBackendModifyOperation;
@@ -321,6 +323,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   private final PendingChanges pendingChanges;
   private final AtomicReference<RSUpdater> rsUpdater = new AtomicReference<>(null);
 
+  /** The digest of the entries of this domain, maintained when enabled in the configuration. */
+  private final ConsistencyDigest consistencyDigest;
+  /** The thread building the consistency digest, if any. */
+  private final AtomicReference<ConsistencyDigestBuilder> digestBuilder = new AtomicReference<>(null);
+
   /**
    * It contain the updates that were done on other servers, transmitted by the
    * replication server and that are currently replayed.
@@ -351,6 +358,14 @@ public final class LDAPReplicationDomain extends ReplicationDomain
 
   /** The attribute name used to store the generation id in the backend. */
   private static final String REPLICATION_GENERATION_ID = "ds-sync-generation-id";
+  /** Number of attempts to build the consistency digest before giving up. */
+  private static final int MAX_DIGEST_BUILD_ATTEMPTS = 3;
+  /** Delay between two attempts to build the consistency digest. */
+  private static final long DIGEST_BUILD_RETRY_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+  /** Maximum time to wait for the writes in progress before checking whether the consistency digest is still built. */
+  private static final long DIGEST_BUILD_WAIT_MS = 1000;
+  /** The operation attachment holding the ticket of a write registered in the consistency digest. */
+  private static final String CONSISTENCY_DIGEST_WRITE = "replicationConsistencyDigestWrite";
   /** The attribute name used to store the fractional include configuration in the backend. */
   static final String REPLICATION_FRACTIONAL_INCLUDE = "ds-sync-fractional-include";
   /** The attribute name used to store the fractional exclude configuration in the backend. */
@@ -530,6 +545,83 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     }
   }
 
+  /**
+   * Builds the consistency digest by reading all the entries of the domain.
+   * <p>
+   * Writes made while the entries are read are applied to the digest being built.
+   * The build fails if the entries are not read in DN order while the domain is
+   * written, in which case it is retried a few times.
+   */
+  private class ConsistencyDigestBuilder extends DirectoryThread
+  {
+    protected ConsistencyDigestBuilder()
+    {
+      super("Replica DS(" + getServerId() + ") consistency digest builder for domain \"" + getBaseDN() + "\"");
+    }
+
+    @Override
+    public void run()
+    {
+      try
+      {
+        for (int attempt = 1; attempt <= MAX_DIGEST_BUILD_ATTEMPTS; attempt++)
+        {
+          if (isShutdownInitiated() || !config.isConsistencyDigestEnabled())
+          {
+            return;
+          }
+          consistencyDigest.startBuilding();
+          while (!consistencyDigest.awaitWritesBeforeBuild(DIGEST_BUILD_WAIT_MS))
+          {
+            if (isShutdownInitiated() || consistencyDigest.getStatus() != ConsistencyDigest.Status.BUILDING)
+            {
+              consistencyDigest.finishBuilding(false);
+              return;
+            }
+          }
+          final SearchRequest request = newSearchRequest(getBaseDN(), SearchScope.WHOLE_SUBTREE,
+              "(|(objectClass=*)(objectClass=ldapSubentry))")
+              .addAttribute("*", ENTRYUUID_ATTRIBUTE_NAME)
+              .addControl(new LDAPControl(OID_REAL_ATTRS_ONLY))
+              .addControl(new LDAPControl(OID_MANAGE_DSAIT_CONTROL));
+          final InternalSearchOperation search = conn.processSearch(request, new InternalSearchListener()
+          {
+            @Override
+            public void handleInternalSearchEntry(InternalSearchOperation searchOperation,
+                SearchResultEntry searchEntry)
+            {
+              consistencyDigest.entryScanned(searchEntry);
+            }
+
+            @Override
+            public void handleInternalSearchReference(InternalSearchOperation searchOperation,
+                SearchResultReference searchReference)
+            {
+              // Nothing to do.
+            }
+          });
+          if (consistencyDigest.finishBuilding(search.getResultCode() == ResultCode.SUCCESS))
+          {
+            logger.trace("Consistency digest of domain %s built", getBaseDN());
+            return;
+          }
+          logger.trace("Consistency digest of domain %s could not be built, attempt %d: %s",
+              getBaseDN(), attempt, search.getResultCode());
+          Thread.sleep(DIGEST_BUILD_RETRY_DELAY_MS);
+        }
+      }
+      catch (InterruptedException e)
+      {
+        logger.traceException(e);
+        consistencyDigest.finishBuilding(false);
+      }
+      finally
+      {
+        digestBuilder.compareAndSet(this, null);
+      }
+    }
+  }
+
   /**
    * Creates a new ReplicationDomain using configuration from configEntry.
    *
@@ -555,6 +647,7 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     readFractionalConfig(configuration, false);
     storeECLConfiguration(configuration);
     solveConflictFlag = isSolveConflict(configuration);
+    consistencyDigest = new ConsistencyDigest(getBaseDN());
 
     LocalBackend<?> backend = getBackend();
     if (backend == null)
@@ -1995,6 +2088,8 @@ public final class LDAPReplicationDomain extends ReplicationDomain
           "replicationCSN", curCSN));
     }
 
+    updateConsistencyDigest(op);
+
     if (result == ResultCode.SUCCESS)
     {
       if (op.isSynchronizationOperation())
@@ -2084,6 +2179,124 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     checkForClearedConflict(op);
   }
 
+  /**
+   * Registers in the consistency digest a write about to be committed. This must be done
+   * while the operation holds the locks on the entries it writes.
+   *
+   * @param op
+   *          The operation about to write entries of this domain
+   */
+  void startConsistencyDigestWrite(PreOperationOperation op)
+  {
+    if (!config.isConsistencyDigestEnabled())
+    {
+      return;
+    }
+    final Map<DN, Entry> entriesBefore;
+    switch (op.getOperationType())
+    {
+    case ADD:
+      entriesBefore = Collections.singletonMap(((PreOperationAddOperation) op).getEntryDN(), (Entry) null);
+      break;
+    case DELETE:
+      final PreOperationDeleteOperation deleteOp = (PreOperationDeleteOperation) op;
+      entriesBefore = Collections.singletonMap(deleteOp.getEntryDN(), deleteOp.getEntryToDelete());
+      break;
+    case MODIFY:
+      final PreOperationModifyOperation modifyOp = (PreOperationModifyOperation) op;
+      entriesBefore = Collections.singletonMap(modifyOp.getEntryDN(), modifyOp.getCurrentEntry());
+      break;
+    case MODIFY_DN:
+      final PreOperationModifyDNOperation modifyDNOp = (PreOperationModifyDNOperation) op;
+      entriesBefore = new HashMap<>(2);
+      entriesBefore.put(modifyDNOp.getEntryDN(), modifyDNOp.getOriginalEntry());
+      entriesBefore.put(modifyDNOp.getUpdatedEntry().getName(), null);
+      break;
+    default:
+      return;
+    }
+    op.setAttachment(CONSISTENCY_DIGEST_WRITE, consistencyDigest.writeStarting(entriesBefore));
+  }
+
+  /**
+   * Accounts for a write in the consistency digest, whether it succeeded or not. This must be
+   * done before the operation is removed from the pending changes.
+   */
+  private void updateConsistencyDigest(PostOperationOperation op)
+  {
+    final Integer registeredWrite = (Integer) op.getAttachment(CONSISTENCY_DIGEST_WRITE);
+    final int write = registeredWrite != null ? registeredWrite : ConsistencyDigest.UNREGISTERED_WRITE;
+    try
+    {
+      if (op.getResultCode() == ResultCode.SUCCESS)
+      {
+        updateConsistencyDigest(op, write);
+      }
+    }
+    finally
+    {
+      consistencyDigest.writeEnded(write);
+    }
+    if (consistencyDigest.getStatus() == ConsistencyDigest.Status.OUTDATED)
+    {
+      buildConsistencyDigestIfEnabled();
+    }
+  }
+
+  private void updateConsistencyDigest(PostOperationOperation op, int write)
+  {
+    switch (op.getOperationType())
+    {
+    case ADD:
+      consistencyDigest.entryAdded(write, ((PostOperationAddOperation) op).getEntryToAdd());
+      break;
+    case DELETE:
+      consistencyDigest.entryDeleted(write, ((PostOperationDeleteOperation) op).getEntryToDelete());
+      break;
+    case MODIFY:
+      final PostOperationModifyOperation modifyOp = (PostOperationModifyOperation) op;
+      consistencyDigest.entryModified(write, modifyOp.getCurrentEntry(), modifyOp.getModifiedEntry());
+      break;
+    case MODIFY_DN:
+      final PostOperationModifyDNOperation modifyDNOp = (PostOperationModifyDNOperation) op;
+      final Entry updatedEntry = modifyDNOp.getUpdatedEntry();
+      consistencyDigest.entryRenamed(
+          write, modifyDNOp.getOriginalEntry(), updatedEntry, hasSubordinates(updatedEntry.getName()));
+      break;
+    default:
+      break;
+    }
+  }
+
+  /** Returns whether the entry with the provided DN has subordinates, {@code true} if it cannot be determined. */
+  private boolean hasSubordinates(DN dn)
+  {
+    try
+    {
+      return getBackend().hasSubordinates(dn) != ConditionResult.FALSE;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return true;
+    }
+  }
+
+  /** Starts building the consistency digest if it is enabled and outdated. */
+  private void buildConsistencyDigestIfEnabled()
+  {
+    if (config.isConsistencyDigestEnabled()
+        && !shutdown.get()
+        && consistencyDigest.getStatus() == ConsistencyDigest.Status.OUTDATED)
+    {
+      final ConsistencyDigestBuilder builder = new ConsistencyDigestBuilder();
+      if (digestBuilder.compareAndSet(null, builder))
+      {
+        builder.start();
+      }
+    }
+  }
+
   /**
    * Check if the operation that just happened has cleared a conflict :
    * Clearing a conflict happens if the operation has free a DN that
@@ -2232,6 +2445,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
       {
         rsUpdater.initiateShutdown();
       }
+      final ConsistencyDigestBuilder builder = digestBuilder.get();
+      if (builder != null)
+      {
+        builder.initiateShutdown();
+      }
 
       // stop the thread in charge of flushing the ServerState.
       if (flushThread != null)
@@ -3596,6 +3814,10 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
         loadDataState();
 
+        // The imported entries have not been accounted for
+        consistencyDigest.outdate();
+        buildConsistencyDigestIfEnabled();
+
         if (ieCtx.getException() != null)
         {
           // When an error occurred during an import, most of times
@@ -3802,6 +4024,15 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
     solveConflictFlag = isSolveConflict(configuration);
 
+    if (configuration.isConsistencyDigestEnabled())
+    {
+      buildConsistencyDigestIfEnabled();
+    }
+    else
+    {
+      consistencyDigest.outdate();
+    }
+
     final ConfigChangeResult ccr = new ConfigChangeResult();
     try
     {
@@ -3868,6 +4099,8 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     flushThread.start();
 
     startListenService();
+
+    buildConsistencyDigestIfEnabled();
   }
 
   /** Remove the configuration of the external changelog from this domain configuration. */
@@ -4306,6 +4539,21 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     attributes.add("remote-pending-changes-size", remotePendingChanges.getQueueSize());
     attributes.add("dependent-changes-size", remotePendingChanges.getDependentChangesSize());
     attributes.add("changes-in-progress-size", remotePendingChanges.changesInProgressSize());
+    if (config.isConsistencyDigestEnabled())
+    {
+      attributes.add("consistency-digest-status", consistencyDigest.getStatus());
+      final Long digest = consistencyDigest.getDigest();
+      if (digest != null)
+      {
+        attributes.add("consistency-digest", Long.toHexString(digest));
+        final List<String> subtreeDigests = new ArrayList<>();
+        for (Map.Entry<DN, Long> entry : consistencyDigest.getSubtreeDigests().entrySet())
+        {
+          subtreeDigests.add(Long.toHexString(entry.getValue()) + " " + entry.getKey());
+        }
+        attributes.add("consistency-digest-subtrees", subtreeDigests);
+      }
+    }
   }
 
   /**
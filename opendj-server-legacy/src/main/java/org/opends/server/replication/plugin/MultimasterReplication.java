@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -447,6 +447,10 @@ public class MultimasterReplication
   {
     DN operationDN = modifyOperation.getEntryDN();
     LDAPReplicationDomain domain = findDomain(operationDN, modifyOperation);
+    if (domain != null)
+    {
+      domain.startConsistencyDigestWrite(modifyOperation);
+    }
 
     if (domain == null || !domain.solveConflict())
     {
@@ -482,6 +486,11 @@ public class MultimasterReplication
   public SynchronizationProviderResult doPreOperation(
          PreOperationDeleteOperation deleteOperation) throws DirectoryException
   {
+    LDAPReplicationDomain domain = findDomain(deleteOperation.getEntryDN(), deleteOperation);
+    if (domain != null)
+    {
+      domain.startConsistencyDigestWrite(deleteOperation);
+    }
     return new SynchronizationProviderResult.ContinueProcessing();
   }
 
@@ -492,6 +501,10 @@ public class MultimasterReplication
   {
     DN operationDN = modifyDNOperation.getEntryDN();
     LDAPReplicationDomain domain = findDomain(operationDN, modifyDNOperation);
+    if (domain != null)
+    {
+      domain.startConsistencyDigestWrite(modifyDNOperation);
+    }
 
     if (domain == null || !domain.solveConflict())
     {
@@ -530,6 +543,7 @@ public class MultimasterReplication
     {
       return new SynchronizationProviderResult.ContinueProcessing();
     }
+    domain.startConsistencyDigestWrite(addOperation);
 
     // For LOCAL op only, generate CSN and attach Context
     if (!addOperation.isSynchronizationOperation())
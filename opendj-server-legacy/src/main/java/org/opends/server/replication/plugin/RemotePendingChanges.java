@@ -12,12 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -49,6 +53,10 @@ import org.opends.server.types.Operation;
  *
  * It is used to know when the ServerState must be updated and to compute
  * the dependencies between operations.
+ * <p>
+ * A change depending on older changes is only held until these specific
+ * changes are committed, so that independent changes keep being replayed
+ * concurrently and only truly dependent changes are serialized.
  *
  * One of this object is instantiated for each ReplicationDomain.
  */
@@ -60,11 +68,20 @@ final class RemotePendingChanges
 
   /**
    * A sorted set containing the list of PendingChanges that have
-   * not been replayed correctly because they are dependent on
-   * another change to be completed.
+   * not been replayed because they were dependent on other changes which
+   * have all been committed since: they are now ready to be replayed.
    */
   @GuardedBy("dependentChangesLock")
   private final SortedSet<PendingChange> dependentChanges = new TreeSet<>();
+  /**
+   * The changes that must be committed before each dependent change can be
+   * replayed.
+   */
+  @GuardedBy("dependentChangesLock")
+  private final Map<PendingChange, Set<CSN>> unresolvedDependencies = new HashMap<>();
+  /** The dependent changes waiting for the change with the key CSN to be committed. */
+  @GuardedBy("dependentChangesLock")
+  private final Map<CSN, Set<PendingChange>> blockedChanges = new HashMap<>();
   /**
    * {@code activeAndDependentChanges} also contains changes discovered to be dependent
    * on currently in progress changes.
@@ -128,7 +145,7 @@ final class RemotePendingChanges
     dependentChangesLock.lock();
     try
     {
-      return dependentChanges.size();
+      return dependentChanges.size() + unresolvedDependencies.size();
     }
     finally
     {
@@ -175,7 +192,7 @@ final class RemotePendingChanges
       {
         throw new NoSuchElementException();
       }
-      curChange.setCommitted(true);
+      setCommitted(curChange);
       activeAndDependentChanges.remove(curChange);
 
       final Iterator<PendingChange> it = pendingChanges.values().iterator();
@@ -199,6 +216,38 @@ final class RemotePendingChanges
     }
   }
 
+  /**
+   * Marks the provided change as committed and releases the dependent changes
+   * which were only waiting for it.
+   */
+  private void setCommitted(PendingChange change)
+  {
+    dependentChangesLock.lock();
+    try
+    {
+      change.setCommitted(true);
+      final Set<PendingChange> blocked = blockedChanges.remove(change.getCSN());
+      if (blocked == null)
+      {
+        return;
+      }
+      for (PendingChange blockedChange : blocked)
+      {
+        final Set<CSN> dependencies = unresolvedDependencies.get(blockedChange);
+        dependencies.remove(change.getCSN());
+        if (dependencies.isEmpty())
+        {
+          unresolvedDependencies.remove(blockedChange);
+          dependentChanges.add(blockedChange);
+        }
+      }
+    }
+    finally
+    {
+      dependentChangesLock.unlock();
+    }
+  }
+
   public void markInProgress(LDAPUpdateMsg msg)
   {
     pendingChangesReadLock.lock();
@@ -212,31 +261,26 @@ final class RemotePendingChanges
     }
   }
   /**
-   * Get the first update in the list that have some dependencies cleared.
+   * Get the oldest update whose dependencies have all been committed.
    *
-   * @return The LDAPUpdateMsg to be handled.
+   * @return The LDAPUpdateMsg to be handled, or {@code null} if there is none.
    */
   public LDAPUpdateMsg getNextUpdate()
   {
-    pendingChangesReadLock.lock();
     dependentChangesLock.lock();
     try
     {
       if (!dependentChanges.isEmpty())
       {
         PendingChange firstDependentChange = dependentChanges.first();
-        if (pendingChanges.firstKey().isNewerThanOrEqualTo(firstDependentChange.getCSN()))
-        {
-          dependentChanges.remove(firstDependentChange);
-          return firstDependentChange.getLDAPUpdateMsg();
-        }
+        dependentChanges.remove(firstDependentChange);
+        return firstDependentChange.getLDAPUpdateMsg();
       }
       return null;
     }
     finally
     {
       dependentChangesLock.unlock();
-      pendingChangesReadLock.unlock();
     }
   }
 
@@ -244,13 +288,37 @@ final class RemotePendingChanges
    * Mark the first pendingChange as dependent on the second PendingChange.
    * @param dependentChange The PendingChange that depend on the second
    *                        PendingChange.
+   * @param blockingChange The PendingChange that must be committed before
+   *                       the first one can be replayed.
+   * @return {@code false} if the second PendingChange is already committed
+   *         and the first one does not need to wait for it.
    */
-  private void addDependency(PendingChange dependentChange)
+  private boolean addDependency(PendingChange dependentChange, PendingChange blockingChange)
   {
     dependentChangesLock.lock();
     try
     {
-      dependentChanges.add(dependentChange);
+      if (blockingChange.isCommitted())
+      {
+        return false;
+      }
+      final CSN blockingCSN = blockingChange.getCSN();
+      Set<PendingChange> blocked = blockedChanges.get(blockingCSN);
+      if (blocked == null)
+      {
+        blocked = new HashSet<>();
+        blockedChanges.put(blockingCSN, blocked);
+      }
+      blocked.add(dependentChange);
+
+      Set<CSN> dependencies = unresolvedDependencies.get(dependentChange);
+      if (dependencies == null)
+      {
+        dependencies = new HashSet<>();
+        unresolvedDependencies.put(dependentChange, dependencies);
+      }
+      dependencies.add(blockingCSN);
+      return true;
     }
     finally
     {
@@ -311,8 +379,7 @@ final class RemotePendingChanges
         if (pendingMsg.getDN().equals(targetDN))
         {
           // it is a deleteOperation on the same DN
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof AddMsg)
@@ -320,8 +387,7 @@ final class RemotePendingChanges
         if (pendingMsg.getDN().isSuperiorOrEqualTo(targetDN))
         {
           // it is an addOperation on a parent of the current AddOperation
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof ModifyDNMsg)
@@ -330,16 +396,14 @@ final class RemotePendingChanges
         // or a ModifyDnOperation with new DN equals to the ADD DN parent?
         if (pendingMsg.getDN().equals(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
         else
         {
           final ModifyDNMsg pendingModDn = (ModifyDNMsg) pendingMsg;
           if (pendingModDn.newDNIsParent(targetDN))
           {
-            hasDependencies = true;
-            addDependency(change);
+            hasDependencies |= addDependency(change, pendingChange);
           }
         }
       }
@@ -385,16 +449,14 @@ final class RemotePendingChanges
         if (pendingMsg.getDN().equals(targetDN))
         {
           // it is an addOperation on a same DN
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof ModifyDNMsg)
       {
         if (((ModifyDNMsg) pendingMsg).newDNIsEqual(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
     }
@@ -444,8 +506,7 @@ final class RemotePendingChanges
         // as the new DN of this ModifyDN
         if (msg.newDNIsEqual(pendingMsg.getDN()))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof AddMsg)
@@ -454,15 +515,13 @@ final class RemotePendingChanges
         // the MODDN  operation
         if (msg.newParentIsEqual(pendingMsg.getDN()))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
         // Check if the AddOperation was done on the same DN as the
         // target DN of the MODDN operation
         if (pendingMsg.getDN().equals(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof ModifyDNMsg)
@@ -470,8 +529,7 @@ final class RemotePendingChanges
         if (msg.newDNIsEqual(pendingMsg.getDN()))
         {
           // the ModifyDNOperation was done from the new DN of the MODDN operation
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
     }
@@ -521,8 +579,7 @@ final class RemotePendingChanges
            */
         if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof AddMsg)
@@ -533,8 +590,7 @@ final class RemotePendingChanges
            */
         if (pendingMsg.getDN().equals(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
       else if (pendingMsg instanceof ModifyDNMsg)
@@ -546,8 +602,7 @@ final class RemotePendingChanges
            */
         if (pendingMsg.getDN().isSubordinateOrEqualTo(targetDN) || pendingModDn.newDNIsParent(targetDN))
         {
-          hasDependencies = true;
-          addDependency(change);
+          hasDependencies |= addDependency(change, pendingChange);
         }
       }
     }
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.protocol;
 
@@ -20,12 +20,16 @@ import static org.opends.server.util.StaticUtils.*;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +37,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 
 import javax.net.ssl.SSLSocket;
 
@@ -48,6 +55,21 @@ public final class Session extends DirectoryThread implements Closeable
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /**
+   * The maximum number of bytes of queued messages written to the socket
+   * before flushing it.
+   */
+  private static final int MAX_BATCH_SIZE = 64 * 1024;
+  /** Smaller batches are not worth compressing. */
+  private static final int MIN_COMPRESSED_BATCH_SIZE = 512;
+  /** Larger batches, typically holding huge entries, are not compressed. */
+  private static final int MAX_COMPRESSED_BATCH_SIZE = 16 * 1024 * 1024;
+  /**
+   * The first character of the header of a compressed frame. It cannot be
+   * mistaken for the hexadecimal length of a message.
+   */
+  private static final byte COMPRESSED_FRAME_MARKER = 'z';
+
   private final Socket plainSocket;
   private final SSLSocket secureSocket;
   private final InputStream plainInput;
@@ -97,6 +119,27 @@ public final class Session extends DirectoryThread implements Closeable
   private BufferedOutputStream output;
 
   private final LinkedBlockingQueue<byte[]> sendQueue = new LinkedBlockingQueue<>(4000);
+
+  /**
+   * Whether batches of messages sent to peers supporting
+   * {@link ProtocolVersion#REPLICATION_PROTOCOL_V9} should be compressed.
+   */
+  private volatile boolean compressionEnabled;
+  /**
+   * Compression state shared by all the frames sent on this session, guarded
+   * by publishLock. Lazily created.
+   */
+  private Deflater deflater;
+  private DeflaterOutputStream deflaterOutput;
+  private final ByteArrayOutputStream compressedFrame = new ByteArrayOutputStream();
+  /**
+   * Decompression state shared by all the frames received on this session,
+   * only used by the receiving thread. Lazily created.
+   */
+  private Inflater inflater;
+  /** Messages decompressed from the last compressed frame but not yet received. */
+  private byte[] inflatedFrames;
+  private int inflatedFramesPosition;
   private AtomicBoolean isRunning = new AtomicBoolean(false);
   private final CountDownLatch latch = new CountDownLatch(1);
 
@@ -201,6 +244,23 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     StaticUtils.close(plainSocket, secureSocket);
+
+    publishLock.lock();
+    try
+    {
+      if (deflater != null)
+      {
+        deflater.end();
+        deflater = null;
+        deflaterOutput = null;
+      }
+    }
+    finally
+    {
+      publishLock.unlock();
+    }
+    // The inflater may still be used by the receiving thread: let the garbage
+    // collector release it.
   }
 
 
@@ -297,6 +357,21 @@ public final class Session extends DirectoryThread implements Closeable
 
 
 
+  /**
+   * Specifies whether batches of messages sent to the remote peer should be
+   * compressed. Compression is only used if the remote peer supports
+   * {@link ProtocolVersion#REPLICATION_PROTOCOL_V9}.
+   *
+   * @param compressionEnabled
+   *          Whether batches of messages should be compressed.
+   */
+  public void setCompressionEnabled(final boolean compressionEnabled)
+  {
+    this.compressionEnabled = compressionEnabled;
+  }
+
+
+
   /**
    * Sends a replication message to the remote peer.
    *
@@ -346,18 +421,39 @@ public final class Session extends DirectoryThread implements Closeable
    */
   private void send(final byte[] buffer) throws IOException
   {
-    final String str = String.format("%08x", buffer.length);
-    final byte[] sendLengthBuf = str.getBytes();
+    send(Arrays.asList(buffer), buffer.length);
+  }
 
+  /**
+   * Sends a batch of replication messages already encoded to the socket,
+   * flushing it only once.
+   *
+   * @param buffers
+   *          the encoded buffers
+   * @param batchSize
+   *          the total number of bytes of the encoded buffers
+   * @throws IOException if the messages could not be sent
+   */
+  private void send(final List<byte[]> buffers, final int batchSize) throws IOException
+  {
     publishLock.lock();
     try
     {
-      /*
-       * The buffered output stream ensures that the message is usually sent as
-       * a single TCP packet.
-       */
-      output.write(sendLengthBuf);
-      output.write(buffer);
+      if (isCompressionUsed(batchSize))
+      {
+        writeCompressedFrame(buffers);
+      }
+      else
+      {
+        for (byte[] buffer : buffers)
+        {
+          /*
+           * The buffered output stream ensures that the message is usually sent
+           * as a single TCP packet.
+           */
+          writeFrame(output, buffer);
+        }
+      }
       output.flush();
     } catch (final IOException e) {
       setSessionError(e);
@@ -371,6 +467,46 @@ public final class Session extends DirectoryThread implements Closeable
     lastPublishTime = System.currentTimeMillis();
   }
 
+  private boolean isCompressionUsed(final int batchSize)
+  {
+    return compressionEnabled
+        && protocolVersion >= ProtocolVersion.REPLICATION_PROTOCOL_V9
+        && MIN_COMPRESSED_BATCH_SIZE <= batchSize
+        && batchSize <= MAX_COMPRESSED_BATCH_SIZE
+        && !closeInitiated;
+  }
+
+  private static void writeFrame(final OutputStream out, final byte[] buffer) throws IOException
+  {
+    out.write(String.format("%08x", buffer.length).getBytes());
+    out.write(buffer);
+  }
+
+  /**
+   * Writes the provided messages as a single compressed frame made of the
+   * marker, the length of the compressed data as 7 hexadecimal digits and the
+   * compressed frames of the messages. The compression dictionary is kept
+   * from one frame to the next.
+   */
+  private void writeCompressedFrame(final List<byte[]> buffers) throws IOException
+  {
+    if (deflater == null)
+    {
+      deflater = new Deflater(Deflater.BEST_SPEED);
+      deflaterOutput = new DeflaterOutputStream(compressedFrame, deflater, 8192, true);
+    }
+    compressedFrame.reset();
+    for (byte[] buffer : buffers)
+    {
+      writeFrame(deflaterOutput, buffer);
+    }
+    deflaterOutput.flush();
+
+    output.write(COMPRESSED_FRAME_MARKER);
+    output.write(String.format("%07x", compressedFrame.size()).getBytes());
+    compressedFrame.writeTo(output);
+  }
+
 
 
   /**
@@ -399,8 +535,18 @@ public final class Session extends DirectoryThread implements Closeable
        */
       lastReceiveTime = System.currentTimeMillis();
 
+      if (inflatedFrames != null)
+      {
+        return nextInflatedMsg();
+      }
+
       // Read the first 8 bytes containing the packet length.
       read(rcvLengthBuf);
+      if (rcvLengthBuf[0] == COMPRESSED_FRAME_MARKER)
+      {
+        inflateFrame(Integer.parseInt(new String(rcvLengthBuf, 1, 7), 16));
+        return nextInflatedMsg();
+      }
       final int totalLength = Integer.parseInt(new String(rcvLengthBuf), 16);
 
       try
@@ -428,6 +574,71 @@ public final class Session extends DirectoryThread implements Closeable
     }
   }
 
+  private void inflateFrame(final int compressedLength) throws IOException, DataFormatException
+  {
+    final byte[] compressed = new byte[compressedLength];
+    read(compressed);
+    if (inflater == null)
+    {
+      inflater = new Inflater();
+    }
+    inflater.setInput(compressed);
+
+    final ByteArrayOutputStream inflated = new ByteArrayOutputStream(Math.min(compressedLength, MAX_BATCH_SIZE) * 4);
+    final byte[] chunk = new byte[8192];
+    while (true)
+    {
+      final int length = inflater.inflate(chunk);
+      if (length > 0)
+      {
+        inflated.write(chunk, 0, length);
+      }
+      else if (inflater.needsInput())
+      {
+        break;
+      }
+      else if (inflater.finished() || inflater.needsDictionary())
+      {
+        throw new DataFormatException("Unexpected end of compressed replication data");
+      }
+    }
+    inflatedFrames = inflated.toByteArray();
+    inflatedFramesPosition = 0;
+  }
+
+  private ReplicationMsg nextInflatedMsg()
+      throws DataFormatException, NotSupportedOldVersionPDUException
+  {
+    final byte[] frames = inflatedFrames;
+    int pos = inflatedFramesPosition;
+    if (frames.length - pos < 8)
+    {
+      inflatedFrames = null;
+      throw new DataFormatException("Truncated compressed replication data");
+    }
+    final int length = Integer.parseInt(new String(frames, pos, 8), 16);
+    pos += 8;
+    if (length < 0 || frames.length - pos < length)
+    {
+      inflatedFrames = null;
+      throw new DataFormatException("Truncated compressed replication data");
+    }
+    final byte[] buffer = Arrays.copyOfRange(frames, pos, pos + length);
+    pos += length;
+    if (pos == frames.length)
+    {
+      inflatedFrames = null;
+    }
+    inflatedFramesPosition = pos;
+
+    /*
+     * We do not want the heartbeat to close the session when we are
+     * processing a message even a time consuming one.
+     */
+    lastReceiveTime = 0;
+    return ReplicationMsg.generateMsg(buffer, protocolVersion);
+  }
+
   private void read(byte[] buffer) throws IOException
   {
     final int totalLength = buffer.length;
@@ -533,20 +744,32 @@ public final class Session extends DirectoryThread implements Closeable
       logger.trace(getName() + " starting.");
     }
     boolean needClosing = false;
+    final List<byte[]> batch = new ArrayList<>();
     while (!closeInitiated)
     {
-      byte[] buffer;
+      batch.clear();
+      int batchSize;
       try
       {
-        buffer = sendQueue.take();
+        final byte[] buffer = sendQueue.take();
+        batch.add(buffer);
+        batchSize = buffer.length;
       }
       catch (InterruptedException ie)
       {
         break;
       }
+      // Send along the messages queued in the meantime, but never wait for
+      // more messages so that heartbeats and acks are not delayed.
+      byte[] buffer;
+      while (batchSize < MAX_BATCH_SIZE && (buffer = sendQueue.poll()) != null)
+      {
+        batch.add(buffer);
+        batchSize += buffer.length;
+      }
       try
       {
-        send(buffer);
+        send(batch, batchSize);
       }
       catch (IOException e)
       {
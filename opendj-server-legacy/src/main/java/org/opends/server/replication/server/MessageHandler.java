@@ -12,12 +12,15 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server;
 
 import static org.opends.messages.ReplicationMessages.*;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -32,6 +35,7 @@ import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateRingBuffer.PublishedUpdate;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.types.DirectoryException;
@@ -45,26 +49,37 @@ import org.opends.server.types.InitializationException;
  * current RS.
  *
  * MessageHandlers are registered into Replication server domains.
- * When an update message is received by a domain, the domain forwards
- * the message to the registered message handlers.
- * LocalizableMessage are buffered into a queue.
- * Consumers are expected to come and consume the UpdateMsg from the queue.
+ * When an update message is received by a domain, the domain publishes
+ * the message once in its {@link UpdateRingBuffer}, shared by all the
+ * message handlers of the domain. Each message handler reads the ring
+ * from its own position, and falls back to reading the changelog when it
+ * is too late for the ring to still contain the updates it must send.
  */
 class MessageHandler extends MonitorProvider<MonitorProviderCfg>
 {
   /** The logger of this class. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
-  private static final int MINIMUM_TRESHOLD_MSG_QUEUE_SIZE = 5;
+  /** Maximum time to wait for a new update in the ring before checking whether the consumer is still active. */
+  private static final long WAIT_FOR_UPDATE_MILLIS = 500;
 
-  /** UpdateMsg queue. */
-  private final MsgQueue msgQueue = new MsgQueue();
   /**
-   * Late queue. All access to the lateQueue in getNextMessage() is
-   * single-threaded. However, reads from threads calling getOlderUpdateCN()
-   * need protecting against removals performed using getNextMessage().
+   * Late queue, filled from the changelog when this server is too late to follow the ring.
+   * All access to the lateQueue in getNextMessage() is single-threaded. However, reads
+   * from threads calling getOlderUpdateCSN() need protecting against removals performed
+   * using getNextMessage(), which is ensured by the queue itself.
    */
   private final MsgQueue lateQueue = new MsgQueue();
+  /**
+   * Sequence number in the ring of the domain of the next update to read when this server is following.
+   * Only modified by the thread calling getNextMessage().
+   */
+  private volatile long nextSequence;
+  /**
+   * Sequence number of the next update in the ring of the domain when the late queue was last filled,
+   * if the late queue then contained all the updates that were missing from this server, or -1 otherwise.
+   */
+  private long sequenceAfterLateQueue = -1;
   /** Local hosting RS. */
   protected final ReplicationServer replicationServer;
   /** Specifies the related replication server domain based on baseDN. */
@@ -75,10 +90,8 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   private int inCount;
   /** Specifies the max queue size for this handler. */
   protected final int maxQueueSize;
-  /** Specifies the max queue size in bytes for this handler. */
-  private final int maxQueueBytesSize;
   /** Specifies whether the consumer is following the producer (is not late). */
-  private boolean following;
+  private volatile boolean following;
   /** Specifies the current serverState of this handler. */
   private ServerState serverState;
   /** Specifies the baseDN of the domain. */
@@ -101,54 +114,9 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   MessageHandler(int queueSize, ReplicationServer replicationServer)
   {
     this.maxQueueSize = queueSize;
-    this.maxQueueBytesSize = queueSize * 100;
     this.replicationServer = replicationServer;
   }
 
-  /**
-   * Add an update to the list of updates that must be sent to the server
-   * managed by this Handler.
-   *
-   * @param update The update that must be added to the list of updates of
-   * this handler.
-   */
-  void add(UpdateMsg update)
-  {
-    synchronized (msgQueue)
-    {
-      /*
-       * If queue was empty the writer thread was probably asleep
-       * waiting for some changes, wake it up
-       */
-      if (msgQueue.isEmpty())
-      {
-        msgQueue.notify();
-      }
-
-      msgQueue.add(update);
-
-      // TODO : size should be configurable and larger than max-receive-queue-size
-      while (isMsgQueueAboveThreshold())
-      {
-        following = false;
-        msgQueue.removeFirst();
-      }
-    }
-  }
-
-  private boolean isMsgQueueAboveThreshold()
-  {
-    final long count = msgQueue.count();
-    // ensure there is a minimum number of messages in queue to avoid wrong behavior
-    return count > maxQueueSize
-        || (count >= MINIMUM_TRESHOLD_MSG_QUEUE_SIZE && msgQueue.bytesCount() > maxQueueBytesSize);
-  }
-
-  private boolean isMsgQueueBelowThreshold()
-  {
-    return !isMsgQueueAboveThreshold();
-  }
-
   /**
    * Set the shut down flag to true and returns the previous value of the flag.
    * @return The previous value of the shut down flag
@@ -200,8 +168,17 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   {
     MonitorData attributes = new MonitorData(4);
     attributes.add("handler", getMonitorInstanceName());
-    attributes.add("queue-size", msgQueue.count());
-    attributes.add("queue-size-bytes", msgQueue.bytesCount());
+    if (following)
+    {
+      final UpdateRingBuffer updates = replicationServerDomain.getUpdates();
+      attributes.add("queue-size", Math.max(0, updates.getNextSequence() - nextSequence));
+      attributes.add("queue-size-bytes", updates.getBytesFrom(nextSequence));
+    }
+    else
+    {
+      attributes.add("queue-size", lateQueue.count());
+      attributes.add("queue-size-bytes", lateQueue.bytesCount());
+    }
     attributes.add("following", following);
     return attributes;
   }
@@ -227,150 +204,144 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   protected UpdateMsg getNextMessage() throws ChangelogException
   {
+    final UpdateRingBuffer updates = replicationServerDomain.getUpdates();
     while (activeConsumer)
     {
       if (!following)
       {
         /* this server is late with regard to some other masters
          * in the topology or just joined the topology.
-         * In such cases, we can't keep all changes in the queue
-         * without saturating the memory, we therefore use
+         * In such cases, the updates it needs may no longer be in the ring
+         * shared by all the servers of the domain, we therefore use
          * a lateQueue that is filled with a few changes from the changelogDB
-         * If this server is able to close the gap, it will start using again
-         * the regular msgQueue later.
+         * If this server is able to close the gap, it will start reading again
+         * the ring of the domain later.
          */
         if (lateQueue.isEmpty())
         {
-          /*
-           * Start from the server State
-           * Loop until the queue high mark or until no more changes
-           *   for each known LDAP master
-           *      get the next CSN after this last one :
-           *         - try to get next from the file
-           *         - if not found in the file
-           *             - try to get the next from the queue
-           *   select the smallest of changes
-           *   check if it is in the memory tree
-           *     yes : lock memory tree.
-           *           check all changes from the list, remove the ones that
-           *           are already sent
-           *           unlock memory tree
-           *           restart as usual
-           *   load this change on the delayList
-           */
-          fillLateQueue();
+          // Updates are published in the changelog before being published in the ring:
+          // all the updates published in the ring before this point will be read from the changelog.
+          final long sequenceBeforeFill = updates.getNextSequence();
+          final Map<Integer, CSN> firstLateCSNs = new HashMap<>();
+          final boolean isLateQueueComplete = fillLateQueue(firstLateCSNs);
+          sequenceAfterLateQueue = isLateQueueComplete ? sequenceBeforeFill : -1;
           if (lateQueue.isEmpty())
           {
             // we could not find any messages in the changelog
             // so the remote server is not late anymore.
-            synchronized (msgQueue)
-            {
-              // Ensure we are below threshold so this server will follow the
-              // msgQueue without fearing the msgQueue gets trimmed
-              if (isMsgQueueBelowThreshold())
-              {
-                following = true;
-              }
-            }
+            followFrom(sequenceBeforeFill);
           }
-          else
+          else if (isLateQueueComplete)
           {
             /*
-             * if the first change in the lateQueue is also on the regular queue,
-             * we can resume the processing from the regular queue
+             * The ring is in arrival order, not in CSN order, but the updates
+             * of each replica arrive in CSN order: if the first missing update
+             * of each replica is still in the ring, all the missing updates are
+             * in the ring from the first of them, and the updates already sent
+             * in between will be skipped by updateServerState().
              * -> set following to true and empty the lateQueue.
              */
-            UpdateMsg msg = lateQueue.first();
-            synchronized (msgQueue)
+            final long sequence = updates.findFirstSequence(new HashSet<>(firstLateCSNs.values()));
+            if (sequence != -1)
             {
-              if (msgQueue.contains(msg))
-              {
-                /* we finally catch up with the regular queue */
-                following = true;
-                lateQueue.clear();
-                msgQueue.consumeUpTo(msg);
-                if (updateServerState(msg))
-                {
-                  return msg;
-                }
-              }
+              /* we finally catch up with the ring */
+              lateQueue.clear();
+              // updates may have reached the changelog before the ring
+              followFrom(Math.min(sequence, sequenceBeforeFill));
             }
           }
         }
         else
         {
           // get the next change from the lateQueue
-          UpdateMsg msg;
-          synchronized (msgQueue) // TODO JNR why synchronize(msgQueue) here?
+          final UpdateMsg msg = lateQueue.removeFirst();
+          // Once all the missing updates have been read from the changelog,
+          // the next ones are in the ring. This also avoids the weird case where messages
+          // not representing an operation may make the late queue repeatedly fill and be emptied
+          // without ever getting the server out of state "not following".
+          if (lateQueue.isEmpty() && sequenceAfterLateQueue != -1)
           {
-            msg = lateQueue.removeFirst();
-            // By default a server is always not following. A weird case where messages not representing
-            // an operation may happen, making the late queue repeatedly fill and be emptied without ever
-            // getting the server out of state "not following".
-            if (lateQueue.isEmpty() && msgQueue.isEmpty())
-            {
-              following = true;
-            }
+            followFrom(sequenceAfterLateQueue);
           }
           if (updateServerState(msg))
           {
             return msg;
           }
-          continue;
         }
+        continue;
       }
 
-      synchronized (msgQueue)
+      final PublishedUpdate published;
+      try
       {
-        if (following)
-        {
-          try
-          {
-            while (msgQueue.isEmpty() && following)
-            {
-              msgQueue.wait(500);
-              if (!activeConsumer)
-              {
-                return null;
-              }
-            }
-          } catch (InterruptedException e)
-          {
-            return null;
-          }
-          UpdateMsg msg = msgQueue.removeFirst();
-          if (updateServerState(msg))
-          {
-            /*
-             * Only push the message if it has not yet been seen
-             * by the other server.
-             * Otherwise just loop to select the next message.
-             */
-            return msg;
-          }
-        }
+        published = updates.await(nextSequence, WAIT_FOR_UPDATE_MILLIS);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      if (published == null)
+      {
+        // no new update yet
+        continue;
+      }
+      if (published == UpdateRingBuffer.OVERWRITTEN)
+      {
+        // this server could not keep up: read the missing updates from the changelog
+        following = false;
+        continue;
+      }
+      nextSequence = published.getSequence() + 1;
+      final UpdateMsg msg = replicationServerDomain.getUpdateToSend(published, this);
+      if (msg != null && updateServerState(msg))
+      {
+        /*
+         * Only push the message if it has not yet been seen
+         * by the other server.
+         * Otherwise just loop to select the next message.
+         */
+        return msg;
       }
-      /*
-       * Need to loop because following flag may have gone to false between the
-       * first check at the beginning of this method and the second check just
-       * above.
-       */
     }
     return null;
   }
 
+  private void followFrom(long sequence)
+  {
+    nextSequence = sequence;
+    sequenceAfterLateQueue = -1;
+    following = true;
+  }
+
   /**
    * Fills the late queue with the most recent changes, accepting only the
    * messages from provided replica ids.
+   *
+   * @param firstCSNs
+   *          Filled with the CSN of the first change of each replica added to the late queue
+   * @return {@code true} if the late queue contains all the changes which are
+   *         missing from this server, {@code false} if it could not hold them all
    */
-  private void fillLateQueue() throws ChangelogException
+  private boolean fillLateQueue(Map<Integer, CSN> firstCSNs) throws ChangelogException
   {
     try (DBCursor<UpdateMsg> cursor = replicationServerDomain.getCursorFrom(serverState);)
     {
-      while (cursor.next() && isLateQueueBelowThreshold())
+      while (cursor.next())
       {
-        lateQueue.add(cursor.getRecord());
+        if (!isLateQueueBelowThreshold())
+        {
+          return false;
+        }
+        final UpdateMsg record = cursor.getRecord();
+        final CSN csn = record.getCSN();
+        if (!firstCSNs.containsKey(csn.getServerId()))
+        {
+          firstCSNs.put(csn.getServerId(), csn);
+        }
+        lateQueue.add(record);
       }
+      return true;
     }
   }
 
@@ -386,35 +357,34 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public CSN getOlderUpdateCSN()
   {
-    synchronized (msgQueue)
+    if (following)
     {
-      if (following)
+      final PublishedUpdate published = replicationServerDomain.getUpdates().get(nextSequence);
+      if (published == null)
       {
-        if (!msgQueue.isEmpty())
-        {
-          return msgQueue.first().getCSN();
-        }
+        return null;
       }
-      else
+      else if (published != UpdateRingBuffer.OVERWRITTEN)
       {
-        if (!lateQueue.isEmpty())
-        {
-          return lateQueue.first().getCSN();
-        }
-        else
-        {
-          /*
-          following is false AND lateQueue is empty
-          We may be at the very moment when the writer has emptied the
-          lateQueue when it sent the last update. The writer will fill again
-          the lateQueue when it will send the next update but we are not yet
-          there. So let's take the last change not sent directly from the db.
-          */
-          return findOldestCSNFromReplicaDBs();
-        }
+        return published.getUpdate().getCSN();
       }
+      // the writer will soon notice it is late, take the last change not sent from the db.
+      return findOldestCSNFromReplicaDBs();
     }
-    return null;
+
+    final UpdateMsg first = lateQueue.isEmpty() ? null : lateQueue.first();
+    if (first != null)
+    {
+      return first.getCSN();
+    }
+    /*
+    following is false AND lateQueue is empty
+    We may be at the very moment when the writer has emptied the
+    lateQueue when it sent the last update. The writer will fill again
+    the lateQueue when it will send the next update but we are not yet
+    there. So let's take the last change not sent directly from the db.
+    */
+    return findOldestCSNFromReplicaDBs();
   }
 
   private CSN findOldestCSNFromReplicaDBs()
@@ -452,27 +422,29 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public int getRcvMsgQueueSize()
   {
-    synchronized (msgQueue)
+    /*
+     * When the server is up to date or close to be up to date,
+     * the number of updates to be sent is the number of updates
+     * it has not read yet from the ring.
+     */
+    if (following)
     {
-      /*
-       * When the server is up to date or close to be up to date,
-       * the number of updates to be sent is the size of the receive queue.
-       */
-      if (following)
+      final long pending = replicationServerDomain.getUpdates().getNextSequence() - nextSequence;
+      if (pending <= maxQueueSize)
       {
-        return msgQueue.count();
+        return (int) Math.max(0, pending);
       }
-
-      /*
-       * When the server is not able to follow, the msgQueue may become too
-       * large and therefore won't contain all the changes. Some changes may
-       * only be stored in the backing DB of the servers.
-       * The total size of the receive queue is calculated by doing the sum of
-       * the number of missing changes for every replicaDB.
-       */
-      ServerState latestState = replicationServerDomain.getLatestServerState();
-      return ServerState.diffChanges(latestState, serverState);
     }
+
+    /*
+     * When the server is not able to follow, the ring won't contain
+     * all the changes. Some changes may only be stored in the backing
+     * DB of the servers.
+     * The total size of the receive queue is calculated by doing the sum of
+     * the number of missing changes for every replicaDB.
+     */
+    ServerState latestState = replicationServerDomain.getLatestServerState();
+    return ServerState.diffChanges(latestState, serverState);
   }
 
   /**
@@ -571,11 +543,10 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Shutdown this handler. */
   public void shutdown()
   {
-    synchronized (msgQueue)
+    if (replicationServerDomain != null)
     {
-      msgQueue.clear();
-      msgQueue.notify();
-      msgQueue.notifyAll();
+      // wake up the writer if it is waiting for an update
+      replicationServerDomain.getUpdates().wakeUpConsumers();
     }
 
     DirectoryServer.deregisterMonitorProvider(this);
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server;
 
@@ -1056,6 +1056,17 @@ public class ReplicationServer
     return getReplicationServerDomains().iterator();
   }
 
+  /**
+   * Get the maximum number of updates kept in memory for each domain before
+   * late servers must read them from the changelog.
+   *
+   * @return The queue size.
+   */
+  public int getQueueSize()
+  {
+    return this.config.getQueueSize();
+  }
+
   /**
    * Get the assured mode timeout.
    * <p>
@@ -1104,6 +1115,17 @@ public class ReplicationServer
     return this.config.getMonitoringPeriod();
   }
 
+  /**
+   * Indicates whether batches of messages sent by this replication server to
+   * its peers should be compressed.
+   *
+   * @return whether batches of messages sent to peers should be compressed.
+   */
+  public boolean isCompressionEnabled()
+  {
+    return this.config.isCompressionEnabled();
+  }
+
   /**
    * Compute the list of replication servers that are not any more connected to
    * this Replication Server and stop the corresponding handlers.
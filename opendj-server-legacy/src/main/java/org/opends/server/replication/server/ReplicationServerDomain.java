@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server;
 
@@ -128,6 +128,9 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   /** The ReplicationServer that created the current instance. */
   private final ReplicationServer localReplicationServer;
 
+  /** The most recent updates received by this domain, shared by all the handlers forwarding them. */
+  private final UpdateRingBuffer updates;
+
   /**
    * The generationId of the current replication domain. The generationId is
    * computed by hashing the first 1000 entries in the DB.
@@ -276,6 +279,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   {
     this.baseDN = baseDN;
     this.localReplicationServer = localReplicationServer;
+    this.updates = new UpdateRingBuffer(Math.max(localReplicationServer.getQueueSize(), 1));
     this.assuredTimeoutTimer = new Timer("Replication server RS("
         + localReplicationServer.getServerId()
         + ") assured timer for domain \"" + baseDN + "\"", true);
@@ -344,32 +348,61 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     final NotAssuredUpdateMsg notAssuredUpdateMsg =
         preparedAssuredInfo != null ? new NotAssuredUpdateMsg(updateMsg) : null;
 
-    // Push the message to the replication servers
-    if (sourceHandler.isDataServer())
+    // Publish the message once for all the replication servers and LDAP servers,
+    // each handler selects the messages it must forward with getUpdateToSend()
+    updates.publish(updateMsg, notAssuredUpdateMsg, assuredServers, sourceHandler, sourceHandler.isDataServer());
+  }
+
+  /**
+   * Returns the most recent updates received by this domain, which are read by
+   * the handlers forwarding them to the other servers.
+   *
+   * @return the most recent updates received by this domain
+   */
+  UpdateRingBuffer getUpdates()
+  {
+    return updates;
+  }
+
+  /**
+   * Returns the update that must be sent to the server managed by the provided handler
+   * for the provided published update.
+   *
+   * @param published
+   *          The update published by this domain
+   * @param handler
+   *          The handler of the server to which the update may be sent
+   * @return the update to send, which may be a not assured version of the published update,
+   *         or {@code null} if the update must not be sent to this server
+   */
+  UpdateMsg getUpdateToSend(UpdateRingBuffer.PublishedUpdate published, MessageHandler handler)
+  {
+    final UpdateMsg updateMsg = published.getUpdate();
+    if (handler instanceof ReplicationServerHandler)
     {
-      for (ReplicationServerHandler rsHandler : connectedRSs.values())
+      final ReplicationServerHandler rsHandler = (ReplicationServerHandler) handler;
+      /**
+       * Only updates received from LDAP servers are pushed to the replication servers.
+       * Ignore updates to RS with bad gen id
+       * (no system managed status for a RS)
+       */
+      if (!published.isFromDataServer() || isDifferentGenerationId(rsHandler, updateMsg))
       {
-        /**
-         * Ignore updates to RS with bad gen id
-         * (no system managed status for a RS)
-         */
-        if (!isDifferentGenerationId(rsHandler, updateMsg))
-        {
-          addUpdate(rsHandler, updateMsg, notAssuredUpdateMsg, assuredServers);
-        }
+        return null;
       }
+      return published.getUpdateFor(rsHandler.getServerId());
     }
-
-    // Push the message to the LDAP servers
-    for (DataServerHandler dsHandler : connectedDSs.values())
+    else if (handler instanceof DataServerHandler)
     {
+      final DataServerHandler dsHandler = (DataServerHandler) handler;
       // Do not forward the change to the server that just sent it
-      if (dsHandler != sourceHandler
-          && !isUpdateMsgFiltered(updateMsg, dsHandler))
+      if (dsHandler == published.getSource() || isUpdateMsgFiltered(updateMsg, dsHandler))
       {
-        addUpdate(dsHandler, updateMsg, notAssuredUpdateMsg, assuredServers);
+        return null;
       }
+      return published.getUpdateFor(dsHandler.getServerId());
     }
+    return updateMsg;
   }
 
   private boolean isDifferentGenerationId(ReplicationServerHandler rsHandler,
@@ -534,22 +567,6 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
-  private void addUpdate(ServerHandler sHandler, UpdateMsg updateMsg,
-      NotAssuredUpdateMsg notAssuredUpdateMsg, List<Integer> assuredServers)
-  {
-    // Assured mode: post an assured or not assured matching update message
-    // according to what has been computed for the destination server
-    if (notAssuredUpdateMsg != null
-        && !assuredServers.contains(sHandler.getServerId()))
-    {
-      sHandler.add(notAssuredUpdateMsg);
-    }
-    else
-    {
-      sHandler.add(updateMsg);
-    }
-  }
-
   /**
    * Helper class to be the return type of a method that processes a just
    * received assured update message:
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server;
 
@@ -20,7 +20,6 @@ import static org.opends.messages.ReplicationMessages.*;
 
 import java.io.IOException;
 import java.util.Random;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -31,6 +30,7 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.opends.server.api.MonitorData;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.replication.common.AdaptiveSendWindow;
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.RSInfo;
@@ -137,8 +137,8 @@ public abstract class ServerHandler extends MessageHandler
 
   /** The size of the receiving window. */
   protected final int maxRcvWindow;
-  /** Semaphore that the writer uses to control the flow to the remote server. */
-  private Semaphore sendWindow;
+  /** Window that the writer uses to control the flow to the remote server. */
+  private AdaptiveSendWindow sendWindow;
   /** The initial size of the sending window. */
   private int sendWindowSize;
   /** Remote generation id. */
@@ -286,12 +286,14 @@ public abstract class ServerHandler extends MessageHandler
       }
 
       // sendWindow MUST be created before starting the writer
-      sendWindow = new Semaphore(sendWindowSize);
+      sendWindow = new AdaptiveSendWindow(sendWindowSize);
 
       writer = new ServerWriter(session, this, replicationServerDomain,
           replicationServer.getDSRSShutdownSync());
       reader = new ServerReader(session, this);
 
+      // The protocol version has been negotiated during the handshake.
+      session.setCompressionEnabled(replicationServer.isCompressionEnabled());
       session.setName("Replication server RS(" + getReplicationServerId()
           + ") session thread to " + this + " at "
           + session.getReadableRemoteAddress());
@@ -517,6 +519,9 @@ public abstract class ServerHandler extends MessageHandler
     // Window stats
     attributes.add("max-send-window", sendWindowSize);
     attributes.add("current-send-window", sendWindow.availablePermits());
+    attributes.add("effective-send-window", sendWindow.getEffectiveWindow());
+    attributes.add("estimated-send-bandwidth", sendWindow.getEstimatedBandwidth());
+    attributes.add("send-round-trip-time", sendWindow.getRoundTripTime());
     attributes.add("max-rcv-window", maxRcvWindow);
     attributes.add("current-rcv-window", rcvWindow);
 
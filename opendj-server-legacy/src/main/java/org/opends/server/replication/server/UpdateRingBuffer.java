@@ -0,0 +1,299 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.server;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.util.Reject;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.UpdateMsg;
+
+/**
+ * A bounded ring of the most recent updates received by a replication server domain,
+ * shared by all the handlers of the domain which forward these updates to other servers.
+ * <p>
+ * Each update is published once in the ring and is assigned an increasing sequence number.
+ * Each consumer keeps track of the sequence number of the next update it must read. When
+ * a consumer falls behind by more than the capacity of the ring, the updates it has not
+ * read yet are overwritten and it must read them from the changelog instead.
+ * <p>
+ * This way the memory used to forward updates is bounded by the capacity of the ring,
+ * whatever the number of servers connected to the domain.
+ */
+@ThreadSafe
+final class UpdateRingBuffer
+{
+  /** An update published in the ring, with the information needed to decide who it must be sent to. */
+  static final class PublishedUpdate
+  {
+    private final long sequence;
+    private final UpdateMsg update;
+    private final NotAssuredUpdateMsg notAssuredUpdate;
+    private final List<Integer> assuredServers;
+    private final MessageHandler source;
+    private final boolean isFromDataServer;
+    /** Total number of bytes published in the ring up to and including this update. */
+    private final long endOffset;
+
+    private PublishedUpdate(long sequence, UpdateMsg update, NotAssuredUpdateMsg notAssuredUpdate,
+        List<Integer> assuredServers, MessageHandler source, boolean isFromDataServer, long endOffset)
+    {
+      this.sequence = sequence;
+      this.update = update;
+      this.notAssuredUpdate = notAssuredUpdate;
+      this.assuredServers = assuredServers;
+      this.source = source;
+      this.isFromDataServer = isFromDataServer;
+      this.endOffset = endOffset;
+    }
+
+    /**
+     * Returns the sequence number of this update in the ring.
+     *
+     * @return the sequence number of this update
+     */
+    long getSequence()
+    {
+      return sequence;
+    }
+
+    /**
+     * Returns the published update.
+     *
+     * @return the published update
+     */
+    UpdateMsg getUpdate()
+    {
+      return update;
+    }
+
+    /**
+     * Returns the handler of the server which sent this update.
+     *
+     * @return the handler of the server which sent this update
+     */
+    MessageHandler getSource()
+    {
+      return source;
+    }
+
+    /**
+     * Returns whether this update was received from a directory server.
+     *
+     * @return {@code true} if this update was received from a directory server
+     */
+    boolean isFromDataServer()
+    {
+      return isFromDataServer;
+    }
+
+    /**
+     * Returns the version of this update that must be sent to the provided server: servers which
+     * are not expected to acknowledge an assured update receive a not assured version of it.
+     *
+     * @param serverId
+     *          The id of the server to send the update to
+     * @return the version of the update to send to the provided server
+     */
+    UpdateMsg getUpdateFor(int serverId)
+    {
+      if (notAssuredUpdate != null && !assuredServers.contains(serverId))
+      {
+        return notAssuredUpdate;
+      }
+      return update;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "PublishedUpdate(sequence=" + sequence + ", csn=" + update.getCSN() + ")";
+    }
+  }
+
+  /** Returned to consumers whose next update has already been overwritten. */
+  static final PublishedUpdate OVERWRITTEN =
+      new PublishedUpdate(-1, null, null, Collections.<Integer> emptyList(), null, false, 0);
+
+  private final PublishedUpdate[] ring;
+
+  /** Sequence number of the next update to be published. Guarded by this. */
+  private long nextSequence;
+
+  /** Total number of bytes published so far. Guarded by this. */
+  private long publishedBytes;
+
+  /**
+   * Creates a new empty ring.
+   *
+   * @param capacity
+   *          The maximum number of updates kept in the ring.
+   */
+  UpdateRingBuffer(int capacity)
+  {
+    Reject.ifFalse(capacity > 0, "The capacity must be strictly positive");
+    this.ring = new PublishedUpdate[capacity];
+  }
+
+  /**
+   * Publishes an update in the ring, overwriting the oldest update if the ring is full, and wakes up
+   * the consumers waiting for it.
+   *
+   * @param update
+   *          The update to publish
+   * @param notAssuredUpdate
+   *          The not assured version of the update, or {@code null} if the update is not assured
+   * @param assuredServers
+   *          The ids of the servers expected to acknowledge the assured update
+   * @param source
+   *          The handler of the server which sent the update
+   * @param isFromDataServer
+   *          Whether the update was received from a directory server
+   * @return the sequence number of the update
+   */
+  synchronized long publish(UpdateMsg update, NotAssuredUpdateMsg notAssuredUpdate, List<Integer> assuredServers,
+      MessageHandler source, boolean isFromDataServer)
+  {
+    final long sequence = nextSequence++;
+    publishedBytes += update.size();
+    ring[indexOf(sequence)] = new PublishedUpdate(
+        sequence, update, notAssuredUpdate, assuredServers, source, isFromDataServer, publishedBytes);
+    notifyAll();
+    return sequence;
+  }
+
+  /**
+   * Returns the update with the provided sequence number, waiting for it to be published if necessary.
+   *
+   * @param sequence
+   *          The sequence number of the update to read
+   * @param timeoutMillis
+   *          The maximum time to wait for the update to be published
+   * @return the update, {@link #OVERWRITTEN} if it has already been overwritten, or {@code null} if it has
+   *         not been published before the timeout expired
+   * @throws InterruptedException
+   *           If the current thread is interrupted while waiting
+   */
+  synchronized PublishedUpdate await(long sequence, long timeoutMillis) throws InterruptedException
+  {
+    if (sequence >= nextSequence)
+    {
+      wait(timeoutMillis);
+    }
+    return get(sequence);
+  }
+
+  /**
+   * Returns the update with the provided sequence number, without waiting.
+   *
+   * @param sequence
+   *          The sequence number of the update to read
+   * @return the update, {@link #OVERWRITTEN} if it has already been overwritten, or {@code null} if it has
+   *         not been published yet
+   */
+  synchronized PublishedUpdate get(long sequence)
+  {
+    if (sequence >= nextSequence)
+    {
+      return null;
+    }
+    if (sequence < getOldestSequence())
+    {
+      return OVERWRITTEN;
+    }
+    return ring[indexOf(sequence)];
+  }
+
+  /**
+   * Returns the sequence number of the first of the updates with the provided CSNs, if they are all
+   * still in the ring.
+   *
+   * @param csns
+   *          The CSNs of the updates to find
+   * @return the lowest sequence number of the updates, or -1 if any of them is not in the ring
+   */
+  synchronized long findFirstSequence(Set<CSN> csns)
+  {
+    long firstSequence = -1;
+    int found = 0;
+    for (long sequence = getOldestSequence(); sequence < nextSequence && found < csns.size(); sequence++)
+    {
+      if (csns.contains(ring[indexOf(sequence)].update.getCSN()))
+      {
+        if (firstSequence == -1)
+        {
+          firstSequence = sequence;
+        }
+        found++;
+      }
+    }
+    return found == csns.size() ? firstSequence : -1;
+  }
+
+  /**
+   * Returns the sequence number of the next update to be published.
+   *
+   * @return the sequence number of the next update to be published
+   */
+  synchronized long getNextSequence()
+  {
+    return nextSequence;
+  }
+
+  /**
+   * Returns the number of bytes of the updates published from the provided sequence number.
+   *
+   * @param sequence
+   *          The sequence number of the first update to account for
+   * @return the number of bytes of the updates which are still in the ring
+   */
+  synchronized long getBytesFrom(long sequence)
+  {
+    final long oldest = Math.max(sequence, getOldestSequence());
+    if (oldest >= nextSequence)
+    {
+      return 0;
+    }
+    final PublishedUpdate first = ring[indexOf(oldest)];
+    return publishedBytes - first.endOffset + first.update.size();
+  }
+
+  /** Wakes up all the consumers waiting for an update. */
+  synchronized void wakeUpConsumers()
+  {
+    notifyAll();
+  }
+
+  private long getOldestSequence()
+  {
+    return Math.max(0, nextSequence - ring.length);
+  }
+
+  private int indexOf(long sequence)
+  {
+    return (int) (sequence % ring.length);
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(capacity=" + ring.length + ", nextSequence=" + nextSequence + ")";
+  }
+}
@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -24,6 +24,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
@@ -44,6 +45,10 @@ import org.opends.server.util.StaticUtils;
  * <p>
  * The reader provides both sequential access, using the {@code readRecord()} method,
  * and reasonably fast random access, using the {@code seekToRecord(K, boolean)} method.
+ * <p>
+ * Bytes are either read from a random access file, or from a memory mapping of the
+ * whole log file when the file is not expected to change any more. In the latter
+ * case, reading a record does not involve any system call.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -69,7 +74,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
 
   private final RecordParser<K, V> parser;
 
-  private final RandomAccessFile reader;
+  private final LogInput reader;
 
   private final File file;
 
@@ -91,7 +96,30 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReader(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser)
   {
-    return new BlockLogReader<>(file, reader, parser, BLOCK_SIZE);
+    return new BlockLogReader<>(file, new FileInput(reader), parser, BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a reader for the provided file, memory mapping of the file and parser.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param file
+   *          The log file to read.
+   * @param mapping
+   *          The read-only mapping of the whole log file, which is not modified by the reader.
+   * @param onClose
+   *          Closed once when the reader is closed, to release the mapping.
+   * @param parser
+   *          The parser to decode the records read.
+   * @return a new log reader
+   */
+  static <K extends Comparable<K>, V> BlockLogReader<K, V> newMappedReader(
+      final File file, final ByteBuffer mapping, final Closeable onClose, final RecordParser<K, V> parser)
+  {
+    return new BlockLogReader<>(file, new MappedInput(mapping, onClose), parser, BLOCK_SIZE);
   }
 
   /**
@@ -117,11 +145,37 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReaderForTests(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, int blockSize)
   {
-    return new BlockLogReader<>(file, reader, parser, blockSize);
+    return new BlockLogReader<>(file, new FileInput(reader), parser, blockSize);
+  }
+
+  /**
+   * Creates a reader for the provided file, memory mapping, parser and block size.
+   * <p>
+   * This method is intended for tests only, to allow tuning of the block size.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param file
+   *          The log file to read.
+   * @param mapping
+   *          The read-only mapping of the whole log file.
+   * @param parser
+   *          The parser to decode the records read.
+   * @param blockSize
+   *          The size of each block, or frequency at which the record offset is
+   *          present in the log file.
+   * @return a new log reader
+   */
+  static <K extends Comparable<K>, V> BlockLogReader<K, V> newMappedReaderForTests(
+      final File file, final ByteBuffer mapping, final RecordParser<K, V> parser, int blockSize)
+  {
+    return new BlockLogReader<>(file, new MappedInput(mapping, null), parser, blockSize);
   }
 
   private BlockLogReader(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, final int blockSize)
+      final File file, final LogInput reader, final RecordParser<K, V> parser, final int blockSize)
   {
     this.file = file;
     this.reader = reader;
@@ -163,6 +217,38 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     return Pair.of(false, null);
   }
 
+  /**
+   * Position the reader to the record corresponding to the provided key and
+   * matching and positioning strategies, reading sequentially from the provided
+   * record position instead of searching the closest block start. Returns the
+   * last record read.
+   *
+   * @param key
+   *          Key to use as a start position. Key must not be {@code null}.
+   * @param recordPosition
+   *          Position of a record whose key is strictly lower than the provided key,
+   *          or the beginning of the file.
+   * @param matchStrategy
+   *          The key matching strategy.
+   * @param positionStrategy
+   *          The positioning strategy.
+   * @return The pair (key_found, last_record_read), with the same semantic as
+   *         {@link #seekToRecord(Comparable, KeyMatchingStrategy, PositionStrategy)}
+   * @throws ChangelogException
+   *           If an error occurs when seeking the key.
+   */
+  public Pair<Boolean, Record<K,V>> seekToRecord(
+      final K key,
+      final long recordPosition,
+      final KeyMatchingStrategy matchStrategy,
+      final PositionStrategy positionStrategy)
+          throws ChangelogException
+  {
+    Reject.ifNull(key);
+    seekToPosition(recordPosition);
+    return positionToKey(readRecord(), recordPosition, key, matchStrategy, positionStrategy);
+  }
+
   /**
    * Position the reader to the provided file position.
    *
@@ -206,7 +292,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   {
     try
     {
-      return reader.getFilePointer();
+      return reader.position();
     }
     catch (IOException e)
     {
@@ -287,7 +373,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     try
     {
       // read length of record if not already at EOF
-      final long filePosition = reader.getFilePointer();
+      final long filePosition = reader.position();
       if (reader.length() == filePosition)
       {
         return null;
@@ -296,7 +382,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       final int recordLength = readRecordLength(distanceToBlockStart);
 
       // read the record
-      long currentPosition = reader.getFilePointer();
+      long currentPosition = reader.position();
       distanceToBlockStart = getDistanceToNextBlockStart(currentPosition, blockSize);
       final ByteStringBuilder recordBytes =
           new ByteStringBuilder(getLengthOfStoredRecord(recordLength, distanceToBlockStart));
@@ -305,10 +391,10 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       {
         if (distanceToBlockStart != 0)
         {
-          recordBytes.appendBytes(reader, distanceToBlockStart);
+          reader.appendTo(recordBytes, distanceToBlockStart);
         }
         // skip the offset
-        reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
+        reader.skip(SIZE_OF_BLOCK_OFFSET);
 
         // next step
         currentPosition += distanceToBlockStart + SIZE_OF_BLOCK_OFFSET;
@@ -318,7 +404,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       if (remainingBytesToRead > 0)
       {
         // last bytes of the record
-        recordBytes.appendBytes(reader, remainingBytesToRead);
+        reader.appendTo(recordBytes, remainingBytesToRead);
       }
       return recordBytes.toByteString();
     }
@@ -357,19 +443,19 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
     if (distanceToBlockStart > 0 && distanceToBlockStart < SIZE_OF_RECORD_SIZE)
     {
-      lengthBytes.appendBytes(reader, distanceToBlockStart);
+      reader.appendTo(lengthBytes, distanceToBlockStart);
       // skip the offset
-      reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      reader.skip(SIZE_OF_BLOCK_OFFSET);
+      reader.appendTo(lengthBytes, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
     }
     else
     {
       if (distanceToBlockStart == 0)
       {
         // skip the offset
-        reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
+        reader.skip(SIZE_OF_BLOCK_OFFSET);
       }
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE);
+      reader.appendTo(lengthBytes, SIZE_OF_RECORD_SIZE);
     }
     return lengthBytes.toByteString().toInt();
   }
@@ -462,9 +548,17 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    Pair<Boolean, Record<K,V>> positionToKey(final long blockStartPosition, final K key,
        final KeyMatchingStrategy matchStrategy, final PositionStrategy positionStrategy) throws ChangelogException
    {
-    Record<K,V> record = readRecord(blockStartPosition);
+     return positionToKey(readRecord(blockStartPosition), blockStartPosition, key, matchStrategy, positionStrategy);
+   }
+
+  /** Reads records until key is found, starting from the provided record read at the provided position. */
+  private Pair<Boolean, Record<K,V>> positionToKey(final Record<K,V> firstRecord, final long startPosition,
+      final K key, final KeyMatchingStrategy matchStrategy, final PositionStrategy positionStrategy)
+      throws ChangelogException
+  {
+    Record<K,V> record = firstRecord;
     Record<K,V> previousRecord = null;
-    long previousPosition = blockStartPosition;
+    long previousPosition = startPosition;
     while (record != null)
     {
       final int keysComparison = record.getKey().compareTo(key);
@@ -606,7 +700,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
      long lastValidPosition = lastBlockStart;
      for (ByteString recordData = readNextRecord(); recordData != null; recordData = readNextRecord()) {
        parser.decodeRecord(recordData);
-       lastValidPosition = reader.getFilePointer();
+       lastValidPosition = reader.position();
      }
 
      final boolean isFileValid = lastValidPosition == getFileLength();
@@ -639,4 +733,171 @@ Record<K, V> getNewestRecord() throws ChangelogException
      throw new ChangelogException(ERR_CHANGELOG_CANNOT_READ_NEWEST_RECORD.get(file.getPath()), e);
    }
  }
+
+  /** Source of the bytes of a log file, positioned like a random access file. */
+  private interface LogInput extends Closeable
+  {
+    void seek(long position) throws IOException;
+
+    long position() throws IOException;
+
+    long length() throws IOException;
+
+    void readFully(byte[] bytes) throws IOException;
+
+    /** Appends the next bytes to the provided builder, throwing an {@link EOFException} if they are not available. */
+    void appendTo(ByteStringBuilder builder, int length) throws IOException;
+
+    void skip(int length) throws IOException;
+  }
+
+  /** Reads a log file through system calls on a random access file. */
+  private static final class FileInput implements LogInput
+  {
+    private final RandomAccessFile file;
+
+    private FileInput(RandomAccessFile file)
+    {
+      this.file = file;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      file.seek(position);
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+      return file.getFilePointer();
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+      return file.length();
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException
+    {
+      file.readFully(bytes);
+    }
+
+    @Override
+    public void appendTo(ByteStringBuilder builder, int length) throws IOException
+    {
+      builder.appendBytes(file, length);
+    }
+
+    @Override
+    public void skip(int length) throws IOException
+    {
+      file.skipBytes(length);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      file.close();
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.valueOf(file);
+    }
+  }
+
+  /**
+   * Reads a log file from a memory mapping shared with other readers.
+   * <p>
+   * Each input works on its own view of the mapping so that readers do not share positions.
+   */
+  private static final class MappedInput implements LogInput
+  {
+    private final ByteBuffer buffer;
+    private final Closeable onClose;
+    private boolean isClosed;
+
+    private MappedInput(ByteBuffer mapping, Closeable onClose)
+    {
+      this.buffer = mapping.duplicate();
+      this.buffer.clear();
+      this.onClose = onClose;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      if (position < 0)
+      {
+        throw new IOException("Negative seek offset " + position);
+      }
+      // Like a random access file, seeking past the end of file only fails on next read
+      buffer.position((int) Math.min(position, buffer.limit()));
+    }
+
+    @Override
+    public long position()
+    {
+      return buffer.position();
+    }
+
+    @Override
+    public long length()
+    {
+      return buffer.limit();
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException
+    {
+      checkRemaining(bytes.length);
+      buffer.get(bytes);
+    }
+
+    @Override
+    public void appendTo(ByteStringBuilder builder, int length) throws IOException
+    {
+      checkRemaining(length);
+      builder.appendBytes(buffer, length);
+    }
+
+    @Override
+    public void skip(int length)
+    {
+      // same semantic as RandomAccessFile.skipBytes(): never goes past the end of file
+      buffer.position(buffer.position() + Math.min(length, buffer.remaining()));
+    }
+
+    private void checkRemaining(int length) throws EOFException
+    {
+      if (buffer.remaining() < length)
+      {
+        buffer.position(buffer.limit());
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if (!isClosed)
+      {
+        isClosed = true;
+        if (onClose != null)
+        {
+          onClose.close();
+        }
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      return "MappedInput(position=" + buffer.position() + ", length=" + buffer.limit() + ")";
+    }
+  }
 }
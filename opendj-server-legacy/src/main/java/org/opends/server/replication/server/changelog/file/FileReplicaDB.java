@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -252,7 +252,7 @@ class FileReplicaDB
     @Override
     public MonitorData getMonitorData()
     {
-      final MonitorData attributes = new MonitorData(4);
+      final MonitorData attributes = new MonitorData(9);
       attributes.add("replicationServer-database", serverId);
       attributes.add("domain-name", baseDN);
       final CSNLimits limits = csnLimits;
@@ -264,6 +264,7 @@ class FileReplicaDB
       {
         attributes.add("last-change", encode(limits.newestCSN));
       }
+      log.addPurgeMonitorData(attributes);
       return attributes;
     }
 
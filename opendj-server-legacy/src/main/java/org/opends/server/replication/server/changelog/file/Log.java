@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -25,13 +25,16 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -43,6 +46,7 @@ import org.forgerock.util.Pair;
 import org.forgerock.util.Reject;
 import org.forgerock.util.Utils;
 import org.forgerock.util.time.TimeService;
+import org.opends.server.api.MonitorData;
 import org.opends.server.replication.server.changelog.api.AbortedChangelogCursorException;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
@@ -69,6 +73,13 @@ import org.opends.server.util.StaticUtils;
  * read-only file and a new empty head log file is opened. There is no limit on the
  * number of read-only files, but they can be purged.
  * <p>
+ * Purging removes whole read-only log files from the log. The cursors reading a purged log file
+ * keep reading it: the log file is only closed and deleted once no cursor reads it anymore. A
+ * cursor reaching the end of a purged log file continues with the oldest log file of the log if
+ * no other records were purged in between, and is aborted otherwise. The purged log files still
+ * read by cursors are deleted when the log is closed, or when it is next opened if the server
+ * stopped before.
+ * <p>
  * A log is obtained using the {@code Log.openLog()} method and must always be
  * released using the {@code close()} method.
  * <p>
@@ -104,6 +115,21 @@ final class Log<K extends Comparable<K>, V> implements Closeable
 
   private static final String LOG_FILE_NAME_SEPARATOR = "_";
 
+  /**
+   * Suffix of the empty file marking a purged log file not deleted yet, so that it can be deleted
+   * on the next opening of the log if the server stops before.
+   */
+  private static final String PURGED_LOG_FILE_SUFFIX = ".purged";
+
+  private static final FileFilter PURGED_LOG_FILES_FILTER = new FileFilter()
+  {
+    @Override
+    public boolean accept(File file)
+    {
+      return file.isFile() && file.getName().endsWith(LOG_FILE_SUFFIX + PURGED_LOG_FILE_SUFFIX);
+    }
+  };
+
   private static final FileFilter READ_ONLY_LOG_FILES_FILTER = new FileFilter()
   {
     @Override
@@ -179,6 +205,23 @@ final class Log<K extends Comparable<K>, V> implements Closeable
   /** The shared lock used for write operations and accessing {@link #logFiles} map. */
   private final Lock sharedLock;
 
+  /**
+   * The highest key of the log files purged so far, or {@code null} if none. A cursor reaching the
+   * end of a purged log file can only continue with the oldest log file of this log if it was reading
+   * the most recently purged log file.
+   */
+  private volatile K highestPurgedKey;
+
+  /** The number of log files deleted after being purged. */
+  private final AtomicLong purgedLogFilesCount = new AtomicLong();
+  /** The number of bytes of the log files deleted after being purged. */
+  private final AtomicLong purgedBytes = new AtomicLong();
+  /** The time spent purging, in milliseconds. */
+  private final AtomicLong purgeTimeInMillis = new AtomicLong();
+  /** The purged log files that are not deleted yet, because cursors are still reading them. */
+  private final Set<LogFile<K, V>> retainedLogFiles =
+      Collections.newSetFromMap(new ConcurrentHashMap<LogFile<K, V>, Boolean>());
+
   /**
    * The replication environment used to create this log. The log is notifying it for any change
    * that must be persisted.
@@ -349,6 +392,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     try
     {
       createRootDirIfNotExists();
+      deleteRemainingPurgedLogFiles();
       openHeadLogFile();
       for (final File file : getReadOnlyLogFiles())
       {
@@ -369,6 +413,33 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /** Deletes the purged log files that were still read by cursors when the server stopped. */
+  private void deleteRemainingPurgedLogFiles() throws ChangelogException
+  {
+    final File[] markers = logPath.listFiles(PURGED_LOG_FILES_FILTER);
+    if (markers == null)
+    {
+      throw new ChangelogException(
+          ERR_CHANGELOG_UNABLE_TO_RETRIEVE_READ_ONLY_LOG_FILES_LIST.get(logPath.getPath()));
+    }
+    for (File marker : markers)
+    {
+      final String name = marker.getName();
+      final File logFile = new File(logPath, name.substring(0, name.length() - PURGED_LOG_FILE_SUFFIX.length()));
+      final File indexFile = LogFileIndex.getIndexFile(logFile);
+      if (indexFile.exists() && !indexFile.delete())
+      {
+        // the index file is ignored once the log file has been deleted
+        logger.trace("Unable to delete index file %s", indexFile.getPath());
+      }
+      if (logFile.exists() && !logFile.delete())
+      {
+        throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DELETE_LOG_FILE.get(logFile.getPath()));
+      }
+      deletePurgedMarker(logFile);
+    }
+  }
+
   private File[] getReadOnlyLogFiles() throws ChangelogException
   {
     File[] files = logPath.listFiles(READ_ONLY_LOG_FILES_FILTER);
@@ -691,6 +762,10 @@ final class Log<K extends Comparable<K>, V> implements Closeable
 
   /**
    * Purge the log up to and excluding the provided key.
+   * <p>
+   * The purged log files are removed from this log while holding the exclusive lock, but they are
+   * closed and deleted after releasing it, so that writers and readers do not wait for the file
+   * system. The purged log files still read by cursors are deleted when the last cursor leaves them.
    *
    * @param purgeKey
    *            the key up to which purging must happen
@@ -701,6 +776,9 @@ final class Log<K extends Comparable<K>, V> implements Closeable
    */
   public Record<K,V> purgeUpTo(final K purgeKey) throws ChangelogException
   {
+    final long startTime = timeService.now();
+    final List<LogFile<K, V>> purgedLogFiles;
+    final Record<K, V> oldestRecord;
     exclusiveLock.lock();
     try
     {
@@ -715,17 +793,26 @@ final class Log<K extends Comparable<K>, V> implements Closeable
       }
 
       logger.trace("About to purge log files older than purgeKey %s: %s", purgeKey, logFilesToPurge);
-      final List<String> undeletableFiles = new ArrayList<>();
-      final Iterator<LogFile<K, V>> entriesToPurge = logFilesToPurge.values().iterator();
-      while (entriesToPurge.hasNext())
+      highestPurgedKey = logFilesToPurge.lastKey();
+      purgedLogFiles = new ArrayList<>(logFilesToPurge.values());
+      logFilesToPurge.clear();
+      oldestRecord = getOldestRecord();
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
+
+    final List<String> undeletableFiles = new ArrayList<>();
+    for (LogFile<K, V> logFile : purgedLogFiles)
+    {
+      // retain the log file before releasing it, as the last cursor reading it may leave it at any time
+      retainLogFile(logFile);
+      if (logFile.release() && retainedLogFiles.remove(logFile))
       {
-        final LogFile<K, V> logFile = entriesToPurge.next();
         try
         {
-          abortCursorsOpenOnLogFile(logFile);
-          logFile.close();
-          logFile.delete();
-          entriesToPurge.remove();
+          deletePurgedLogFile(logFile);
         }
         catch (ChangelogException e)
         {
@@ -733,33 +820,121 @@ final class Log<K extends Comparable<K>, V> implements Closeable
           undeletableFiles.add(logFile.getFile().getPath());
         }
       }
-      if (!undeletableFiles.isEmpty())
-      {
-        throw new ChangelogException(
-            ERR_CHANGELOG_UNABLE_TO_DELETE_LOG_FILE_WHILE_PURGING.get(
-                Utils.joinAsString(", ", undeletableFiles)));
-      }
-      return getOldestRecord();
+      // else cursors are still reading this log file, the last one or closing the log will delete it
     }
-    finally
+    purgeTimeInMillis.addAndGet(timeService.since(startTime));
+    if (!undeletableFiles.isEmpty())
     {
-      exclusiveLock.unlock();
+      throw new ChangelogException(
+          ERR_CHANGELOG_UNABLE_TO_DELETE_LOG_FILE_WHILE_PURGING.get(
+              Utils.joinAsString(", ", undeletableFiles)));
     }
+    return oldestRecord;
   }
 
-  /** Abort all cursors opened on the provided log file. */
-  @GuardedBy("exclusiveLock")
-  private void abortCursorsOpenOnLogFile(LogFile<K, V> logFile)
+  /**
+   * Marks the provided purged log file as retained by cursors, on disk as well, so that it is
+   * deleted on the next opening of the log if the server stops before the cursors release it.
+   */
+  private void retainLogFile(final LogFile<K, V> logFile)
   {
-    for (AbortableLogCursor<K, V> cursor : openCursors)
+    retainedLogFiles.add(logFile);
+    final File marker = getPurgedMarker(logFile.getFile());
+    try
+    {
+      marker.createNewFile();
+    }
+    catch (IOException e)
+    {
+      // the log file is still deleted by the last cursor or when closing the log
+      logger.traceException(e);
+    }
+  }
+
+  private static File getPurgedMarker(final File logFile)
+  {
+    return new File(logFile.getParentFile(), logFile.getName() + PURGED_LOG_FILE_SUFFIX);
+  }
+
+  private static void deletePurgedMarker(final File logFile)
+  {
+    final File marker = getPurgedMarker(logFile);
+    if (marker.exists() && !marker.delete())
     {
-      if (cursor.isAccessingLogFile(logFile))
+      // the marker is deleted on the next opening of the log
+      logger.trace("Unable to delete purged log file marker %s", marker.getPath());
+    }
+  }
+
+  /** Closes and deletes the provided purged log file, which is not referenced anymore. */
+  private void deletePurgedLogFile(final LogFile<K, V> logFile) throws ChangelogException
+  {
+    final long sizeInBytes = logFile.getFile().length();
+    logFile.close();
+    logFile.delete();
+    deletePurgedMarker(logFile.getFile());
+    purgedLogFilesCount.incrementAndGet();
+    purgedBytes.addAndGet(sizeInBytes);
+  }
+
+  /** Closes and deletes the purged log files that cursors are still reading. */
+  private void deleteRetainedLogFiles()
+  {
+    for (LogFile<K, V> logFile : retainedLogFiles)
+    {
+      if (retainedLogFiles.remove(logFile))
       {
-        cursor.abort();
+        try
+        {
+          deletePurgedLogFile(logFile);
+        }
+        catch (ChangelogException e)
+        {
+          // the log file is deleted on the next opening of the log
+          logger.error(e.getMessageObject());
+        }
       }
     }
   }
 
+  /**
+   * Releases the reference of a cursor on the provided log file. The log file is deleted
+   * if it has been purged and this was the last cursor reading it.
+   */
+  private void releaseLogFile(final LogFile<K, V> logFile)
+  {
+    if (logFile != null && logFile.release() && retainedLogFiles.remove(logFile))
+    {
+      try
+      {
+        deletePurgedLogFile(logFile);
+      }
+      catch (ChangelogException e)
+      {
+        logger.error(e.getMessageObject());
+      }
+    }
+  }
+
+  /**
+   * Adds the statistics about the purge of this log to the provided monitor data.
+   * <p>
+   * The purge throughput is the number of bytes of log files deleted per second spent purging.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics to
+   */
+  void addPurgeMonitorData(final MonitorData attributes)
+  {
+    final long bytes = purgedBytes.get();
+    final long timeInMillis = purgeTimeInMillis.get();
+    attributes.add("purged-log-files", purgedLogFilesCount.get());
+    attributes.add("purged-bytes", bytes);
+    attributes.add("purge-time", timeInMillis);
+    attributes.add("purge-throughput", timeInMillis > 0 ? bytes * 1000 / timeInMillis : bytes);
+    attributes.add("purged-log-files-retained-by-cursors", retainedLogFiles.size());
+  }
+
   /**
    * Empties the log, discarding all records it contains.
    * <p>
@@ -928,6 +1103,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
         logger.error(ERR_CHANGELOG_CURSOR_OPENED_WHILE_CLOSING_LOG.get(logPath.getPath(), openCursors.size()));
       }
       StaticUtils.close(logFiles.values());
+      deleteRetainedLogFiles();
       isClosed = true;
     }
     finally
@@ -963,6 +1139,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     final File readOnlyLogFile = new File(logPath, generateReadOnlyFileName(headLogFile));
     headLogFile.close();
     renameHeadLogFileTo(readOnlyLogFile);
+    headLogFile.saveIndexAs(readOnlyLogFile);
 
     openHeadLogFile();
     openReadOnlyLogFile(readOnlyLogFile);
@@ -1123,7 +1300,14 @@ final class Log<K extends Comparable<K>, V> implements Closeable
         return null;
       }
       final Pair<K, K> bounds = getKeyBounds(currentLogFile);
-      return logFiles.higherEntry(bounds.getSecond()).getValue();
+      final K highestKey = bounds.getSecond();
+      if (logFiles.get(highestKey) != currentLogFile && !highestKey.equals(highestPurgedKey))
+      {
+        // the provided log file has been purged, and so have been the log files following it:
+        // continuing with the oldest log file would skip their records
+        throw new AbortedChangelogCursorException(ERR_CHANGELOG_CURSOR_ABORTED.get(logPath));
+      }
+      return logFiles.higherEntry(highestKey).getValue();
     }
     finally
     {
@@ -1264,6 +1448,8 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     public void close()
     {
       StaticUtils.close(currentCursor);
+      log.releaseLogFile(currentLogFile);
+      currentLogFile = null;
     }
 
     @Override
@@ -1317,7 +1503,10 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     @Override
     void reinitializeTo(final CursorState<K, V> cursorState) throws ChangelogException
     {
+      final LogFile<K, V> previousLogFile = currentLogFile;
       currentLogFile = cursorState.logFile;
+      currentLogFile.acquire();
+      log.releaseLogFile(previousLogFile);
       currentCursor = currentLogFile.getCursorInitialisedTo(cursorState.record, cursorState.filePosition);
     }
 
@@ -1331,7 +1520,10 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     private void switchToLogFile(final LogFile<K, V> logFile) throws ChangelogException
     {
       StaticUtils.close(currentCursor);
+      final LogFile<K, V> previousLogFile = currentLogFile;
       currentLogFile = logFile;
+      currentLogFile.acquire();
+      log.releaseLogFile(previousLogFile);
       currentCursor = currentLogFile.getCursor();
     }
 
@@ -1339,7 +1531,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     public String toString()
     {
       return  String.format("Cursor on log : %s, current log file: %s, current cursor: %s",
-              log.logPath, currentLogFile.getFile().getName(), currentCursor);
+              log.logPath, currentLogFile != null ? currentLogFile.getFile().getName() : null, currentCursor);
     }
   }
 
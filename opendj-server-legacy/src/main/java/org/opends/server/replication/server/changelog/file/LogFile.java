@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -71,6 +72,21 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
   /** Indicates if log is enabled for write. */
   private final boolean isWriteEnabled;
 
+  /** The parser of records. */
+  private final RecordParser<K, V> parser;
+
+  /**
+   * The sparse index of the records of this log file, or {@code null} if it is not available.
+   * <p>
+   * The index of a write-enabled log file is maintained while appending records, provided
+   * that the file was empty when opened. The index of a read-only log file is lazily read
+   * from its index file, or built by reading the whole log file.
+   */
+  private volatile LogFileIndex<K> index;
+
+  /** Lock used to ensure that the index of a read-only log file is loaded only once. */
+  private final Object indexLock = new Object();
+
   /** Lock used to ensure write atomicity. */
   private final Lock exclusiveLock;
 
@@ -84,6 +100,15 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
    */
   private Record<K, V> newestRecord;
 
+  /**
+   * The number of references on this log file: one held by the log as long as this log file
+   * is part of it, plus one for each cursor of the log reading this log file.
+   * <p>
+   * Once purged from the log, the log file is closed and deleted when its last reference is
+   * released, so that purging does not need to wait for, nor to abort, the cursors reading it.
+   */
+  private final AtomicInteger referenceCount = new AtomicInteger(1);
+
   /**
    * Creates a new log file.
    *
@@ -103,17 +128,22 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     Reject.ifNull(logFilePath, parser);
     this.logfile = logFilePath;
     this.isWriteEnabled = isWriteEnabled;
+    this.parser = parser;
     final ReadWriteLock rwLock = new ReentrantReadWriteLock();
     exclusiveLock = rwLock.writeLock();
     sharedLock = rwLock.readLock();
     createLogFileIfNotExists();
 
-    readerPool = new LogReaderPool<>(logfile, parser);
+    readerPool = new LogReaderPool<>(logfile, parser, !isWriteEnabled);
     if (isWriteEnabled)
     {
       ensureLogFileIsValid(parser);
       writer = BlockLogWriter.newWriter(new LogWriter(logfile), parser);
       initializeNewestRecord();
+      if (writer.getBytesWritten() == 0)
+      {
+        index = new LogFileIndex<>(LogFileIndex.DEFAULT_INTERVAL);
+      }
     }
     else
     {
@@ -255,8 +285,13 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       {
         return;
       }
+      final long position = writer.getBytesWritten();
       writer.write(record);
       newestRecord = record;
+      if (index != null)
+      {
+        index.recordWritten(record.getKey(), position, writer.getBytesWritten());
+      }
     }
     finally
     {
@@ -454,6 +489,27 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     readerPool.shutdown();
   }
 
+  /**
+   * Adds a reference on this log file, for a cursor starting to read it.
+   * <p>
+   * The caller must ensure this log file is still part of the log.
+   */
+  void acquire()
+  {
+    referenceCount.incrementAndGet();
+  }
+
+  /**
+   * Releases a reference on this log file.
+   *
+   * @return {@code true} if this was the last reference, in which case this log file
+   *         is no longer part of the log nor read by any cursor, and can be deleted
+   */
+  boolean release()
+  {
+    return referenceCount.decrementAndGet() == 0;
+  }
+
   /**
    * Delete this log file (file is physically removed). Should be called only
    * when log file is closed.
@@ -466,6 +522,12 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     exclusiveLock.lock();
     try
     {
+      final File indexFile = LogFileIndex.getIndexFile(logfile);
+      if (indexFile.exists() && !indexFile.delete())
+      {
+        // the index file is ignored once the log file has been deleted
+        logger.trace("Unable to delete index file %s", indexFile.getPath());
+      }
       final boolean isDeleted = logfile.delete();
       if (!isDeleted)
       {
@@ -488,6 +550,101 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     return writer.getBytesWritten();
   }
 
+  /**
+   * Saves the index of this log file, if available, as the index of the provided
+   * log file.
+   * <p>
+   * This is used when the write-enabled log file is rotated to a read-only log file,
+   * so that the index built while appending records is not lost. Failing to save the
+   * index is not an error, as the index can be rebuilt from the log file.
+   *
+   * @param readOnlyLogFile
+   *          The read-only log file which is the rotated version of this log file.
+   */
+  void saveIndexAs(final File readOnlyLogFile)
+  {
+    final LogFileIndex<K> currentIndex = index;
+    if (currentIndex != null)
+    {
+      try
+      {
+        currentIndex.writeTo(LogFileIndex.getIndexFile(readOnlyLogFile), parser);
+      }
+      catch (IOException e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  /**
+   * Returns the index of this log file, loading or building it if necessary.
+   *
+   * @return the index, or {@code null} if it is not available
+   * @throws ChangelogException
+   *           If the log file can't be read to build the index.
+   */
+  private LogFileIndex<K> getIndex() throws ChangelogException
+  {
+    if (index != null || isWriteEnabled)
+    {
+      return index;
+    }
+    synchronized (indexLock)
+    {
+      if (index == null)
+      {
+        index = loadOrBuildIndex();
+      }
+      return index;
+    }
+  }
+
+  private LogFileIndex<K> loadOrBuildIndex() throws ChangelogException
+  {
+    final File indexFile = LogFileIndex.getIndexFile(logfile);
+    try
+    {
+      final LogFileIndex<K> savedIndex = LogFileIndex.readFrom(indexFile, parser, logfile.length());
+      if (savedIndex != null)
+      {
+        return savedIndex;
+      }
+    }
+    catch (IOException | ChangelogException e)
+    {
+      // the index file is corrupted, rebuild it
+      logger.traceException(e);
+    }
+
+    final LogFileIndex<K> newIndex = new LogFileIndex<>(LogFileIndex.DEFAULT_INTERVAL);
+    final BlockLogReader<K, V> reader = getReader();
+    try
+    {
+      long position = reader.getFilePosition();
+      for (Record<K, V> record = reader.readRecord(); record != null; record = reader.readRecord())
+      {
+        final long endPosition = reader.getFilePosition();
+        newIndex.recordWritten(record.getKey(), position, endPosition);
+        position = endPosition;
+      }
+    }
+    finally
+    {
+      releaseReader(reader);
+    }
+
+    try
+    {
+      newIndex.writeTo(indexFile, parser);
+    }
+    catch (IOException e)
+    {
+      logger.traceException(e);
+    }
+    return newIndex;
+  }
+
   /** The path of this log file as a String. */
   private String getPath()
   {
@@ -631,7 +788,10 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       logFile.sharedLock.lock();
       try
       {
-        result = reader.seekToRecord(key, match, pos);
+        final LogFileIndex<K> index = logFile.getIndex();
+        result = index != null
+            ? reader.seekToRecord(key, index.getPositionBefore(key), match, pos)
+            : reader.seekToRecord(key, match, pos);
       }
       finally
       {
@@ -0,0 +1,241 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.forgerock.util.annotations.VisibleForTesting;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+
+/**
+ * A sparse in-memory index of the records of a log file, mapping the key of some
+ * records to their position in the file.
+ * <p>
+ * A record is indexed every {@code interval} bytes, so that positioning a reader on
+ * a key requires one lookup in the index followed by a short sequential scan of the
+ * file, instead of a binary search over the blocks of the file.
+ * <p>
+ * An index is either complete, meaning that it covers all the records of the log
+ * file, or absent. Only complete indexes are used.
+ * <p>
+ * The index of a read-only log file can be saved alongside it, in a file whose name is
+ * the name of the log file followed by {@link #INDEX_FILE_SUFFIX}. The index file
+ * records the length of the log file it was built for, and is ignored if it does not
+ * match the log file any more.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K>
+ *          Type of the key of a record, which must be comparable.
+ */
+class LogFileIndex<K extends Comparable<K>>
+{
+  /** Suffix of the files containing the index of a log file. */
+  static final String INDEX_FILE_SUFFIX = ".index";
+
+  /** Default number of bytes between two indexed records. */
+  static final int DEFAULT_INTERVAL = 16 * 1024;
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final int interval;
+
+  /** Maps the keys of the indexed records to their position in the log file. */
+  private final TreeMap<K, Long> positions = new TreeMap<>();
+
+  /** Position of the last indexed record, or -1 if no record is indexed. */
+  private long lastIndexedPosition = -1;
+
+  /** Length of the log file covered by this index. */
+  private long indexedLength;
+
+  /**
+   * Creates an empty index, covering an empty log file.
+   *
+   * @param interval
+   *          The minimum number of bytes between two indexed records.
+   */
+  LogFileIndex(int interval)
+  {
+    this.interval = interval;
+  }
+
+  /**
+   * Returns the file containing the index of the provided log file.
+   *
+   * @param logFile
+   *          The log file.
+   * @return the index file
+   */
+  static File getIndexFile(File logFile)
+  {
+    return new File(logFile.getParentFile(), logFile.getName() + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Notifies this index that a record has been written in the log file.
+   * <p>
+   * Records must be provided in the order of the log file, with increasing keys.
+   *
+   * @param key
+   *          The key of the record.
+   * @param position
+   *          The position of the record in the log file.
+   * @param endPosition
+   *          The position right after the record in the log file.
+   */
+  synchronized void recordWritten(K key, long position, long endPosition)
+  {
+    if (lastIndexedPosition == -1 || position - lastIndexedPosition >= interval)
+    {
+      positions.put(key, position);
+      lastIndexedPosition = position;
+    }
+    indexedLength = endPosition;
+  }
+
+  /**
+   * Returns the position from which the log file must be read to find the provided key.
+   * <p>
+   * The returned position is the position of an indexed record whose key is strictly
+   * lower than the provided key, so that both the record matching the key and the record
+   * just before it can be found by reading the log file sequentially from this position.
+   * The beginning of the file is returned if there is no such record.
+   *
+   * @param key
+   *          The key to search.
+   * @return the position of a record in the log file
+   */
+  synchronized long getPositionBefore(K key)
+  {
+    final Map.Entry<K, Long> entry = positions.lowerEntry(key);
+    return entry != null ? entry.getValue() : 0L;
+  }
+
+  /**
+   * Returns the length of the log file covered by this index.
+   *
+   * @return the length in bytes
+   */
+  synchronized long getIndexedLength()
+  {
+    return indexedLength;
+  }
+
+  @VisibleForTesting
+  synchronized int size()
+  {
+    return positions.size();
+  }
+
+  /**
+   * Writes this index to the provided file, replacing any existing file.
+   *
+   * @param indexFile
+   *          The file to write.
+   * @param parser
+   *          The parser used to encode keys.
+   * @throws IOException
+   *           If the index can't be written.
+   */
+  synchronized void writeTo(File indexFile, RecordParser<K, ?> parser) throws IOException
+  {
+    final File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))))
+    {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(interval);
+      out.writeLong(indexedLength);
+      out.writeInt(positions.size());
+      for (Map.Entry<K, Long> entry : positions.entrySet())
+      {
+        out.writeUTF(parser.encodeKeyToString(entry.getKey()));
+        out.writeLong(entry.getValue());
+      }
+    }
+    if (indexFile.exists() && !indexFile.delete())
+    {
+      throw new IOException("Unable to replace index file " + indexFile.getPath());
+    }
+    if (!tmpFile.renameTo(indexFile))
+    {
+      throw new IOException("Unable to rename " + tmpFile.getPath() + " to " + indexFile.getPath());
+    }
+  }
+
+  /**
+   * Reads the index of a log file from the provided file.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param indexFile
+   *          The file to read.
+   * @param parser
+   *          The parser used to decode keys.
+   * @param logFileLength
+   *          The current length of the log file, used to check that the index is up to date.
+   * @return the index, or {@code null} if the file does not exist or does not match the log file.
+   * @throws IOException
+   *           If the index file can't be read.
+   * @throws ChangelogException
+   *           If a key can't be decoded.
+   */
+  static <K extends Comparable<K>> LogFileIndex<K> readFrom(File indexFile, RecordParser<K, ?> parser,
+      long logFileLength) throws IOException, ChangelogException
+  {
+    if (!indexFile.exists())
+    {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+    {
+      if (in.readInt() != FORMAT_VERSION)
+      {
+        return null;
+      }
+      final LogFileIndex<K> index = new LogFileIndex<>(in.readInt());
+      index.indexedLength = in.readLong();
+      if (index.indexedLength != logFileLength)
+      {
+        return null;
+      }
+      final int size = in.readInt();
+      for (int i = 0; i < size; i++)
+      {
+        final K key = parser.decodeKeyFromString(in.readUTF());
+        final long position = in.readLong();
+        index.positions.put(key, position);
+        index.lastIndexedPosition = position;
+      }
+      return index;
+    }
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(size=" + positions.size() + ", indexedLength=" + indexedLength + ")";
+  }
+}
@@ -11,13 +11,19 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014 ForgeRock AS.
+ * Copyright 2014, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
+import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
 
@@ -25,21 +31,36 @@ import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A Pool of readers to a log file.
-
+ * <p>
+ * Readers of a read-only log file share a single read-only memory mapping of
+ * the file, which is created by the first reader and unmapped once the pool has
+ * been shut down and all the readers have been released. Readers of the
+ * write-enabled log file, which keeps growing, read through a random access
+ * file instead.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
  * @param <V>
  *          Type of the value of a record.
  */
-// TODO : implement a real pool - reusing readers instead of opening-closing them each time
 class LogReaderPool<K extends Comparable<K>, V>
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
   /** The file to read. */
   private final File file;
 
   private final RecordParser<K, V> parser;
 
+  /** Whether the file is never modified, in which case it may be mapped in memory. */
+  private final boolean isReadOnly;
+
+  /** The mapping shared by all readers, lazily created. Guarded by this pool. */
+  private SharedMapping mapping;
+
+  /** Whether this pool has been shut down. Guarded by this pool. */
+  private boolean isShutdown;
+
   /**
    * Creates a pool of readers for provided file.
    *
@@ -47,11 +68,14 @@ class LogReaderPool<K extends Comparable<K>, V>
    *          The file to read.
    * @param parser
    *          The parser to decode the records read.
+   * @param isReadOnly
+   *          {@code true} if the file is never modified while this pool is in use.
    */
-  LogReaderPool(File file, RecordParser<K, V> parser)
+  LogReaderPool(File file, RecordParser<K, V> parser, boolean isReadOnly)
   {
     this.file = file;
     this.parser = parser;
+    this.isReadOnly = isReadOnly;
   }
 
   /**
@@ -66,7 +90,19 @@ class LogReaderPool<K extends Comparable<K>, V>
    */
   BlockLogReader<K, V> get() throws ChangelogException
   {
-    return getReader(file);
+    try
+    {
+      final SharedMapping sharedMapping = acquireMapping();
+      if (sharedMapping != null)
+      {
+        return BlockLogReader.newMappedReader(file, sharedMapping.buffer, sharedMapping, parser);
+      }
+      return BlockLogReader.newReader(file, new RandomAccessFile(file, "r"), parser);
+    }
+    catch (Exception e)
+    {
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+    }
   }
 
   /**
@@ -83,26 +119,137 @@ class LogReaderPool<K extends Comparable<K>, V>
     StaticUtils.close(reader);
   }
 
-  /** Returns a random access file to read this log. */
-  private BlockLogReader<K, V> getReader(File file) throws ChangelogException
+  /**
+   * Returns the mapping of the file with one more reference, or {@code null} if the
+   * file must not be mapped.
+   */
+  private synchronized SharedMapping acquireMapping() throws Exception
   {
-    try
+    if (!isReadOnly || isShutdown)
     {
-      return BlockLogReader.newReader(file, new RandomAccessFile(file, "r"), parser) ;
+      return null;
     }
-    catch (Exception e)
+    if (mapping == null)
     {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_OPEN_READER_ON_LOG_FILE.get(file.getPath()), e);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+      {
+        final long length = raf.length();
+        if (length > Integer.MAX_VALUE)
+        {
+          // Can not be addressed by a single buffer
+          return null;
+        }
+        try (FileChannel channel = raf.getChannel())
+        {
+          // the mapping remains valid once the channel is closed
+          mapping = new SharedMapping(channel.map(MapMode.READ_ONLY, 0, length));
+        }
+      }
+    }
+    mapping.references++;
+    return mapping;
+  }
+
+  private synchronized void releaseMapping(SharedMapping released)
+  {
+    released.references--;
+    if (isShutdown && released.references == 0)
+    {
+      unmap(released);
     }
   }
 
   /**
    * Shutdown this pool, releasing all files handles opened
    * on the file.
+   * <p>
+   * The memory mapping of the file is released as soon as the readers still in
+   * use have been released.
    */
-  void shutdown()
+  synchronized void shutdown()
   {
-    // Nothing to do yet as no file handle is kept opened.
+    isShutdown = true;
+    if (mapping != null && mapping.references == 0)
+    {
+      unmap(mapping);
+    }
+  }
+
+  private void unmap(SharedMapping released)
+  {
+    if (mapping == released)
+    {
+      mapping = null;
+      released.unmap();
+    }
   }
 
+  /** A memory mapping of the file, shared by readers and reference counted. */
+  private final class SharedMapping implements Closeable
+  {
+    private final MappedByteBuffer buffer;
+    /** Number of readers using this mapping. Guarded by the enclosing pool. */
+    private int references;
+
+    private SharedMapping(MappedByteBuffer buffer)
+    {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void close()
+    {
+      releaseMapping(this);
+    }
+
+    /**
+     * Eagerly releases the mapping, which otherwise remains until the buffer is garbage collected
+     * and prevents deleting the file on some platforms. Must only be called once no reader uses it.
+     */
+    private void unmap()
+    {
+      if (!Unmapper.CLEAN_SUPPORTED)
+      {
+        return;
+      }
+      try
+      {
+        Unmapper.directBufferCleanerCleanMethod.invoke(Unmapper.directBufferCleanerMethod.invoke(buffer));
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+  }
+
+  /** Reflective access to the cleaner of direct buffers, when supported by the JVM. */
+  private static final class Unmapper
+  {
+    private static final boolean CLEAN_SUPPORTED;
+    private static final Method directBufferCleanerMethod;
+    private static final Method directBufferCleanerCleanMethod;
+
+    static
+    {
+      Method tmpDirectBufferCleanerMethod = null;
+      Method tmpDirectBufferCleanerCleanMethod = null;
+      boolean tmpCleanSupported;
+      try
+      {
+        tmpDirectBufferCleanerMethod = Class.forName("java.nio.DirectByteBuffer").getMethod("cleaner");
+        tmpDirectBufferCleanerMethod.setAccessible(true);
+        tmpDirectBufferCleanerCleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        tmpDirectBufferCleanerCleanMethod.setAccessible(true);
+        tmpCleanSupported = true;
+      }
+      catch (Exception e)
+      {
+        tmpCleanSupported = false;
+      }
+      CLEAN_SUPPORTED = tmpCleanSupported;
+      directBufferCleanerMethod = tmpDirectBufferCleanerMethod;
+      directBufferCleanerCleanMethod = tmpDirectBufferCleanerCleanMethod;
+    }
+  }
 }
@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -88,6 +88,8 @@ import net.jcip.annotations.GuardedBy;
  * <li>The "head.log" file, which is the more recent log file where records are appended.</li>
  * <li>Zero to many read-only log files named after the lowest key
  * and highest key present in the log file (they all end with the ".log" suffix.</li>
+ * <li>Optionally, for each read-only log file, a file with the same name followed by the
+ * ".index" suffix, which contains a sparse index of the keys of the log file.</li>
  * <li>Optionally, a "offline.state" file that indicates that this particular server id
  *  of the domain is offline. This file contains the offline CSN, encoded as a String on a single line.</li>
  * </ul>
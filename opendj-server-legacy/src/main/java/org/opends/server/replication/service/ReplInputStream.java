@@ -12,21 +12,53 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
- * Portions Copyright 2013-2014 ForgeRock AS.
+ * Portions Copyright 2013-2014, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
 
 /**
  * This class creates an input stream that can be used to read entries generated
  * by SynchroLDIF as if they were being read from another source like a file.
+ * <p>
+ * The entries are received by a dedicated receiver thread, so that receiving
+ * the entries from the replication server overlaps with importing them in the
+ * backend. The number of entries received and not yet read is bounded, and
+ * the entries are only acknowledged to the exporter once they have been read.
  */
 class ReplInputStream extends InputStream
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Maximum number of received entries waiting to be read. */
+  private static final int MAX_PENDING_ENTRIES = 64;
+  /** Marks the end of the import in the queue of received entries. */
+  private static final byte[] END_OF_IMPORT = new byte[0];
+  /** Marks the failure of the receiver in the queue of received entries. */
+  private static final byte[] RECEIVE_FAILED = new byte[0];
+  /** How long to wait for room in the queue before checking this stream is still open. */
+  private static final long OFFER_TIMEOUT_MS = 100;
+
   /** Indicates whether this input stream has been closed. */
-  private boolean closed;
+  private volatile boolean closed;
+
+  /** The entries received and not yet read. */
+  private final BlockingQueue<byte[]> receivedEntries = new ArrayBlockingQueue<>(MAX_PENDING_ENTRIES);
+
+  /** The thread receiving the entries, started on the first read. */
+  private DirectoryThread receiver;
+
+  /** The error which stopped the receiver, reported by the read following the entries received before. */
+  private volatile IOException receiveError;
 
   /** The domain associated to this import. */
   private final ReplicationDomain domain;
@@ -48,11 +80,54 @@ class ReplInputStream extends InputStream
 
   /**
    * Closes this input stream so that no more data may be read from it.
+   * <p>
+   * This interrupts the receiver thread and waits for it to stop, so that it
+   * does not consume messages which are not part of the import any more.
    */
   @Override
   public void close()
   {
     closed      = true;
+    if (receiver != null)
+    {
+      receivedEntries.clear();
+      // the receiver may be waiting for a message which will never come
+      receiver.interrupt();
+      try
+      {
+        receiver.join();
+      }
+      catch (InterruptedException e)
+      {
+        logger.traceException(e);
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private byte[] nextEntryBytes() throws IOException
+  {
+    if (receiver == null)
+    {
+      receiver = new DirectoryThread(new Receiver(), "Import receiver for " + domain.getBaseDN());
+      receiver.start();
+    }
+    try
+    {
+      final byte[] entryBytes = receivedEntries.take();
+      if (entryBytes == RECEIVE_FAILED)
+      {
+        // keep failing if the caller tries again
+        receivedEntries.offer(RECEIVE_FAILED);
+        throw receiveError;
+      }
+      return entryBytes != END_OF_IMPORT ? entryBytes : null;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
   }
 
   /**
@@ -85,7 +160,7 @@ class ReplInputStream extends InputStream
     {
       // First time this method is called or the previous entry was
       // finished. Read a new entry and return it.
-      bytes = domain.receiveEntryBytes();
+      bytes = nextEntryBytes();
 
       if (bytes==null)
       {
@@ -118,6 +193,7 @@ class ReplInputStream extends InputStream
     if (index == bytes.length)
     {
       bytes = null;
+      domain.entryBytesImported();
     }
 
     return copiedLength;
@@ -147,4 +223,74 @@ class ReplInputStream extends InputStream
 
     return b[0];
   }
+
+  /** Receives the entries from the domain until the end of the import or until this stream is closed. */
+  private class Receiver implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      boolean receivedAll = false;
+      try
+      {
+        while (!closed)
+        {
+          final byte[] entryBytes = domain.receiveEntryBytes();
+          if (entryBytes == null)
+          {
+            if (Thread.currentThread().isInterrupted() && !closed)
+            {
+              receiveError = new InterruptedIOException("Import receiver interrupted");
+              return;
+            }
+            receivedAll = true;
+            deliver(END_OF_IMPORT);
+            return;
+          }
+          deliver(entryBytes);
+        }
+      }
+      catch (RuntimeException e)
+      {
+        logger.traceException(e);
+        receiveError = new IOException(e);
+      }
+      finally
+      {
+        if (!receivedAll)
+        {
+          if (receiveError == null)
+          {
+            receiveError = new IOException("Import receiver stopped");
+          }
+          // never let the importer believe a partial import succeeded, nor wait for an entry which will never come
+          deliver(RECEIVE_FAILED);
+        }
+      }
+    }
+
+    /** Queues the provided element, waiting for the importer to read the previous entries unless it is closed. */
+    private void deliver(final byte[] element)
+    {
+      boolean interrupted = false;
+      while (!closed)
+      {
+        try
+        {
+          if (receivedEntries.offer(element, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+          {
+            break;
+          }
+        }
+        catch (InterruptedException e)
+        {
+          interrupted = true;
+        }
+      }
+      if (interrupted)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
 }
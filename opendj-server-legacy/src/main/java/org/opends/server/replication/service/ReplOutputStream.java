@@ -12,22 +12,57 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
- * Portions Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2014-2015, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
 
 /**
  * This class creates an output stream that can be used to export entries
  * to a synchronization domain.
+ * <p>
+ * The entries written to this stream are sent by a dedicated sender thread,
+ * so that reading and encoding the entries of the backend overlaps with
+ * sending them to the replication server and waiting for the flow control
+ * acknowledgements of the importers. The sender thread sends the entries
+ * in the order they were written. The number of entries waiting to be sent
+ * is bounded, so that a slow importer eventually slows down the writer.
  */
 class ReplOutputStream extends OutputStream
 {
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Maximum number of written chunks waiting to be sent. */
+  private static final int MAX_PENDING_CHUNKS = 64;
+  /** Marks the end of the export in the queue of pending chunks. */
+  private static final byte[] END_OF_EXPORT = new byte[0];
+  /** How long to wait for room in the queue before checking the sender is still alive. */
+  private static final long OFFER_TIMEOUT_MS = 100;
+
   /** The synchronization domain on which the export is done. */
   private final ReplicationDomain domain;
 
+  /** The chunks written to this stream and not yet sent. */
+  private final BlockingQueue<byte[]> pendingChunks = new ArrayBlockingQueue<>(MAX_PENDING_CHUNKS);
+
+  /** The thread sending the written chunks, started on the first write. */
+  private DirectoryThread sender;
+
+  /** The error raised while sending the chunks, if any. */
+  private volatile IOException sendError;
+
+  private boolean closed;
+
   /** The current number of entries exported. */
   private final long numExportedEntries = 0;
 
@@ -53,7 +88,114 @@ class ReplOutputStream extends OutputStream
   @Override
   public void write(byte b[], int off, int len) throws IOException
   {
-    domain.exportLDIFEntry(b, off, len);
+    if (closed)
+    {
+      throw new IOException("Stream closed");
+    }
+    if (sender == null)
+    {
+      sender = new DirectoryThread(new Sender(), "Export sender for " + domain.getBaseDN());
+      sender.start();
+    }
+    // the caller may reuse its buffer as soon as this method returns
+    enqueue(Arrays.copyOfRange(b, off, off + len));
+  }
+
+  private void enqueue(byte[] chunk) throws IOException
+  {
+    try
+    {
+      while (!pendingChunks.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+      {
+        throwIfSendFailed();
+        if (!sender.isAlive())
+        {
+          throw new IOException("Export sender stopped");
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
+    throwIfSendFailed();
+  }
+
+  private void throwIfSendFailed() throws IOException
+  {
+    final IOException error = sendError;
+    if (error != null)
+    {
+      throw error;
+    }
+  }
+
+  /**
+   * Waits for all the written entries to be sent, then closes this stream.
+   *
+   * @throws IOException
+   *           if the written entries could not be sent
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (closed)
+    {
+      throwIfSendFailed();
+      return;
+    }
+    closed = true;
+    if (sender == null)
+    {
+      return;
+    }
+    if (sendError == null)
+    {
+      enqueue(END_OF_EXPORT);
+    }
+    joinSender();
+    throwIfSendFailed();
+  }
+
+  /**
+   * Stops sending the written entries if this stream was not properly closed,
+   * for example because the export failed.
+   */
+  void abort()
+  {
+    if (sender == null || !sender.isAlive())
+    {
+      return;
+    }
+    closed = true;
+    pendingChunks.clear();
+    if (!pendingChunks.offer(END_OF_EXPORT))
+    {
+      // the sender is being interrupted: it will not wait for another chunk
+      sender.interrupt();
+    }
+    try
+    {
+      joinSender();
+    }
+    catch (InterruptedIOException e)
+    {
+      logger.traceException(e);
+    }
+  }
+
+  private void joinSender() throws InterruptedIOException
+  {
+    try
+    {
+      sender.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
   }
 
   /**
@@ -63,4 +205,48 @@ class ReplOutputStream extends OutputStream
   public long getNumExportedEntries() {
     return numExportedEntries;
   }
+
+  /** Sends the written chunks to the domain, in order, until the end of the export. */
+  private class Sender implements Runnable
+  {
+    @Override
+    public void run()
+    {
+      boolean sentAll = false;
+      try
+      {
+        byte[] chunk;
+        while ((chunk = pendingChunks.take()) != END_OF_EXPORT)
+        {
+          domain.exportLDIFEntry(chunk, 0, chunk.length);
+        }
+        sentAll = true;
+      }
+      catch (IOException e)
+      {
+        logger.traceException(e);
+        sendError = e;
+      }
+      catch (InterruptedException e)
+      {
+        logger.traceException(e);
+        sendError = new InterruptedIOException(e.getMessage());
+      }
+      catch (RuntimeException e)
+      {
+        logger.traceException(e);
+        sendError = new IOException(e);
+      }
+      finally
+      {
+        if (!sentAll && sendError == null)
+        {
+          // never let the writer believe a partial export succeeded
+          sendError = new IOException("Export sender stopped");
+        }
+        // unblock the writer if it is waiting for room in the queue
+        pendingChunks.clear();
+      }
+    }
+  }
 }
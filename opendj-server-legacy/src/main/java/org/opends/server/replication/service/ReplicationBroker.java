@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.service;
 
@@ -36,7 +36,6 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -50,6 +49,7 @@ import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.server.config.server.ReplicationDomainCfg;
 import org.forgerock.util.Utils;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.replication.common.AdaptiveSendWindow;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.DSInfo;
 import org.opends.server.replication.common.RSInfo;
@@ -171,7 +171,7 @@ public class ReplicationBroker
   /** String reported under CSN=monitor when there is no connected RS. */
   static final HostPort NO_CONNECTED_SERVER = new HostPort(null, 0);
   private final ServerState state;
-  private Semaphore sendWindow;
+  private AdaptiveSendWindow sendWindow;
   private int maxSendWindow;
   private int rcvWindow = 100;
   private int halfRcvWindow = rcvWindow / 2;
@@ -951,7 +951,7 @@ public class ReplicationBroker
           sendWindow.release(MAX_PERMITS);
         }
       }
-      sendWindow = new Semaphore(maxSendWindow);
+      sendWindow = new AdaptiveSendWindow(maxSendWindow);
       rcvWindow = getMaxRcvWindow();
 
       domain.sessionInitiated(initStatus, rsInfo.getServerState());
@@ -2269,11 +2269,11 @@ public class ReplicationBroker
         session.
         */
         Session currentSession;
-        Semaphore currentWindowSemaphore;
+        AdaptiveSendWindow currentSendWindow;
         synchronized (connectPhaseLock)
         {
           currentSession = connectedRS.get().session;
-          currentWindowSemaphore = sendWindow;
+          currentSendWindow = sendWindow;
         }
 
         /*
@@ -2296,7 +2296,7 @@ public class ReplicationBroker
           want to hold off reconnection in case the connection dropped.
           */
           credit =
-            currentWindowSemaphore.tryAcquire(500, TimeUnit.MILLISECONDS);
+            currentSendWindow.tryAcquire(500, TimeUnit.MILLISECONDS);
         }
         else
         {
@@ -2321,7 +2321,7 @@ public class ReplicationBroker
             }
           }
         }
-        if (!credit && currentWindowSemaphore.availablePermits() == 0)
+        if (!credit && currentSendWindow.availablePermits() == 0)
         {
           synchronized (connectPhaseLock)
           {
@@ -2754,6 +2754,48 @@ public class ReplicationBroker
     return 0;
   }
 
+  /**
+   * Get the current effective send window size, adapted to the measured round trip time.
+   *
+   * @return The current effective send window size.
+   */
+  public int getEffectiveSendWindow()
+  {
+    if (isConnected())
+    {
+      return sendWindow.getEffectiveWindow();
+    }
+    return 0;
+  }
+
+  /**
+   * Get the estimated bandwidth to the replication server.
+   *
+   * @return The estimated bandwidth in updates per second.
+   */
+  public long getEstimatedSendBandwidth()
+  {
+    if (isConnected())
+    {
+      return sendWindow.getEstimatedBandwidth();
+    }
+    return 0;
+  }
+
+  /**
+   * Get the round trip time of the updates sent to the replication server.
+   *
+   * @return The round trip time in milliseconds, or -1 if unknown.
+   */
+  public long getSendRoundTripTime()
+  {
+    if (isConnected())
+    {
+      return sendWindow.getRoundTripTime();
+    }
+    return -1;
+  }
+
   /**
    * Get the number of times the connection was lost.
    * @return The number of times the connection was lost.
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.service;
 
@@ -1108,6 +1108,9 @@ public abstract class ReplicationDomain
     /** Current counter of messages exchanged during the initialization. */
     private int msgCnt;
 
+    /** Counter of the messages received and imported during the import. */
+    private int importedMsgCnt;
+
     /**
      * Number of connections lost when we start the initialization. Will help
      * counting connections lost during initialization,
@@ -1137,7 +1140,7 @@ public abstract class ReplicationDomain
      */
     private final Map<Integer, Integer> ackVals = new HashMap<>();
     /** ServerId of the slowest server (the one with the smallest non null counter). */
-    private int slowestServerId = -1;
+    private volatile int slowestServerId = -1;
 
     private short exporterProtocolVersion = -1;
 
@@ -1317,8 +1320,16 @@ public abstract class ReplicationDomain
         logger.trace("[IE] setAckVal[" + serverId + "]=" + numAck);
       }
 
-      ackVals.put(serverId, numAck);
+      synchronized (ackVals)
+      {
+        ackVals.put(serverId, numAck);
+        recomputeSlowestServer(serverId);
+        ackVals.notifyAll();
+      }
+    }
 
+    private void recomputeSlowestServer(int serverId)
+    {
       // Recompute the server with the minAck returned,means the slowest server.
       slowestServerId = serverId;
       int minMsgReceived = ackVals.get(serverId);
@@ -1349,6 +1360,31 @@ public abstract class ReplicationDomain
 
       return this.slowestServerId;
     }
+
+    /**
+     * Waits until the slowest server has acknowledged the provided EntryMsg id,
+     * or until the provided timeout expires.
+     * @param numAck  id of the EntryMsg to wait for.
+     * @param timeout maximum time to wait in milliseconds.
+     */
+    private void waitForSlowestAck(int numAck, long timeout)
+    {
+      synchronized (ackVals)
+      {
+        Integer slowestAck = ackVals.get(slowestServerId);
+        if (slowestAck != null && slowestAck < numAck)
+        {
+          try
+          {
+            ackVals.wait(timeout);
+          }
+          catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    }
   }
 
   /**
@@ -1513,7 +1549,23 @@ public abstract class ReplicationDomain
               ERR_INIT_NO_SUCCESS_START_FROM_SERVERS.get(getBaseDN(), ieCtx.failureList));
         }
 
-        exportBackend(new BufferedOutputStream(new ReplOutputStream(this)));
+        final ReplOutputStream replOutput = new ReplOutputStream(this);
+        try
+        {
+          final OutputStream output = new BufferedOutputStream(replOutput);
+          exportBackend(output);
+          // Wait for the pending entries to be sent before notifying the end of the export
+          output.close();
+        }
+        catch (IOException e)
+        {
+          throw new DirectoryException(ResultCode.OTHER,
+              ERR_INIT_EXPORT_FAILURE.get(getBaseDN(), e.getLocalizedMessage()), e);
+        }
+        finally
+        {
+          replOutput.abort();
+        }
 
         // Notify the peer of the success
         broker.publish(
@@ -1872,6 +1924,11 @@ public abstract class ReplicationDomain
     ReplicationMsg msg;
     while (true)
     {
+      if (Thread.currentThread().isInterrupted())
+      {
+        // The import has been abandoned
+        return null;
+      }
       ImportExportContext ieCtx = importExportContext.get();
       try
       {
@@ -1923,20 +1980,7 @@ public abstract class ReplicationDomain
                   ResultCode.OTHER, ERR_INIT_BAD_MSG_ID_SEQ_DURING_IMPORT.get(ieCtx.msgCnt, entryMsg.getMsgId())));
               return null;
             }
-
-            // send the ack of flow control mgmt
-            if ((ieCtx.msgCnt % (ieCtx.initWindow/2)) == 0)
-            {
-              final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
-                  getServerId(), entryMsg.getSenderID(), ieCtx.msgCnt);
-              broker.publish(amsg, false);
-              if (logger.isTraceEnabled())
-              {
-                logger.trace("[IE] In "
-                    + broker.getReplicationMonitorInstanceName()
-                    + ", publish InitializeRcvAckMsg" + amsg);
-              }
-            }
+            // the ack of flow control mgmt is sent by entryBytesImported()
           }
           return entryBytes;
         }
@@ -1988,6 +2032,36 @@ public abstract class ReplicationDomain
     }
   }
 
+  /**
+   * Notifies that the bytes returned by {@link #receiveEntryBytes()} have been
+   * read by the import (called by ReplInputStream). The flow control
+   * acknowledgements are sent from here, so that the exporter does not get
+   * ahead of the import rather than ahead of the receipt of the entries.
+   */
+  void entryBytesImported()
+  {
+    final ImportExportContext ieCtx = importExportContext.get();
+    if (ieCtx == null
+        || ieCtx.exporterProtocolVersion < ProtocolVersion.REPLICATION_PROTOCOL_V4)
+    {
+      return;
+    }
+
+    // send the ack of flow control mgmt
+    if ((++ieCtx.importedMsgCnt % (ieCtx.initWindow/2)) == 0)
+    {
+      final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
+          getServerId(), ieCtx.importSource, ieCtx.importedMsgCnt);
+      broker.publish(amsg, false);
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("[IE] In "
+            + broker.getReplicationMonitorInstanceName()
+            + ", publish InitializeRcvAckMsg" + amsg);
+      }
+    }
+  }
+
   /**
    * Count the number of entries in the provided byte[].
    * This is based on the hypothesis that the entries are separated
@@ -2072,7 +2146,11 @@ public abstract class ReplicationDomain
       }
 
       int ourLastExportedCnt = ieCtx.msgCnt;
-      int slowestCnt = ieCtx.ackVals.get(slowestServerId);
+      int slowestCnt;
+      synchronized (ieCtx.ackVals)
+      {
+        slowestCnt = ieCtx.ackVals.get(slowestServerId);
+      }
 
       if (logger.isTraceEnabled())
       {
@@ -2087,9 +2165,8 @@ public abstract class ReplicationDomain
           logger.trace("[IE] Entering exportLDIFEntry waiting");
         }
 
-        // our export is too far beyond the slowest importer - let's wait
-        try { Thread.sleep(100); }
-        catch(Exception e) { /* do nothing */ }
+        // our export is too far beyond the slowest importer - let's wait for its next ack
+        ieCtx.waitForSlowestAck(ourLastExportedCnt - ieCtx.initWindow, 100);
 
         // process any connection error
         if (broker.hasConnectionError()
@@ -2282,7 +2359,16 @@ public abstract class ReplicationDomain
       initFromTask = (InitializeTask) ieCtx.initializeTask;
 
       // Launch the import
-      importBackend(new ReplInputStream(this));
+      final ReplInputStream replInput = new ReplInputStream(this);
+      try
+      {
+        importBackend(replInput);
+      }
+      finally
+      {
+        // Stop receiving entries if the import was abandoned
+        replInput.close();
+      }
     }
     catch (DirectoryException e)
     {
@@ -2652,6 +2738,48 @@ public abstract class ReplicationDomain
     return 0;
   }
 
+  /**
+   * Get the current effective send window size.
+   *
+   * @return The current effective send window size.
+   */
+  int getEffectiveSendWindow()
+  {
+    if (broker != null)
+    {
+      return broker.getEffectiveSendWindow();
+    }
+    return 0;
+  }
+
+  /**
+   * Get the estimated bandwidth to the replication server.
+   *
+   * @return The estimated bandwidth in updates per second.
+   */
+  long getEstimatedSendBandwidth()
+  {
+    if (broker != null)
+    {
+      return broker.getEstimatedSendBandwidth();
+    }
+    return 0;
+  }
+
+  /**
+   * Get the round trip time of the updates sent to the replication server.
+   *
+   * @return The round trip time in milliseconds, or -1 if unknown.
+   */
+  long getSendRoundTripTime()
+  {
+    if (broker != null)
+    {
+      return broker.getSendRoundTripTime();
+    }
+    return -1;
+  }
+
   /**
    * Get the number of times the replication connection was lost.
    * @return The number of times the replication connection was lost.
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.service;
 
@@ -67,7 +67,7 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    final MonitorData attributes = new MonitorData(41);
+    final MonitorData attributes = new MonitorData(44);
 
     attributes.add("domain-name", domain.getBaseDN());
     attributes.add("server-id", domain.getServerId());
@@ -83,6 +83,9 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
     attributes.add("current-rcv-window", domain.getCurrentRcvWindow());
     attributes.add("max-send-window", domain.getMaxSendWindow());
     attributes.add("current-send-window", domain.getCurrentSendWindow());
+    attributes.add("effective-send-window", domain.getEffectiveSendWindow());
+    attributes.add("estimated-send-bandwidth", domain.getEstimatedSendBandwidth());
+    attributes.add("send-round-trip-time", domain.getSendRoundTripTime());
 
     attributes.add("server-state", domain.getServerState().toStringSet());
     attributes.add("ssl-encryption", domain.isSessionEncrypted());
@@ -12,13 +12,14 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.types;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.ldap.ByteString;
@@ -26,6 +27,8 @@ import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.util.Utils;
 import org.opends.server.api.VirtualAttributeProvider;
+import org.opends.server.api.VirtualAttributeProvider.Dependency;
+import org.opends.server.core.DirectoryServer;
 
 /**
  * This class defines a virtual attribute, which is a special kind of
@@ -48,6 +51,26 @@ public final class VirtualAttribute
   private final VirtualAttributeProvider<?> provider;
   /** The virtual attribute rule for this virtual attribute. */
   private final VirtualAttributeRule rule;
+  /**
+   * The dependencies of the values generated by the provider, or
+   * {@code null} if the generated values must not be kept.
+   */
+  private final Set<Dependency> dependencies;
+  /** The values last generated by the provider, if they can be kept. */
+  private volatile GeneratedValues generatedValues;
+
+  /** Values generated by the provider, with the version of their dependencies. */
+  private static final class GeneratedValues
+  {
+    private final long version;
+    private final Attribute values;
+
+    private GeneratedValues(long version, Attribute values)
+    {
+      this.version = version;
+      this.values = values;
+    }
+  }
 
 
 
@@ -69,6 +92,42 @@ public final class VirtualAttribute
     this.entry = entry;
     this.rule = rule;
     this.provider = rule.getProvider();
+    this.dependencies = provider.getDependencies();
+  }
+
+  /**
+   * Returns the values generated by the provider, generating them again
+   * unless they can be kept and their dependencies have not changed.
+   */
+  private Attribute getValues()
+  {
+    if (dependencies == null)
+    {
+      return provider.getValues(entry, rule);
+    }
+    final long version = DirectoryServer.getVirtualAttributeDependenciesVersion(dependencies);
+    GeneratedValues generated = generatedValues;
+    if (generated == null || generated.version != version)
+    {
+      generated = new GeneratedValues(version, provider.getValues(entry, rule));
+      generatedValues = generated;
+    }
+    return generated.values;
+  }
+
+  /**
+   * Returns the values already generated by the provider if they are still
+   * valid, or {@code null} if the provider must be asked.
+   */
+  private Attribute getGeneratedValues()
+  {
+    final GeneratedValues generated = generatedValues;
+    if (generated != null
+        && generated.version == DirectoryServer.getVirtualAttributeDependenciesVersion(dependencies))
+    {
+      return generated.values;
+    }
+    return null;
   }
 
   @Override
@@ -80,19 +139,23 @@ public final class VirtualAttribute
   @Override
   public boolean contains(ByteString value)
   {
-    return provider.hasValue(entry, rule, value);
+    final Attribute values = getGeneratedValues();
+    return values != null ? values.contains(value) : provider.hasValue(entry, rule, value);
   }
 
   @Override
   public boolean containsAll(Collection<?> values)
   {
-    return provider.hasAllValues(entry, rule, values);
+    final Attribute generated = getGeneratedValues();
+    return generated != null ? generated.containsAll(values) : provider.hasAllValues(entry, rule, values);
   }
 
   @Override
   public ConditionResult matchesEqualityAssertion(ByteString assertionValue)
   {
-    return provider.matchesEqualityAssertion(entry, rule, assertionValue);
+    final Attribute values = getGeneratedValues();
+    return values != null ? values.matchesEqualityAssertion(assertionValue)
+                          : provider.matchesEqualityAssertion(entry, rule, assertionValue);
   }
 
   @Override
@@ -122,7 +185,8 @@ public final class VirtualAttribute
   @Override
   public boolean isEmpty()
   {
-    return !provider.hasValue(entry, rule);
+    final Attribute values = getGeneratedValues();
+    return values != null ? values.isEmpty() : !provider.hasValue(entry, rule);
   }
 
   @Override
@@ -134,7 +198,7 @@ public final class VirtualAttribute
   @Override
   public Iterator<ByteString> iterator()
   {
-    return provider.getValues(entry, rule).iterator();
+    return getValues().iterator();
   }
 
   @Override
@@ -153,9 +217,9 @@ public final class VirtualAttribute
   @Override
   public int size()
   {
-    if (provider.isMultiValued())
+    if (provider.isMultiValued() || dependencies != null)
     {
-      return provider.getValues(entry, rule).size();
+      return getValues().size();
     }
     return provider.hasValue(entry, rule) ? 1 : 0;
   }
@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.util.Reject;
+
+/**
+ * A token bucket which may be used for limiting the rate at which a resource is consumed.
+ * <p>
+ * The bucket is refilled at a constant rate of tokens per second and holds at most one second worth of tokens, which
+ * is the largest burst that it allows. Consumers either try to take tokens, failing if there are not enough of them,
+ * or unconditionally charge tokens once the resource has already been consumed, in which case the bucket may go into
+ * debt until it is refilled.
+ * <p>
+ * This class is thread safe: a single bucket may be shared by several client connections.
+ */
+@org.opends.server.types.PublicAPI(
+    stability = org.opends.server.types.StabilityLevel.UNCOMMITTED,
+    mayInstantiate = true,
+    mayExtend = false,
+    mayInvoke = true)
+public final class TokenBucket
+{
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /** The number of tokens added to this bucket every second, which is also its capacity. */
+  private final long ratePerSecond;
+  /** The number of available tokens, may be negative when the bucket is in debt. */
+  private long tokens;
+  /** The time in nanoseconds at which this bucket was last refilled. */
+  private long lastRefillNanos;
+
+  /**
+   * Creates a new full token bucket.
+   *
+   * @param ratePerSecond
+   *          The number of tokens added to the bucket every second, which must be strictly positive.
+   */
+  public TokenBucket(long ratePerSecond)
+  {
+    this(ratePerSecond, System.nanoTime());
+  }
+
+  TokenBucket(long ratePerSecond, long nowNanos)
+  {
+    Reject.ifFalse(ratePerSecond > 0, "The rate must be strictly positive");
+    this.ratePerSecond = ratePerSecond;
+    this.tokens = ratePerSecond;
+    this.lastRefillNanos = nowNanos;
+  }
+
+  /**
+   * Returns the number of tokens added to this bucket every second.
+   *
+   * @return The number of tokens added to this bucket every second.
+   */
+  public long getRatePerSecond()
+  {
+    return ratePerSecond;
+  }
+
+  /**
+   * Takes the provided number of tokens from this bucket if they are available.
+   *
+   * @param count
+   *          The number of tokens to take.
+   * @return {@code true} if the tokens have been taken, or {@code false} if there were not enough tokens available, in
+   *         which case the bucket is left unchanged.
+   */
+  public boolean tryConsume(long count)
+  {
+    return tryConsume(count, System.nanoTime());
+  }
+
+  synchronized boolean tryConsume(long count, long nowNanos)
+  {
+    refill(nowNanos);
+    if (tokens < count)
+    {
+      return false;
+    }
+    tokens -= count;
+    return true;
+  }
+
+  /**
+   * Unconditionally takes the provided number of tokens from this bucket, putting it into debt if there are not
+   * enough tokens available.
+   *
+   * @param count
+   *          The number of tokens to take.
+   */
+  public void consume(long count)
+  {
+    consume(count, System.nanoTime());
+  }
+
+  synchronized void consume(long count, long nowNanos)
+  {
+    refill(nowNanos);
+    // Do not let a single huge charge block the bucket for more than one second.
+    tokens = Math.max(tokens - count, -ratePerSecond);
+  }
+
+  /**
+   * Indicates whether this bucket currently holds at least one token.
+   *
+   * @return {@code true} if this bucket currently holds at least one token.
+   */
+  public boolean hasTokens()
+  {
+    return hasTokens(System.nanoTime());
+  }
+
+  synchronized boolean hasTokens(long nowNanos)
+  {
+    refill(nowNanos);
+    return tokens > 0;
+  }
+
+  private void refill(long nowNanos)
+  {
+    final long elapsedNanos = nowNanos - lastRefillNanos;
+    if (elapsedNanos <= 0)
+    {
+      return;
+    }
+    if (elapsedNanos >= NANOS_PER_SECOND * 2)
+    {
+      // The bucket is full whatever its debt was.
+      tokens = ratePerSecond;
+      lastRefillNanos = nowNanos;
+      return;
+    }
+    final long newTokens = elapsedNanos * ratePerSecond / NANOS_PER_SECOND;
+    if (newTokens > 0)
+    {
+      tokens = Math.min(tokens + newTokens, ratePerSecond);
+      // Only account for the time which produced whole tokens so that slow rates are not starved.
+      lastRefillNanos += newTokens * NANOS_PER_SECOND / ratePerSecond;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(ratePerSecond=" + ratePerSecond + ")";
+  }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -463,6 +463,7 @@ public class LocalBackendAddOperation
         }
 
         backend.addEntry(entry, this);
+        DirectoryServer.virtualAttributeSubordinatesChanged();
       }
 
       LocalBackendWorkflowElement.addPostReadResponse(this, postReadRequest,
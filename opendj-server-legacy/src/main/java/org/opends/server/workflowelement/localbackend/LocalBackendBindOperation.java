@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -99,6 +99,8 @@ public class LocalBackendBindOperation
   private int timeLimit;
   /** The idle time limit that should be enforced for the user. */
   private long idleTimeLimit;
+  /** The operation rate limit that should be enforced for the user. */
+  private int operationRateLimit;
 
   /** Authentication policy state. */
   private AuthenticationPolicyState authPolicyState;
@@ -145,6 +147,7 @@ public class LocalBackendBindOperation
     timeLimit                = coreConfigManager.getTimeLimit();
     lookthroughLimit         = coreConfigManager.getLookthroughLimit();
     idleTimeLimit            = DirectoryServer.getIdleTimeLimit();
+    operationRateLimit       = 0;
     bindDN                   = getBindDN();
     saslMechanism            = getSASLMechanism();
     authPolicyState          = null;
@@ -190,6 +193,7 @@ public class LocalBackendBindOperation
       clientConnection.setTimeLimit(timeLimit);
       clientConnection.setIdleTimeLimit(idleTimeLimit);
       clientConnection.setLookthroughLimit(lookthroughLimit);
+      clientConnection.setOperationRateLimit(operationRateLimit);
       clientConnection.setMustChangePassword(mustChangePassword);
 
       if (returnAuthzID)
@@ -1004,6 +1008,16 @@ public class LocalBackendBindOperation
     {
       lookthroughLimit = customLookthroughLimit;
     }
+
+    // See if the user's entry contains a custom operation rate limit.
+    Integer customOperationRateLimit =
+        getIntegerUserAttribute(userEntry, OP_ATTR_USER_OPERATION_RATE_LIMIT,
+            WARN_BIND_MULTIPLE_USER_OPERATION_RATE_LIMITS,
+            WARN_BIND_CANNOT_PROCESS_USER_OPERATION_RATE_LIMIT);
+    if (customOperationRateLimit != null)
+    {
+      operationRateLimit = customOperationRateLimit;
+    }
   }
 
   private Integer getIntegerUserAttribute(Entry userEntry,
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -296,6 +296,7 @@ public class LocalBackendDeleteOperation
           return;
         }
         backend.deleteEntry(entryDN, this);
+        DirectoryServer.virtualAttributeSubordinatesChanged();
       }
 
       LocalBackendWorkflowElement.addPreReadResponse(this, preReadRequest, entry);
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -438,6 +438,7 @@ public class LocalBackendModifyDNOperation
           return;
         }
         currentBackend.renameEntry(entryDN, newEntry, this);
+        DirectoryServer.virtualAttributeSubordinatesChanged();
       }
 
       // Attach the pre-read and/or post-read controls to the response if
@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
@@ -19,10 +19,12 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.GeneralizedTime;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.core.BindOperation;
@@ -315,4 +317,50 @@ public class AuthenticationPolicyTestCase extends APITestCase
       assertTrue(policy.isPolicyFinalized());
     }
   }
+
+  /** Tests that the generalized time values are decoded the same way once cached. */
+  @Test
+  public void testDecodeGeneralizedTime() throws Exception
+  {
+    ByteString value = ByteString.valueOfUtf8("20260101123000.000Z");
+    long expected = GeneralizedTime.valueOf(value.toString()).getTimeInMillis();
+
+    assertEquals(AuthenticationPolicyState.decodeGeneralizedTime(value), expected);
+    assertEquals(AuthenticationPolicyState.decodeGeneralizedTime(ByteString.valueOfUtf8(value.toString())), expected);
+
+    for (int i = 0; i < 2; i++)
+    {
+      try
+      {
+        AuthenticationPolicyState.decodeGeneralizedTime(ByteString.valueOfUtf8("not a time"));
+        fail("Expected an IllegalArgumentException");
+      }
+      catch (IllegalArgumentException expectedException)
+      {
+        // Invalid values are never cached.
+      }
+    }
+  }
+
+  /** Tests that the cache of decoded times forgets the values which are not used anymore. */
+  @Test
+  public void testDecodedTimesEvictsUnusedValues() throws Exception
+  {
+    ByteString recentlyUsed = ByteString.valueOfUtf8("19700101000000.000Z");
+    ByteString firstUnused = ByteString.valueOfUtf8("19800101000000.000Z");
+    AuthenticationPolicyState.decodeGeneralizedTime(firstUnused);
+    AuthenticationPolicyState.decodeGeneralizedTime(recentlyUsed);
+
+    // fill the cache twice with other values, while the recently used one keeps being decoded
+    long time = GeneralizedTime.valueOf("20000101000000.000Z").getTimeInMillis();
+    for (int i = 0; i < 2 * AuthenticationPolicyState.MAX_DECODED_TIMES; i++)
+    {
+      AuthenticationPolicyState.decodeGeneralizedTime(
+          ByteString.valueOfUtf8(GeneralizedTime.valueOf(time + i * 1000L).toString()));
+      AuthenticationPolicyState.decodeGeneralizedTime(recentlyUsed);
+    }
+
+    assertTrue(AuthenticationPolicyState.isDecodedTimeCached(recentlyUsed));
+    assertFalse(AuthenticationPolicyState.isDecodedTimeCached(firstUnused));
+  }
 }
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2010 Sun Microsystems, Inc.
- * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.api;
 
@@ -555,4 +555,51 @@ public class DITCacheMapTestCase extends APITestCase
     assertTrue(ditMap.containsKey(dn8));
     assertTrue(ditMap.containsKey(dn9));
   }
+
+  @Test
+  public void testDITCacheMapPutOnGlueNode()
+         throws Exception
+  {
+    clearTestMap();
+
+    putAllAndVerify();
+
+    DN objectsDN = DN.valueOf("ou=Objects,dc=example,dc=com");
+    assertNull(ditMap.put(objectsDN, "Objects"));
+    assertEquals(ditMap.size(), 11);
+    assertEquals(ditMap.getSubtree(objectsDN).size(), 8);
+
+    assertEquals(ditMap.remove(objectsDN), "Objects");
+    assertEquals(ditMap.size(), 10);
+    assertTrue(ditMap.containsSubtree(objectsDN));
+    assertEquals(ditMap.getSubtree(objectsDN).size(), 7);
+  }
+
+  @Test
+  public void testDITCacheMapUpdateWhileIteratingSubTree()
+         throws Exception
+  {
+    clearTestMap();
+
+    putAllAndVerify();
+
+    Iterator<String> iterator = ditMap.getSubtree(DN.valueOf("ou=Objects,dc=example,dc=com")).iterator();
+    assertTrue(iterator.hasNext());
+    iterator.next();
+
+    // the iterator must not fail, and must not return the removed elements
+    assertTrue(ditMap.removeSubtree(DN.valueOf("ou=More,ou=Objects,dc=example,dc=com"), null));
+    ditMap.put(DN.valueOf("cn=Object10,ou=Objects,dc=example,dc=com"), "Object10");
+    Set<String> iterated = new HashSet<>();
+    while (iterator.hasNext())
+    {
+      iterated.add(iterator.next());
+    }
+    assertFalse(iterated.contains(dn6String));
+    assertFalse(iterated.contains(dn7String));
+    assertFalse(iterated.contains(dn8String));
+    assertFalse(iterated.contains(dn9String));
+    assertEquals(ditMap.size(), 7);
+    assertFalse(ditMap.containsSubtree(DN.valueOf("ou=No,ou=More,ou=Objects,dc=example,dc=com")));
+  }
 }
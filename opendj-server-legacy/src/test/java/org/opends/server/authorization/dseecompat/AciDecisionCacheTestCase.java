@@ -0,0 +1,235 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.testng.Assert.*;
+
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.controls.Control;
+import org.forgerock.opendj.ldap.controls.ProxiedAuthV2RequestControl;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.tools.RemoteConnection;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the access control decisions cached on a client connection are discarded as soon as
+ * the groups, the ACIs or the identity they depend on change.
+ */
+@SuppressWarnings("javadoc")
+public class AciDecisionCacheTestCase extends AciTestCase
+{
+  private static final String PEOPLE_DN = "ou=People,o=test";
+  private static final String READERS_DN = "cn=Readers,o=test";
+  private static final String ALICE_DN = "uid=alice," + PEOPLE_DN;
+  private static final String BOB_DN = "uid=bob," + PEOPLE_DN;
+  private static final String CHARLIE_DN = "uid=charlie," + PEOPLE_DN;
+
+  @BeforeClass
+  public void setupClass() throws Exception
+  {
+    deleteAttrFromAdminEntry(ACCESS_HANDLER_DN, ATTR_AUTHZ_GLOBAL_ACI);
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+        "dn: " + PEOPLE_DN,
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "aci: (targetcontrol=\"2.16.840.1.113730.3.4.18\")"
+            + "(version 3.0; acl \"Allow proxy auth control\"; allow (read) userdn=\"ldap:///" + ALICE_DN + "\";)",
+        "aci: (target=\"ldap:///" + PEOPLE_DN + "\")"
+            + "(version 3.0; acl \"Allow Alice to proxy People\"; allow (proxy) userdn=\"ldap:///" + ALICE_DN + "\";)",
+        "",
+        "dn: " + ALICE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: alice",
+        "cn: Alice",
+        "sn: User",
+        "ds-privilege-name: proxied-auth",
+        "userPassword: " + PWD,
+        "",
+        "dn: " + BOB_DN,
+        "objectClass: inetOrgPerson",
+        "uid: bob",
+        "cn: Bob",
+        "sn: User",
+        "userPassword: " + PWD,
+        "",
+        "dn: " + CHARLIE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: charlie",
+        "cn: Charlie",
+        "sn: User",
+        "description: secret",
+        "userPassword: " + PWD,
+        "",
+        "dn: " + READERS_DN,
+        "objectClass: groupOfNames",
+        "cn: Readers",
+        "member: " + ALICE_DN);
+  }
+
+  @AfterMethod
+  public void removeCompareAcis() throws Exception
+  {
+    modify("dn: o=test",
+        "changetype: modify",
+        "replace: aci");
+  }
+
+  private static String compareAci(String bindRule)
+  {
+    return "(targetattr=\"description\")(version 3.0; acl \"Allow compare\"; allow (compare) " + bindRule + ";)";
+  }
+
+  private static void addCompareAci(String bindRule) throws Exception
+  {
+    modify("dn: o=test",
+        "changetype: modify",
+        "add: aci",
+        "aci: " + compareAci(bindRule));
+  }
+
+  private static void modify(String... lines) throws Exception
+  {
+    assertEquals(TestCaseUtils.applyModifications(false, lines), 0);
+  }
+
+  private static RemoteConnection connect(String bindDN) throws Exception
+  {
+    RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort());
+    conn.bind(bindDN, PWD);
+    return conn;
+  }
+
+  /** Returns whether the connection is allowed to compare the description of Charlie. */
+  private static boolean canCompare(RemoteConnection conn, Control... controls) throws Exception
+  {
+    CompareRequest compare = newCompareRequest(CHARLIE_DN, "description", "secret");
+    for (Control control : controls)
+    {
+      compare.addControl(control);
+    }
+    int resultCode = conn.compare(compare, false).getCompareResponseProtocolOp().getResultCode();
+    if (resultCode == ResultCode.INSUFFICIENT_ACCESS_RIGHTS.intValue())
+    {
+      return false;
+    }
+    assertEquals(resultCode, ResultCode.COMPARE_TRUE.intValue());
+    return true;
+  }
+
+  @Test
+  public void testStaticGroupMemberRemoved() throws Exception
+  {
+    addCompareAci("groupdn=\"ldap:///" + READERS_DN + "\"");
+    try (RemoteConnection conn = connect(ALICE_DN))
+    {
+      assertTrue(canCompare(conn));
+
+      modify("dn: " + READERS_DN,
+          "changetype: modify",
+          "delete: member",
+          "member: " + ALICE_DN);
+      assertFalse(canCompare(conn));
+    }
+    finally
+    {
+      modify("dn: " + READERS_DN,
+          "changetype: modify",
+          "replace: member",
+          "member: " + ALICE_DN);
+    }
+  }
+
+  @Test
+  public void testAciAdded() throws Exception
+  {
+    try (RemoteConnection conn = connect(BOB_DN))
+    {
+      assertFalse(canCompare(conn));
+
+      addCompareAci("userdn=\"ldap:///" + BOB_DN + "\"");
+      assertTrue(canCompare(conn));
+    }
+  }
+
+  @Test
+  public void testAciRemoved() throws Exception
+  {
+    addCompareAci("userdn=\"ldap:///" + BOB_DN + "\"");
+    try (RemoteConnection conn = connect(BOB_DN))
+    {
+      assertTrue(canCompare(conn));
+
+      modify("dn: o=test",
+          "changetype: modify",
+          "delete: aci",
+          "aci: " + compareAci("userdn=\"ldap:///" + BOB_DN + "\""));
+      assertFalse(canCompare(conn));
+    }
+  }
+
+  @Test
+  public void testAciModified() throws Exception
+  {
+    addCompareAci("userdn=\"ldap:///" + BOB_DN + "\"");
+    try (RemoteConnection conn = connect(BOB_DN))
+    {
+      assertTrue(canCompare(conn));
+
+      modify("dn: o=test",
+          "changetype: modify",
+          "replace: aci",
+          "aci: " + compareAci("userdn=\"ldap:///" + CHARLIE_DN + "\""));
+      assertFalse(canCompare(conn));
+    }
+  }
+
+  @Test
+  public void testRebind() throws Exception
+  {
+    addCompareAci("userdn=\"ldap:///" + BOB_DN + "\"");
+    try (RemoteConnection conn = connect(ALICE_DN))
+    {
+      assertFalse(canCompare(conn));
+
+      conn.bind(BOB_DN, PWD);
+      assertTrue(canCompare(conn));
+
+      conn.bind(ALICE_DN, PWD);
+      assertFalse(canCompare(conn));
+    }
+  }
+
+  @Test
+  public void testProxiedAuthorization() throws Exception
+  {
+    addCompareAci("userdn=\"ldap:///" + BOB_DN + "\"");
+    try (RemoteConnection conn = connect(ALICE_DN))
+    {
+      assertFalse(canCompare(conn));
+      assertTrue(canCompare(conn, ProxiedAuthV2RequestControl.newControl("dn:" + BOB_DN)));
+      // the outcomes cached for Bob do not apply to Alice or Charlie
+      assertFalse(canCompare(conn));
+      assertFalse(canCompare(conn, ProxiedAuthV2RequestControl.newControl("dn:" + CHARLIE_DN)));
+    }
+  }
+}
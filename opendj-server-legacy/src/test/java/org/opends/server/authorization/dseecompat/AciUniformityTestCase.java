@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class AciUniformityTestCase extends DirectoryServerTestCase
+{
+  private static final DN ACI_DN = DN.valueOf("o=test");
+  private static final DN PARENT_DN = DN.valueOf("ou=people,o=test");
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  @DataProvider
+  public Object[][] acis()
+  {
+    return new Object[][] {
+      { "(targetattr=\"*\")(version 3.0; acl \"all\"; allow(all) userdn=\"ldap:///all\";)", true },
+      { "(targetattr=\"cn\")(targetscope=\"onelevel\")"
+          + "(version 3.0; acl \"onelevel\"; allow(read) groupdn=\"ldap:///cn=admins,o=test\";)", true },
+      { "(target=\"ldap:///ou=people,o=test\")(targetattr=\"*\")"
+          + "(version 3.0; acl \"parent target\"; allow(read) userdn=\"ldap:///anyone\";)", true },
+      { "(target=\"ldap:///uid=user.1,ou=people,o=test\")(targetattr=\"*\")"
+          + "(version 3.0; acl \"child target\"; allow(read) userdn=\"ldap:///anyone\";)", false },
+      { "(target=\"ldap:///uid=user.*,ou=people,o=test\")(targetattr=\"*\")"
+          + "(version 3.0; acl \"pattern target\"; allow(read) userdn=\"ldap:///anyone\";)", false },
+      { "(targetfilter=\"(l=Austin)\")(targetattr=\"*\")"
+          + "(version 3.0; acl \"target filter\"; allow(read) userdn=\"ldap:///anyone\";)", false },
+      { "(targetattr=\"*\")(version 3.0; acl \"self\"; allow(write) userdn=\"ldap:///self\";)", false },
+      { "(targetattr=\"*\")(version 3.0; acl \"userattr\"; allow(write) userattr=\"manager#USERDN\";)", false },
+      { "(targetattr=\"*\")(version 3.0; acl \"complex\"; allow(write) "
+          + "userdn=\"ldap:///all\" and userattr=\"manager#USERDN\";)", false },
+    };
+  }
+
+  @Test(dataProvider = "acis")
+  public void testIsUniformForChildrenOf(String aciString, boolean isUniform) throws Exception
+  {
+    Aci aci = Aci.decode(ByteString.valueOfUtf8(aciString), ACI_DN);
+    assertThat(aci.isUniformForChildrenOf(PARENT_DN)).isEqualTo(isUniform);
+  }
+}
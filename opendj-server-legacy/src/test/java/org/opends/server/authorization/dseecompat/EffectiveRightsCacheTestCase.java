@@ -0,0 +1,258 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.protocols.internal.Requests.*;
+import static org.opends.server.util.CollectionUtils.*;
+import static org.testng.Assert.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.controls.GetEffectiveRightsRequestControl;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ModifyOperation;
+import org.opends.server.protocols.internal.InternalSearchListener;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Modification;
+import org.opends.server.types.SearchFilter;
+import org.opends.server.types.SearchResultEntry;
+import org.opends.server.types.SearchResultReference;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the aclRights returned for the entries of a search, which are cached per region of
+ * the DIT, are the same as the ones computed for each entry on its own.
+ */
+@SuppressWarnings("javadoc")
+public class EffectiveRightsCacheTestCase extends AciTestCase
+{
+  private static final String PEOPLE_DN = "ou=People,o=test";
+  private static final String BOB_DN = "uid=bob,o=test";
+  private static final String WRITE_DESCRIPTION_ACI = "(targetattr=\"description\")"
+      + "(version 3.0; acl \"write description\"; allow (write) userdn=\"ldap:///" + BOB_DN + "\";)";
+
+  @BeforeClass
+  public void setupClass() throws Exception
+  {
+    deleteAttrFromAdminEntry(ACCESS_HANDLER_DN, ATTR_AUTHZ_GLOBAL_ACI);
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+        "dn: " + BOB_DN,
+        "objectClass: inetOrgPerson",
+        "uid: bob",
+        "cn: Bob",
+        "sn: User",
+        "",
+        "dn: " + PEOPLE_DN,
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "aci: (targetattr=\"objectClass||uid||cn||sn||description||telephoneNumber\")"
+            + "(version 3.0; acl \"read\"; allow (read,search) userdn=\"ldap:///" + BOB_DN + "\";)",
+        "aci: (targetattr=\"telephoneNumber\")"
+            + "(version 3.0; acl \"write phone\"; allow (write) userdn=\"ldap:///" + BOB_DN + "\";)",
+        "aci: (version 3.0; acl \"add\"; allow (add) userdn=\"ldap:///" + BOB_DN + "\";)",
+        "",
+        "dn: uid=p1," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: p1",
+        "cn: P1",
+        "sn: User",
+        "description: p1",
+        "telephoneNumber: 1",
+        "",
+        "dn: uid=p2," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: p2",
+        "cn: P2",
+        "sn: User",
+        "",
+        // holds its own ACI
+        "dn: uid=p3," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: p3",
+        "cn: P3",
+        "sn: User",
+        "description: p3",
+        "aci: " + WRITE_DESCRIPTION_ACI,
+        "",
+        "dn: uid=p4," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: p4",
+        "cn: P4",
+        "sn: User",
+        "description: p4",
+        "",
+        "dn: uid=p5," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: p5",
+        "cn: P5",
+        "sn: User",
+        "telephoneNumber: 5",
+        "",
+        "dn: uid=c1,uid=p4," + PEOPLE_DN,
+        "objectClass: inetOrgPerson",
+        "uid: c1",
+        "cn: C1",
+        "sn: User",
+        "description: c1");
+  }
+
+  /** Returns the aclRights of the entries returned by a search evaluating the rights of Bob. */
+  private static Map<DN, Map<String, String>> searchRights(String baseDN, SearchScope scope,
+      InternalSearchListener listener) throws Exception
+  {
+    AttributeType mail = DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("mail");
+    SearchRequest request =
+        newSearchRequest(DN.valueOf(baseDN), scope, SearchFilter.objectClassPresent(),
+            "description", "telephoneNumber", "cn", "aclRights")
+        .addControl(new GetEffectiveRightsRequestControl(false, DN.valueOf(BOB_DN), newArrayList(mail)));
+    InternalSearchOperation search = getRootConnection().processSearch(request, listener);
+    assertEquals(search.getResultCode(), ResultCode.SUCCESS);
+
+    Map<DN, Map<String, String>> rights = new LinkedHashMap<>();
+    for (SearchResultEntry entry : search.getSearchEntries())
+    {
+      rights.put(entry.getName(), getAclRights(entry));
+    }
+    return rights;
+  }
+
+  private static Map<String, String> getAclRights(SearchResultEntry entry)
+  {
+    Map<String, String> rights = new HashMap<>();
+    for (Attribute attribute : entry.getAllAttributes())
+    {
+      String name = attribute.getAttributeDescription().toString();
+      if (name.toLowerCase().startsWith("aclrights"))
+      {
+        rights.put(name.toLowerCase(), attribute.iterator().next().toString());
+      }
+    }
+    assertFalse(rights.isEmpty(), "No aclRights returned for " + entry.getName());
+    return rights;
+  }
+
+  /** Evaluates the rights of each entry with its own search, so that nothing is reused from other entries. */
+  private static void assertSameRightsAsUncached(Map<DN, Map<String, String>> cachedRights) throws Exception
+  {
+    for (Map.Entry<DN, Map<String, String>> entry : cachedRights.entrySet())
+    {
+      Map<DN, Map<String, String>> uncachedRights =
+          searchRights(entry.getKey().toString(), SearchScope.BASE_OBJECT, null);
+      assertEquals(entry.getValue(), uncachedRights.get(entry.getKey()), "aclRights of " + entry.getKey());
+    }
+  }
+
+  private static String getRights(Map<DN, Map<String, String>> rights, String dn, String name)
+  {
+    return rights.get(DN.valueOf(dn)).get(name.toLowerCase());
+  }
+
+  private static void modifyAcis(ModificationType modificationType) throws Exception
+  {
+    ModifyOperation modify = getRootConnection().processModify(DN.valueOf(PEOPLE_DN),
+        newArrayList(new Modification(modificationType, Attributes.create("aci", WRITE_DESCRIPTION_ACI))));
+    assertEquals(modify.getResultCode(), ResultCode.SUCCESS);
+  }
+
+  @Test
+  public void testCachedRightsMatchUncachedRights() throws Exception
+  {
+    Map<DN, Map<String, String>> rights = searchRights(PEOPLE_DN, SearchScope.WHOLE_SUBTREE, null);
+    assertEquals(rights.size(), 7);
+
+    assertSameRightsAsUncached(rights);
+    // the ACI held by a child applies to it only
+    String descriptionRights = "aclRights;attributeLevel;description";
+    assertTrue(getRights(rights, "uid=p3," + PEOPLE_DN, descriptionRights).contains("write:1"));
+    assertTrue(getRights(rights, "uid=p4," + PEOPLE_DN, descriptionRights).contains("write:0"));
+    assertTrue(getRights(rights, "uid=c1,uid=p4," + PEOPLE_DN, descriptionRights).contains("write:0"));
+  }
+
+  /** The entry level read right depends on the attributes held by each child. */
+  @Test
+  public void testChildrenWithDifferentAttributes() throws Exception
+  {
+    Map<DN, Map<String, String>> rights = searchRights(PEOPLE_DN, SearchScope.SINGLE_LEVEL, null);
+
+    assertSameRightsAsUncached(rights);
+  }
+
+  @Test
+  public void testAciChangedDuringSearch() throws Exception
+  {
+    final DN firstChildDN = DN.valueOf("uid=p1," + PEOPLE_DN);
+    InternalSearchListener changeAcisAfterFirstChild = new InternalSearchListener()
+    {
+      @Override
+      public void handleInternalSearchEntry(InternalSearchOperation searchOperation, SearchResultEntry searchEntry)
+          throws DirectoryException
+      {
+        if (searchEntry.getName().equals(firstChildDN))
+        {
+          try
+          {
+            modifyAcis(ModificationType.ADD);
+          }
+          catch (Exception e)
+          {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+
+      @Override
+      public void handleInternalSearchReference(InternalSearchOperation searchOperation,
+          SearchResultReference searchReference) throws DirectoryException
+      {
+        // nothing to do
+      }
+    };
+
+    try
+    {
+      Map<DN, Map<String, String>> rights =
+          searchRights(PEOPLE_DN, SearchScope.SINGLE_LEVEL, changeAcisAfterFirstChild);
+
+      String descriptionRights = "aclRights;attributeLevel;description";
+      assertTrue(getRights(rights, firstChildDN.toString(), descriptionRights).contains("write:0"));
+      rights.remove(firstChildDN);
+      // the rights cached for the first child are not used for the next ones
+      assertTrue(getRights(rights, "uid=p2," + PEOPLE_DN, descriptionRights).contains("write:1"));
+      assertSameRightsAsUncached(rights);
+    }
+    finally
+    {
+      modifyAcis(ModificationType.DELETE);
+    }
+  }
+}
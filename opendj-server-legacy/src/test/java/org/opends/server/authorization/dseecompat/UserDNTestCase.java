@@ -0,0 +1,80 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.authorization.dseecompat;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.LDAPURL;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class UserDNTestCase extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  @DataProvider
+  public Object[][] userDNs()
+  {
+    return new Object[][] {
+      { "ldap:///uid=user.1,ou=people,o=test", true },
+      { "ldap:///uid=*,ou=people,o=test", true },
+      { "ldap:///all", true },
+      { "ldap:///anyone", true },
+      { "ldap:///uid=user.1,ou=people,o=test || ldap:///all", true },
+      { "ldap:///self", false },
+      { "ldap:///parent", false },
+      { "ldap:///ou=people,o=test??sub?(l=Austin)", false },
+      { "ldap:///uid=user.1,ou=people,o=test || ldap:///self", false },
+    };
+  }
+
+  @Test(dataProvider = "userDNs")
+  public void testDependsOnClientOnly(String expression, boolean clientOnly) throws Exception
+  {
+    UserDN userDN = (UserDN) UserDN.decode(expression, EnumBindRuleType.EQUAL_BINDRULE_TYPE);
+    assertThat(userDN.dependsOnClientOnly()).isEqualTo(clientOnly);
+  }
+
+  @Test
+  public void testPatternIsDecodedOnce() throws Exception
+  {
+    UserDNTypeURL pattern = new UserDNTypeURL(
+        EnumUserDNType.DNPATTERN, LDAPURL.decode("ldap:///uid=*,ou=people,o=test", true));
+    assertThat(pattern.getPattern()).isNotNull();
+    assertThat(pattern.getPattern().matchesDN(DN.valueOf("uid=user.1,ou=people,o=test"))).isTrue();
+    assertThat(pattern.getPattern().matchesDN(DN.valueOf("uid=user.1,ou=groups,o=test"))).isFalse();
+
+    UserDNTypeURL dn = new UserDNTypeURL(
+        EnumUserDNType.DN, LDAPURL.decode("ldap:///uid=user.1,ou=people,o=test", true));
+    assertThat(dn.getPattern()).isNull();
+  }
+}
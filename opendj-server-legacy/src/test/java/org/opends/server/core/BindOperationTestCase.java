@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
@@ -1431,6 +1431,94 @@ public class BindOperationTestCase
     assertThat(bindOperation.getErrorMessage()).isEmpty();
   }
 
+  /** Tests that the passwords verified by the simple binds are remembered when configured. */
+  @Test
+  public void testVerifiedCredentialCache() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+      "dn: uid=verified.test,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: verified.test",
+      "givenName: Verified",
+      "sn: Test",
+      "cn: Verified Test",
+      "userPassword: password");
+    ByteString userDN = ByteString.valueOfUtf8("uid=verified.test,o=test");
+    VerifiedCredentialCache cache = DirectoryServer.getVerifiedCredentialCache();
+
+    TestCaseUtils.dsconfig(
+      "set-global-configuration-prop",
+      "--set", "verified-credential-cache-ttl:1 hours");
+    try
+    {
+      InternalClientConnection conn = new InternalClientConnection(new AuthenticationInfo());
+      assertEquals(conn.processSimpleBind(userDN, ByteString.valueOfUtf8("password")).getResultCode(),
+          ResultCode.SUCCESS);
+      long hits = cache.getCacheHits();
+      assertEquals(conn.processSimpleBind(userDN, ByteString.valueOfUtf8("password")).getResultCode(),
+          ResultCode.SUCCESS);
+      assertEquals(cache.getCacheHits(), hits + 1);
+
+      assertEquals(conn.processSimpleBind(userDN, ByteString.valueOfUtf8("wrongpassword")).getResultCode(),
+          ResultCode.INVALID_CREDENTIALS);
+      assertEquals(cache.getCacheHits(), hits + 1);
+
+      ModifyRequest modifyRequest = newModifyRequest(userDN.toString())
+          .addModification(REPLACE, "userPassword", "newpassword");
+      assertEquals(getRootConnection().processModify(modifyRequest).getResultCode(), ResultCode.SUCCESS);
+      assertEquals(conn.processSimpleBind(userDN, ByteString.valueOfUtf8("password")).getResultCode(),
+          ResultCode.INVALID_CREDENTIALS);
+      assertEquals(conn.processSimpleBind(userDN, ByteString.valueOfUtf8("newpassword")).getResultCode(),
+          ResultCode.SUCCESS);
+      assertEquals(cache.getCacheHits(), hits + 1);
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+        "set-global-configuration-prop",
+        "--set", "verified-credential-cache-ttl:0 seconds");
+    }
+  }
+
+  /** Tests that a full verified credential cache forgets the least recently used user only. */
+  @Test
+  public void testVerifiedCredentialCacheEvictsLeastRecentlyUsed() throws Exception
+  {
+    DN user1 = DN.valueOf("uid=user.1,o=test");
+    DN user2 = DN.valueOf("uid=user.2,o=test");
+    DN user3 = DN.valueOf("uid=user.3,o=test");
+    ByteString stored = ByteString.valueOfUtf8("{SSHA}stored");
+    ByteString password = ByteString.valueOfUtf8("password");
+    VerifiedCredentialCache cache = new VerifiedCredentialCache();
+
+    TestCaseUtils.dsconfig(
+      "set-global-configuration-prop",
+      "--set", "verified-credential-cache-ttl:1 hours",
+      "--set", "verified-credential-cache-max-entries:2");
+    try
+    {
+      cache.verified(user1, stored, password);
+      cache.verified(user2, stored, password);
+      assertTrue(cache.isVerified(user1, stored, password));
+
+      cache.verified(user3, stored, password);
+      assertTrue(cache.isVerified(user1, stored, password));
+      assertFalse(cache.isVerified(user2, stored, password));
+      assertTrue(cache.isVerified(user3, stored, password));
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+        "set-global-configuration-prop",
+        "--set", "verified-credential-cache-ttl:0 seconds",
+        "--reset", "verified-credential-cache-max-entries");
+    }
+  }
+
   /**
    * Tests to ensure that performing multiple binds on a client connection will
    * cause the connection to no longer be associated with the previous identity.
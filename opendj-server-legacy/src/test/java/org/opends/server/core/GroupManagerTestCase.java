@@ -12,10 +12,13 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.core;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -37,9 +40,11 @@ import org.opends.server.protocols.internal.SearchRequest;
 import com.forgerock.opendj.ldap.tools.LDAPDelete;
 import com.forgerock.opendj.ldap.tools.LDAPModify;
 import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Attributes;
 import org.opends.server.types.Entry;
 import org.opends.server.types.MemberList;
 import org.opends.server.types.MembershipException;
+import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -47,8 +52,10 @@ import org.testng.annotations.Test;
 
 import static org.forgerock.opendj.ldap.ModificationType.*;
 import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.mockito.Mockito.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.protocols.internal.Requests.*;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.types.NullOutputStream.nullPrintStream;
 import static org.opends.server.util.ServerConstants.*;
 import static org.testng.Assert.*;
@@ -281,6 +288,155 @@ public class GroupManagerTestCase
     assertFalse(nestedGroups.contains(group4DN));
   }
 
+  /**
+   * Tests that the group memberships of an entry follow the changes made to
+   * the members of the groups, including the nested groups.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test
+  public void testGroupMemberships() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    DN group1DN = DN.valueOf("cn=group 1,ou=Groups,o=test");
+    DN group2DN = DN.valueOf("cn=group 2,ou=Groups,o=test");
+    DN group3DN = DN.valueOf("cn=group 3,ou=Groups,o=test");
+    DN group4DN = DN.valueOf("cn=group 4,ou=Groups,o=test");
+    Entry user1Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,o=test"));
+    Entry user2Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.2,ou=People,o=test"));
+    Entry user5Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.5,ou=People,o=test"));
+    Group<?> group1Instance = groupManager.getGroupInstance(group1DN);
+    Group<?> group2Instance = groupManager.getGroupInstance(group2DN);
+    Group<?> group3Instance = groupManager.getGroupInstance(group3DN);
+    Group<?> group4Instance = groupManager.getGroupInstance(group4DN);
+
+    // user.5 is a member of the dynamic group 4
+    assertTrue(groupManager.getGroupMemberships(user1Entry).isEmpty());
+    assertEquals(groupManager.getGroupMemberships(user5Entry), newHashSet(group4Instance));
+
+    group1Instance.addMember(user1Entry);
+    group2Instance.addNestedGroup(group1DN);
+    group3Instance.addNestedGroup(group4DN);
+    assertEquals(groupManager.getGroupMemberships(user1Entry), newHashSet(group1Instance, group2Instance));
+    assertEquals(groupManager.getGroupMemberships(user5Entry), newHashSet(group4Instance, group3Instance));
+
+    final ModifyRequest modifyRequest = newModifyRequest(group2DN)
+        .addModification(REPLACE, "member", "uid=user.2,ou=People,o=test");
+    ModifyOperation modifyOperation = getRootConnection().processModify(modifyRequest);
+    assertEquals(modifyOperation.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(groupManager.getGroupMemberships(user1Entry), newHashSet(group1Instance));
+    assertEquals(groupManager.getGroupMemberships(user2Entry), newHashSet(groupManager.getGroupInstance(group2DN)));
+
+    group1Instance.removeMember(user1Entry.getName());
+    assertTrue(groupManager.getGroupMemberships(user1Entry).isEmpty());
+
+    DeleteOperation deleteOperation = getRootConnection().processDelete(group2DN);
+    assertEquals(deleteOperation.getResultCode(), ResultCode.SUCCESS);
+    assertTrue(groupManager.getGroupMemberships(user2Entry).isEmpty());
+  }
+
+  /**
+   * Tests that a member removed from a group while the group is being added
+   * to the membership index is not indexed.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test
+  public void testMemberRemovedWhileGroupIsIndexed() throws Exception {
+    final DN groupDN = DN.valueOf("cn=group,ou=Groups,o=test");
+    final DN removedDN = DN.valueOf("uid=removed,ou=People,o=test");
+    final DN keptDN = DN.valueOf("uid=kept,ou=People,o=test");
+    final Entry groupEntry = TestCaseUtils.makeEntry(
+        "dn: " + groupDN,
+        "objectClass: groupOfNames",
+        "cn: group",
+        "member: " + removedDN,
+        "member: " + keptDN);
+    final Entry removedEntry = TestCaseUtils.makeEntry("dn: " + removedDN, "objectClass: device", "cn: removed");
+    final Entry keptEntry = TestCaseUtils.makeEntry("dn: " + keptDN, "objectClass: device", "cn: kept");
+
+    GroupManager groupManager = mock(GroupManager.class);
+    final GroupMembershipIndex index = new GroupMembershipIndex(groupManager);
+    final Group<?> group = mock(Group.class);
+    when(group.getGroupDN()).thenReturn(groupDN);
+    when(group.getMemberAttributeType()).thenReturn(
+        DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("member"));
+    when(groupManager.getGroupInstances()).thenReturn(Collections.<Group<?>> emptyList());
+    assertTrue(index.getGroups(removedEntry).isEmpty());
+
+    // the member is removed while the group is reading its members to add them to the index
+    final List<Modification> removal = newArrayList(
+        new Modification(DELETE, Attributes.create("member", removedDN.toString())));
+    when(group.getMembers()).thenReturn(new MemberList()
+    {
+      private final Iterator<DN> members = Arrays.asList(removedDN, keptDN).iterator();
+
+      @Override
+      public boolean hasMoreMembers()
+      {
+        return members.hasNext();
+      }
+
+      @Override
+      public DN nextMemberDN()
+      {
+        DN memberDN = members.next();
+        if (memberDN.equals(removedDN))
+        {
+          index.membersUpdated(group, groupEntry, removal);
+        }
+        return memberDN;
+      }
+
+      @Override
+      public Entry nextMemberEntry()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close()
+      {
+        // nothing to do
+      }
+    }, new MemberList()
+    {
+      private final Iterator<DN> members = Arrays.asList(keptDN).iterator();
+
+      @Override
+      public boolean hasMoreMembers()
+      {
+        return members.hasNext();
+      }
+
+      @Override
+      public Entry nextMemberEntry()
+      {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public DN nextMemberDN()
+      {
+        return members.next();
+      }
+
+      @Override
+      public void close()
+      {
+        // nothing to do
+      }
+    });
+    when(groupManager.getGroupInstances()).thenReturn(Collections.<Group<?>> singletonList(group));
+    doReturn(group).when(groupManager).getGroupInstance(groupDN);
+    index.groupAdded(group);
+
+    assertTrue(index.getGroups(removedEntry).isEmpty());
+    assertEquals(index.getGroups(keptEntry), newHashSet(group));
+  }
+
   /**
    * Invokes membership and nested group APIs using a group instance that has
    * been removed from the group manager via ldap delete.
@@ -2164,6 +2320,111 @@ public class GroupManagerTestCase
     assertNull(groupManager.getGroupInstance(groupDN));
   }
 
+  /**
+   * Tests that the group memberships of entries to many dynamic groups are
+   * found by matching the entries against the member URLs of all the groups.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testDynamicGroupMemberships() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.clearBackend("userRoot");
+
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+
+    TestCaseUtils.addEntries(
+      "dn: ou=People,o=test",
+      "objectClass: top",
+      "objectClass: organizationalUnit",
+      "ou: People",
+      "",
+      "dn: ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: organizationalUnit",
+      "ou: Groups",
+      "",
+      "dn: uid=user.1,ou=People,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: user.1",
+      "givenName: User",
+      "sn: 1",
+      "cn: User 1",
+      "",
+      "dn: uid=user.2,ou=People,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: user.2",
+      "givenName: User",
+      "sn: 2",
+      "cn: User 2",
+      "",
+      "dn: uid=user.3,ou=People,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: user.3",
+      "givenName: User",
+      "sn: 3",
+      "cn: User 3",
+      "",
+      "dn: cn=Surname 1,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Surname 1",
+      "memberURL: ldap:///o=test??sub?(&(objectClass=person)(sn=1))",
+      "",
+      "dn: cn=Other Surname 1,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Other Surname 1",
+      "memberURL: ldap:///dc=example,dc=com??sub?(sn=1)",
+      "",
+      "dn: cn=Given Name,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Given Name",
+      "memberURL: ldap:///ou=People,o=test??sub?(givenName=USER)",
+      "",
+      "dn: cn=Not Surname 3,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Not Surname 3",
+      "memberURL: ldap:///ou=People,o=test??subordinate?(!(sn=3))");
+
+    Group<?> surname1 = groupManager.getGroupInstance(DN.valueOf("cn=Surname 1,ou=Groups,o=test"));
+    Group<?> givenName = groupManager.getGroupInstance(DN.valueOf("cn=Given Name,ou=Groups,o=test"));
+    Group<?> notSurname3 = groupManager.getGroupInstance(DN.valueOf("cn=Not Surname 3,ou=Groups,o=test"));
+    Entry user1Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,o=test"));
+    Entry user2Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.2,ou=People,o=test"));
+    Entry user3Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.3,ou=People,o=test"));
+
+    assertEquals(groupManager.getGroupMemberships(user1Entry), newHashSet(surname1, givenName, notSurname3));
+    assertEquals(groupManager.getGroupMemberships(user2Entry), newHashSet(givenName, notSurname3));
+    assertEquals(groupManager.getGroupMemberships(user3Entry), newHashSet(givenName));
+
+    DeleteOperation deleteOperation = getRootConnection().processDelete(surname1.getGroupDN());
+    assertEquals(deleteOperation.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(groupManager.getGroupMemberships(user1Entry), newHashSet(givenName, notSurname3));
+
+    TestCaseUtils.addEntry(
+      "dn: cn=Surname 3,ou=Groups,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Surname 3",
+      "memberURL: ldap:///o=test??sub?(sn=3)");
+    Group<?> surname3 = groupManager.getGroupInstance(DN.valueOf("cn=Surname 3,ou=Groups,o=test"));
+    assertEquals(groupManager.getGroupMemberships(user3Entry), newHashSet(givenName, surname3));
+  }
+
   /**
    * Tests subtree delete operation on groups tree.
    *
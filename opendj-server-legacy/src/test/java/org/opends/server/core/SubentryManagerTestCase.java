@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 
 package org.opends.server.core;
@@ -529,6 +529,108 @@ public class SubentryManagerTestCase extends CoreTestCase
     TestCaseUtils.deleteEntry(relativeSubentry.getName());
   }
 
+  @Test
+  public void testSubtreeSpecificationExclusions() throws Exception
+  {
+    SubentryManager manager = DirectoryServer.getSubentryManager();
+    DN salesDN = DN.valueOf("cn=Sales," + BASE);
+    Entry salesEntry = DirectoryServer.getEntry(salesDN);
+
+    Entry chopBeforeSubentry = addEntry(
+         "dn: cn=Chop Before Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {base \"ou=Test SubEntry Manager\", "
+             + "specificExclusions { chopBefore:\"uid=rogasawara\" } }",
+         "cn: Chop Before Subentry");
+    Entry chopAfterSubentry = addEntry(
+         "dn: cn=Chop After Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {specificExclusions { chopAfter:\"ou=Test SubEntry Manager\" } }",
+         "cn: Chop After Subentry");
+    Entry minimumSubentry = addEntry(
+         "dn: cn=Minimum Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {minimum 2}",
+         "cn: Minimum Subentry");
+    Entry refinementSubentry = addEntry(
+         "dn: cn=Refinement Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {specificationFilter \"(objectClass=person)\"}",
+         "cn: Refinement Subentry");
+    try
+    {
+      assertThat(getDns(manager.getSubentries(DN.valueOf(BASE))))
+          .contains(chopBeforeSubentry.getName(), chopAfterSubentry.getName(), refinementSubentry.getName())
+          .doesNotContain(minimumSubentry.getName());
+
+      assertThat(getDns(manager.getSubentries(salesDN)))
+          .contains(chopBeforeSubentry.getName(), minimumSubentry.getName(), refinementSubentry.getName())
+          .doesNotContain(chopAfterSubentry.getName());
+      assertThat(getDns(manager.getSubentries(salesEntry)))
+          .contains(chopBeforeSubentry.getName(), minimumSubentry.getName())
+          .doesNotContain(chopAfterSubentry.getName(), refinementSubentry.getName());
+
+      assertThat(getDns(manager.getSubentries(testEntry.getName())))
+          .contains(minimumSubentry.getName(), refinementSubentry.getName())
+          .doesNotContain(chopBeforeSubentry.getName(), chopAfterSubentry.getName());
+      assertThat(getDns(manager.getSubentries(testEntry)))
+          .contains(minimumSubentry.getName(), refinementSubentry.getName())
+          .doesNotContain(chopBeforeSubentry.getName(), chopAfterSubentry.getName());
+    }
+    finally
+    {
+      TestCaseUtils.deleteEntry(chopBeforeSubentry.getName());
+      TestCaseUtils.deleteEntry(chopAfterSubentry.getName());
+      TestCaseUtils.deleteEntry(minimumSubentry.getName());
+      TestCaseUtils.deleteEntry(refinementSubentry.getName());
+    }
+
+    assertThat(getDns(manager.getSubentries(testEntry)))
+        .doesNotContain(minimumSubentry.getName(), refinementSubentry.getName());
+  }
+
+  @Test
+  public void testSubtreeSpecificationBaseExcludesSiblings() throws Exception
+  {
+    SubentryManager manager = DirectoryServer.getSubentryManager();
+    Entry baseSubentry = addEntry(
+         "dn: cn=Base Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {base \"" + BASE_RDN + "\"}",
+         "cn: Base Subentry");
+    Entry siblingEntry = addEntry(
+         "dn: ou=Sibling," + SUFFIX,
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: Sibling");
+    Entry siblingChild = addEntry(
+         "dn: cn=Sibling Child,ou=Sibling," + SUFFIX,
+         "objectclass: top",
+         "objectclass: organizationalRole",
+         "cn: Sibling Child");
+    try
+    {
+      assertThat(getDns(manager.getSubentries(DN.valueOf(BASE)))).contains(baseSubentry.getName());
+      assertThat(getDns(manager.getSubentries(DN.valueOf("cn=Sales," + BASE)))).contains(baseSubentry.getName());
+
+      assertThat(getDns(manager.getSubentries(siblingEntry.getName()))).doesNotContain(baseSubentry.getName());
+      assertThat(getDns(manager.getSubentries(siblingEntry))).doesNotContain(baseSubentry.getName());
+      assertThat(getDns(manager.getSubentries(siblingChild.getName()))).doesNotContain(baseSubentry.getName());
+      assertThat(getDns(manager.getSubentries(siblingChild))).doesNotContain(baseSubentry.getName());
+    }
+    finally
+    {
+      TestCaseUtils.deleteEntry(siblingChild.getName());
+      TestCaseUtils.deleteEntry(siblingEntry.getName());
+      TestCaseUtils.deleteEntry(baseSubentry.getName());
+    }
+  }
+
   private void addTestEntries() throws Exception
   {
     // Add suffix entry.
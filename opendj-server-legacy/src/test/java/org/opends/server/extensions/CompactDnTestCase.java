@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.extensions;
 
@@ -90,4 +90,23 @@ public class CompactDnTestCase extends DirectoryServerTestCase {
     public void testCompareTo(String dn, String otherDn) throws Exception {
         assertThat(new CompactDn(DN.valueOf(dn)).compareTo(new CompactDn(DN.valueOf(otherDn)))).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "equivalentDnRepresentations")
+    public void testHashCode(String dn, String otherDn) throws Exception {
+        assertThat(new CompactDn(DN.valueOf(dn)).hashCode()).isEqualTo(new CompactDn(DN.valueOf(otherDn)).hashCode());
+    }
+
+    @Test(dataProvider = "equivalentDnRepresentations")
+    public void testToString(String dn, String otherDn) throws Exception {
+        assertThat(new CompactDn(DN.valueOf(dn)).toString()).isEqualTo(DN.valueOf(dn).toString());
+    }
+
+    @Test
+    public void testCompareToFollowsHierarchy() throws Exception {
+        CompactDn parent = new CompactDn(DN.valueOf("dc=example,dc=com"));
+        CompactDn child = new CompactDn(DN.valueOf("ou=people,dc=example,dc=com"));
+        assertThat(parent.compareTo(child)).isLessThan(0);
+        assertThat(child.compareTo(parent)).isGreaterThan(0);
+        assertThat(parent).isNotEqualTo(child);
+    }
+}
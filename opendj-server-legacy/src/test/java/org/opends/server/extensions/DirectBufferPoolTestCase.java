@@ -0,0 +1,86 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.extensions;
+
+import static org.fest.assertions.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.testng.annotations.Test;
+
+/** Tests for {@link DirectBufferPool}. */
+@SuppressWarnings("javadoc")
+public class DirectBufferPoolTestCase extends ExtensionsTestCase
+{
+  @Test
+  public void acquireReturnsClearedDirectBuffer()
+  {
+    DirectBufferPool pool = new DirectBufferPool(2);
+    ByteBuffer buffer = pool.acquire(16);
+    assertThat(buffer.isDirect()).isTrue();
+    assertThat(buffer.capacity()).isGreaterThanOrEqualTo(16);
+
+    buffer.put((byte) 1).flip();
+    pool.release(buffer);
+    assertThat(pool.size()).isEqualTo(1);
+
+    ByteBuffer reused = pool.acquire(8);
+    assertThat(reused).isSameAs(buffer);
+    assertThat(reused.position()).isEqualTo(0);
+    assertThat(reused.limit()).isEqualTo(reused.capacity());
+    assertThat(pool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void buffersArePooledPerSizeClass()
+  {
+    DirectBufferPool pool = new DirectBufferPool(2);
+    ByteBuffer small = pool.acquire(8);
+    ByteBuffer large = pool.acquire(32);
+    pool.release(small);
+    pool.release(large);
+    assertThat(pool.size()).isEqualTo(2);
+
+    // Acquiring a large buffer does not discard the small one
+    assertThat(pool.acquire(20)).isSameAs(large);
+    assertThat(pool.acquire(5)).isSameAs(small);
+    assertThat(pool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquiredBuffersAreLargeEnough()
+  {
+    DirectBufferPool pool = new DirectBufferPool(2);
+    pool.release(ByteBuffer.allocateDirect(48));
+
+    ByteBuffer buffer = pool.acquire(40);
+    assertThat(buffer.capacity()).isGreaterThanOrEqualTo(40);
+    assertThat(pool.acquire(24).capacity()).isGreaterThanOrEqualTo(24);
+  }
+
+  @Test
+  public void poolIsBounded()
+  {
+    DirectBufferPool pool = new DirectBufferPool(1);
+    pool.release(pool.acquire(8));
+    pool.release(ByteBuffer.allocateDirect(8));
+    pool.release(ByteBuffer.allocate(8));
+    assertThat(pool.size()).isEqualTo(1);
+
+    pool.release(ByteBuffer.allocateDirect(64));
+    assertThat(pool.size()).isEqualTo(2);
+  }
+}
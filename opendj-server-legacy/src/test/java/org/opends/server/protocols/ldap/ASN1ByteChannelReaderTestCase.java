@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
@@ -22,8 +22,11 @@ import java.nio.channels.Channels;
 import java.nio.channels.IllegalBlockingModeException;
 
 import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.ldap.ByteString;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.*;
+
 /** Test class for ASN1ByteChannelReader. */
 public class ASN1ByteChannelReaderTestCase extends ASN1ReaderTestCase
 {
@@ -288,4 +291,37 @@ public class ASN1ByteChannelReaderTestCase extends ASN1ReaderTestCase
   {
     super.testSkipElementIncompleteRead();
   }
+
+  /**
+   * Tests that elements split across several channel reads are only reported
+   * as available once complete, and are then decoded in place.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testElementsSplitAcrossChannelReads() throws Exception
+  {
+    byte[] b = new byte[] {
+      0x30, 0x0A, 0x04, 0x05, 0x48, 0x65, 0x6C, 0x6C, 0x6F, 0x02, 0x01, 0x01,
+      0x30, 0x0A, 0x04, 0x05, 0x57, 0x6F, 0x72, 0x6C, 0x64, 0x02, 0x01, 0x02 };
+    ASN1ByteChannelReader reader =
+        new ASN1ByteChannelReader(Channels.newChannel(new ByteArrayInputStream(b)), 5, 0);
+
+    assertEquals(readSequence(reader), ByteString.valueOfUtf8("Hello"));
+    assertEquals(readSequence(reader), ByteString.valueOfUtf8("World"));
+    assertFalse(reader.hasRemainingData());
+  }
+
+  private ByteString readSequence(ASN1ByteChannelReader reader) throws Exception
+  {
+    while (!reader.elementAvailable())
+    {
+      assertTrue(reader.processChannelData() > 0);
+    }
+    reader.readStartSequence();
+    ByteString value = reader.readOctetString();
+    reader.readInteger();
+    reader.readEndSequence();
+    return value;
+  }
 }
@@ -0,0 +1,123 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.protocols.ldap;
+
+import static org.forgerock.opendj.ldap.requests.Requests.*;
+import static org.testng.Assert.*;
+
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.tools.RemoteConnection;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the operation rate and request bandwidth limits enforced on the LDAP client connections. */
+@SuppressWarnings("javadoc")
+public class LDAPRateLimitTestCase extends LdapTestCase
+{
+  private static final String HANDLER_DN = "cn=LDAP Connection Handler,cn=Connection Handlers,cn=config";
+  private static final String USER_DN = "uid=rate.limited,o=test";
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+        "dn: " + USER_DN,
+        "objectClass: inetOrgPerson",
+        "uid: rate.limited",
+        "cn: Rate Limited",
+        "sn: Limited",
+        "userPassword: password",
+        "ds-rlim-operation-rate-limit: 2");
+  }
+
+  @Test
+  public void connectionOverOperationRateIsRejected() throws Exception
+  {
+    setHandlerProperty("ds-cfg-max-operation-rate", "2");
+    try (RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn.bind("cn=Directory Manager", "password");
+      assertTrue(compareUntilBusy(conn, 10), "The connection should have been throttled");
+    }
+    finally
+    {
+      setHandlerProperty("ds-cfg-max-operation-rate", "0");
+    }
+  }
+
+  @Test
+  public void userOperationRateIsSharedByItsConnections() throws Exception
+  {
+    try (RemoteConnection conn1 = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort());
+        RemoteConnection conn2 = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn1.bind(USER_DN, "password");
+      conn2.bind(USER_DN, "password");
+      boolean busy = false;
+      for (int i = 0; i < 5 && !busy; i++)
+      {
+        busy = compareUntilBusy(conn1, 1) || compareUntilBusy(conn2, 1);
+      }
+      assertTrue(busy, "The connections of the user should share the same limit");
+    }
+  }
+
+  @Test
+  public void bindIsAcceptedOverRequestBandwidth() throws Exception
+  {
+    setHandlerProperty("ds-cfg-max-request-bandwidth", "1 b");
+    try (RemoteConnection conn = new RemoteConnection("localhost", TestCaseUtils.getServerLdapPort()))
+    {
+      conn.bind("cn=Directory Manager", "password");
+      assertTrue(compareUntilBusy(conn, 1), "The connection should be over its bandwidth");
+
+      LDAPMessage message = conn.bind(newSimpleBindRequest(USER_DN, "password".toCharArray()), false);
+      assertEquals(message.getBindResponseProtocolOp().getResultCode(), ResultCode.SUCCESS.intValue());
+    }
+    finally
+    {
+      setHandlerProperty("ds-cfg-max-request-bandwidth", "0 b");
+    }
+  }
+
+  /** Sends compare requests until one of them is rejected because the connection is busy. */
+  private boolean compareUntilBusy(RemoteConnection conn, int maxRequests) throws Exception
+  {
+    for (int i = 0; i < maxRequests; i++)
+    {
+      LDAPMessage message = conn.compare(newCompareRequest("o=test", "o", "test"), false);
+      int resultCode = message.getCompareResponseProtocolOp().getResultCode();
+      if (resultCode == ResultCode.BUSY.intValue())
+      {
+        return true;
+      }
+      assertEquals(resultCode, ResultCode.COMPARE_TRUE.intValue());
+    }
+    return false;
+  }
+
+  private void setHandlerProperty(String attributeName, String value) throws Exception
+  {
+    TestCaseUtils.applyModifications(true,
+        "dn: " + HANDLER_DN,
+        "changetype: modify",
+        "replace: " + attributeName,
+        attributeName + ": " + value);
+  }
+}
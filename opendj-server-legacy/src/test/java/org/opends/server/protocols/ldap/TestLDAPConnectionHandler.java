@@ -12,13 +12,19 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
- * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2012-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.protocols.ldap;
 
+import static java.util.concurrent.TimeUnit.*;
+import static org.mockito.Mockito.*;
 import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.util.StaticUtils.*;
 import static org.testng.Assert.*;
 
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,6 +36,7 @@ import org.forgerock.opendj.server.config.server.LDAPConnectionHandlerCfg;
 import org.opends.server.api.ClientConnection;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.ServerContext;
 import org.opends.server.types.Attribute;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -38,6 +45,8 @@ import org.opends.server.types.Attributes;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.Entry;
 import org.opends.server.types.SSLClientAuthPolicy;
+import org.opends.server.util.TestTimer;
+import org.opends.server.util.TestTimer.CallableVoid;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -313,4 +322,149 @@ public class TestLDAPConnectionHandler extends LdapTestCase {
     LDAPConnHandler.applyConfigurationChange(config);
     LDAPConnHandler.finalizeConnectionHandler(reasonMsg);
   }
+
+  /**
+   * Opens and closes connections to a started handler and checks that each new
+   * connection is registered with the least loaded request handler, ties being
+   * broken in a round robin fashion.
+   *
+   * @throws Exception if the handler cannot be started or a connection cannot be opened.
+   */
+  @Test
+  public void testRequestHandlerSelection() throws Exception
+  {
+    int port = TestCaseUtils.findFreePort();
+    LDAPConnectionHandler handler = newLDAPConnectionHandler(port, 3);
+    handler.start();
+    Socket[] sockets = new Socket[9];
+    try
+    {
+      // Equal loads: the request handlers are used in turn
+      sockets[0] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 1, 0, 0);
+      sockets[1] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 1, 1, 0);
+      sockets[2] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 1, 1, 1);
+      sockets[3] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 1, 1);
+      sockets[4] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 2, 1);
+      sockets[5] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 2, 2);
+
+      // Unbalance the request handlers: the next connections go to the least loaded one
+      close(sockets[1], sockets[4]);
+      awaitLoads(handler, 2, 0, 2);
+      sockets[6] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 1, 2);
+      sockets[7] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 2, 2);
+
+      // Equal loads again: round robin resumes after the last selected request handler
+      sockets[8] = new Socket("127.0.0.1", port);
+      awaitLoads(handler, 2, 2, 3);
+    }
+    finally
+    {
+      close(sockets);
+      handler.finalizeConnectionHandler(reasonMsg);
+    }
+  }
+
+  /**
+   * Opens a burst of connections larger than the number of connections
+   * accepted per select and checks that all of them get accepted.
+   *
+   * @throws Exception if the handler cannot be started or a connection cannot be opened.
+   */
+  @Test
+  public void testAcceptBurstLargerThanOneSelect() throws Exception
+  {
+    int port = TestCaseUtils.findFreePort();
+    final LDAPConnectionHandler handler = newLDAPConnectionHandler(port, 2);
+    handler.setMaxAcceptsPerSelect(3);
+    handler.start();
+    List<Socket> sockets = new ArrayList<>();
+    try
+    {
+      for (int i = 0; i < 20; i++)
+      {
+        sockets.add(new Socket("127.0.0.1", port));
+      }
+
+      newTimer().repeatUntilSuccess(new CallableVoid()
+      {
+        @Override
+        public void call() throws Exception
+        {
+          assertEquals(handler.getClientConnections().size(), 20);
+        }
+      });
+    }
+    finally
+    {
+      close(sockets);
+      handler.finalizeConnectionHandler(reasonMsg);
+    }
+  }
+
+  private LDAPConnectionHandler newLDAPConnectionHandler(int port, int numRequestHandlers) throws Exception
+  {
+    Entry handlerEntry = TestCaseUtils.makeEntry(
+        "dn: cn=Test LDAP Connection Handler,cn=Connection Handlers,cn=config",
+        "objectClass: top",
+        "objectClass: ds-cfg-connection-handler",
+        "objectClass: ds-cfg-ldap-connection-handler",
+        "cn: Test LDAP Connection Handler",
+        "ds-cfg-java-class: org.opends.server.protocols.ldap.LDAPConnectionHandler",
+        "ds-cfg-enabled: true",
+        "ds-cfg-listen-address: 127.0.0.1",
+        "ds-cfg-listen-port: " + port,
+        "ds-cfg-accept-backlog: 128",
+        "ds-cfg-allow-ldap-v2: false",
+        "ds-cfg-keep-stats: false",
+        "ds-cfg-use-tcp-keep-alive: true",
+        "ds-cfg-use-tcp-no-delay: true",
+        "ds-cfg-allow-tcp-reuse-address: true",
+        "ds-cfg-send-rejection-notice: true",
+        "ds-cfg-max-request-size: 5 megabytes",
+        "ds-cfg-num-request-handlers: " + numRequestHandlers,
+        "ds-cfg-allow-start-tls: false",
+        "ds-cfg-use-ssl: false");
+    LDAPConnectionHandler handler = new LDAPConnectionHandler();
+    handler.initializeConnectionHandler(mock(ServerContext.class), getConfiguration(handlerEntry));
+    return handler;
+  }
+
+  /**
+   * Waits until the loads of the request handlers of the provided connection
+   * handler match the expected ones. The loads are only refreshed by the
+   * request handler threads, hence the wait.
+   */
+  private void awaitLoads(final LDAPConnectionHandler handler, final int... expectedLoads) throws Exception
+  {
+    newTimer().repeatUntilSuccess(new CallableVoid()
+    {
+      @Override
+      public void call() throws Exception
+      {
+        LDAPRequestHandler[] requestHandlers = handler.getRequestHandlers();
+        int[] loads = new int[requestHandlers.length];
+        for (int i = 0; i < requestHandlers.length; i++)
+        {
+          loads[i] = requestHandlers[i].getLoad();
+        }
+        assertEquals(Arrays.toString(loads), Arrays.toString(expectedLoads));
+      }
+    });
+  }
+
+  private TestTimer newTimer()
+  {
+    return new TestTimer.Builder()
+        .maxSleep(10, SECONDS)
+        .sleepTimes(10, MILLISECONDS)
+        .toTimer();
+  }
 }
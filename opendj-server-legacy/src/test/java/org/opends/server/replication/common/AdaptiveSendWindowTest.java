@@ -0,0 +1,121 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.common;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class AdaptiveSendWindowTest extends DirectoryServerTestCase
+{
+  private static final long ONE_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static int acquireAll(AdaptiveSendWindow window, long nowNanos)
+  {
+    int acquired = 0;
+    while (window.tryAcquire(nowNanos))
+    {
+      acquired++;
+    }
+    return acquired;
+  }
+
+  @Test
+  public void testCreditsLimitTheSender()
+  {
+    AdaptiveSendWindow window = new AdaptiveSendWindow(4);
+    assertThat(acquireAll(window, 0)).isEqualTo(4);
+    assertThat(window.availablePermits()).isEqualTo(0);
+
+    window.release(2, ONE_MS);
+    assertThat(window.availablePermits()).isEqualTo(2);
+    assertThat(acquireAll(window, ONE_MS)).isEqualTo(2);
+  }
+
+  @Test
+  public void testWindowShrinksWhenRoundTripTimeIncreases()
+  {
+    AdaptiveSendWindow window = new AdaptiveSendWindow(100);
+    assertThat(acquireAll(window, 0)).isEqualTo(100);
+    window.release(50, 10 * ONE_MS);
+    assertThat(window.getEffectiveWindow()).isEqualTo(100);
+    assertThat(window.getRoundTripTime()).isEqualTo(10);
+
+    window.release(50, 100 * ONE_MS);
+    final int effectiveWindow = window.getEffectiveWindow();
+    assertThat(effectiveWindow).isLessThan(100);
+    assertThat(window.getEstimatedBandwidth()).isGreaterThan(0);
+
+    // credits are available, but the effective window limits the updates in flight
+    assertThat(acquireAll(window, 100 * ONE_MS)).isEqualTo(effectiveWindow);
+    assertThat(window.availablePermits()).isEqualTo(100 - effectiveWindow);
+  }
+
+  @Test
+  public void testWindowNeverShrinksBelowHalfTheCredits()
+  {
+    AdaptiveSendWindow window = new AdaptiveSendWindow(100);
+    long now = 0;
+    for (int round = 1; round <= 30; round++)
+    {
+      acquireAll(window, now);
+      now += round * 10 * ONE_MS;
+      window.release(100, now);
+    }
+    assertThat(window.getEffectiveWindow()).isEqualTo(51);
+  }
+
+  @Test
+  public void testWindowGrowsBackWhenRoundTripTimeDecreases()
+  {
+    AdaptiveSendWindow window = new AdaptiveSendWindow(100);
+    long now = 0;
+    for (int round = 1; round <= 10; round++)
+    {
+      acquireAll(window, now);
+      now += round * 10 * ONE_MS;
+      window.release(100, now);
+    }
+    final int shrunkWindow = window.getEffectiveWindow();
+    assertThat(shrunkWindow).isLessThan(100);
+
+    for (int round = 1; round <= 100; round++)
+    {
+      acquireAll(window, now);
+      now += ONE_MS;
+      window.release(100, now);
+    }
+    assertThat(window.getEffectiveWindow()).isGreaterThan(shrunkWindow);
+  }
+
+  @Test
+  public void testWindowOpensWhenAcknowledgementsStall() throws Exception
+  {
+    AdaptiveSendWindow window = new AdaptiveSendWindow(100);
+    acquireAll(window, 0);
+    window.release(50, 10 * ONE_MS);
+    window.release(50, 100 * ONE_MS);
+    final int effectiveWindow = window.getEffectiveWindow();
+    assertThat(acquireAll(window, 100 * ONE_MS)).isEqualTo(effectiveWindow);
+
+    assertThat(window.tryAcquire(10, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(window.getEffectiveWindow()).isEqualTo(100);
+  }
+}
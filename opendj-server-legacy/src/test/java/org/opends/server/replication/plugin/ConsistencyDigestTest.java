@@ -0,0 +1,227 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.TestCaseUtils.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.plugin.ConsistencyDigest.Status;
+import org.opends.server.types.Entry;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class ConsistencyDigestTest extends ReplicationTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("o=test");
+
+  private static Entry organization() throws Exception
+  {
+    return makeEntry(
+        "dn: o=test",
+        "objectClass: top",
+        "objectClass: organization",
+        "o: test");
+  }
+
+  private static Entry unit(String ou) throws Exception
+  {
+    return makeEntry(
+        "dn: ou=" + ou + ",o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: " + ou);
+  }
+
+  private static Entry person(String cn, String ou, String sn) throws Exception
+  {
+    return makeEntry(
+        "dn: cn=" + cn + ",ou=" + ou + ",o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "cn: " + cn,
+        "sn: " + sn);
+  }
+
+  private static ConsistencyDigest build(Entry... entries) throws Exception
+  {
+    ConsistencyDigest digest = new ConsistencyDigest(BASE_DN);
+    digest.startBuilding();
+    assertThat(digest.awaitWritesBeforeBuild(1)).isTrue();
+    for (Entry entry : entries)
+    {
+      digest.entryScanned(entry);
+    }
+    assertThat(digest.finishBuilding(true)).isTrue();
+    return digest;
+  }
+
+  private static int startWrite(ConsistencyDigest digest, Entry before, DN dn)
+  {
+    return digest.writeStarting(Collections.singletonMap(dn, before));
+  }
+
+  private static void add(ConsistencyDigest digest, Entry entry)
+  {
+    int write = startWrite(digest, null, entry.getName());
+    digest.entryAdded(write, entry);
+    digest.writeEnded(write);
+  }
+
+  private static void delete(ConsistencyDigest digest, Entry entry)
+  {
+    int write = startWrite(digest, entry, entry.getName());
+    digest.entryDeleted(write, entry);
+    digest.writeEnded(write);
+  }
+
+  private static void modify(ConsistencyDigest digest, Entry before, Entry after)
+  {
+    int write = startWrite(digest, before, before.getName());
+    digest.entryModified(write, before, after);
+    digest.writeEnded(write);
+  }
+
+  private static void rename(ConsistencyDigest digest, Entry before, Entry after, boolean hasDescendants)
+  {
+    Map<DN, Entry> entriesBefore = new HashMap<>();
+    entriesBefore.put(before.getName(), before);
+    entriesBefore.put(after.getName(), null);
+    int write = digest.writeStarting(entriesBefore);
+    digest.entryRenamed(write, before, after, hasDescendants);
+    digest.writeEnded(write);
+  }
+
+  private static void assertSameDigest(ConsistencyDigest digest, ConsistencyDigest expected)
+  {
+    assertThat(digest.getStatus()).isEqualTo(Status.READY);
+    assertThat(digest.getDigest()).isEqualTo(expected.getDigest());
+    assertThat(digest.getSubtreeDigests()).isEqualTo(expected.getSubtreeDigests());
+  }
+
+  @Test
+  public void testDigestDoesNotDependOnReadOrder() throws Exception
+  {
+    ConsistencyDigest digest1 = build(organization(), unit("a"), person("x", "a", "X"));
+    ConsistencyDigest digest2 = build(person("x", "a", "X"), organization(), unit("a"));
+
+    assertSameDigest(digest1, digest2);
+  }
+
+  @Test
+  public void testDigestDependsOnValues() throws Exception
+  {
+    assertThat(ConsistencyDigest.digest(person("x", "a", "X")))
+        .isNotEqualTo(ConsistencyDigest.digest(person("x", "a", "Y")))
+        .isNotEqualTo(ConsistencyDigest.digest(person("y", "a", "X")));
+  }
+
+  @Test
+  public void testIncrementalUpdatesMatchBuild() throws Exception
+  {
+    ConsistencyDigest digest = build(organization(), unit("a"), unit("b"), person("x", "a", "X"));
+
+    add(digest, person("y", "b", "Y"));
+    modify(digest, person("x", "a", "X"), person("x", "a", "Z"));
+    delete(digest, unit("b"));
+    rename(digest, person("y", "b", "Y"), person("y", "a", "Y"), false);
+
+    assertSameDigest(digest, build(organization(), unit("a"), person("x", "a", "Z"), person("y", "a", "Y")));
+  }
+
+  @Test
+  public void testSubtreeDigestsLocateDivergence() throws Exception
+  {
+    ConsistencyDigest digest1 =
+        build(organization(), unit("a"), unit("b"), person("x", "a", "X"), person("y", "b", "Y"));
+    ConsistencyDigest digest2 =
+        build(organization(), unit("a"), unit("b"), person("x", "a", "X"), person("y", "b", "Z"));
+    assertThat(digest1.getDigest()).isNotEqualTo(digest2.getDigest());
+
+    DN unitA = DN.valueOf("ou=a,o=test");
+    DN unitB = DN.valueOf("ou=b,o=test");
+    Map<DN, Long> subtrees1 = digest1.getSubtreeDigests();
+    Map<DN, Long> subtrees2 = digest2.getSubtreeDigests();
+    assertThat(subtrees1.keySet()).containsOnly(unitA, unitB);
+    assertThat(subtrees1.get(unitA)).isEqualTo(subtrees2.get(unitA));
+    assertThat(subtrees1.get(unitB)).isNotEqualTo(subtrees2.get(unitB));
+  }
+
+  @Test
+  public void testWritesWhileBuildingAreApplied() throws Exception
+  {
+    ConsistencyDigest digest = new ConsistencyDigest(BASE_DN);
+    // started before the build, the build reads its result
+    int writeBeforeBuild = startWrite(digest, person("x", "a", "X"), DN.valueOf("cn=x,ou=a,o=test"));
+
+    digest.startBuilding();
+    assertThat(digest.awaitWritesBeforeBuild(1)).isFalse();
+    digest.entryModified(writeBeforeBuild, person("x", "a", "X"), person("x", "a", "Y"));
+    digest.writeEnded(writeBeforeBuild);
+    assertThat(digest.awaitWritesBeforeBuild(1)).isTrue();
+
+    digest.entryScanned(organization());
+    digest.entryScanned(unit("a"));
+    digest.entryScanned(person("x", "a", "Y"));
+    // entries already read
+    modify(digest, person("x", "a", "Y"), person("x", "a", "Z"));
+    add(digest, person("v", "a", "V"));
+    // entry not read yet, read after the write is committed
+    int write = startWrite(digest, person("y", "b", "Y"), DN.valueOf("cn=y,ou=b,o=test"));
+    digest.entryScanned(unit("b"));
+    digest.entryScanned(person("y", "b", "W"));
+    digest.entryModified(write, person("y", "b", "Y"), person("y", "b", "W"));
+    digest.writeEnded(write);
+    // entry not read yet, deleted before being read
+    delete(digest, person("u", "c", "U"));
+    digest.entryScanned(unit("c"));
+    assertThat(digest.finishBuilding(true)).isTrue();
+
+    assertSameDigest(digest, build(organization(), unit("a"), unit("b"), unit("c"),
+        person("x", "a", "Z"), person("v", "a", "V"), person("y", "b", "W")));
+  }
+
+  @Test
+  public void testWritesWhileReadingOutOfOrderFailTheBuild() throws Exception
+  {
+    ConsistencyDigest digest = new ConsistencyDigest(BASE_DN);
+    digest.startBuilding();
+    assertThat(digest.awaitWritesBeforeBuild(1)).isTrue();
+    digest.entryScanned(unit("a"));
+    add(digest, unit("b"));
+    digest.entryScanned(organization());
+
+    assertThat(digest.finishBuilding(true)).isFalse();
+    assertThat(digest.getStatus()).isEqualTo(Status.OUTDATED);
+    assertThat(digest.getDigest()).isNull();
+  }
+
+  @Test
+  public void testRenamingEntryWithDescendantsOutdatesDigest() throws Exception
+  {
+    ConsistencyDigest digest = build(organization(), unit("a"), person("x", "a", "X"));
+
+    rename(digest, unit("a"), unit("c"), true);
+
+    assertThat(digest.getStatus()).isEqualTo(Status.OUTDATED);
+    assertThat(digest.getSubtreeDigests()).isEmpty();
+  }
+}
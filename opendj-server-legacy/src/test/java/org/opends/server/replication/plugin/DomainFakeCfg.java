@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -275,6 +275,12 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     return true;
   }
 
+  @Override
+  public boolean isConsistencyDigestEnabled()
+  {
+    return false;
+  }
+
   @Override
   public int getInitializationWindowSize()
   {
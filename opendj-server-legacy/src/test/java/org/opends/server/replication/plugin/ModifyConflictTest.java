@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.plugin;
 
@@ -1041,6 +1041,35 @@ public class ModifyConflictTest extends ReplicationTestCase
     assertEquals(hist.encodeAndPurge(), firstValue);
   }
 
+  /**
+   * Test that the historical information of the attributes that are not modified
+   * is kept and purged without being decoded.
+   */
+  @Test
+  public void historicalOfOtherAttributesIsKept() throws Exception
+  {
+    Entry entry = initializeEntry();
+    EntryHistorical hist = EntryHistorical.newInstanceFromEntry(entry);
+    testModify(entry, hist, 10, true, newModification(REPLACE, DESCRIPTION, "init value"));
+    testModify(entry, hist, 11, true, newModification(ADD, DISPLAYNAME, "aValue"));
+
+    // only the historical information of the description is decoded
+    hist = EntryHistorical.newInstanceFromEntry(entry);
+    testModify(entry, hist, 12, true, newModification(ADD, DESCRIPTION, "new value"));
+    AttributeBuilder builder = new AttributeBuilder(SYNCHIST);
+    builder.add(DESCRIPTION + ":000000000000000a000000000000:repl:init value");
+    builder.add(DESCRIPTION + ":000000000000000c000000000000:add:new value");
+    builder.add(DISPLAYNAME + ":000000000000000b000000000000:add:aValue");
+    assertEquals(hist.encodeAndPurge(), builder.toAttribute());
+
+    hist = EntryHistorical.newInstanceFromEntry(entry);
+    assertEquals(hist.getOldestCSN(), new CSN(10, 0, 0));
+    // all these changes are older than the purge delay
+    hist.setPurgeDelay(1000);
+    assertTrue(hist.encodeAndPurge().isEmpty());
+    assertEquals(hist.getLastPurgedValuesCount(), 3);
+  }
+
   /**
    * Check that the mods given as first parameter match the next parameters.
    *
@@ -0,0 +1,276 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.ModificationType.*;
+import static org.opends.server.TestCaseUtils.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSNGenerator;
+import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.replication.protocol.ModifyMsg;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the order in which the dependent remote changes are replayed. */
+@SuppressWarnings("javadoc")
+public class RemotePendingChangesTest extends ReplicationTestCase
+{
+  private CSNGenerator csnGenerator;
+  private RemotePendingChanges pendingChanges;
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    csnGenerator = new CSNGenerator(1, 0);
+    pendingChanges = new RemotePendingChanges(new ServerState());
+  }
+
+  private LDAPUpdateMsg add(String dn) throws Exception
+  {
+    Entry entry = makeEntry(
+        "dn: " + dn,
+        "objectClass: top",
+        "objectClass: extensibleObject");
+    return new AddMsg(csnGenerator.newCSN(), entry.getName(), "uuid " + dn, null,
+        entry.getObjectClassAttribute(), entry.getAllAttributes(), null);
+  }
+
+  private LDAPUpdateMsg delete(String dn) throws Exception
+  {
+    return new DeleteMsg(DN.valueOf(dn), csnGenerator.newCSN(), "uuid " + dn);
+  }
+
+  private LDAPUpdateMsg modify(String dn) throws Exception
+  {
+    List<Modification> mods = Arrays.asList(new Modification(REPLACE, Attributes.create("description", "modified")));
+    return new ModifyMsg(csnGenerator.newCSN(), DN.valueOf(dn), mods, "uuid " + dn);
+  }
+
+  private LDAPUpdateMsg rename(String dn, String newRDN, String newSuperior) throws Exception
+  {
+    return new ModifyDNMsg(DN.valueOf(dn), csnGenerator.newCSN(), "uuid " + dn,
+        newSuperior != null ? "uuid " + newSuperior : null, true, newSuperior, newRDN);
+  }
+
+  /** Receives the provided change and starts replaying it, as a replay thread does. */
+  private boolean replay(LDAPUpdateMsg msg) throws Exception
+  {
+    assertThat(pendingChanges.putRemoteUpdate(msg)).isTrue();
+    pendingChanges.markInProgress(msg);
+    return pendingChanges.checkDependencies(msg.createOperation(InternalClientConnection.getRootConnection()), msg);
+  }
+
+  private void assertNoUpdateReady()
+  {
+    assertThat(pendingChanges.getNextUpdate()).isNull();
+  }
+
+  private void assertUpdatesReady(LDAPUpdateMsg... msgs)
+  {
+    for (LDAPUpdateMsg msg : msgs)
+    {
+      assertThat(pendingChanges.getNextUpdate()).isSameAs(msg);
+    }
+    assertNoUpdateReady();
+  }
+
+  @Test
+  public void testIndependentChanges() throws Exception
+  {
+    assertThat(replay(add("ou=a,o=test"))).isFalse();
+    assertThat(replay(add("ou=b,o=test"))).isFalse();
+    assertThat(replay(modify("ou=c,o=test"))).isFalse();
+    assertThat(replay(delete("ou=d,o=test"))).isFalse();
+    assertThat(replay(rename("ou=e,o=test", "ou=f", null))).isFalse();
+    assertThat(pendingChanges.getDependentChangesSize()).isZero();
+  }
+
+  @Test
+  public void testAddDependsOnParentAdd() throws Exception
+  {
+    LDAPUpdateMsg addParent = add("ou=a,o=test");
+    LDAPUpdateMsg addChild = add("cn=x,ou=a,o=test");
+    assertThat(replay(addParent)).isFalse();
+    assertThat(replay(addChild)).isTrue();
+    assertNoUpdateReady();
+
+    pendingChanges.commit(addParent.getCSN());
+    assertUpdatesReady(addChild);
+  }
+
+  @Test
+  public void testAddDependsOnDeleteOfSameDN() throws Exception
+  {
+    LDAPUpdateMsg delete = delete("ou=a,o=test");
+    LDAPUpdateMsg add = add("ou=a,o=test");
+    assertThat(replay(delete)).isFalse();
+    assertThat(replay(add)).isTrue();
+
+    pendingChanges.commit(delete.getCSN());
+    assertUpdatesReady(add);
+  }
+
+  /** The entry is renamed, then a child is added under its new DN. */
+  @Test
+  public void testAddUnderRenamedEntry() throws Exception
+  {
+    LDAPUpdateMsg rename = rename("ou=a,o=test", "ou=b", null);
+    LDAPUpdateMsg addChild = add("cn=x,ou=b,o=test");
+    assertThat(replay(rename)).isFalse();
+    assertThat(replay(addChild)).isTrue();
+    assertNoUpdateReady();
+
+    pendingChanges.commit(rename.getCSN());
+    assertUpdatesReady(addChild);
+  }
+
+  @Test
+  public void testDeleteDependsOnChildrenDeletes() throws Exception
+  {
+    LDAPUpdateMsg deleteChild1 = delete("cn=x,ou=a,o=test");
+    LDAPUpdateMsg deleteChild2 = delete("cn=y,ou=a,o=test");
+    LDAPUpdateMsg deleteParent = delete("ou=a,o=test");
+    assertThat(replay(deleteChild1)).isFalse();
+    assertThat(replay(deleteChild2)).isFalse();
+    assertThat(replay(deleteParent)).isTrue();
+
+    pendingChanges.commit(deleteChild2.getCSN());
+    assertNoUpdateReady();
+    pendingChanges.commit(deleteChild1.getCSN());
+    assertUpdatesReady(deleteParent);
+  }
+
+  @Test
+  public void testDeleteDependsOnRenameOfChild() throws Exception
+  {
+    LDAPUpdateMsg renameChild = rename("cn=x,ou=a,o=test", "cn=y", null);
+    LDAPUpdateMsg deleteParent = delete("ou=a,o=test");
+    assertThat(replay(renameChild)).isFalse();
+    assertThat(replay(deleteParent)).isTrue();
+
+    pendingChanges.commit(renameChild.getCSN());
+    assertUpdatesReady(deleteParent);
+  }
+
+  @Test
+  public void testModifyDependsOnAddOfSameDN() throws Exception
+  {
+    LDAPUpdateMsg add = add("ou=a,o=test");
+    LDAPUpdateMsg modify = modify("ou=a,o=test");
+    assertThat(replay(add)).isFalse();
+    assertThat(replay(modify)).isTrue();
+
+    pendingChanges.commit(add.getCSN());
+    assertUpdatesReady(modify);
+  }
+
+  @Test
+  public void testModifyDependsOnRenameToSameDN() throws Exception
+  {
+    LDAPUpdateMsg rename = rename("ou=a,o=test", "ou=b", null);
+    LDAPUpdateMsg modify = modify("ou=b,o=test");
+    assertThat(replay(rename)).isFalse();
+    assertThat(replay(modify)).isTrue();
+
+    pendingChanges.commit(rename.getCSN());
+    assertUpdatesReady(modify);
+  }
+
+  @Test
+  public void testModDNDependsOnAddOfNewSuperior() throws Exception
+  {
+    LDAPUpdateMsg addSuperior = add("ou=b,o=test");
+    LDAPUpdateMsg rename = rename("cn=x,ou=a,o=test", "cn=x", "ou=b,o=test");
+    assertThat(replay(addSuperior)).isFalse();
+    assertThat(replay(rename)).isTrue();
+
+    pendingChanges.commit(addSuperior.getCSN());
+    assertUpdatesReady(rename);
+  }
+
+  @Test
+  public void testModDNDependsOnDeleteOfNewDN() throws Exception
+  {
+    LDAPUpdateMsg delete = delete("ou=b,o=test");
+    LDAPUpdateMsg rename = rename("ou=a,o=test", "ou=b", null);
+    assertThat(replay(delete)).isFalse();
+    assertThat(replay(rename)).isTrue();
+
+    pendingChanges.commit(delete.getCSN());
+    assertUpdatesReady(rename);
+  }
+
+  /** A dependent change is ready as soon as its own dependencies are committed, not all the older changes. */
+  @Test
+  public void testDependentChangeOnlyWaitsForItsDependencies() throws Exception
+  {
+    LDAPUpdateMsg addA = add("ou=a,o=test");
+    LDAPUpdateMsg addB = add("ou=b,o=test");
+    LDAPUpdateMsg addChildA = add("cn=x,ou=a,o=test");
+    LDAPUpdateMsg addChildB = add("cn=x,ou=b,o=test");
+    assertThat(replay(addA)).isFalse();
+    assertThat(replay(addB)).isFalse();
+    assertThat(replay(addChildA)).isTrue();
+    assertThat(replay(addChildB)).isTrue();
+
+    pendingChanges.commit(addB.getCSN());
+    assertUpdatesReady(addChildB);
+    pendingChanges.commit(addA.getCSN());
+    assertUpdatesReady(addChildA);
+  }
+
+  @Test
+  public void testNoDependencyOnCommittedChange() throws Exception
+  {
+    LDAPUpdateMsg addParent = add("ou=a,o=test");
+    assertThat(replay(addParent)).isFalse();
+    pendingChanges.commit(addParent.getCSN());
+
+    assertThat(replay(add("cn=x,ou=a,o=test"))).isFalse();
+    assertNoUpdateReady();
+  }
+
+  @Test
+  public void testServerStateFollowsCommitOrder() throws Exception
+  {
+    ServerState state = new ServerState();
+    pendingChanges = new RemotePendingChanges(state);
+    LDAPUpdateMsg addA = add("ou=a,o=test");
+    LDAPUpdateMsg addB = add("ou=b,o=test");
+    replay(addA);
+    replay(addB);
+
+    pendingChanges.commit(addB.getCSN());
+    assertThat(state.cover(addB.getCSN())).isFalse();
+    pendingChanges.commit(addA.getCSN());
+    assertThat(state.cover(addB.getCSN())).isTrue();
+    assertThat(pendingChanges.getQueueSize()).isZero();
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.replication.protocol.ProtocolVersion.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.util.StaticUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the frames exchanged by the replication sessions. */
+@SuppressWarnings("javadoc")
+public class SessionTest extends DirectoryServerTestCase
+{
+  private Socket clientSocket;
+  private Socket serverSocket;
+  private final List<Session> sessions = new ArrayList<>();
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  @BeforeMethod
+  public void connect() throws Exception
+  {
+    try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+    {
+      clientSocket = new Socket(listener.getInetAddress(), listener.getLocalPort());
+      serverSocket = listener.accept();
+    }
+  }
+
+  @AfterMethod
+  public void disconnect() throws Exception
+  {
+    for (Session session : sessions)
+    {
+      session.close();
+    }
+    sessions.clear();
+    StaticUtils.close(clientSocket, serverSocket);
+  }
+
+  /** Returns a clear text session on the provided socket. */
+  private Session newSession(Socket socket, short protocolVersion) throws IOException
+  {
+    SSLSocket secureSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(
+        socket, socket.getInetAddress().getHostName(), socket.getPort(), false);
+    Session session = new Session(socket, secureSocket);
+    session.stopEncryption();
+    session.setProtocolVersion(protocolVersion);
+    sessions.add(session);
+    return session;
+  }
+
+  /** Returns a message large enough to be compressed, and easy to compress. */
+  private static EntryMsg newEntryMsg(int msgId)
+  {
+    StringBuilder ldif = new StringBuilder();
+    for (int i = 0; i < 20; i++)
+    {
+      ldif.append("dn: uid=user.").append(msgId).append('.').append(i).append(",ou=people,o=test\n")
+          .append("objectClass: inetOrgPerson\nuid: user.").append(msgId).append('.').append(i).append("\n\n");
+    }
+    return new EntryMsg(1, 2, ldif.toString().getBytes(), msgId);
+  }
+
+  private static void assertReceived(Session session, EntryMsg expected) throws Exception
+  {
+    ReplicationMsg msg = session.receive();
+    assertThat(msg).isInstanceOf(EntryMsg.class);
+    EntryMsg entryMsg = (EntryMsg) msg;
+    assertThat(entryMsg.getMsgId()).isEqualTo(expected.getMsgId());
+    assertThat(entryMsg.getEntryBytes()).isEqualTo(expected.getEntryBytes());
+  }
+
+  @Test(timeOut = 30000)
+  public void testCompressedFramesRoundTrip() throws Exception
+  {
+    Session sender = newSession(clientSocket, REPLICATION_PROTOCOL_V9);
+    sender.setCompressionEnabled(true);
+    Session receiver = newSession(serverSocket, REPLICATION_PROTOCOL_V9);
+
+    // the compression dictionary is kept from one frame to the next
+    for (int i = 1; i <= 10; i++)
+    {
+      EntryMsg msg = newEntryMsg(i);
+      sender.publish(msg);
+      assertReceived(receiver, msg);
+    }
+  }
+
+  @Test(timeOut = 30000)
+  public void testCompressedFramesAreSentToV9Peer() throws Exception
+  {
+    Session sender = newSession(clientSocket, REPLICATION_PROTOCOL_V9);
+    sender.setCompressionEnabled(true);
+
+    sender.publish(newEntryMsg(1));
+
+    assertThat(new DataInputStream(serverSocket.getInputStream()).readByte()).isEqualTo((byte) 'z');
+  }
+
+  @Test(timeOut = 30000)
+  public void testBatchedFramesRoundTrip() throws Exception
+  {
+    Session sender = newSession(clientSocket, REPLICATION_PROTOCOL_V9);
+    sender.setCompressionEnabled(true);
+    sender.start();
+    sender.waitForStartup();
+    Session receiver = newSession(serverSocket, REPLICATION_PROTOCOL_V9);
+
+    // the messages queued while the previous ones are sent are batched
+    List<EntryMsg> msgs = new ArrayList<>();
+    for (int i = 1; i <= 500; i++)
+    {
+      EntryMsg msg = i % 2 == 0 ? newEntryMsg(i) : new EntryMsg(1, 2, new byte[] { 'x' }, i);
+      msgs.add(msg);
+      sender.publish(msg);
+    }
+    for (EntryMsg msg : msgs)
+    {
+      assertReceived(receiver, msg);
+    }
+  }
+
+  @Test(timeOut = 30000)
+  public void testBatchedFramesRoundTripWithoutCompression() throws Exception
+  {
+    Session sender = newSession(clientSocket, REPLICATION_PROTOCOL_V9);
+    sender.start();
+    sender.waitForStartup();
+    Session receiver = newSession(serverSocket, REPLICATION_PROTOCOL_V9);
+
+    List<EntryMsg> msgs = new ArrayList<>();
+    for (int i = 1; i <= 500; i++)
+    {
+      EntryMsg msg = newEntryMsg(i);
+      msgs.add(msg);
+      sender.publish(msg);
+    }
+    for (EntryMsg msg : msgs)
+    {
+      assertReceived(receiver, msg);
+    }
+  }
+
+  /** A peer which does not support the compressed frames must never receive one. */
+  @Test(timeOut = 30000)
+  public void testNoCompressedFramesToV8Peer() throws Exception
+  {
+    Session sender = newSession(clientSocket, REPLICATION_PROTOCOL_V8);
+    sender.setCompressionEnabled(true);
+    EntryMsg msg = newEntryMsg(1);
+
+    sender.publish(msg);
+
+    DataInputStream peerInput = new DataInputStream(serverSocket.getInputStream());
+    byte[] header = new byte[8];
+    peerInput.readFully(header);
+    assertThat(header[0]).isNotEqualTo((byte) 'z');
+    int length = Integer.parseInt(new String(header), 16);
+    assertThat(length).isEqualTo(msg.getBytes(REPLICATION_PROTOCOL_V8).length);
+    byte[] bytes = new byte[length];
+    peerInput.readFully(bytes);
+    EntryMsg received = (EntryMsg) ReplicationMsg.generateMsg(bytes, REPLICATION_PROTOCOL_V8);
+    assertThat(received.getEntryBytes()).isEqualTo(msg.getEntryBytes());
+  }
+}
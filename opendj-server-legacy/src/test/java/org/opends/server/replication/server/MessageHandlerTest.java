@@ -0,0 +1,176 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateRingBuffer.PublishedUpdate;
+import org.opends.server.replication.server.changelog.api.DBCursor;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class MessageHandlerTest extends DirectoryServerTestCase
+{
+  private static final int REPLICA1 = 1;
+  private static final int REPLICA2 = 2;
+
+  private final UpdateMsg a1 = update(10, REPLICA1);
+  private final UpdateMsg b1 = update(20, REPLICA2);
+  private final UpdateMsg a2 = update(30, REPLICA1);
+
+  private static UpdateMsg update(long time, int serverId)
+  {
+    return new UpdateMsg(new CSN(time, 0, serverId), new byte[1]);
+  }
+
+  /**
+   * The updates of different replicas are published in the ring in arrival order: the server must not
+   * skip an update which arrived before the first missing update in CSN order.
+   */
+  @Test(timeOut = 10000)
+  public void testCatchUpWithOutOfOrderArrivals() throws Exception
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(10);
+    publish(ring, b1, a1, a2);
+
+    MessageHandler handler = newMessageHandler(ring, a1, b1, a2);
+
+    assertThat(getNextCSNs(handler, 3)).containsOnly(a1.getCSN(), b1.getCSN(), a2.getCSN());
+  }
+
+  /** When the first missing update of a replica is no longer in the ring, the server reads the changelog. */
+  @Test
+  public void testCatchUpWithOverwrittenUpdate() throws Exception
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(2);
+    publish(ring, b1, a1, a2);
+
+    MessageHandler handler = newMessageHandler(ring, a1, b1, a2);
+
+    assertThat(getNextCSNs(handler, 3)).containsExactly(a1.getCSN(), b1.getCSN(), a2.getCSN());
+  }
+
+  /** Updates already sent from the changelog are not sent again when reading the ring. */
+  @Test
+  public void testUpdatesAreSentOnce() throws Exception
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(10);
+    publish(ring, b1, a1);
+
+    MessageHandler handler = newMessageHandler(ring, a1, b1);
+    assertThat(getNextCSNs(handler, 2)).containsOnly(a1.getCSN(), b1.getCSN());
+
+    publish(ring, a2);
+    assertThat(getNextCSNs(handler, 1)).containsExactly(a2.getCSN());
+  }
+
+  private void publish(UpdateRingBuffer ring, UpdateMsg... updates)
+  {
+    for (UpdateMsg update : updates)
+    {
+      ring.publish(update, null, Collections.<Integer> emptyList(), null, true);
+    }
+  }
+
+  /** Returns a handler which has sent nothing yet, with a changelog holding the provided updates. */
+  private MessageHandler newMessageHandler(UpdateRingBuffer ring, final UpdateMsg... changelog) throws Exception
+  {
+    ReplicationServerDomain domain = mock(ReplicationServerDomain.class);
+    when(domain.getUpdates()).thenReturn(ring);
+    when(domain.getCursorFrom(any(ServerState.class))).thenAnswer(new Answer<DBCursor<UpdateMsg>>()
+    {
+      @Override
+      public DBCursor<UpdateMsg> answer(InvocationOnMock invocation) throws Throwable
+      {
+        return cursor(((ServerState) invocation.getArguments()[0]).duplicate(), changelog);
+      }
+    });
+    when(domain.getUpdateToSend(any(PublishedUpdate.class), any(MessageHandler.class))).thenAnswer(
+        new Answer<UpdateMsg>()
+        {
+          @Override
+          public UpdateMsg answer(InvocationOnMock invocation) throws Throwable
+          {
+            return ((PublishedUpdate) invocation.getArguments()[0]).getUpdate();
+          }
+        });
+
+    MessageHandler handler = new MessageHandler(100, null);
+    handler.replicationServerDomain = domain;
+    handler.setInitialServerState(new ServerState());
+    return handler;
+  }
+
+  /** Returns a cursor on the updates of the changelog which are not covered by the provided server state. */
+  private static DBCursor<UpdateMsg> cursor(ServerState startAfter, UpdateMsg... changelog)
+  {
+    final List<UpdateMsg> records = new ArrayList<>();
+    for (UpdateMsg update : changelog)
+    {
+      if (!startAfter.cover(update.getCSN()))
+      {
+        records.add(update);
+      }
+    }
+    final Iterator<UpdateMsg> it = records.iterator();
+    return new DBCursor<UpdateMsg>()
+    {
+      private UpdateMsg current;
+
+      @Override
+      public UpdateMsg getRecord()
+      {
+        return current;
+      }
+
+      @Override
+      public boolean next()
+      {
+        current = it.hasNext() ? it.next() : null;
+        return current != null;
+      }
+
+      @Override
+      public void close()
+      {
+        // nothing to do
+      }
+    };
+  }
+
+  private List<CSN> getNextCSNs(MessageHandler handler, int count) throws Exception
+  {
+    final CSN[] csns = new CSN[count];
+    for (int i = 0; i < count; i++)
+    {
+      csns[i] = handler.getNextMessage().getCSN();
+    }
+    return Arrays.asList(csns);
+  }
+}
@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2007-2009 Sun Microsystems, Inc.
- * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2013-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server;
 
@@ -215,6 +215,12 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
     return confidentialityEnabled;
   }
 
+  @Override
+  public boolean isCompressionEnabled()
+  {
+    return false;
+  }
+
   @Override
   public long getAssuredTimeout()
   {
@@ -0,0 +1,116 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateRingBuffer.PublishedUpdate;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class UpdateRingBufferTest extends DirectoryServerTestCase
+{
+  private static UpdateMsg update(int t)
+  {
+    return new UpdateMsg(new CSN(t, t, t), new byte[1]);
+  }
+
+  private static long publish(UpdateRingBuffer ring, UpdateMsg update)
+  {
+    return ring.publish(update, null, Collections.<Integer> emptyList(), null, true);
+  }
+
+  @Test
+  public void testReadPublishedUpdates() throws Exception
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(3);
+    assertThat(ring.get(0)).isNull();
+
+    UpdateMsg first = update(1);
+    UpdateMsg second = update(2);
+    assertThat(publish(ring, first)).isEqualTo(0);
+    assertThat(publish(ring, second)).isEqualTo(1);
+
+    assertThat(ring.get(0).getUpdate()).isSameAs(first);
+    assertThat(ring.await(1, 10).getUpdate()).isSameAs(second);
+    assertThat(ring.await(2, 10)).isNull();
+    assertThat(ring.getNextSequence()).isEqualTo(2);
+  }
+
+  @Test
+  public void testOldestUpdatesAreOverwritten()
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(2);
+    for (int i = 1; i <= 3; i++)
+    {
+      publish(ring, update(i));
+    }
+
+    assertThat(ring.get(0)).isSameAs(UpdateRingBuffer.OVERWRITTEN);
+    assertThat(ring.get(1).getUpdate().getCSN()).isEqualTo(new CSN(2, 2, 2));
+    assertThat(ring.get(2).getUpdate().getCSN()).isEqualTo(new CSN(3, 3, 3));
+  }
+
+  @Test
+  public void testFindSequence()
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(2);
+    for (int i = 1; i <= 3; i++)
+    {
+      publish(ring, update(i));
+    }
+
+    assertThat(ring.findFirstSequence(newHashSet(new CSN(1, 1, 1)))).isEqualTo(-1);
+    assertThat(ring.findFirstSequence(newHashSet(new CSN(3, 3, 3)))).isEqualTo(2);
+    assertThat(ring.findFirstSequence(newHashSet(new CSN(3, 3, 3), new CSN(2, 2, 2)))).isEqualTo(1);
+    assertThat(ring.findFirstSequence(newHashSet(new CSN(3, 3, 3), new CSN(1, 1, 1)))).isEqualTo(-1);
+  }
+
+  @Test
+  public void testBytesFrom()
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(2);
+    final int size = update(1).size();
+    for (int i = 1; i <= 3; i++)
+    {
+      publish(ring, update(i));
+    }
+
+    assertThat(ring.getBytesFrom(0)).isEqualTo(2 * size);
+    assertThat(ring.getBytesFrom(2)).isEqualTo(size);
+    assertThat(ring.getBytesFrom(3)).isEqualTo(0);
+  }
+
+  @Test
+  public void testUpdateForNonAssuredServers() throws Exception
+  {
+    UpdateRingBuffer ring = new UpdateRingBuffer(2);
+    UpdateMsg update = update(1);
+    NotAssuredUpdateMsg notAssuredUpdate = new NotAssuredUpdateMsg(update);
+    ring.publish(update, notAssuredUpdate, Arrays.asList(1, 2), null, true);
+
+    PublishedUpdate published = ring.get(0);
+    assertThat(published.getUpdateFor(1)).isSameAs(update);
+    assertThat(published.getUpdateFor(3)).isSameAs(notAssuredUpdate);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.server.changelog.api.ChangelogException;
+import org.opends.server.util.StaticUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class LogFileIndexTest extends DirectoryServerTestCase
+{
+  private static final File TEST_DIRECTORY = new File(TestCaseUtils.getUnitTestRootPath(), "changelog-index-unit");
+  private static final File TEST_LOG_FILE = new File(TEST_DIRECTORY, "1_10.log");
+  private static final RecordParser<Integer, Integer> KEY_PARSER = new IntKeyParser();
+
+  @BeforeClass
+  public void createTestDirectory()
+  {
+    TEST_DIRECTORY.mkdirs();
+  }
+
+  @AfterClass
+  public void cleanTestDirectory()
+  {
+    StaticUtils.recursiveDelete(TEST_DIRECTORY);
+  }
+
+  /** Index records 1 to 10, each taking 10 bytes, indexing one record every 30 bytes. */
+  private LogFileIndex<Integer> newIndex()
+  {
+    LogFileIndex<Integer> index = new LogFileIndex<>(30);
+    for (int i = 1; i <= 10; i++)
+    {
+      index.recordWritten(i, (i - 1) * 10, i * 10);
+    }
+    return index;
+  }
+
+  @Test
+  public void testIndexIsSparse()
+  {
+    LogFileIndex<Integer> index = newIndex();
+
+    // records 1, 4, 7 and 10 are indexed
+    assertThat(index.size()).isEqualTo(4);
+    assertThat(index.getIndexedLength()).isEqualTo(100);
+  }
+
+  @Test
+  public void testGetPositionBefore()
+  {
+    LogFileIndex<Integer> index = newIndex();
+
+    assertThat(index.getPositionBefore(0)).isEqualTo(0);
+    assertThat(index.getPositionBefore(1)).isEqualTo(0);
+    assertThat(index.getPositionBefore(4)).isEqualTo(0);
+    assertThat(index.getPositionBefore(5)).isEqualTo(30);
+    assertThat(index.getPositionBefore(7)).isEqualTo(30);
+    assertThat(index.getPositionBefore(8)).isEqualTo(60);
+    assertThat(index.getPositionBefore(11)).isEqualTo(90);
+  }
+
+  @Test
+  public void testWriteThenRead() throws Exception
+  {
+    File indexFile = LogFileIndex.getIndexFile(TEST_LOG_FILE);
+    newIndex().writeTo(indexFile, KEY_PARSER);
+
+    LogFileIndex<Integer> index = LogFileIndex.readFrom(indexFile, KEY_PARSER, 100);
+    assertThat(index).isNotNull();
+    assertThat(index.size()).isEqualTo(4);
+    assertThat(index.getIndexedLength()).isEqualTo(100);
+    assertThat(index.getPositionBefore(8)).isEqualTo(60);
+  }
+
+  @Test
+  public void testReadIgnoresOutdatedIndex() throws Exception
+  {
+    File indexFile = LogFileIndex.getIndexFile(TEST_LOG_FILE);
+    newIndex().writeTo(indexFile, KEY_PARSER);
+
+    assertThat(LogFileIndex.readFrom(indexFile, KEY_PARSER, 120)).isNull();
+  }
+
+  @Test
+  public void testReadMissingIndex() throws Exception
+  {
+    File indexFile = LogFileIndex.getIndexFile(new File(TEST_DIRECTORY, "missing.log"));
+    assertThat(LogFileIndex.readFrom(indexFile, KEY_PARSER, 0)).isNull();
+  }
+
+  /** Parser only able to encode and decode keys. */
+  private static class IntKeyParser implements RecordParser<Integer, Integer>
+  {
+    @Override
+    public Record<Integer, Integer> decodeRecord(ByteString data) throws DecodingException
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ByteString encodeRecord(Record<Integer, Integer> record)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer decodeKeyFromString(String key) throws ChangelogException
+    {
+      return Integer.valueOf(key);
+    }
+
+    @Override
+    public String encodeKeyToString(Integer key)
+    {
+      return String.valueOf(key);
+    }
+
+    @Override
+    public Integer getMaxKey()
+    {
+      return Integer.MAX_VALUE;
+    }
+  }
+}
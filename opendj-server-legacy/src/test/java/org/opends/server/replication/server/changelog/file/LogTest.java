@@ -11,7 +11,7 @@
  * Header, with the fields enclosed by brackets [] replaced by your own identifying
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
- * Copyright 2014-2016 ForgeRock AS.
+ * Copyright 2014-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -412,8 +412,8 @@ public class LogTest extends DirectoryServerTestCase
   /**
    * Similar to testPurge() test but with a concurrent cursor opened before starting the purge.
    * <p>
-   * For all keys but "key000" the concurrent cursor should be aborted because the corresponding log file
-   * has been purged.
+   * For all keys but "key000" the concurrent cursor should be aborted once it has read the log file
+   * it was positioned on, because this log file and the following one have been purged.
    */
   @Test(dataProvider="purgeKeys")
   public void testPurgeWithConcurrentCursorOpened(String purgeKey, Record<String,String> firstRecordExpectedAfterPurge,
@@ -433,7 +433,7 @@ public class LogTest extends DirectoryServerTestCase
       assertThat(cursor.getRecord()).isEqualTo(firstRecordExpectedAfterPurge);
       assertThatCursorCanBeFullyRead(cursor, cursorStartIndex, cursorEndIndex);
 
-      // concurrent cursor is expected to be aborted on the next() call for all cases but one
+      // concurrent cursor is expected to be aborted when leaving its log file for all cases but one
       assertThat(concurrentCursor.getRecord()).isEqualTo(Record.from("key001", "value1"));
       if (purgeKey.equals("key000"))
       {
@@ -442,7 +442,8 @@ public class LogTest extends DirectoryServerTestCase
       }
       else
       {
-        // in other cases cursor should be aborted
+        // in other cases cursor can still read its purged log file, then should be aborted
+        advanceCursorUpTo(concurrentCursor, 2, 2);
         try
         {
           concurrentCursor.next();
@@ -459,6 +460,74 @@ public class LogTest extends DirectoryServerTestCase
     }
   }
 
+  /**
+   * A cursor reading a log file when it is purged keeps reading it, then continues with the oldest
+   * log file because no other log file was purged. The purged log file is deleted once the cursor
+   * has left it.
+   */
+  @Test
+  public void testPurgeKeepsLogFileReadByCursor() throws Exception
+  {
+    final File purgedLogFile = new File(LOG_DIRECTORY, "key001_key002.log");
+    try (Log<String, String> log = openLog(LogFileTest.RECORD_PARSER);
+        DBCursor<Record<String, String>> concurrentCursor = log.getCursor())
+    {
+      concurrentCursor.next();
+      assertThat(concurrentCursor.getRecord()).isEqualTo(Record.from("key001", "value1"));
+
+      assertThat(log.purgeUpTo("key003")).isEqualTo(Record.from("key003", "value3"));
+      assertThat(purgedLogFile).exists();
+
+      assertThatCursorCanBeFullyRead(concurrentCursor, 2, 10);
+      assertThat(purgedLogFile).doesNotExist();
+    }
+  }
+
+  /** A purged log file still read by a cursor when the log is closed is deleted by the close. */
+  @Test
+  public void testCloseDeletesPurgedLogFileReadByCursor() throws Exception
+  {
+    final File purgedLogFile = new File(LOG_DIRECTORY, "key001_key002.log");
+    final Log<String, String> log = openLog(LogFileTest.RECORD_PARSER);
+    final DBCursor<Record<String, String>> concurrentCursor = log.getCursor();
+    try
+    {
+      try
+      {
+        concurrentCursor.next();
+        assertThat(log.purgeUpTo("key003")).isEqualTo(Record.from("key003", "value3"));
+        assertThat(purgedLogFile).exists();
+      }
+      finally
+      {
+        log.close();
+      }
+      assertThat(purgedLogFile).doesNotExist();
+      assertThat(new File(LOG_DIRECTORY, "key001_key002.log.purged")).doesNotExist();
+    }
+    finally
+    {
+      concurrentCursor.close();
+    }
+  }
+
+  /** A purged log file left on disk because the server stopped while a cursor read it is deleted on opening. */
+  @Test
+  public void testOpenDeletesPurgedLogFileLeftOnDisk() throws Exception
+  {
+    final File purgedLogFile = new File(LOG_DIRECTORY, "key001_key002.log");
+    final File marker = new File(LOG_DIRECTORY, "key001_key002.log.purged");
+    assertThat(marker.createNewFile()).isTrue();
+
+    try (Log<String, String> log = openLog(LogFileTest.RECORD_PARSER);
+        DBCursor<Record<String, String>> cursor = log.getCursor())
+    {
+      assertThat(purgedLogFile).doesNotExist();
+      assertThat(marker).doesNotExist();
+      assertThatCursorCanBeFullyRead(cursor, 3, 10);
+    }
+  }
+
   static final Mapper<String, Integer> MAPPER = new Record.Mapper<String, Integer>()
       {
         @Override
@@ -0,0 +1,198 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class ReplInputStreamTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  @Test(timeOut = 10000)
+  public void testReadsTheReceivedEntries() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn(bytes("dn: o=a\n\n"), bytes("dn: o=b\n\n"), null);
+
+    ReplInputStream input = new ReplInputStream(domain);
+    assertThat(readFully(input, 4)).isEqualTo("dn: o=a\n\ndn: o=b\n\n");
+    input.close();
+
+    verify(domain, times(3)).receiveEntryBytes();
+  }
+
+  /** The exporter must not get ahead of the import: the entries are acknowledged once they have been read. */
+  @Test(timeOut = 10000)
+  public void testEntriesAreAcknowledgedOnceRead() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn(bytes("dn: o=a\n\n"), bytes("dn: o=b\n\n"), null);
+
+    ReplInputStream input = new ReplInputStream(domain);
+    byte[] buffer = new byte[5];
+    assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(5);
+    verify(domain, never()).entryBytesImported();
+
+    assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(4);
+    verify(domain, times(1)).entryBytesImported();
+
+    assertThat(readFully(input, buffer.length)).isEqualTo("dn: o=b\n\n");
+    verify(domain, times(2)).entryBytesImported();
+    input.close();
+  }
+
+  /** Closing the stream must stop the receiver even when no more message comes from the exporter. */
+  @Test(timeOut = 10000)
+  public void testCloseStopsTheReceiver() throws Exception
+  {
+    final CountDownLatch receiving = new CountDownLatch(1);
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn(bytes("dn: o=a\n\n")).thenAnswer(new Answer<byte[]>()
+    {
+      @Override
+      public byte[] answer(InvocationOnMock invocation) throws Throwable
+      {
+        receiving.countDown();
+        try
+        {
+          Thread.sleep(Long.MAX_VALUE);
+        }
+        catch (InterruptedException e)
+        {
+          // the import has been abandoned
+        }
+        return null;
+      }
+    });
+
+    ReplInputStream input = new ReplInputStream(domain);
+    assertThat(input.read(new byte[100], 0, 100)).isEqualTo(9);
+    receiving.await();
+
+    input.close();
+    assertThat(input.read(new byte[100], 0, 100)).isEqualTo(-1);
+  }
+
+  /** A receiver failing after the first entries must fail the import rather than truncate it. */
+  @Test(timeOut = 10000)
+  public void testRuntimeExceptionWhileReceivingFailsTheRead() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenReturn(bytes("dn: o=a\n\n")).thenThrow(new IllegalStateException());
+
+    ReplInputStream input = new ReplInputStream(domain);
+    assertThat(input.read(new byte[100], 0, 100)).isEqualTo(9);
+    try
+    {
+      input.read(new byte[100], 0, 100);
+      fail("Expected the receive error to be reported");
+    }
+    catch (IOException e)
+    {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+    input.close();
+  }
+
+  /** The receive error must be delivered once the importer has read the entries filling the queue. */
+  @Test(timeOut = 10000)
+  public void testReceiveErrorIsDeliveredAfterAFullQueue() throws Exception
+  {
+    final int nbEntries = 100;
+    final AtomicInteger received = new AtomicInteger();
+    final CountDownLatch failed = new CountDownLatch(1);
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    when(domain.receiveEntryBytes()).thenAnswer(new Answer<byte[]>()
+    {
+      @Override
+      public byte[] answer(InvocationOnMock invocation) throws Throwable
+      {
+        if (received.incrementAndGet() <= nbEntries)
+        {
+          return bytes("dn: o=a\n\n");
+        }
+        failed.countDown();
+        throw new IllegalStateException();
+      }
+    });
+
+    ReplInputStream input = new ReplInputStream(domain);
+    byte[] buffer = new byte[9];
+    assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(9);
+    // let the receiver fill the queue before it fails
+    while (received.get() <= nbEntries / 2)
+    {
+      Thread.sleep(10);
+    }
+    for (int i = 1; i < nbEntries; i++)
+    {
+      assertThat(input.read(buffer, 0, buffer.length)).isEqualTo(9);
+    }
+    failed.await();
+    try
+    {
+      input.read(buffer, 0, buffer.length);
+      fail("Expected the receive error to be reported");
+    }
+    catch (IOException expected)
+    {
+      // nothing to do
+    }
+    input.close();
+  }
+
+  private static byte[] bytes(String s)
+  {
+    return s.getBytes();
+  }
+
+  private static String readFully(ReplInputStream input, int bufferSize) throws Exception
+  {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[bufferSize];
+    int length;
+    while ((length = input.read(buffer, 0, buffer.length)) != -1)
+    {
+      output.write(buffer, 0, length);
+    }
+    return output.toString();
+  }
+}
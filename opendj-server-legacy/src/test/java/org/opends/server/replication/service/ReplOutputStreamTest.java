@@ -0,0 +1,185 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.replication.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+public class ReplOutputStreamTest extends DirectoryServerTestCase
+{
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startFakeServer();
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception
+  {
+    TestCaseUtils.shutdownFakeServer();
+  }
+
+  /** Returns a domain recording the chunks it sends. */
+  private static ReplicationDomain newDomain(final List<String> sentChunks) throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable
+      {
+        Object[] args = invocation.getArguments();
+        byte[] bytes = (byte[]) args[0];
+        int pos = (Integer) args[1];
+        sentChunks.add(new String(Arrays.copyOfRange(bytes, pos, pos + (Integer) args[2])));
+        return null;
+      }
+    }).when(domain).exportLDIFEntry(any(byte[].class), anyInt(), anyInt());
+    return domain;
+  }
+
+  /** More chunks than the stream can hold are written: they are all sent, in order, when the stream is closed. */
+  @Test(timeOut = 10000)
+  public void testCloseSendsAllTheChunksInOrder() throws Exception
+  {
+    List<String> sentChunks = Collections.synchronizedList(new ArrayList<String>());
+    ReplOutputStream output = new ReplOutputStream(newDomain(sentChunks));
+
+    List<String> writtenChunks = new ArrayList<>();
+    byte[] buffer = new byte[20];
+    for (int i = 0; i < 1000; i++)
+    {
+      byte[] chunk = ("dn: o=" + i + "\n\n").getBytes();
+      // the stream must copy the chunk since the buffer is reused
+      System.arraycopy(chunk, 0, buffer, 1, chunk.length);
+      output.write(buffer, 1, chunk.length);
+      writtenChunks.add(new String(chunk));
+    }
+    output.close();
+
+    assertThat(sentChunks).isEqualTo(writtenChunks);
+  }
+
+  @Test(timeOut = 10000)
+  public void testSendErrorIsReportedToTheWriter() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    doThrow(new IOException("send failed")).when(domain).exportLDIFEntry(any(byte[].class), anyInt(), anyInt());
+
+    ReplOutputStream output = new ReplOutputStream(domain);
+    byte[] chunk = "dn: o=a\n\n".getBytes();
+    try
+    {
+      for (int i = 0; i < 1000; i++)
+      {
+        output.write(chunk, 0, chunk.length);
+      }
+      output.close();
+      fail("Expected the send error to be reported");
+    }
+    catch (IOException e)
+    {
+      assertThat(e.getMessage()).isEqualTo("send failed");
+    }
+    finally
+    {
+      output.abort();
+    }
+  }
+
+  @Test(timeOut = 10000)
+  public void testRuntimeExceptionWhileSendingIsReportedToTheWriter() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    doThrow(new IllegalStateException("send failed"))
+        .when(domain).exportLDIFEntry(any(byte[].class), anyInt(), anyInt());
+
+    assertThatExportFails(new ReplOutputStream(domain), IllegalStateException.class);
+  }
+
+  /** An export whose sender died must neither block the writer nor look successful. */
+  @Test(timeOut = 10000)
+  public void testSenderDeathIsReportedToTheWriter() throws Exception
+  {
+    ReplicationDomain domain = mock(ReplicationDomain.class);
+    doThrow(new AssertionError("sender died")).when(domain).exportLDIFEntry(any(byte[].class), anyInt(), anyInt());
+
+    assertThatExportFails(new ReplOutputStream(domain), null);
+  }
+
+  private static void assertThatExportFails(ReplOutputStream output, Class<? extends Throwable> expectedCause)
+      throws Exception
+  {
+    byte[] chunk = "dn: o=a\n\n".getBytes();
+    try
+    {
+      for (int i = 0; i < 1000; i++)
+      {
+        output.write(chunk, 0, chunk.length);
+      }
+      output.close();
+      fail("Expected the send error to be reported");
+    }
+    catch (IOException e)
+    {
+      if (expectedCause != null)
+      {
+        assertThat(e.getCause()).isInstanceOf(expectedCause);
+      }
+    }
+    finally
+    {
+      output.abort();
+    }
+  }
+
+  @Test(timeOut = 10000)
+  public void testAbortStopsSending() throws Exception
+  {
+    List<String> sentChunks = Collections.synchronizedList(new ArrayList<String>());
+    ReplOutputStream output = new ReplOutputStream(newDomain(sentChunks));
+    byte[] chunk = "dn: o=a\n\n".getBytes();
+    output.write(chunk, 0, chunk.length);
+
+    output.abort();
+    int sentBeforeAbort = sentChunks.size();
+    try
+    {
+      output.write(chunk, 0, chunk.length);
+      fail("Expected the aborted stream to be closed");
+    }
+    catch (IOException expected)
+    {
+      // nothing to do
+    }
+    assertThat(sentChunks).hasSize(sentBeforeAbort);
+  }
+}
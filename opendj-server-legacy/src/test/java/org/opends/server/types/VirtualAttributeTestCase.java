@@ -12,14 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
- * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2011-2016, 2026 ForgeRock AS.
  */
 package org.opends.server.types;
 
 import static org.testng.Assert.*;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
@@ -29,6 +31,8 @@ import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn.ConflictBehavior;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.api.VirtualAttributeProvider.Dependency;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.extensions.EntryDNVirtualAttributeProvider;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -164,5 +168,95 @@ public class VirtualAttributeTestCase
     assertNotNull(vattrString);
     assertTrue(vattrString.length() > 0);
   }
-}
 
+
+  /** An entryDN provider counting the generations of its values. */
+  private static final class CountingVirtualAttributeProvider
+          extends EntryDNVirtualAttributeProvider
+  {
+    private final Set<Dependency> dependencies;
+    private int generations;
+
+    private CountingVirtualAttributeProvider(Set<Dependency> dependencies)
+    {
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public Set<Dependency> getDependencies()
+    {
+      return dependencies;
+    }
+
+    @Override
+    public Attribute getValues(Entry entry, VirtualAttributeRule rule)
+    {
+      generations++;
+      return super.getValues(entry, rule);
+    }
+  }
+
+  private VirtualAttribute newVirtualAttribute(
+      CountingVirtualAttributeProvider provider) throws Exception
+  {
+    VirtualAttributeRule rule = new VirtualAttributeRule(entryDNType, provider,
+                                    Collections.<DN>emptySet(),
+                                    SearchScope.WHOLE_SUBTREE,
+                                    Collections.<DN>emptySet(),
+                                    Collections.<SearchFilter>emptySet(),
+                                    ConflictBehavior.VIRTUAL_OVERRIDES_REAL);
+    Entry entry = TestCaseUtils.makeEntry(
+      "dn: o=test",
+      "objectClass: top",
+      "objectClass: organization",
+      "o: test");
+    return new VirtualAttribute(entryDNType, entry, rule);
+  }
+
+
+
+  /**
+   * Tests that the values generated by a provider declaring its dependencies
+   * are kept until one of the dependencies changes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testGeneratedValuesAreKept()
+         throws Exception
+  {
+    CountingVirtualAttributeProvider provider = new CountingVirtualAttributeProvider(
+        EnumSet.of(Dependency.ENTRY, Dependency.SUBORDINATES));
+    VirtualAttribute attribute = newVirtualAttribute(provider);
+
+    assertEquals(attribute.size(), 1);
+    assertEquals(attribute.iterator().next(), ByteString.valueOfUtf8("o=test"));
+    assertTrue(attribute.contains(ByteString.valueOfUtf8("o=test")));
+    assertFalse(attribute.isEmpty());
+    assertEquals(provider.generations, 1);
+
+    DirectoryServer.virtualAttributeSubordinatesChanged();
+    assertEquals(attribute.size(), 1);
+    assertEquals(provider.generations, 2);
+  }
+
+
+
+  /**
+   * Tests that the values generated by a provider which does not declare its
+   * dependencies are generated each time they are accessed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testGeneratedValuesWithoutDependencies()
+         throws Exception
+  {
+    CountingVirtualAttributeProvider provider = new CountingVirtualAttributeProvider(null);
+    VirtualAttribute attribute = newVirtualAttribute(provider);
+
+    assertEquals(attribute.iterator().next(), ByteString.valueOfUtf8("o=test"));
+    assertEquals(attribute.iterator().next(), ByteString.valueOfUtf8("o=test"));
+    assertEquals(provider.generations, 2);
+  }
+}
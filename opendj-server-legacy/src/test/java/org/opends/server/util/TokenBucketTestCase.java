@@ -0,0 +1,80 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 ForgeRock AS.
+ */
+package org.opends.server.util;
+
+import static org.fest.assertions.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/** Tests for {@link TokenBucket}. */
+@SuppressWarnings("javadoc")
+public class TokenBucketTestCase extends UtilTestCase
+{
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void bucketAllowsOneSecondBurst()
+  {
+    TokenBucket bucket = new TokenBucket(10, 0);
+    for (int i = 0; i < 10; i++)
+    {
+      assertThat(bucket.tryConsume(1, 0)).isTrue();
+    }
+    assertThat(bucket.tryConsume(1, 0)).isFalse();
+    assertThat(bucket.hasTokens(0)).isFalse();
+  }
+
+  @Test
+  public void bucketIsRefilledAtConfiguredRate()
+  {
+    TokenBucket bucket = new TokenBucket(10, 0);
+    assertThat(bucket.tryConsume(10, 0)).isTrue();
+
+    assertThat(bucket.tryConsume(1, ONE_SECOND / 20)).isFalse();
+    assertThat(bucket.tryConsume(1, ONE_SECOND / 10)).isTrue();
+    assertThat(bucket.tryConsume(1, ONE_SECOND / 10)).isFalse();
+
+    // Never holds more than one second worth of tokens
+    assertThat(bucket.tryConsume(11, 10 * ONE_SECOND)).isFalse();
+    assertThat(bucket.tryConsume(10, 10 * ONE_SECOND)).isTrue();
+  }
+
+  @Test
+  public void consumePutsBucketIntoDebt()
+  {
+    TokenBucket bucket = new TokenBucket(100, 0);
+    bucket.consume(150, 0);
+    assertThat(bucket.hasTokens(0)).isFalse();
+    assertThat(bucket.hasTokens(ONE_SECOND / 2)).isFalse();
+    assertThat(bucket.hasTokens(ONE_SECOND / 2 + ONE_SECOND / 100)).isTrue();
+  }
+
+  @Test
+  public void debtIsBounded()
+  {
+    TokenBucket bucket = new TokenBucket(100, 0);
+    bucket.consume(Long.MAX_VALUE / 2, 0);
+    assertThat(bucket.hasTokens(ONE_SECOND * 2)).isTrue();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rateMustBePositive()
+  {
+    new TokenBucket(0);
+  }
+}